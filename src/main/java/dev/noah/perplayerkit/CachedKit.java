@@ -0,0 +1,241 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.util.ItemStackInterner;
+import dev.noah.perplayerkit.util.Serializer;
+import dev.noah.perplayerkit.util.Settings;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.IOException;
+
+/**
+ * A single entry of the kit cache.
+ * <p>
+ * Entries read from storage only keep the serialized Base64 data and are
+ * decoded (and run through the {@link ItemFilter}) the first time their
+ * contents are actually needed, e.g. when the kit is loaded, edited or
+ * inspected. Entries created in-game start out decoded.
+ * <p>
+ * Decoded contents are interned through {@link ItemStackInterner} and shared
+ * between kits, so they must be treated as read-only.
+ * <p>
+ * Each entry tracks whether it differs from storage: a dirty flag plus a
+ * fingerprint of the data last read from or written to storage. Saves of
+ * clean entries, or of entries whose data serializes to what is already
+ * stored, are skipped.
+ * <p>
+ * Entries also carry an approximate weight, the length of their serialized
+ * form, which bounds how much memory cached kits of offline players use.
+ * <p>
+ * Changing a kit always replaces its entry, so anything derived from the
+ * contents, like the regear template, is cached on the entry itself.
+ */
+final class CachedKit {
+
+    static final long NO_FINGERPRINT = 0L;
+    // Rough serialized size of one stack, used until an entry has been serialized
+    static final int ESTIMATED_ITEM_WEIGHT = 256;
+
+    private String serialized;
+    private volatile ItemStack[] contents;
+    private boolean corrupt;
+    private volatile boolean dirty;
+    private volatile long persistedFingerprint;
+    private volatile int weight;
+    private volatile RegearCache regear;
+
+    private CachedKit(String serialized, ItemStack[] contents, boolean dirty, long persistedFingerprint, int weight) {
+        this.serialized = serialized;
+        this.contents = contents;
+        this.dirty = dirty;
+        this.persistedFingerprint = persistedFingerprint;
+        this.weight = weight;
+    }
+
+    /**
+     * An entry as read from storage.
+     */
+    static CachedKit ofSerialized(String serialized) {
+        return new CachedKit(serialized, null, false, fingerprint(serialized), serialized.length());
+    }
+
+    /**
+     * An entry changed in-game, replacing {@code previous} (may be null).
+     * It inherits the fingerprint of what is stored, so saving contents
+     * identical to the stored ones doesn't cause a write. If {@code previous}
+     * is dirty its write may already be under way, so what ends up stored is
+     * unknown and the new entry is always written.
+     */
+    static CachedKit ofContents(ItemStack[] contents, CachedKit previous) {
+        long stored = previous == null || previous.dirty ? NO_FINGERPRINT : previous.persistedFingerprint;
+        int weight = previous == null ? estimateWeight(contents) : previous.weight;
+        // Copy the array so later changes by the caller don't leak into the cache
+        return new CachedKit(null, ItemStackInterner.internAll(contents.clone()), true, stored, weight);
+    }
+
+    /**
+     * An entry whose contents were just written to storage by someone else,
+     * e.g. an item purge.
+     */
+    static CachedKit ofPersistedContents(ItemStack[] contents) {
+        return new CachedKit(null, ItemStackInterner.internAll(contents.clone()), false, NO_FINGERPRINT, estimateWeight(contents));
+    }
+
+    /**
+     * Whether the contents have already been materialized.
+     */
+    boolean isDecoded() {
+        return contents != null;
+    }
+
+    /**
+     * Returns the decoded contents, decoding them on first use.
+     *
+     * @return the kit contents, or null if the stored data could not be decoded
+     */
+    ItemStack[] contents() {
+        ItemStack[] decoded = contents;
+        if (decoded != null) {
+            return decoded;
+        }
+
+        synchronized (this) {
+            if (contents == null && !corrupt) {
+                try {
+                    ItemStack[] kit = ItemFilter.get().filterItemStack(Serializer.itemStackArrayFromBase64(serialized));
+                    contents = ItemStackInterner.internAll(kit);
+                    // The decoded array is now the source of truth
+                    serialized = null;
+                } catch (IOException | RuntimeException e) {
+                    corrupt = true;
+                }
+            }
+            return contents;
+        }
+    }
+
+    /**
+     * Returns the stacks regear restores from this kit, building them on
+     * first use and again only when the settings change.
+     *
+     * @return the template, or null if the stored data could not be decoded
+     */
+    ItemStack[] regearTemplate(Settings settings) {
+        RegearCache cached = regear;
+        if (cached != null && cached.settings() == settings) {
+            return cached.template();
+        }
+
+        ItemStack[] kit = contents();
+        if (kit == null) {
+            return null;
+        }
+        ItemStack[] template = RegearTemplate.build(kit, settings);
+        regear = new RegearCache(settings, template);
+        return template;
+    }
+
+    /**
+     * Returns the data to write back to storage. Entries that were never
+     * decoded are written back unchanged without a decode/encode round trip.
+     */
+    String serialize() {
+        synchronized (this) {
+            if (contents == null) {
+                return corrupt ? null : serialized;
+            }
+        }
+        return Serializer.itemStackArrayToBase64(ItemFilter.get().filterItemStack(contents));
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Returns the data that needs to be written to storage, or null if the
+     * stored copy is already up to date. Unchanged entries are not serialized.
+     */
+    String pendingWrite() {
+        if (!dirty) {
+            return null;
+        }
+
+        String data = serialize();
+        if (data == null) {
+            return null;
+        }
+        if (fingerprint(data) == persistedFingerprint) {
+            // Saved without actually changing anything
+            dirty = false;
+            return null;
+        }
+        return data;
+    }
+
+    /**
+     * Called when the stored copy was rewritten by someone else while this
+     * entry has unsaved changes, so its write goes through even if it
+     * matches what used to be stored.
+     */
+    void forgetPersisted() {
+        persistedFingerprint = NO_FINGERPRINT;
+    }
+
+    void markPersisted(String data) {
+        persistedFingerprint = fingerprint(data);
+        weight = data.length();
+        dirty = false;
+    }
+
+    /**
+     * Approximate memory footprint: the length of the serialized data, or an
+     * estimate if the entry hasn't been serialized yet.
+     */
+    int weight() {
+        return weight;
+    }
+
+    private static int estimateWeight(ItemStack[] contents) {
+        int weight = 0;
+        for (ItemStack item : contents) {
+            if (item != null) {
+                weight += ESTIMATED_ITEM_WEIGHT;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the serialized data.
+     */
+    static long fingerprint(String data) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < data.length(); i++) {
+            hash ^= data.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // Keep the "unknown" sentinel free
+        return hash == NO_FINGERPRINT ? 1L : hash;
+    }
+
+    private record RegearCache(Settings settings, ItemStack[] template) {
+    }
+}
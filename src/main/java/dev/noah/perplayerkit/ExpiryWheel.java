@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A hashed timing wheel: timers are spread over a fixed ring of buckets by
+ * their deadline, and each {@link #advance()} only looks at the bucket the
+ * cursor moves onto. Scheduling, cancelling and advancing cost the same no
+ * matter how many timers are pending, so a single repeating task can expire
+ * any number of them.
+ * <p>
+ * Delays are in ticks of the wheel, i.e. calls to {@link #advance()}.
+ * Delays longer than the ring wait for additional rounds in their bucket.
+ */
+final class ExpiryWheel<K> {
+
+    private final List<Set<K>> buckets;
+    private final Map<K, Timer> timers = new HashMap<>();
+    private int cursor;
+
+    ExpiryWheel(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Wheel size must be at least 1");
+        }
+        buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new LinkedHashSet<>());
+        }
+    }
+
+    /**
+     * Schedules the key to expire after the given number of ticks, replacing
+     * a timer it already has. Delays below one tick expire on the next one.
+     */
+    synchronized void schedule(K key, long delay) {
+        cancel(key);
+        long ticks = Math.max(1, delay);
+        int bucket = (int) ((cursor + ticks) % buckets.size());
+        timers.put(key, new Timer(bucket, (ticks - 1) / buckets.size()));
+        buckets.get(bucket).add(key);
+    }
+
+    /**
+     * @return false if the key had no timer
+     */
+    synchronized boolean cancel(K key) {
+        Timer timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        buckets.get(timer.bucket).remove(key);
+        return true;
+    }
+
+    /**
+     * Moves the wheel one tick forward.
+     *
+     * @return the keys that expired, in the order they were scheduled
+     */
+    synchronized List<K> advance() {
+        cursor = (cursor + 1) % buckets.size();
+        List<K> expired = new ArrayList<>();
+        buckets.get(cursor).removeIf(key -> {
+            Timer timer = timers.get(key);
+            if (timer.rounds > 0) {
+                timer.rounds--;
+                return false;
+            }
+            timers.remove(key);
+            expired.add(key);
+            return true;
+        });
+        return expired;
+    }
+
+    synchronized int size() {
+        return timers.size();
+    }
+
+    private static final class Timer {
+        private final int bucket;
+        private long rounds;
+
+        private Timer(int bucket, long rounds) {
+            this.bucket = bucket;
+            this.rounds = rounds;
+        }
+    }
+}
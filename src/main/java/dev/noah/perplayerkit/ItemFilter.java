@@ -18,10 +18,8 @@
  */
 package dev.noah.perplayerkit;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.block.Container;
-import org.bukkit.block.ShulkerBox;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BlockStateMeta;
@@ -31,21 +29,41 @@ import org.bukkit.plugin.Plugin;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Strips items that aren't in the kit room (or are otherwise unsafe) from
+ * kits when {@code anti-exploit.only-allow-kitroom-items} is enabled. Runs on
+ * every kit read from and written to storage.
+ * <p>
+ * Plain items are checked against an {@link EnumSet} without touching their
+ * meta. Items with meta (enchantments, shulker contents, bundles) need
+ * copies of their meta and, for containers, a block state round trip, so the
+ * outcome for those is memoized per distinct item until the whitelist
+ * changes.
+ */
 public class ItemFilter {
 
+    // Bounds the memo; kits share most of their items so this is rarely hit
+    private static final int MAX_MEMOIZED = 4096;
 
-    public static Set<String> whitelist;
+    private static volatile Set<Material> whitelist = EnumSet.noneOf(Material.class);
     private static ItemFilter instance;
 
+    // Filtered replacement per item with meta; empty if the item is removed.
+    // Keys and values are copies, since stacks passed in may be live
+    // inventory items, and are shared between kits, so read-only.
+    // Replaced whenever the whitelist changes.
+    private volatile Map<ItemStack, Optional<ItemStack>> memo = new ConcurrentHashMap<>();
     private Plugin plugin;
     private boolean isEnabled;
 
     public ItemFilter(Plugin plugin) {
-        whitelist = new HashSet<>();
         this.plugin = plugin;
         instance = this;
         isEnabled = plugin.getConfig().getBoolean("anti-exploit.only-allow-kitroom-items",false);
@@ -59,72 +77,103 @@ public class ItemFilter {
     }
 
 
+    /**
+     * Returns a filtered copy of the input. Items of the input array are never
+     * modified, since they may be shared with the kit cache.
+     */
     public ItemStack[] filterItemStack(ItemStack[] input) {
 
         if(!isEnabled){
             return input;
         }
 
+        // Read before the whitelist, so verdicts computed against an outdated
+        // whitelist only ever end up in a memo that is already discarded
+        Map<ItemStack, Optional<ItemStack>> verdicts = memo;
         ItemStack[] output = input.clone();
-        for (ItemStack item : output) {
-            if (!isSafe(item)) {
-                item.setType(Material.AIR);
-                //item = null;
+        for (int i = 0; i < output.length; i++) {
+            ItemStack item = output[i];
+            if (item == null) {
+                continue;
             }
 
-
-            if (item != null) {
-
-                if (item.getItemMeta() instanceof BlockStateMeta blockStateMeta) {
-                    if (blockStateMeta.getBlockState() instanceof Container container) {
-                        container.getInventory().setContents(filterItemStack(container.getInventory().getContents()));
-                        blockStateMeta.setBlockState(container);
-                        item.setItemMeta(blockStateMeta);
-                    }
+            if (!item.hasItemMeta()) {
+                if (!isSafeWithoutMeta(item)) {
+                    output[i] = null;
                 }
+                continue;
+            }
 
-                // Handle bundles
-                if (item.getItemMeta() instanceof BundleMeta bundleMeta) {
-                    List<ItemStack> bundleItems = bundleMeta.getItems();
-                    if (!bundleItems.isEmpty()) {
-                        List<ItemStack> filteredItems = new ArrayList<>();
-                        for (ItemStack bundleItem : bundleItems) {
-                            if (isSafe(bundleItem)) {
-                                filteredItems.add(bundleItem);
-                            }
-                        }
-                        bundleMeta.setItems(filteredItems);
-                        item.setItemMeta(bundleMeta);
-                    }
+            Optional<ItemStack> filtered = verdicts.get(item);
+            if (filtered == null) {
+                // Filter the copy, so an item that passes unchanged is never the live stack
+                ItemStack key = item.clone();
+                filtered = Optional.ofNullable(filterItemWithMeta(key));
+                if (verdicts.size() >= MAX_MEMOIZED) {
+                    verdicts.clear();
                 }
+                verdicts.put(key, filtered);
             }
-
-
+            output[i] = filtered.orElse(null);
         }
 
 
         return output;
     }
 
-    public static boolean isSafe(ItemStack i) {
+    /**
+     * Filters a single item that has meta, returning null if the item
+     * itself is not allowed.
+     */
+    private ItemStack filterItemWithMeta(ItemStack item) {
+        if (!isSafe(item)) {
+            return null;
+        }
 
-        if (i != null) {
-            if (!(whitelist.contains(i.getType().toString()))) {
-                return false;
+        ItemMeta meta = item.getItemMeta();
+        if (meta instanceof BlockStateMeta blockStateMeta) {
+            if (blockStateMeta.getBlockState() instanceof Container container) {
+                container.getInventory().setContents(filterItemStack(container.getInventory().getContents()));
+                blockStateMeta.setBlockState(container);
+                item = item.clone();
+                item.setItemMeta(blockStateMeta);
             }
-            if (i.getAmount() != -1) {
-                if (i.getAmount() > i.getMaxStackSize()) {
-                    return false;
+        }
+
+        // Handle bundles
+        if (meta instanceof BundleMeta bundleMeta) {
+            List<ItemStack> bundleItems = bundleMeta.getItems();
+            if (!bundleItems.isEmpty()) {
+                List<ItemStack> filteredItems = new ArrayList<>();
+                for (ItemStack bundleItem : bundleItems) {
+                    if (isSafe(bundleItem)) {
+                        filteredItems.add(bundleItem);
+                    }
                 }
+                bundleMeta.setItems(filteredItems);
+                item = item.clone();
+                item.setItemMeta(bundleMeta);
             }
-            for (Enchantment e : i.getEnchantments().keySet()) {
-                if (i.getEnchantmentLevel(e) > e.getMaxLevel()) {
-                    return false;
-                }
+        }
+        return item;
+    }
+
+    public static boolean isSafe(ItemStack i) {
 
+        if (i != null) {
+            if (!isSafeWithoutMeta(i)) {
+                return false;
             }
 
+            // Enchantments, attributes and flags all live in the meta
             if (i.hasItemMeta()) {
+                for (Enchantment e : i.getEnchantments().keySet()) {
+                    if (i.getEnchantmentLevel(e) > e.getMaxLevel()) {
+                        return false;
+                    }
+
+                }
+
                 ItemMeta meta = i.getItemMeta();
                 if (meta != null && meta.hasAttributeModifiers()) {
                     return false;
@@ -137,18 +186,61 @@ public class ItemFilter {
         return true;
     }
 
+    private static boolean isSafeWithoutMeta(ItemStack i) {
+        if (!whitelist.contains(i.getType())) {
+            return false;
+        }
+        return i.getAmount() == -1 || i.getAmount() <= i.getMaxStackSize();
+    }
+
     public void addToWhitelist(Collection<ItemStack[]> items) {
+        Set<Material> updated = EnumSet.noneOf(Material.class);
+        updated.addAll(whitelist);
+        addMaterials(updated, items);
+        setWhitelist(updated);
+    }
+
+    /**
+     * Replaces the whitelist in one step, so kits filtered concurrently never
+     * see it empty in between.
+     *
+     * @return the materials that were allowed before but no longer are
+     */
+    public Set<Material> replaceWhitelist(Collection<ItemStack[]> items) {
+        Set<Material> updated = EnumSet.noneOf(Material.class);
+        addMaterials(updated, items);
+        Set<Material> removed = EnumSet.noneOf(Material.class);
+        removed.addAll(whitelist);
+        removed.removeAll(updated);
+        setWhitelist(updated);
+        return removed;
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    public boolean isWhitelisted(Material material) {
+        return whitelist.contains(material);
+    }
+
+    public void clearWhitelist() {
+        setWhitelist(EnumSet.noneOf(Material.class));
+    }
+
+    private static void addMaterials(Set<Material> materials, Collection<ItemStack[]> items) {
         for (ItemStack[] itemStacks : items) {
             for (ItemStack item : itemStacks) {
                 if (item != null) {
-                    whitelist.add(item.getType().toString());
+                    materials.add(item.getType());
                 }
             }
         }
     }
 
-    public void clearWhitelist() {
-        whitelist.clear();
+    private void setWhitelist(Set<Material> materials) {
+        whitelist = materials;
+        memo = new ConcurrentHashMap<>();
     }
 
 
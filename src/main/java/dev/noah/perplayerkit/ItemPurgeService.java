@@ -18,42 +18,51 @@
  */
 package dev.noah.perplayerkit;
 
+import dev.noah.perplayerkit.storage.MaterialIndex;
 import dev.noah.perplayerkit.storage.StorageManager;
-import dev.noah.perplayerkit.util.KitSlots;
-import dev.noah.perplayerkit.util.Serializer;
+import dev.noah.perplayerkit.util.IDUtil;
 import org.bukkit.Material;
-import org.bukkit.inventory.ItemStack;
 
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Deletes a specific item type from stored kits and ender chests.
  * <p>
- * Kits are stored as serialized blobs in every backend (SQLite, MySQL,
- * PostgreSQL, Redis, YAML), so the purge works the same way everywhere:
- * enumerate the entry IDs, deserialize each entry, strip the item (including
- * inside shulker boxes, other container items, and bundles via
- * {@link ItemPurger}), and write the result back. Entries that end up empty
- * are deleted, and cached copies for online players are refreshed.
+ * A purge is a {@link KitTransformService} run with a single remove rule,
+ * limited to per-player entries: every entry is deserialized, the item is
+ * stripped (including inside shulker boxes, other container items, and
+ * bundles), and the result is written back a page at a time. Entries that
+ * end up empty are deleted, and cached copies for online players are
+ * refreshed. Given a complete material index, only the entries it lists for
+ * the item are read.
  */
 public class ItemPurgeService {
 
-    private static final Pattern UUID_PATTERN =
-            Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
-    private static final int UUID_LENGTH = 36;
+    private static final int PAGE_SIZE = 100;
 
     private final StorageManager storage;
     private final KitManager kitManager;
+    private final MaterialIndex index;
 
     public ItemPurgeService(StorageManager storage, KitManager kitManager) {
+        this(storage, kitManager, null);
+    }
+
+    /**
+     * @param index a complete material index to find the affected entries
+     *              with, or null to check every entry
+     */
+    public ItemPurgeService(StorageManager storage, KitManager kitManager, MaterialIndex index) {
         this.storage = storage;
         this.kitManager = kitManager;
+        this.index = index;
     }
 
     /**
@@ -61,98 +70,82 @@ public class ItemPurgeService {
      * database, regardless of whether the owning players are online.
      */
     public PurgeResult purgeAllPlayers(Material target, Consumer<String> progress) {
-        List<String> ids = storage.getAllKitIDs().stream()
-                .filter(ItemPurgeService::isPlayerDataId)
-                .sorted()
-                .toList();
-        return purgeEntries(ids, target, progress);
+        return purgeEntries(findEntries(target, null), target, progress);
     }
 
     /**
      * Purges the material from all kit and ender chest slots of the given players.
      */
     public PurgeResult purgePlayers(Material target, Collection<UUID> players, Consumer<String> progress) {
-        Set<String> uuids = players.stream().map(UUID::toString).collect(Collectors.toSet());
-        List<String> ids = storage.getAllKitIDs().stream()
-                .filter(ItemPurgeService::isPlayerDataId)
-                .filter(id -> uuids.contains(id.substring(0, UUID_LENGTH)))
-                .sorted()
-                .toList();
-        return purgeEntries(ids, target, progress);
+        return purgeEntries(findEntries(target, players), target, progress);
     }
 
-    private PurgeResult purgeEntries(List<String> ids, Material target, Consumer<String> progress) {
-        int scanned = 0;
-        int modified = 0;
-        int deleted = 0;
-        int itemsRemoved = 0;
-        int failed = 0;
-
-        int processed = 0;
-        for (String id : ids) {
-            processed++;
-            try {
-                String data = storage.getKitDataByID(id);
-                if (data == null || data.equalsIgnoreCase("error")) {
-                    continue;
-                }
-                scanned++;
-
-                ItemStack[] contents = Serializer.itemStackArrayFromBase64(data);
-                int removed = ItemPurger.purgeContents(contents, target);
-                if (removed == 0) {
-                    continue;
-                }
+    /**
+     * Lists the entries a purge has to check, sorted by ID.
+     *
+     * @param players the players whose entries to list, or null for all players
+     */
+    public List<String> findEntries(Material target, Collection<UUID> players) {
+        Set<UUID> targets = players == null ? null : new HashSet<>(players);
+        return transformService(target).findEntries(id -> {
+            IDUtil.PlayerDataId playerDataId = IDUtil.parsePlayerDataId(id);
+            return playerDataId != null && (targets == null || targets.contains(playerDataId.uuid()));
+        });
+    }
 
-                itemsRemoved += removed;
-                modified++;
-                if (ItemPurger.isEmpty(contents)) {
-                    // The plugin never stores fully empty kits, so drop the entry
-                    // instead of keeping a blob that would load as an empty inventory.
-                    storage.deleteKitByID(id);
-                    kitManager.updateCachedKit(id, null);
-                    deleted++;
-                } else {
-                    storage.saveKitDataByID(id, Serializer.itemStackArrayToBase64(contents));
-                    kitManager.updateCachedKit(id, contents);
-                }
-            } catch (Exception e) {
-                failed++;
-                if (progress != null) {
-                    progress.accept("Failed to process entry " + id + ": " + e.getMessage());
+    private PurgeResult purgeEntries(List<String> ids, Material target, Consumer<String> progress) {
+        PurgeResult total = PurgeResult.NONE;
+        ExecutorService workers = newWorkerPool();
+        try {
+            for (int start = 0; start < ids.size(); start += PAGE_SIZE) {
+                List<String> page = ids.subList(start, Math.min(start + PAGE_SIZE, ids.size()));
+                total = total.plus(purgeBatch(page, target, workers, progress));
+
+                if (progress != null && page.size() == PAGE_SIZE) {
+                    progress.accept("Progress: " + (start + page.size()) + "/" + ids.size() + " entries processed...");
                 }
             }
-
-            if (progress != null && processed % 100 == 0) {
-                progress.accept("Progress: " + processed + "/" + ids.size() + " entries processed...");
-            }
+        } finally {
+            workers.shutdownNow();
         }
+        return total;
+    }
 
-        return new PurgeResult(scanned, modified, deleted, itemsRemoved, failed);
+    /**
+     * Pool to pass to {@link #purgeBatch}; the caller shuts it down.
+     */
+    public static ExecutorService newWorkerPool() {
+        return KitTransformService.newWorkerPool();
+    }
+
+    /**
+     * Purges a batch of entries as listed by {@link #findEntries}. The batch
+     * is read in one round trip and written back in one batch, so callers
+     * that pace themselves should pass at most a page of entries at a time.
+     *
+     * @param progress receives a message for each entry that fails (can be null)
+     */
+    public PurgeResult purgeBatch(List<String> ids, Material target, ExecutorService workers, Consumer<String> progress) {
+        KitTransformService.TransformResult result = transformService(target).transformBatch(ids, workers, progress);
+        return new PurgeResult(result.scanned(), result.modified(), result.deleted(),
+                (int) result.tally().items(0), result.failed());
+    }
+
+    private KitTransformService transformService(Material target) {
+        KitTransformer transformer = new KitTransformer(List.of(TransformRules.remove(EnumSet.of(target))));
+        return new KitTransformService(storage, kitManager, transformer, index, false);
     }
 
     /**
      * Matches per-player entries only: kit IDs ({@code <uuid><slot>}) and ender
      * chest IDs ({@code <uuid>ec<slot>}). Public kits and the kit room are
      * intentionally excluded — those are admin-managed via /savepublickit and
-     * /kitroom.
+     * /kitroom. Slots are bounded by the absolute KitSlots.MAX_LIMIT,
+     * deliberately not the configured max-kits: the database may hold kits
+     * above a lowered limit and purging must still reach them.
      */
     static boolean isPlayerDataId(String id) {
-        if (id == null || id.length() < UUID_LENGTH + 1) {
-            return false;
-        }
-        if (!UUID_PATTERN.matcher(id.substring(0, UUID_LENGTH)).matches()) {
-            return false;
-        }
-
-        String suffix = id.substring(UUID_LENGTH);
-        if (suffix.startsWith("ec")) {
-            suffix = suffix.substring(2);
-        }
-        // Bounded by the absolute KitSlots.MAX_LIMIT, deliberately not the
-        // configured max-kits: the database may hold kits above a lowered
-        // limit and purging must still reach them.
-        return KitSlots.parseSlotSuffix(suffix) != null;
+        return IDUtil.parsePlayerDataId(id) != null;
     }
 
     /**
@@ -162,5 +155,12 @@ public class ItemPurgeService {
      * amounts included).
      */
     public record PurgeResult(int scanned, int modified, int deleted, int itemsRemoved, int failed) {
+
+        public static final PurgeResult NONE = new PurgeResult(0, 0, 0, 0, 0);
+
+        public PurgeResult plus(PurgeResult other) {
+            return new PurgeResult(scanned + other.scanned, modified + other.modified, deleted + other.deleted,
+                    itemsRemoved + other.itemsRemoved, failed + other.failed);
+        }
     }
 }
@@ -26,10 +26,13 @@ import org.bukkit.inventory.meta.BundleMeta;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
 
 /**
- * Removes every occurrence of a material from an item stack array, including
+ * Removes every occurrence of one or more materials from an item stack array, including
  * items nested inside shulker boxes of any color, any other container block
  * stored as an item (chests, barrels, dispensers, ...), and bundles.
  */
@@ -44,6 +47,15 @@ public final class ItemPurger {
      * @return the total number of items removed, counting stack amounts
      */
     public static int purgeContents(ItemStack[] contents, Material target) {
+        return purgeContents(contents, EnumSet.of(target));
+    }
+
+    /**
+     * Removes all items of any of the given materials from the array (in place).
+     *
+     * @return the total number of items removed, counting stack amounts
+     */
+    public static int purgeContents(ItemStack[] contents, Set<Material> targets) {
         if (contents == null) {
             return 0;
         }
@@ -54,17 +66,17 @@ public final class ItemPurger {
             if (item == null) {
                 continue;
             }
-            if (item.getType() == target) {
+            if (targets.contains(item.getType())) {
                 removed += item.getAmount();
                 contents[i] = null;
                 continue;
             }
-            removed += purgeNested(item, target);
+            removed += purgeNested(item, targets);
         }
         return removed;
     }
 
-    private static int purgeNested(ItemStack item, Material target) {
+    private static int purgeNested(ItemStack item, Set<Material> targets) {
         ItemMeta meta = item.getItemMeta();
         if (meta == null) {
             return 0;
@@ -76,7 +88,7 @@ public final class ItemPurger {
         if (meta instanceof BlockStateMeta blockStateMeta
                 && blockStateMeta.getBlockState() instanceof Container container) {
             ItemStack[] inner = container.getInventory().getContents();
-            int innerRemoved = purgeContents(inner, target);
+            int innerRemoved = purgeContents(inner, targets);
             if (innerRemoved > 0) {
                 container.getInventory().setContents(inner);
                 blockStateMeta.setBlockState(container);
@@ -92,11 +104,11 @@ public final class ItemPurger {
                 if (bundleItem == null) {
                     continue;
                 }
-                if (bundleItem.getType() == target) {
+                if (targets.contains(bundleItem.getType())) {
                     bundleRemoved += bundleItem.getAmount();
                     continue;
                 }
-                bundleRemoved += purgeNested(bundleItem, target);
+                bundleRemoved += purgeNested(bundleItem, targets);
                 kept.add(bundleItem);
             }
             if (bundleRemoved > 0) {
@@ -109,6 +121,39 @@ public final class ItemPurger {
         return removed;
     }
 
+    /**
+     * Calls the visitor for every item in the array, outermost first, including
+     * items nested inside container items and bundles. The depth is 0 for
+     * items directly in the array. Null and air slots are skipped.
+     */
+    public static void forEachItem(ItemStack[] contents, ObjIntConsumer<ItemStack> visitor) {
+        forEachItem(contents, visitor, 0);
+    }
+
+    private static void forEachItem(ItemStack[] contents, ObjIntConsumer<ItemStack> visitor, int depth) {
+        if (contents == null) {
+            return;
+        }
+        for (ItemStack item : contents) {
+            if (item == null || item.getType().isAir()) {
+                continue;
+            }
+            visitor.accept(item, depth);
+            if (!item.hasItemMeta()) {
+                continue;
+            }
+
+            ItemMeta meta = item.getItemMeta();
+            if (meta instanceof BlockStateMeta blockStateMeta
+                    && blockStateMeta.getBlockState() instanceof Container container) {
+                forEachItem(container.getInventory().getContents(), visitor, depth + 1);
+            }
+            if (meta instanceof BundleMeta bundleMeta) {
+                forEachItem(bundleMeta.getItems().toArray(new ItemStack[0]), visitor, depth + 1);
+            }
+        }
+    }
+
     /**
      * @return true when the array contains no items (only null or air slots)
      */
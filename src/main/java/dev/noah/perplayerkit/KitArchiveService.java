@@ -0,0 +1,241 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.storage.StorageManager;
+import dev.noah.perplayerkit.util.IDUtil;
+import dev.noah.perplayerkit.util.Serializer;
+import org.bukkit.plugin.Plugin;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Moves the kits and ender chests of players who haven't been seen for
+ * {@code archive.inactive-days} into a single compressed entry per player,
+ * see {@link KitArchive}, and puts them back the next time the player's
+ * data is loaded, whether for a join or for /inspectkit.
+ * <p>
+ * The archive is kept in the same storage as everything else, so
+ * migrations and backups carry it along, while the bulk jobs that read
+ * every stored kit (purges, transforms, reports and the material index)
+ * no longer have to go through inactive players.
+ */
+public class KitArchiveService {
+
+    // Archiving and restoring the same player must not interleave
+    private static final int LOCK_STRIPES = 64;
+
+    private static KitArchiveService instance;
+    private final Plugin plugin;
+    private final long inactiveMillis;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public KitArchiveService(Plugin plugin) {
+        this.plugin = plugin;
+        this.inactiveMillis = TimeUnit.DAYS.toMillis(Math.max(0, plugin.getConfig().getLong("archive.inactive-days", 0)));
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        instance = this;
+    }
+
+    public static KitArchiveService get() {
+        if (instance == null) {
+            throw new IllegalStateException("KitArchiveService has not been initialized yet!");
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return inactiveMillis > 0;
+    }
+
+    public long inactiveMillis() {
+        return inactiveMillis;
+    }
+
+    /**
+     * Records that the player was just seen. Only tracked while archiving is
+     * switched on.
+     */
+    public void recordSeen(UUID uuid) {
+        if (!isEnabled()) {
+            return;
+        }
+        PerPlayerKit.storageManager.saveKitDataByID(IDUtil.getLastSeenId(uuid), String.valueOf(System.currentTimeMillis()));
+    }
+
+    /**
+     * Puts the player's archived entries back, if they have any. Entries
+     * written since the player was archived take precedence. Checked even
+     * with archiving switched off, so switching it off never strands anyone's
+     * kits in the archive.
+     *
+     * @return whether anything was restored
+     */
+    public boolean restore(UUID uuid) {
+        StorageManager storage = PerPlayerKit.storageManager;
+        String archiveId = IDUtil.getArchiveId(uuid);
+        synchronized (lockFor(uuid)) {
+            String packed = storage.getKitDataByID(archiveId);
+            if (packed == null || packed.equalsIgnoreCase("error")) {
+                return false;
+            }
+
+            Map<String, String> entries;
+            try {
+                entries = KitArchive.unpack(packed);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not read the kit archive of " + uuid + ", leaving it in storage", e);
+                return false;
+            }
+            entries.keySet().removeAll(storage.getKitDataBatch(entries.keySet()).keySet());
+            if (!storage.saveKitDataBatch(entries)) {
+                plugin.getLogger().warning("Could not restore the archived kits of " + uuid + ", leaving the archive in storage");
+                return false;
+            }
+            storage.deleteKitByID(archiveId);
+            entries.forEach(this::recordIndexed);
+            plugin.getLogger().info("Restored " + entries.size() + " archived kits and ender chests of " + uuid);
+            return true;
+        }
+    }
+
+    /**
+     * Archives the stored kits and ender chests of the given players. Players
+     * whose data is in use on this server by the time their turn comes are
+     * skipped. Entries already in a player's archive are kept.
+     * <p>
+     * Each player's entries and last-seen time are read again right before
+     * packing, and players seen since they were picked, e.g. on another
+     * server sharing the storage, are skipped. That way only data the archive
+     * actually holds is deleted.
+     *
+     * @param players the players and the IDs of their stored entries
+     */
+    public ArchiveResult archive(Map<UUID, List<String>> players) {
+        StorageManager storage = PerPlayerKit.storageManager;
+        ArchiveResult result = ArchiveResult.none();
+        for (Map.Entry<UUID, List<String>> player : players.entrySet()) {
+            UUID uuid = player.getKey();
+            String archiveId = IDUtil.getArchiveId(uuid);
+            String lastSeenId = IDUtil.getLastSeenId(uuid);
+            synchronized (lockFor(uuid)) {
+                if (KitManager.get().isInUse(uuid)) {
+                    continue;
+                }
+
+                List<String> ids = new ArrayList<>(player.getValue());
+                ids.add(archiveId);
+                ids.add(lastSeenId);
+                Map<String, String> stored = storage.getKitDataBatch(ids);
+                if (!isInactive(stored.get(lastSeenId))) {
+                    continue;
+                }
+
+                Map<String, String> entries = new HashMap<>();
+                String existing = stored.get(archiveId);
+                try {
+                    if (existing != null) {
+                        entries.putAll(KitArchive.unpack(existing));
+                    }
+                } catch (IOException e) {
+                    plugin.getLogger().log(Level.WARNING, "Could not read the kit archive of " + uuid + ", not archiving more of their kits", e);
+                    result = result.plus(new ArchiveResult(0, 0, 0, 0, 1));
+                    continue;
+                }
+
+                List<String> archived = new ArrayList<>();
+                long size = 0;
+                for (String id : player.getValue()) {
+                    String data = stored.get(id);
+                    if (data != null) {
+                        entries.put(id, data);
+                        archived.add(id);
+                        size += data.length();
+                    }
+                }
+                if (archived.isEmpty()) {
+                    continue;
+                }
+
+                String packed = KitArchive.pack(entries);
+                // Written before the entries are deleted, so an interruption never loses a kit
+                if (!storage.saveKitDataByID(archiveId, packed)) {
+                    result = result.plus(new ArchiveResult(0, 0, 0, 0, 1));
+                    continue;
+                }
+                storage.deleteKitDataBatch(archived);
+                archived.forEach(id -> MaterialIndexService.get().recordDelete(id));
+                result = result.plus(new ArchiveResult(1, archived.size(),
+                        size, packed.length() - (existing == null ? 0 : existing.length()), 0));
+            }
+        }
+        return result;
+    }
+
+    private boolean isInactive(String lastSeen) {
+        try {
+            return lastSeen != null && System.currentTimeMillis() - Long.parseLong(lastSeen) >= inactiveMillis;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void recordIndexed(String id, String data) {
+        if (!MaterialIndexService.get().isEnabled()) {
+            return;
+        }
+        try {
+            MaterialIndexService.get().recordSave(id, Serializer.itemStackArrayFromBase64(data));
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not decode restored kit data for " + id);
+        }
+    }
+
+    private Object lockFor(UUID uuid) {
+        return locks[Math.floorMod(uuid.hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * @param players      players archived
+     * @param entries      kits and ender chests moved into archives
+     * @param storedSize   size of the entries moved out of the hot data, in characters
+     * @param archivedSize how much the archives grew, in characters
+     * @param failed       players skipped because their archive couldn't be read or written
+     */
+    public record ArchiveResult(long players, long entries, long storedSize, long archivedSize, long failed) {
+
+        public static ArchiveResult none() {
+            return new ArchiveResult(0, 0, 0, 0, 0);
+        }
+
+        public ArchiveResult plus(ArchiveResult other) {
+            return new ArchiveResult(players + other.players, entries + other.entries, storedSize + other.storedSize,
+                    archivedSize + other.archivedSize, failed + other.failed);
+        }
+    }
+}
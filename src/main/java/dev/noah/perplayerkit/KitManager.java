@@ -18,37 +18,252 @@
  */
 package dev.noah.perplayerkit;
 
+import dev.noah.perplayerkit.storage.StorageManager;
 import dev.noah.perplayerkit.util.BroadcastManager;
 import dev.noah.perplayerkit.util.IDUtil;
+import dev.noah.perplayerkit.util.ItemStackInterner;
 import dev.noah.perplayerkit.util.KitSlots;
 import dev.noah.perplayerkit.util.Lang;
-import dev.noah.perplayerkit.util.Serializer;
+import dev.noah.perplayerkit.util.Settings;
 import org.bukkit.Bukkit;
-import org.bukkit.block.Container;
+import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import dev.noah.perplayerkit.util.SoundManager;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.BlockStateMeta;
 
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
 public class KitManager {
+    // Upper bound on concurrent storage reads while loading a player's slots,
+    // kept below the default SQL connection pool size
+    private static final int LOAD_PARALLELISM = 4;
+    private static final int SAVE_THREADS = 2;
+    // Entries per storage round trip when flushing on shutdown
+    private static final int FLUSH_BATCH_SIZE = 50;
+    private static final String PUBLIC_KIT_PREFIX = IDUtil.getPublicKitId("");
+    // Fixed per-player overhead counted against the offline cache budget,
+    // covering the record itself and the last used kit
+    private static final long OFFLINE_PLAYER_WEIGHT = 64;
+    private static final long CACHE_SWEEP_TICKS = 60 * 20;
+    // Prefetched data not adopted within this time is considered stale
+    private static final long PREFETCH_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    // How long a command waits for the player's data before giving up
+    private static final long LOAD_WAIT_SECONDS = 5;
+    // How long a rejoining player's load waits for their quit save
+    private static final long QUIT_SAVE_WAIT_SECONDS = 10;
+    private static final CompletableFuture<Void> NO_PENDING_LOAD = CompletableFuture.completedFuture(null);
+    // Items allowed in the boots, leggings, chestplate and helmet slots (36-39)
+    private static final int FIRST_ARMOR_SLOT = 36;
+    private static final List<Set<Material>> ARMOR_SLOT_MATERIALS = List.of(
+            materialsNamed("BOOTS"),
+            materialsNamed("LEGGINGS"),
+            materialsNamed("CHESTPLATE", "ELYTRA"),
+            materialsNamed("HELMET"));
+
     private static KitManager instance;
     private final PerPlayerKit plugin;
-    private final Map<String, ItemStack[]> kitByKitIDMap;
-    private final HashMap<UUID, Integer> lastKitUsedByPlayer;
+    private final ForkJoinPool loadPool;
+    private final ExecutorService saveExecutor;
+    private final long flushTimeoutMillis;
+    private final Map<UUID, PlayerKitData> playerData;
+    private final Map<String, CachedKit> publicKits;
+    private final Map<UUID, Integer> lastKitUsedByPlayer;
+    private final Set<UUID> onlinePlayers;
+    private final OfflineKitCache offlineCache;
+    private final Map<UUID, PrefetchedData> prefetched;
+    private final Map<UUID, CompletableFuture<Void>> loads;
+    private final Map<UUID, CompletableFuture<Void>> quitSaves;
+    private final Map<UUID, RetainedSession> retainedSessions;
+    private final long reconnectGraceMillis;
     private final List<PublicKit> publicKitList;
 
     public KitManager(PerPlayerKit plugin) {
         this.plugin = plugin;
-        lastKitUsedByPlayer = new HashMap<>();
+        lastKitUsedByPlayer = new ConcurrentHashMap<>();
         publicKitList = new ArrayList<>();
-        kitByKitIDMap = new ConcurrentHashMap<>();
+        playerData = new ConcurrentHashMap<>();
+        publicKits = new ConcurrentHashMap<>();
+        onlinePlayers = ConcurrentHashMap.newKeySet();
+        prefetched = new ConcurrentHashMap<>();
+        loads = new ConcurrentHashMap<>();
+        quitSaves = new ConcurrentHashMap<>();
+        retainedSessions = new ConcurrentHashMap<>();
+        reconnectGraceMillis = TimeUnit.SECONDS.toMillis(Math.max(0, plugin.getConfig().getLong("cache.reconnect-grace-seconds", 60)));
+        long maxWeight = Math.max(0, plugin.getConfig().getLong("cache.offline-max-kb", 16384)) * 1024;
+        long ttlMillis = TimeUnit.MINUTES.toMillis(Math.max(1, plugin.getConfig().getLong("cache.offline-ttl-minutes", 30)));
+        offlineCache = new OfflineKitCache(maxWeight, ttlMillis, () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+        loadPool = new ForkJoinPool(LOAD_PARALLELISM, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("PerPlayerKit-Loader-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        AtomicInteger saveThreads = new AtomicInteger();
+        saveExecutor = Executors.newFixedThreadPool(SAVE_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "PerPlayerKit-Saver-" + saveThreads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushTimeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, plugin.getConfig().getLong("shutdown.flush-timeout-seconds", 10)));
         instance = this;
     }
 
+    /**
+     * Shuts down in order: loads are cancelled and no new writes are queued,
+     * writes already queued are drained, and anything still unsaved in the
+     * cache is flushed in parallel batches. The whole sequence is bounded by
+     * {@code shutdown.flush-timeout-seconds}; must run before the storage
+     * connection is closed.
+     */
+    public void shutdown() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushTimeoutMillis);
+        loadPool.shutdownNow();
+        saveExecutor.shutdown();
+        try {
+            if (!saveExecutor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                plugin.getLogger().warning("Queued kit saves did not finish within the shutdown timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushUnsavedEntries(deadline);
+    }
+
+    private void flushUnsavedEntries(long deadline) {
+        List<Map.Entry<String, CachedKit>> unsaved = new ArrayList<>();
+        Set<UUID> players = new HashSet<>();
+        playerData.forEach((uuid, data) -> {
+            for (boolean enderchest : new boolean[]{false, true}) {
+                for (int slot = data.nextSlot(enderchest, 1); slot != -1; slot = data.nextSlot(enderchest, slot + 1)) {
+                    CachedKit entry = data.get(enderchest, slot);
+                    if (entry != null && entry.isDirty()) {
+                        unsaved.add(Map.entry(enderchest ? IDUtil.getECId(uuid, slot) : IDUtil.getPlayerKitId(uuid, slot), entry));
+                        players.add(uuid);
+                    }
+                }
+            }
+        });
+        publicKits.forEach((id, entry) -> {
+            if (entry.isDirty()) {
+                unsaved.add(Map.entry(IDUtil.getPublicKitId(id), entry));
+            }
+        });
+        if (unsaved.isEmpty()) {
+            return;
+        }
+
+        List<Callable<Integer>> batches = new ArrayList<>();
+        for (int start = 0; start < unsaved.size(); start += FLUSH_BATCH_SIZE) {
+            List<Map.Entry<String, CachedKit>> batch = unsaved.subList(start, Math.min(start + FLUSH_BATCH_SIZE, unsaved.size()));
+            batches.add(() -> writeEntries(PerPlayerKit.storageManager, batch));
+        }
+        // Other servers keeping these players cached must reload them
+        Map<String, String> stamps = new HashMap<>();
+        players.forEach(uuid -> stamps.put(IDUtil.getSessionStampId(uuid), UUID.randomUUID().toString()));
+
+        ExecutorService flushPool = Executors.newFixedThreadPool(Math.min(LOAD_PARALLELISM, batches.size()));
+        int written = 0;
+        int abandoned = 0;
+        try {
+            for (Future<Integer> future : flushPool.invokeAll(batches, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                try {
+                    written += future.get();
+                } catch (ExecutionException | CancellationException e) {
+                    abandoned++;
+                }
+            }
+            PerPlayerKit.storageManager.saveKitDataBatch(stamps);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            flushPool.shutdownNow();
+        }
+
+        plugin.getLogger().info("Flushed " + written + " unsaved kits of " + players.size() + " players in "
+                + batches.size() + " batches");
+        if (abandoned > 0) {
+            plugin.getLogger().warning(abandoned + " batches of unsaved kits could not be written, either storage failed"
+                    + " or the shutdown timeout was reached");
+        }
+    }
+
+    /**
+     * Writes the entries that differ from storage in one batch.
+     *
+     * @return the number of entries written
+     * @throws IllegalStateException if storage failed to write them, in
+     *                               which case they all stay dirty
+     */
+    static int writeEntries(StorageManager storage, List<Map.Entry<String, CachedKit>> batch) {
+        return writeEntries(storage, batch, Map.of());
+    }
+
+    /**
+     * Like {@link #writeEntries(StorageManager, List)}, with {@code extra}
+     * written in the same batch. Nothing is written if no entry differs from
+     * storage.
+     */
+    static int writeEntries(StorageManager storage, List<Map.Entry<String, CachedKit>> batch, Map<String, String> extra) {
+        Map<String, String> data = new HashMap<>();
+        for (Map.Entry<String, CachedKit> entry : batch) {
+            String serialized = entry.getValue().pendingWrite();
+            if (serialized != null) {
+                data.put(entry.getKey(), serialized);
+            }
+        }
+        if (data.isEmpty()) {
+            return 0;
+        }
+        int entries = data.size();
+        data.putAll(extra);
+        if (!storage.saveKitDataBatch(data)) {
+            throw new IllegalStateException("storage failed to write " + entries + " kits");
+        }
+        for (Map.Entry<String, CachedKit> entry : batch) {
+            String serialized = data.get(entry.getKey());
+            if (serialized != null) {
+                entry.getValue().markPersisted(serialized);
+                recordInIndex(entry.getKey(), entry.getValue());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Queues a storage write. Once shutdown has started the write runs on the
+     * calling thread instead, so it isn't lost.
+     */
+    private void submitWrite(Runnable write) {
+        try {
+            saveExecutor.execute(write);
+        } catch (RejectedExecutionException e) {
+            write.run();
+        }
+    }
+
+    /**
+     * Starts the periodic sweep that drops cached data of offline players
+     * once it expires or the cache grows over budget.
+     */
+    public void startCacheMaintenance() {
+        Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::evictOfflineData, CACHE_SWEEP_TICKS, CACHE_SWEEP_TICKS);
+    }
+
     public static KitManager get() {
         if (instance == null) {
             throw new IllegalStateException("KitManager not initialized");
@@ -56,17 +271,68 @@ public class KitManager {
         return instance;
     }
 
+    /**
+     * Returns the cached contents of a kit. The returned stacks are shared
+     * with the cache and must not be modified; use
+     * {@link ItemStackInterner#copyOf(ItemStack[])} before handing them to
+     * code that does.
+     */
     public ItemStack[] getItemStackArrayById(String id) {
-        return kitByKitIDMap.get(id);
+        IDUtil.PlayerDataId playerDataId = IDUtil.parsePlayerDataId(id);
+        if (playerDataId != null) {
+            return getCachedContents(playerDataId.uuid(), playerDataId.enderchest(), playerDataId.slot());
+        }
+        if (id != null && id.startsWith(PUBLIC_KIT_PREFIX)) {
+            return getPublicKit(id.substring(PUBLIC_KIT_PREFIX.length()));
+        }
+        return null;
     }
 
-    private void cacheKit(String id, ItemStack[] kit) {
-        if (kit == null) {
-            kitByKitIDMap.remove(id);
-            return;
+    private ItemStack[] getCachedContents(UUID uuid, boolean enderchest, int slot) {
+        CachedKit entry = getCachedEntry(uuid, enderchest, slot);
+        return entry == null ? null : entry.contents();
+    }
+
+    /**
+     * Returns the cache entry of a slot, or null if the slot is empty or its
+     * data can't be decoded.
+     */
+    private CachedKit getCachedEntry(UUID uuid, boolean enderchest, int slot) {
+        PlayerKitData data = playerData.get(uuid);
+        if (data == null) {
+            return null;
         }
 
-        kitByKitIDMap.put(id, kit);
+        trackAccess(uuid);
+        CachedKit entry = data.get(enderchest, slot);
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.contents() == null) {
+            // Undecodable data is treated like a missing kit, matching how
+            // such entries used to be skipped when loading from storage
+            data.remove(enderchest, slot, entry);
+            plugin.getLogger().warning("Could not decode kit data for " + (enderchest
+                    ? IDUtil.getECId(uuid, slot) : IDUtil.getPlayerKitId(uuid, slot)));
+            return null;
+        }
+        return entry;
+    }
+
+    private void cacheKit(UUID uuid, boolean enderchest, int slot, ItemStack[] kit) {
+        // Updated inside compute so an eviction can't drop the record in between
+        playerData.compute(uuid, (key, data) -> {
+            PlayerKitData record = data == null ? new PlayerKitData(KitSlots.maxKits()) : data;
+            record.update(enderchest, slot, previous -> CachedKit.ofContents(kit, previous));
+            record.markFetched(enderchest, slot);
+            return record;
+        });
+        trackAccess(uuid);
+    }
+
+    private void cachePublicKit(String id, ItemStack[] kit) {
+        publicKits.compute(id, (key, previous) -> CachedKit.ofContents(kit, previous));
     }
 
     public List<PublicKit> getPublicKitList() {
@@ -77,279 +343,428 @@ public class KitManager {
      * Refreshes a cached kit after its stored data was rewritten externally
      * (e.g. by an admin item purge). Passing null removes the cached entry;
      * a non-null kit only replaces an existing entry, so kits of offline
-     * players are not pulled into the cache.
+     * players are not pulled into the cache. Entries with unsaved changes
+     * are kept, their pending write replaces the stored data again. The
+     * material index is updated either way.
      */
     public void updateCachedKit(String id, ItemStack[] kit) {
         if (kit == null) {
-            kitByKitIDMap.remove(id);
+            MaterialIndexService.get().recordDelete(id);
         } else {
-            kitByKitIDMap.computeIfPresent(id, (key, oldKit) -> kit);
+            MaterialIndexService.get().recordSave(id, kit);
         }
-    }
 
-    public int getLastKitLoaded(UUID uuid) {
-        if (lastKitUsedByPlayer.containsKey(uuid)) {
-            return lastKitUsedByPlayer.get(uuid);
+        IDUtil.PlayerDataId playerDataId = IDUtil.parsePlayerDataId(id);
+        if (playerDataId != null) {
+            PlayerKitData data = playerData.get(playerDataId.uuid());
+            if (data != null) {
+                data.update(playerDataId.enderchest(), playerDataId.slot(), current -> refreshedEntry(current, kit));
+            }
+        } else if (id != null && id.startsWith(PUBLIC_KIT_PREFIX)) {
+            String publicKitId = id.substring(PUBLIC_KIT_PREFIX.length());
+            publicKits.computeIfPresent(publicKitId, (key, oldKit) -> refreshedEntry(oldKit, kit));
         }
-        return -1;
     }
 
-    public boolean savekit(UUID uuid, int slot, ItemStack[] kit) {
-        if (Bukkit.getPlayer(uuid) != null) {
-            Player player = Bukkit.getPlayer(uuid);
-            if (player != null) {
-                boolean notEmpty = false;
-                for (ItemStack i : kit) {
-                    if (i != null) {
-                        if (!notEmpty) {
-                            notEmpty = true;
-                        }
-                    }
-                }
+    private static CachedKit refreshedEntry(CachedKit current, ItemStack[] kit) {
+        if (current != null && current.isDirty()) {
+            // Unsaved changes take precedence over the rewritten data
+            current.forgetPersisted();
+            return current;
+        }
+        return current == null || kit == null ? null : CachedKit.ofPersistedContents(kit);
+    }
 
-                if (notEmpty) {
-                    if (kit[36] != null) {
-                        if (!kit[36].getType().toString().contains("BOOTS")) {
-                            kit[36] = null;
-                        }
-                    }
-                    if (kit[37] != null) {
-                        if (!kit[37].getType().toString().contains("LEGGINGS")) {
-                            kit[37] = null;
-                        }
-                    }
-                    if (kit[38] != null) {
-                        if (!(kit[38].getType().toString().contains("CHESTPLATE") || kit[38].getType().toString().contains("ELYTRA"))) {
-                            kit[38] = null;
-                        }
-                    }
-                    if (kit[39] != null) {
-                        if (!kit[39].getType().toString().contains("HELMET")) {
-                            kit[39] = null;
-                        }
-                    }
+    public int getLastKitLoaded(UUID uuid) {
+        return lastKitUsedByPlayer.getOrDefault(uuid, -1);
+    }
 
-                    cacheKit(IDUtil.getPlayerKitId(uuid, slot), kit);
-                    Lang.get().send(player, "success.kit-saved", "slot", String.valueOf(slot));
+    /**
+     * Pins the player's cached data while they are online. Called when the
+     * player joins, before their data is loaded.
+     */
+    public void markOnline(UUID uuid) {
+        onlinePlayers.add(uuid);
+        offlineCache.forget(uuid);
+    }
 
-                    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> savePlayerKitToDB(uuid, slot));
-                    return true;
-                } else {
-                    Lang.get().send(player, "error.empty-kit");
-                }
+    /**
+     * Called when a player quits. Their changes are written to storage once
+     * any load still in progress has finished, after which the cached data
+     * (and last used kit) is subject to eviction. Loads of the player started
+     * before that write is done wait for it.
+     */
+    public void unloadPlayer(UUID uuid) {
+        onlinePlayers.remove(uuid);
+        offlineCache.touch(uuid);
+        CompletableFuture<Void> saved = new CompletableFuture<>();
+        quitSaves.put(uuid, saved);
+        CompletableFuture<Void> load = loads.remove(uuid);
+        (load == null ? NO_PENDING_LOAD : load).whenComplete((ignored, error) -> submitWrite(() -> {
+            try {
+                saveOnQuit(uuid);
+            } finally {
+                quitSaves.remove(uuid, saved);
+                saved.complete(null);
             }
+        }));
+    }
+
+    /**
+     * Blocks until the save of the player's previous session is done, so a
+     * quick rejoin doesn't read rows that are about to be overwritten.
+     *
+     * @return false if the save didn't finish in time or the wait was
+     * interrupted
+     */
+    private boolean awaitQuitSave(UUID uuid) {
+        CompletableFuture<Void> saved = quitSaves.get(uuid);
+        if (saved == null) {
+            return true;
+        }
+        try {
+            saved.get(QUIT_SAVE_WAIT_SECONDS, TimeUnit.SECONDS);
+            return true;
+        } catch (TimeoutException | ExecutionException e) {
+            plugin.getLogger().warning("Kit data of " + uuid + " from their previous session is still being saved");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
-        return false;
     }
 
-    public boolean savePublicKit(Player player, String publickit, ItemStack[] kit) {
-        boolean notEmpty = false;
-        for (ItemStack i : kit) {
-            if (i != null) {
-                if (!notEmpty) {
-                    notEmpty = true;
-                }
-            }
+    /**
+     * Writes a quitting player's changes. Within the reconnect grace period
+     * the now clean record stays cached, so a quick rejoin doesn't have to
+     * load every slot again. It is kept under the session stamp its data was
+     * last loaded or written with; a new stamp is only written if that isn't
+     * known.
+     */
+    private void saveOnQuit(UUID uuid) {
+        PlayerKitData data = playerData.get(uuid);
+        if (data == null) {
+            return;
         }
 
-        if (notEmpty) {
-            if (kit[36] != null) {
-                if (!kit[36].getType().toString().contains("BOOTS")) {
-                    kit[36] = null;
-                }
-            }
-            if (kit[37] != null) {
-                if (!kit[37].getType().toString().contains("LEGGINGS")) {
-                    kit[37] = null;
-                }
-            }
-            if (kit[38] != null) {
-                if (!(kit[38].getType().toString().contains("CHESTPLATE") || kit[38].getType().toString().contains("ELYTRA"))) {
-                    kit[38] = null;
-                }
+        writeChanges(uuid, data);
+        KitArchiveService.get().recordSeen(uuid);
+        if (reconnectGraceMillis > 0 && data.isFullyLoaded() && !data.hasUnsavedChanges()) {
+            String token = data.sessionToken();
+            if (token == null) {
+                token = writeSessionStamp(uuid);
             }
-            if (kit[39] != null) {
-                if (!kit[39].getType().toString().contains("HELMET")) {
-                    kit[39] = null;
-                }
+            if (token != null) {
+                retainedSessions.put(uuid, new RetainedSession(token, System.currentTimeMillis()));
+                return;
             }
+        }
+        // Keep the record if the player already rejoined
+        playerData.computeIfPresent(uuid, (key, record) -> record == data && !onlinePlayers.contains(key) ? null : record);
+    }
 
-            cacheKit(IDUtil.getPublicKitId(publickit), kit);
-            Lang.get().send(player, "success.public-kit-saved", "kitname", publickit);
+    /**
+     * Whether the record kept from the player's previous session can be used
+     * as is: within the grace period, and only if the session stamp in
+     * storage is still the one written when they quit here, i.e. no server
+     * has written their data since. Otherwise the kept record is dropped so a
+     * fresh load doesn't merge with stale data.
+     */
+    private boolean reuseRetainedData(UUID uuid) {
+        RetainedSession retained = retainedSessions.remove(uuid);
+        if (retained == null) {
+            return false;
+        }
 
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> savePublicKitToDB(publickit));
+        PlayerKitData data = playerData.get(uuid);
+        if (data != null && data.isFullyLoaded()
+                && System.currentTimeMillis() - retained.quitAt() <= reconnectGraceMillis
+                && retained.token().equals(PerPlayerKit.storageManager.getKitDataByID(IDUtil.getSessionStampId(uuid)))) {
             return true;
-        } else {
-            Lang.get().send(player, "error.empty-kit");
         }
+
+        playerData.computeIfPresent(uuid, (key, record) -> record.hasUnsavedChanges() ? record : null);
         return false;
     }
 
-    public boolean savePublicKit(String id, ItemStack[] kit) {
-        boolean notEmpty = false;
-        for (ItemStack i : kit) {
-            if (i != null) {
-                if (!notEmpty) {
-                    notEmpty = true;
-                }
-            }
+    /**
+     * Records that a player's stored data was changed outside of this
+     * manager, e.g. by an item purge, so servers holding their data from a
+     * previous session reload it.
+     */
+    public void markStoredDataChanged(UUID uuid) {
+        writeSessionStamp(uuid);
+    }
+
+    /**
+     * Writes a new session stamp for the player. Stamps are only kept while
+     * reconnect grace is enabled.
+     *
+     * @return the new stamp, or null if none was written
+     */
+    private String writeSessionStamp(UUID uuid) {
+        if (reconnectGraceMillis == 0) {
+            return null;
         }
+        String token = UUID.randomUUID().toString();
+        if (!PerPlayerKit.storageManager.saveKitDataByID(IDUtil.getSessionStampId(uuid), token)) {
+            return null;
+        }
+        recordSessionStamp(uuid, token);
+        return token;
+    }
 
-        if (notEmpty) {
-            if (kit[36] != null) {
-                if (!kit[36].getType().toString().contains("BOOTS")) {
-                    kit[36] = null;
-                }
-            }
-            if (kit[37] != null) {
-                if (!kit[37].getType().toString().contains("LEGGINGS")) {
-                    kit[37] = null;
-                }
-            }
-            if (kit[38] != null) {
-                if (!(kit[38].getType().toString().contains("CHESTPLATE") || kit[38].getType().toString().contains("ELYTRA"))) {
-                    kit[38] = null;
-                }
+    private void recordSessionStamp(UUID uuid, String token) {
+        PlayerKitData data = playerData.get(uuid);
+        if (data != null) {
+            data.setSessionToken(token);
+        }
+        // Data kept here already reflects writes made by this server
+        retainedSessions.computeIfPresent(uuid, (key, retained) -> new RetainedSession(token, retained.quitAt()));
+    }
+
+    public LoadStatus getLoadStatus(UUID uuid) {
+        CompletableFuture<Void> load = loads.get(uuid);
+        if (load == null) {
+            return LoadStatus.NOT_LOADED;
+        }
+        if (!load.isDone()) {
+            return LoadStatus.LOADING;
+        }
+        return load.isCompletedExceptionally() ? LoadStatus.FAILED : LoadStatus.LOADED;
+    }
+
+    /**
+     * Runs a kit action for the player on the main thread once their data has
+     * loaded. Normally that is right away; while the data is still loading
+     * the player is told so and the action is delayed, up to
+     * {@link #LOAD_WAIT_SECONDS}, instead of failing with a missing kit.
+     */
+    public void whenLoaded(Player player, Runnable action) {
+        CompletableFuture<Void> load = loads.get(player.getUniqueId());
+        if (load == null || load.isDone()) {
+            action.run();
+            return;
+        }
+
+        Lang.get().send(player, "info.kits-loading");
+        load.copy().orTimeout(LOAD_WAIT_SECONDS, TimeUnit.SECONDS).whenComplete((ignored, error) ->
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (!player.isOnline()) {
+                        return;
+                    }
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        Lang.get().send(player, "error.kits-still-loading");
+                        SoundManager.playFailure(player);
+                        return;
+                    }
+                    action.run();
+                }));
+    }
+
+    /**
+     * Schedules a write of the player's data, ordered after their initial
+     * load so the load can't overwrite the newer data with what it read.
+     */
+    private void saveAfterLoad(UUID uuid, Runnable save) {
+        loads.getOrDefault(uuid, NO_PENDING_LOAD).whenComplete((ignored, error) -> submitWrite(save));
+    }
+
+    private void trackAccess(UUID uuid) {
+        if (!onlinePlayers.contains(uuid)) {
+            offlineCache.touch(uuid);
+        }
+    }
+
+    /**
+     * Drops cached data of offline players that expired or that no longer
+     * fits the size budget. Data with unsaved changes is kept. Also drops
+     * prefetched data of players who never finished joining.
+     */
+    public void evictOfflineData() {
+        long now = System.currentTimeMillis();
+        prefetched.values().removeIf(staged -> now - staged.fetchedAt() > PREFETCH_TIMEOUT_MILLIS);
+        retainedSessions.values().removeIf(retained -> now - retained.quitAt() > reconnectGraceMillis);
+
+        for (UUID uuid : offlineCache.evict(this::offlineWeight)) {
+            // Checked again under the map lock, the player may have joined or
+            // been edited since being weighed
+            PlayerKitData kept = playerData.computeIfPresent(uuid,
+                    (key, data) -> onlinePlayers.contains(key) || data.hasUnsavedChanges() ? data : null);
+            if (onlinePlayers.contains(uuid)) {
+                continue;
             }
-            if (kit[39] != null) {
-                if (!kit[39].getType().toString().contains("HELMET")) {
-                    kit[39] = null;
-                }
+            if (kept != null) {
+                offlineCache.touch(uuid);
+                continue;
             }
+            lastKitUsedByPlayer.remove(uuid);
+        }
+    }
 
-            cacheKit(IDUtil.getPublicKitId(id), kit);
-            return true;
+    private long offlineWeight(UUID uuid) {
+        if (onlinePlayers.contains(uuid)) {
+            return OfflineKitCache.PINNED;
         }
-        return false;
+
+        PlayerKitData data = playerData.get(uuid);
+        if (data == null) {
+            return OFFLINE_PLAYER_WEIGHT;
+        }
+        if (data.hasUnsavedChanges()) {
+            return OfflineKitCache.PINNED;
+        }
+        return OFFLINE_PLAYER_WEIGHT + data.weight();
     }
 
-    public boolean saveEC(UUID uuid, int slot, ItemStack[] kit) {
-        if (Bukkit.getPlayer(uuid) != null) {
-            Player player = Bukkit.getPlayer(uuid);
-            if (player != null) {
-                boolean notEmpty = false;
-                for (ItemStack i : kit) {
-                    if (i != null) {
-                        if (!notEmpty) {
-                            notEmpty = true;
-                        }
-                    }
-                }
+    public CacheStats getCacheStats() {
+        return new CacheStats(offlineCache.trackedCount(), offlineCache.weight(), offlineCache.maxWeight(),
+                offlineCache.hits(), offlineCache.misses(), offlineCache.evictions());
+    }
+
+    /**
+     * Counters of the offline player cache. Weights are approximate sizes in bytes.
+     */
+    public record CacheStats(int offlinePlayers, long weight, long maxWeight, long hits, long misses, long evictions) {
+    }
+
+    /**
+     * Returns a copy of the kit with anything that doesn't belong in an armor
+     * slot removed from it. The input array is left untouched, as it may be
+     * shared with the cache.
+     */
+    private static ItemStack[] stripInvalidArmor(ItemStack[] kit) {
+        ItemStack[] copy = kit.clone();
+        for (int slot = 0; slot < ARMOR_SLOT_MATERIALS.size(); slot++) {
+            int index = FIRST_ARMOR_SLOT + slot;
+            if (copy[index] != null && !ARMOR_SLOT_MATERIALS.get(slot).contains(copy[index].getType())) {
+                copy[index] = null;
+            }
+        }
+        return copy;
+    }
 
-                if (notEmpty) {
-                    cacheKit(IDUtil.getECId(uuid, slot), kit);
-                    Lang.get().send(player, "success.ec-saved", "slot", String.valueOf(slot));
-                    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> saveEnderchestToDB(uuid, slot));
-                    return true;
-                } else {
-                    Lang.get().send(player, "error.empty-ec");
+    private static Set<Material> materialsNamed(String... fragments) {
+        Set<Material> materials = EnumSet.noneOf(Material.class);
+        for (Material material : Material.values()) {
+            for (String fragment : fragments) {
+                if (material.name().contains(fragment)) {
+                    materials.add(material);
                 }
             }
         }
-        return false;
+        return materials;
     }
 
-    public boolean saveECSilent(UUID uuid, int slot, ItemStack[] kit) {
-        boolean notEmpty = false;
+    private static boolean isEmpty(ItemStack[] kit) {
         for (ItemStack i : kit) {
             if (i != null) {
-                notEmpty = true;
-                break;
+                return false;
             }
         }
+        return true;
+    }
+
+    public boolean savekit(UUID uuid, int slot, ItemStack[] kit) {
+        Player player = Bukkit.getPlayer(uuid);
+        if (player == null) {
+            return false;
+        }
 
-        if (!notEmpty) {
+        if (isEmpty(kit)) {
+            Lang.get().send(player, "error.empty-kit");
             return false;
         }
 
-        cacheKit(IDUtil.getECId(uuid, slot), kit);
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> saveEnderchestToDB(uuid, slot));
+        cacheKit(uuid, false, slot, stripInvalidArmor(kit));
+        Lang.get().send(player, "success.kit-saved", "slot", String.valueOf(slot));
+
+        saveAfterLoad(uuid, () -> savePlayerKitToDB(uuid, slot));
         return true;
     }
 
-    public boolean savekit(UUID uuid, int slot, ItemStack[] kit, boolean silent) {
-        if (silent) {
-            boolean notEmpty = false;
-            for (ItemStack i : kit) {
-                if (i != null) {
-                    notEmpty = true;
-                    break;
-                }
-            }
+    public boolean savePublicKit(Player player, String publickit, ItemStack[] kit) {
+        if (isEmpty(kit)) {
+            Lang.get().send(player, "error.empty-kit");
+            return false;
+        }
 
-            if (!notEmpty) {
-                return false;
-            }
+        cachePublicKit(publickit, stripInvalidArmor(kit));
+        Lang.get().send(player, "success.public-kit-saved", "kitname", publickit);
 
-            if (kit[36] != null && !kit[36].getType().toString().contains("BOOTS")) {
-                kit[36] = null;
-            }
-            if (kit[37] != null && !kit[37].getType().toString().contains("LEGGINGS")) {
-                kit[37] = null;
-            }
-            if (kit[38] != null && !(kit[38].getType().toString().contains("CHESTPLATE") || kit[38].getType().toString().contains("ELYTRA"))) {
-                kit[38] = null;
-            }
-            if (kit[39] != null && !kit[39].getType().toString().contains("HELMET")) {
-                kit[39] = null;
-            }
+        submitWrite(() -> savePublicKitToDB(publickit));
+        return true;
+    }
 
-            cacheKit(IDUtil.getPlayerKitId(uuid, slot), ItemFilter.get().filterItemStack(kit));
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> savePlayerKitToDB(uuid, slot));
-            return true;
-        } else {
+    public boolean savePublicKit(String id, ItemStack[] kit) {
+        if (isEmpty(kit)) {
+            return false;
+        }
+
+        cachePublicKit(id, stripInvalidArmor(kit));
+        return true;
+    }
+
+    public boolean saveEC(UUID uuid, int slot, ItemStack[] kit) {
+        Player player = Bukkit.getPlayer(uuid);
+        if (player == null) {
+            return false;
+        }
+
+        if (isEmpty(kit)) {
+            Lang.get().send(player, "error.empty-ec");
+            return false;
+        }
+
+        cacheKit(uuid, true, slot, kit);
+        Lang.get().send(player, "success.ec-saved", "slot", String.valueOf(slot));
+        saveAfterLoad(uuid, () -> saveEnderchestToDB(uuid, slot));
+        return true;
+    }
+
+    public boolean saveECSilent(UUID uuid, int slot, ItemStack[] kit) {
+        if (isEmpty(kit)) {
+            return false;
+        }
+
+        cacheKit(uuid, true, slot, kit);
+        saveAfterLoad(uuid, () -> saveEnderchestToDB(uuid, slot));
+        return true;
+    }
+
+    public boolean savekit(UUID uuid, int slot, ItemStack[] kit, boolean silent) {
+        if (!silent) {
             return savekit(uuid, slot, kit);
         }
+
+        if (isEmpty(kit)) {
+            return false;
+        }
+
+        cacheKit(uuid, false, slot, ItemFilter.get().filterItemStack(stripInvalidArmor(kit)));
+        saveAfterLoad(uuid, () -> savePlayerKitToDB(uuid, slot));
+        return true;
     }
 
     public boolean regearKit(Player player, int slot) {
-        UUID uuid = player.getUniqueId();
-        if (kitByKitIDMap.get(IDUtil.getPlayerKitId(uuid, slot)) == null) {
+        CachedKit entry = getCachedEntry(player.getUniqueId(), false, slot);
+        if (entry == null) {
             return false;
         }
 
-        boolean invertWhitelist = plugin.getConfig().getBoolean("regear.invert-whitelist", false);
-        Set<String> whitelist = new HashSet<>(plugin.getConfig().getStringList("regear.whitelist"));
-
-        ItemStack[] kit = kitByKitIDMap.get(IDUtil.getPlayerKitId(uuid, slot));
+        // Whitelisted stacks with filtered shulker contents, prepared once per kit
+        ItemStack[] template = entry.regearTemplate(Settings.get());
         ItemStack[] playerInventory = player.getInventory().getContents();
-        for (int i = 0; i < Math.min(playerInventory.length, kit.length); i++) {
-            if (kit[i] == null) {
+        for (int i = 0; i < Math.min(playerInventory.length, template.length); i++) {
+            ItemStack kitItem = template[i];
+            if (kitItem == null) {
                 continue;
             }
 
-            if (invertWhitelist) {
-                if (whitelist.contains(kit[i].getType().toString())) {
-                    continue;
-                }
-            } else {
-                if (!whitelist.contains(kit[i].getType().toString())) {
-                    continue;
-                }
-            }
-
-            ItemStack kitItem = kit[i].clone();
-
-            // Filter contents of any shulker box (or other container) against the same whitelist,
-            // preventing players from bypassing regear restrictions by hiding items inside shulkers.
-            if (kitItem.getItemMeta() instanceof BlockStateMeta blockStateMeta
-                    && blockStateMeta.getBlockState() instanceof Container container) {
-                ItemStack[] contents = container.getInventory().getContents();
-                for (int j = 0; j < contents.length; j++) {
-                    if (contents[j] == null) continue;
-                    boolean onList = whitelist.contains(contents[j].getType().toString());
-                    if (invertWhitelist ? onList : !onList) {
-                        contents[j] = null;
-                    }
-                }
-                container.getInventory().setContents(contents);
-                blockStateMeta.setBlockState(container);
-                kitItem.setItemMeta(blockStateMeta);
-            }
-
             if (playerInventory[i] == null || playerInventory[i].getType().isAir() || playerInventory[i].getType() == kitItem.getType()) {
+                // setContents copies the stacks, so the shared template isn't handed out
                 playerInventory[i] = kitItem;
-                continue;
             }
         }
         player.getInventory().setContents(playerInventory);
@@ -358,12 +773,11 @@ public class KitManager {
         return true;
     }
 
-    private boolean loadKitInternal(Player player, String kitId, Runnable notFoundMessage, boolean isEnderChest, Runnable afterLoad) {
+    private boolean loadKitInternal(Player player, ItemStack[] kit, Runnable notFoundMessage, boolean isEnderChest, Runnable afterLoad) {
         if (player == null) {
             return false;
         }
 
-        ItemStack[] kit = kitByKitIDMap.get(kitId);
         if (kit == null) {
             if (notFoundMessage != null) {
                 notFoundMessage.run();
@@ -372,6 +786,8 @@ public class KitManager {
             return false;
         }
 
+        // setContents copies the stacks into the inventory, so the shared
+        // cached instances can be handed over without cloning them first
         if (isEnderChest) {
             player.getEnderChest().setContents(kit);
         } else {
@@ -394,7 +810,7 @@ public class KitManager {
         if (player == null) {
             return false;
         }
-        return loadKitInternal(player, IDUtil.getPlayerKitId(player.getUniqueId(), slot),
+        return loadKitInternal(player, getPlayerKit(player.getUniqueId(), slot),
                 () -> Lang.get().send(player, "error.kit-slot-not-found", "slot", String.valueOf(slot)),
                 false, () -> {
                     BroadcastManager.get().broadcastPlayerLoadedPrivateKit(player, "Kit " + slot);
@@ -407,7 +823,7 @@ public class KitManager {
         if (player == null) {
             return false;
         }
-        return loadKitInternal(player, IDUtil.getPlayerKitId(player.getUniqueId(), slot), null, false, null);
+        return loadKitInternal(player, getPlayerKit(player.getUniqueId(), slot), null, false, null);
     }
 
     public boolean loadPublicKit(Player player, String id) {
@@ -416,7 +832,7 @@ public class KitManager {
                 .map(k -> k.name)
                 .findFirst()
                 .orElse(id);
-        return loadKitInternal(player, IDUtil.getPublicKitId(id),
+        return loadKitInternal(player, getPublicKit(id),
                 () -> Lang.get().send(player, "error.kit-not-found"),
                 false, () -> {
                     BroadcastManager.get().broadcastPlayerLoadedPublicKit(player, kitDisplayName);
@@ -426,14 +842,14 @@ public class KitManager {
     }
 
     public boolean loadPublicKitSilent(Player player, String id) {
-        return loadKitInternal(player, IDUtil.getPublicKitId(id), null, false, null);
+        return loadKitInternal(player, getPublicKit(id), null, false, null);
     }
 
     public boolean loadEnderchest(Player player, int slot) {
         if (player == null) {
             return false;
         }
-        return loadKitInternal(player, IDUtil.getECId(player.getUniqueId(), slot),
+        return loadKitInternal(player, getPlayerEC(player.getUniqueId(), slot),
                 () -> Lang.get().send(player, "error.kit-slot-not-found", "slot", String.valueOf(slot)),
                 true, () -> {
                     BroadcastManager.get().broadcastPlayerLoadedEnderChest(player);
@@ -445,124 +861,447 @@ public class KitManager {
         if (player == null) {
             return false;
         }
-        return loadKitInternal(player, IDUtil.getECId(player.getUniqueId(), slot), null, true, null);
+        return loadKitInternal(player, getPlayerEC(player.getUniqueId(), slot), null, true, null);
     }
 
     public boolean loadLastKit(Player player) {
         if (player == null) {
             return false;
         }
-        if (lastKitUsedByPlayer.containsKey(player.getUniqueId())) {
-            return loadKit(player, lastKitUsedByPlayer.get(player.getUniqueId()));
+        Integer slot = lastKitUsedByPlayer.get(player.getUniqueId());
+        if (slot != null) {
+            return loadKit(player, slot);
         }
         return false;
     }
 
     public boolean hasKit(UUID uuid, int slot) {
-        return kitByKitIDMap.get(IDUtil.getPlayerKitId(uuid, slot)) != null;
+        PlayerKitData data = playerData.get(uuid);
+        return data != null && data.has(false, slot);
     }
 
     public boolean hasEC(UUID uuid, int slot) {
-        return kitByKitIDMap.get(IDUtil.getECId(uuid, slot)) != null;
+        PlayerKitData data = playerData.get(uuid);
+        return data != null && data.has(true, slot);
+    }
+
+    /**
+     * Slots holding a kit, in ascending order.
+     */
+    public List<String> getKitSlots(UUID uuid) {
+        return listSlots(uuid, false);
+    }
+
+    /**
+     * Slots holding an ender chest, in ascending order.
+     */
+    public List<String> getECSlots(UUID uuid) {
+        return listSlots(uuid, true);
+    }
+
+    private List<String> listSlots(UUID uuid, boolean enderchest) {
+        PlayerKitData data = playerData.get(uuid);
+        if (data == null) {
+            return new ArrayList<>();
+        }
+
+        List<String> slots = new ArrayList<>();
+        int maxKits = KitSlots.maxKits();
+        for (int slot = data.nextSlot(enderchest, 1); slot != -1 && slot <= maxKits; slot = data.nextSlot(enderchest, slot + 1)) {
+            slots.add(KitSlots.label(slot));
+        }
+        return slots;
     }
 
     public ItemStack[] getPlayerEC(UUID uuid, int slot) {
-        return kitByKitIDMap.get(IDUtil.getECId(uuid, slot));
+        return getCachedContents(uuid, true, slot);
     }
 
     public ItemStack[] getPlayerKit(UUID uuid, int slot) {
-        return kitByKitIDMap.get(IDUtil.getPlayerKitId(uuid, slot));
+        return getCachedContents(uuid, false, slot);
     }
 
     public boolean hasPublicKit(String id) {
-        return kitByKitIDMap.get(IDUtil.getPublicKitId(id)) != null;
+        return publicKits.containsKey(id);
     }
 
     public ItemStack[] getPublicKit(String id) {
-        return kitByKitIDMap.get(IDUtil.getPublicKitId(id));
+        CachedKit entry = publicKits.get(id);
+        if (entry == null) {
+            return null;
+        }
+
+        ItemStack[] kit = entry.contents();
+        if (kit == null) {
+            publicKits.remove(id, entry);
+            plugin.getLogger().warning("Could not decode kit data for " + IDUtil.getPublicKitId(id));
+        }
+        return kit;
     }
 
+    /**
+     * Loads all kit and ender chest slots of a player. The slots are fetched
+     * concurrently on a bounded pool into a fresh record, which is then
+     * published to the cache in a single step, so load time no longer grows
+     * linearly with max-kits and nobody observes a half-loaded player.
+     */
     public void loadPlayerDataFromDB(UUID uuid) {
-        for (int slot = 1; slot <= KitSlots.maxKits(); slot++) {
-            loadPlayerKitFromDB(uuid, slot);
+        PlayerKitData loaded = fetchPlayerData(uuid);
+        if (loaded != null) {
+            publishPlayerData(uuid, loaded);
+        }
+    }
+
+    /**
+     * Loads a player's data while they are still logging in, so it is ready
+     * by the time they join. The data is staged until
+     * {@link #adoptPrefetchedData(UUID)} hands it over at join, and dropped
+     * if the login is denied or the player never joins.
+     * <p>
+     * Blocks until the load completes; call from the async pre-login event.
+     */
+    public void prefetchPlayerData(UUID uuid) {
+        if (!awaitQuitSave(uuid)) {
+            // Left to the load at join
+            return;
         }
-        for (int slot = 1; slot <= KitSlots.maxKits(); slot++) {
-            loadPlayerEnderchestFromDB(uuid, slot);
+        if (reuseRetainedData(uuid)) {
+            prefetched.put(uuid, new PrefetchedData(null, System.currentTimeMillis()));
+            return;
+        }
+
+        PlayerKitData loaded = fetchPlayerData(uuid);
+        if (loaded != null) {
+            prefetched.put(uuid, new PrefetchedData(loaded, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Publishes data prefetched during login to the cache.
+     *
+     * @return false if there was no usable prefetched data, in which case the
+     * caller has to load the player's data itself
+     */
+    public boolean adoptPrefetchedData(UUID uuid) {
+        PrefetchedData staged = prefetched.remove(uuid);
+        if (staged == null || System.currentTimeMillis() - staged.fetchedAt() > PREFETCH_TIMEOUT_MILLIS) {
+            return false;
         }
+        if (staged.data() != null) {
+            publishPlayerData(uuid, staged.data());
+        } else if (!playerData.containsKey(uuid)) {
+            // The kept record was evicted in the meantime
+            return false;
+        }
+        loads.put(uuid, NO_PENDING_LOAD);
+        return true;
+    }
+
+    /**
+     * Loads an online player's data in the background. Until it completes,
+     * {@link #getLoadStatus(UUID)} reports the player as loading, kit
+     * actions passed to {@link #whenLoaded(Player, Runnable)} wait for it
+     * and writes of the player's kits are held back.
+     */
+    public void loadPlayerDataAsync(UUID uuid) {
+        CompletableFuture<Void> load = new CompletableFuture<>();
+        loads.put(uuid, load);
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                if (!awaitQuitSave(uuid)) {
+                    load.completeExceptionally(new IllegalStateException("Kit data of " + uuid + " is still being saved"));
+                    return;
+                }
+                if (reuseRetainedData(uuid)) {
+                    load.complete(null);
+                    return;
+                }
+
+                PlayerKitData loaded = fetchPlayerData(uuid);
+                if (loaded == null) {
+                    load.completeExceptionally(new IllegalStateException("Interrupted while loading kit data for " + uuid));
+                    return;
+                }
+                publishPlayerData(uuid, loaded);
+                load.complete(null);
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to load kit data for " + uuid, e);
+                load.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Whether the player's data is cached or being loaded on this server,
+     * i.e. must stay in storage as it is.
+     */
+    public boolean isInUse(UUID uuid) {
+        return onlinePlayers.contains(uuid) || playerData.containsKey(uuid) || prefetched.containsKey(uuid)
+                || loads.containsKey(uuid);
+    }
+
+    public void discardPrefetchedData(UUID uuid) {
+        prefetched.remove(uuid);
+    }
+
+    /**
+     * Reads every slot of a player into a new record, first restoring their
+     * kits if they were archived for inactivity.
+     *
+     * @return the record, or null if the load was interrupted
+     */
+    private PlayerKitData fetchPlayerData(UUID uuid) {
+        KitArchiveService.get().restore(uuid);
+        int maxKits = KitSlots.maxKits();
+        PlayerKitData loaded = new PlayerKitData(maxKits);
+        if (reconnectGraceMillis > 0) {
+            // Read before the slots, so a write racing the load changes it
+            String token = PerPlayerKit.storageManager.getKitDataByID(IDUtil.getSessionStampId(uuid));
+            loaded.setSessionToken(token == null || token.equalsIgnoreCase("error") ? null : token);
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(maxKits * 2 + 1);
+        tasks.add(() -> {
+            KitArchiveService.get().recordSeen(uuid);
+            return null;
+        });
+        for (int slot = 1; slot <= maxKits; slot++) {
+            int kitSlot = slot;
+            tasks.add(() -> {
+                loaded.put(false, kitSlot, fetchKitEntry(IDUtil.getPlayerKitId(uuid, kitSlot)));
+                return null;
+            });
+            tasks.add(() -> {
+                loaded.put(true, kitSlot, fetchKitEntry(IDUtil.getECId(uuid, kitSlot)));
+                return null;
+            });
+        }
+
+        for (Future<Void> future : loadPool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to load kit data for " + uuid, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        loaded.markFullyLoaded();
+        return loaded;
+    }
+
+    private void publishPlayerData(UUID uuid, PlayerKitData loaded) {
+        // Changes made while the load was running take precedence
+        playerData.merge(uuid, loaded, (existing, fresh) -> {
+            existing.absorb(fresh);
+            return existing;
+        });
+    }
+
+    /**
+     * Data loaded during login. A null record means the record kept from the
+     * player's previous session is still current.
+     */
+    private record PrefetchedData(PlayerKitData data, long fetchedAt) {
+    }
+
+    private record RetainedSession(String token, long quitAt) {
+    }
+
+    public enum LoadStatus {
+        NOT_LOADED,
+        LOADING,
+        LOADED,
+        FAILED
     }
 
     public void loadPlayerKitFromDB(UUID uuid, int slot) {
-        loadKitEntryFromDB(IDUtil.getPlayerKitId(uuid, slot));
+        loadSlotFromDB(uuid, false, slot);
     }
 
     public void loadPlayerEnderchestFromDB(UUID uuid, int slot) {
-        loadKitEntryFromDB(IDUtil.getECId(uuid, slot));
+        loadSlotFromDB(uuid, true, slot);
+    }
+
+    /**
+     * Caches the stored data of a single slot without decoding it; the
+     * contents are only materialized once something actually needs them.
+     * Slots that are already cached, or known to be empty, are not read again.
+     * The first lookup of a player with nothing cached also restores their
+     * kits if they were archived for inactivity.
+     */
+    private void loadSlotFromDB(UUID uuid, boolean enderchest, int slot) {
+        PlayerKitData cached = playerData.get(uuid);
+        if (cached != null && cached.isFetched(enderchest, slot)) {
+            offlineCache.recordHit();
+            trackAccess(uuid);
+            return;
+        }
+
+        offlineCache.recordMiss();
+        if (cached == null) {
+            KitArchiveService.get().restore(uuid);
+        }
+        CachedKit entry = fetchKitEntry(enderchest ? IDUtil.getECId(uuid, slot) : IDUtil.getPlayerKitId(uuid, slot));
+        playerData.compute(uuid, (key, data) -> {
+            PlayerKitData record = data == null ? new PlayerKitData(KitSlots.maxKits()) : data;
+            // Unsaved changes take precedence over the stored copy
+            record.update(enderchest, slot, current -> current != null && current.isDirty() ? current : entry);
+            record.markFetched(enderchest, slot);
+            return record;
+        });
+        trackAccess(uuid);
+        evictOfflineData();
     }
 
-    private void loadKitEntryFromDB(String id) {
+    private CachedKit fetchKitEntry(String id) {
         String data = PerPlayerKit.storageManager.getKitDataByID(id);
-        if (!data.equalsIgnoreCase("error")) {
-            try {
-                ItemStack[] kit = Serializer.itemStackArrayFromBase64(data);
-                cacheKit(id, ItemFilter.get().filterItemStack(kit));
-            } catch (IOException ignored) {
-            }
+        if (data == null || data.equalsIgnoreCase("error")) {
+            return null;
         }
+        return CachedKit.ofSerialized(data);
     }
 
+    /**
+     * Writes every changed kit and ender chest of the player to storage and
+     * drops the player's record from the cache.
+     */
     public void savePlayerKitsToDB(UUID uuid) {
-        for (int i = 1; i <= KitSlots.maxKits(); i++) {
-            saveKitToDB(IDUtil.getPlayerKitId(uuid, i), true);
-            saveKitToDB(IDUtil.getECId(uuid, i), true);
+        PlayerKitData data = playerData.get(uuid);
+        if (data == null) {
+            return;
+        }
+
+        writeChanges(uuid, data);
+        playerData.remove(uuid, data);
+    }
+
+    private void writeChanges(UUID uuid, PlayerKitData data) {
+        List<Map.Entry<String, CachedKit>> entries = new ArrayList<>();
+        for (boolean enderchest : new boolean[]{false, true}) {
+            for (int slot = data.nextSlot(enderchest, 1); slot != -1; slot = data.nextSlot(enderchest, slot + 1)) {
+                CachedKit entry = data.get(enderchest, slot);
+                if (entry != null) {
+                    entries.add(Map.entry(enderchest ? IDUtil.getECId(uuid, slot) : IDUtil.getPlayerKitId(uuid, slot), entry));
+                }
+            }
         }
+        writeStamped(uuid, entries);
     }
 
     public void savePlayerKitToDB(UUID uuid, int slot) {
-        saveKitToDB(IDUtil.getPlayerKitId(uuid, slot), false);
+        saveSlotToDB(uuid, false, slot);
     }
 
     public void saveEnderchestToDB(UUID uuid, int slot) {
-        saveKitToDB(IDUtil.getECId(uuid, slot), false);
+        saveSlotToDB(uuid, true, slot);
+    }
+
+    private void saveSlotToDB(UUID uuid, boolean enderchest, int slot) {
+        PlayerKitData data = playerData.get(uuid);
+        CachedKit entry = data == null ? null : data.get(enderchest, slot);
+        if (entry != null) {
+            writeStamped(uuid, List.of(Map.entry(enderchest ? IDUtil.getECId(uuid, slot) : IDUtil.getPlayerKitId(uuid, slot), entry)));
+        }
+    }
+
+    /**
+     * Writes the player's entries that differ from storage together with a
+     * new session stamp, in one batch.
+     */
+    private void writeStamped(UUID uuid, List<Map.Entry<String, CachedKit>> entries) {
+        String token = reconnectGraceMillis > 0 ? UUID.randomUUID().toString() : null;
+        int written;
+        try {
+            written = writeEntries(PerPlayerKit.storageManager, entries,
+                    token == null ? Map.of() : Map.of(IDUtil.getSessionStampId(uuid), token));
+        } catch (IllegalStateException e) {
+            // Left dirty for the next save to retry
+            return;
+        }
+        if (written > 0 && token != null) {
+            recordSessionStamp(uuid, token);
+        }
     }
 
     public void savePublicKitToDB(String id) {
-        saveKitToDB(IDUtil.getPublicKitId(id), false);
+        saveEntryToDB(IDUtil.getPublicKitId(id), publicKits.get(id));
     }
 
-    private void saveKitToDB(String key, boolean removeAfterSave) {
-        if (kitByKitIDMap.get(key) != null) {
-            PerPlayerKit.storageManager.saveKitDataByID(key, Serializer.itemStackArrayToBase64(ItemFilter.get().filterItemStack(kitByKitIDMap.get(key))));
-            if (removeAfterSave) {
-                kitByKitIDMap.remove(key);
-            }
+    /**
+     * Writes a cached entry to storage if it differs from the stored copy;
+     * unchanged entries are skipped.
+     *
+     * @return whether anything was written
+     */
+    private boolean saveEntryToDB(String key, CachedKit entry) {
+        return writeEntry(PerPlayerKit.storageManager, key, entry);
+    }
+
+    /**
+     * Entries storage fails to write stay dirty, so the next save of the
+     * player, or the shutdown flush, retries them.
+     */
+    static boolean writeEntry(StorageManager storage, String key, CachedKit entry) {
+        if (entry == null) {
+            return false;
+        }
+
+        String data = entry.pendingWrite();
+        if (data == null) {
+            return false;
+        }
+        if (!storage.saveKitDataByID(key, data)) {
+            return false;
+        }
+        entry.markPersisted(data);
+        recordInIndex(key, entry);
+        return true;
+    }
+
+    /**
+     * Entries that were never decoded are written back unchanged, so the
+     * index already has them right.
+     */
+    private static void recordInIndex(String key, CachedKit entry) {
+        if (entry.isDecoded()) {
+            MaterialIndexService.get().recordSave(key, entry.contents());
         }
     }
 
     public void loadPublicKitFromDB(String id) {
-        String data = PerPlayerKit.storageManager.getKitDataByID(IDUtil.getPublicKitId(id));
-        if (!data.equalsIgnoreCase("error")) {
-            try {
-                ItemStack[] kit = Serializer.itemStackArrayFromBase64(data);
-                cacheKit(IDUtil.getPublicKitId(id), ItemFilter.get().filterItemStack(kit));
-            } catch (IOException ignored) {
-                plugin.getLogger().info("Error loading public kit " + id);
-            }
+        CachedKit entry = fetchKitEntry(IDUtil.getPublicKitId(id));
+        if (entry != null) {
+            publicKits.put(id, entry);
         }
     }
 
     public boolean deleteKit(UUID uuid, int slot) {
-        if (hasKit(uuid, slot)) {
-            kitByKitIDMap.remove(IDUtil.getPlayerKitId(uuid, slot));
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> PerPlayerKit.storageManager.deleteKitByID(IDUtil.getPlayerKitId(uuid, slot)));
+        PlayerKitData data = playerData.get(uuid);
+        if (data != null && data.has(false, slot)) {
+            data.remove(false, slot);
+            saveAfterLoad(uuid, () -> {
+                PerPlayerKit.storageManager.deleteKitByID(IDUtil.getPlayerKitId(uuid, slot));
+                data.forgetRemoval(false, slot);
+                MaterialIndexService.get().recordDelete(IDUtil.getPlayerKitId(uuid, slot));
+                writeSessionStamp(uuid);
+            });
             return true;
         }
         return false;
     }
 
     public boolean deleteEnderchest(UUID uuid, int slot) {
-        if (hasEC(uuid, slot)) {
-            kitByKitIDMap.remove(IDUtil.getECId(uuid, slot));
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> PerPlayerKit.storageManager.deleteKitByID(IDUtil.getECId(uuid, slot)));
+        PlayerKitData data = playerData.get(uuid);
+        if (data != null && data.has(true, slot)) {
+            data.remove(true, slot);
+            saveAfterLoad(uuid, () -> {
+                PerPlayerKit.storageManager.deleteKitByID(IDUtil.getECId(uuid, slot));
+                data.forgetRemoval(true, slot);
+                MaterialIndexService.get().recordDelete(IDUtil.getECId(uuid, slot));
+                writeSessionStamp(uuid);
+            });
             return true;
         }
         return false;
@@ -573,31 +1312,13 @@ public class KitManager {
             return;
         }
 
-        if (isEnderChest) {
-            if (plugin.getConfig().getBoolean("feature.heal-on-enderchest-load", false)) {
-                player.setHealth(20);
-            }
-            if (plugin.getConfig().getBoolean("feature.feed-on-enderchest-load", false)) {
-                player.setFoodLevel(20);
-            }
-            if (plugin.getConfig().getBoolean("feature.set-saturation-on-enderchest-load", false)) {
-                player.setSaturation(20);
-            }
-            if (plugin.getConfig().getBoolean("feature.remove-potion-effects-on-enderchest-load", false)) {
-                player.getActivePotionEffects().forEach(potionEffect -> player.removePotionEffect(potionEffect.getType()));
-            }
-        } else {
-            if (plugin.getConfig().getBoolean("feature.set-health-on-kit-load", false)) {
-                player.setHealth(20);
-            }
-            if (plugin.getConfig().getBoolean("feature.set-hunger-on-kit-load", false)) {
-                player.setFoodLevel(20);
-            }
-            if (plugin.getConfig().getBoolean("feature.set-saturation-on-kit-load", false)) {
-                player.setSaturation(20);
-            }
-            if (plugin.getConfig().getBoolean("feature.remove-potion-effects-on-kit-load", false)) {
-                player.getActivePotionEffects().forEach(potionEffect -> player.removePotionEffect(potionEffect.getType()));
+        for (Settings.LoadEffect effect : Settings.get().loadEffects(isEnderChest)) {
+            switch (effect) {
+                case HEAL -> player.setHealth(20);
+                case FEED -> player.setFoodLevel(20);
+                case SATURATE -> player.setSaturation(20);
+                case CLEAR_POTION_EFFECTS -> player.getActivePotionEffects()
+                        .forEach(potionEffect -> player.removePotionEffect(potionEffect.getType()));
             }
         }
     }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.jobs.JobRunner;
+import dev.noah.perplayerkit.jobs.RevalidationJob;
+import dev.noah.perplayerkit.util.IDUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.plugin.Plugin;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Removes items from stored kits once they are taken out of the kit room,
+ * instead of waiting for each kit to be loaded or saved again.
+ * <p>
+ * Only materials that were allowed before and no longer are can make a kit
+ * invalid, so a kit room edit that just adds items schedules nothing. Edits
+ * within a short window are checked in one pass, which runs as a
+ * {@link RevalidationJob}: paced, holding the storage lock like the other
+ * bulk operations, and resumed after a restart. Kits not reached yet are
+ * still filtered when they are next loaded.
+ */
+public class KitRevalidationService {
+
+    // Kit room edits made within this window are checked together
+    private static final long START_DELAY_TICKS = 30 * 20;
+    private static final String PUBLIC_KIT_PREFIX = IDUtil.getPublicKitId("");
+
+    private static KitRevalidationService instance;
+    private final Plugin plugin;
+    private final Set<Material> pending = EnumSet.noneOf(Material.class);
+    private boolean scheduled;
+
+    public KitRevalidationService(Plugin plugin) {
+        this.plugin = plugin;
+        instance = this;
+    }
+
+    public static KitRevalidationService get() {
+        if (instance == null) {
+            throw new IllegalStateException("KitRevalidationService has not been initialized yet!");
+        }
+        return instance;
+    }
+
+    /**
+     * Queues a check of all stored kits for materials that were removed
+     * from the kit room. Does nothing unless kits are restricted to kit room
+     * items.
+     */
+    public synchronized void schedule(Set<Material> removed) {
+        if (removed.isEmpty() || !ItemFilter.get().isEnabled()) {
+            return;
+        }
+
+        pending.addAll(removed);
+        if (!scheduled) {
+            scheduled = true;
+            Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, this::start, START_DELAY_TICKS);
+        }
+    }
+
+    private synchronized void start() {
+        // Items put back into the kit room in the meantime are fine again
+        pending.removeIf(ItemFilter.get()::isWhitelisted);
+        if (pending.isEmpty()) {
+            scheduled = false;
+            return;
+        }
+
+        RevalidationJob job = new RevalidationJob(plugin, pending);
+        if (JobRunner.get().submit(job, Bukkit.getConsoleSender()) == -1) {
+            // Another job is working on the storage, e.g. an earlier check; try again later
+            Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, this::start, START_DELAY_TICKS);
+            return;
+        }
+        pending.clear();
+        scheduled = false;
+    }
+
+    /**
+     * Player kits, ender chests and public kits; the kit room itself is
+     * what defines the whitelist.
+     */
+    static boolean isKitId(String id) {
+        return IDUtil.parsePlayerDataId(id) != null || id.startsWith(PUBLIC_KIT_PREFIX);
+    }
+}
@@ -64,9 +64,8 @@ public class KitRoomDataManager {
     public void setKitRoom(int page, ItemStack[] data) {
         kitroomData.set(page, data);
 
-        ItemFilter.get().clearWhitelist();
-
-        ItemFilter.get().addToWhitelist(kitroomData);
+        // Kits holding items that were taken out of the kit room are cleaned up in the background
+        KitRevalidationService.get().schedule(ItemFilter.get().replaceWhitelist(kitroomData));
 
     }
 
@@ -93,7 +92,6 @@ public class KitRoomDataManager {
     }
 
     public void loadFromDB() {
-        ItemFilter.get().clearWhitelist();
         for (int i = 0; i < 5; i++) {
             String input = PerPlayerKit.storageManager.getKitDataByID(IDUtil.getKitRoomId(i));
             if (!input.equalsIgnoreCase("error")) {
@@ -106,7 +104,7 @@ public class KitRoomDataManager {
                 }
             }
         }
-        ItemFilter.get().addToWhitelist(kitroomData);
+        ItemFilter.get().replaceWhitelist(kitroomData);
     }
 
 }
@@ -18,40 +18,58 @@
  */
 package dev.noah.perplayerkit;
 
+import dev.noah.perplayerkit.storage.ShareCodeStore;
+import dev.noah.perplayerkit.storage.StorageManager;
 import dev.noah.perplayerkit.util.BroadcastManager;
 import dev.noah.perplayerkit.util.KitSlots;
 import dev.noah.perplayerkit.util.Lang;
 import dev.noah.perplayerkit.util.PlayerUtil;
+import dev.noah.perplayerkit.util.Serializer;
 import dev.noah.perplayerkit.util.SoundManager;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public class KitShareManager {
 
     public static final int REQUEST_EXPIRY_SECONDS = 120;
+    public static final int CODE_EXPIRY_SECONDS = 15 * 60;
+    // One wheel tick per second; a full turn covers the longest expiry
+    private static final int EXPIRY_WHEEL_SLOTS = 1024;
+    private static final long EXPIRY_TICK_INTERVAL = 20L;
+    private static final long CODE_SWEEP_TICKS = 5 * 60 * 20L;
+    // Codes to try when the store reports them taken, e.g. by another server
+    private static final int CODE_ATTEMPTS = 5;
 
-    public static HashMap<String, ItemStack[]> kitShareMap;
     private static KitShareManager instance;
     private final Plugin plugin;
-    private final Map<String, ShareRequest> shareRequestsById = new HashMap<>();
+    private final int maxCodesPerPlayer;
+    private final Map<String, SharedCode> shareCodes = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<String>> codesByOwner = new ConcurrentHashMap<>();
+    private final ShareRequestRegistry shareRequests;
+    private final ExpiryWheel<Expiring> expiries = new ExpiryWheel<>(EXPIRY_WHEEL_SLOTS);
+    // Codes are kept in here when the backend supports it, shareCodes then only caches them
+    private volatile ShareCodeStore codeStore;
 
     public KitShareManager(Plugin plugin) {
         this.plugin = plugin;
-        kitShareMap = new HashMap<>();
+        this.maxCodesPerPlayer = Math.max(1, plugin.getConfig().getInt("sharing.max-codes-per-player", 5));
+        this.shareRequests = new ShareRequestRegistry(
+                Math.max(1, plugin.getConfig().getInt("sharing.max-requests-per-player", 10)),
+                Math.max(1, plugin.getConfig().getInt("sharing.max-requests-per-target", 10)));
         instance = this;
     }
 
@@ -63,49 +81,34 @@ public class KitShareManager {
     }
 
     public List<String> getKitSlots(Player p) {
-        ArrayList<String> slots = new ArrayList<>();
-        for (int i = 1; i <= KitSlots.maxKits(); i++) {
-            if (KitManager.get().hasKit(p.getUniqueId(), i)) {
-                slots.add(String.valueOf(i));
-            }
-        }
-        return slots;
+        return KitManager.get().getKitSlots(p.getUniqueId());
     }
 
     public List<String> getECSlots(Player p) {
-        ArrayList<String> slots = new ArrayList<>();
-        for (int i = 1; i <= KitSlots.maxKits(); i++) {
-            if (KitManager.get().hasEC(p.getUniqueId(), i)) {
-                slots.add(String.valueOf(i));
-            }
+        return KitManager.get().getECSlots(p.getUniqueId());
+    }
+
+    /**
+     * Starts expiring share codes and share requests once storage is
+     * connected. A single repeating task drives all of them, however many
+     * are outstanding. If the backend can hold share codes, they are kept
+     * there from now on, so they can be redeemed on every server using it.
+     */
+    public void start(StorageManager storage) {
+        ShareCodeStore store = storage.getShareCodeStore();
+        if (store != null) {
+            store.init();
+            codeStore = store;
+            Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, store::sweep, CODE_SWEEP_TICKS, CODE_SWEEP_TICKS);
         }
-        return slots;
+        Bukkit.getScheduler().runTaskTimer(plugin, this::expire, EXPIRY_TICK_INTERVAL, EXPIRY_TICK_INTERVAL);
     }
 
     public void shareKit(Player p, int slot) {
         UUID uuid = p.getUniqueId();
         KitManager kitManager = KitManager.get();
         if (kitManager.hasKit(uuid, slot)) {
-            String id = RandomStringUtils.randomAlphanumeric(6).toUpperCase();
-
-            if (kitShareMap.putIfAbsent(id, kitManager.getPlayerKit(uuid, slot).clone()) == null) {
-                Lang.get().send(p, "info.share-kit-code", "code", id);
-                Lang.get().send(p, "info.share-code-expiry");
-                Lang.get().send(p, "info.share-kit-direct-hint");
-                SoundManager.playSuccess(p);
-
-                new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        kitShareMap.remove(id);
-                    }
-                }.runTaskLater(plugin, 15 * 60 * 20);
-
-            } else {
-                Lang.get().send(p, "error.unexpected");
-                SoundManager.playFailure(p);
-            }
-
+            createShareCode(p, kitManager.getPlayerKit(uuid, slot).clone(), "info.share-kit-code", "info.share-kit-direct-hint");
         } else {
             Lang.get().send(p, "error.kit-not-found");
             SoundManager.playFailure(p);
@@ -117,51 +120,131 @@ public class KitShareManager {
         UUID uuid = p.getUniqueId();
         KitManager kitManager = KitManager.get();
         if (kitManager.hasEC(uuid, slot)) {
-            String id = RandomStringUtils.randomAlphanumeric(6).toUpperCase();
-
-            if (kitShareMap.putIfAbsent(id, kitManager.getPlayerEC(uuid, slot).clone()) == null) {
-                Lang.get().send(p, "info.share-ec-code", "code", id);
-                Lang.get().send(p, "info.share-code-expiry");
-                Lang.get().send(p, "info.share-ec-direct-hint");
-                SoundManager.playSuccess(p);
-
-                new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        kitShareMap.remove(id);
-                    }
-                }.runTaskLater(plugin, 15 * 60 * 20);
-
-            } else {
-                Lang.get().send(p, "error.unexpected");
-                SoundManager.playFailure(p);
+            createShareCode(p, kitManager.getPlayerEC(uuid, slot).clone(), "info.share-ec-code", "info.share-ec-direct-hint");
+        } else {
+            Lang.get().send(p, "error.ec-not-found");
+            SoundManager.playFailure(p);
+        }
+    }
+
+    private void createShareCode(Player p, ItemStack[] contents, String codeMessageKey, String hintMessageKey) {
+        UUID uuid = p.getUniqueId();
+        if (codesByOwner.getOrDefault(uuid, Set.of()).size() >= maxCodesPerPlayer) {
+            Lang.get().send(p, "error.share-code-limit", "max", String.valueOf(maxCodesPerPlayer));
+            SoundManager.playFailure(p);
+            return;
+        }
+
+        ShareCodeStore store = codeStore;
+        if (store == null) {
+            String id = nextShareCode();
+            announceShareCode(p, id, cacheCode(id, uuid, contents, CODE_EXPIRY_SECONDS), codeMessageKey, hintMessageKey);
+            return;
+        }
+
+        String data = Serializer.itemStackArrayToBase64(contents);
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            String stored = null;
+            for (int attempt = 0; attempt < CODE_ATTEMPTS && stored == null; attempt++) {
+                String candidate = nextShareCode();
+                if (store.put(candidate, data, TimeUnit.SECONDS.toMillis(CODE_EXPIRY_SECONDS))) {
+                    stored = candidate;
+                }
             }
+            String id = stored;
+            Bukkit.getScheduler().runTask(plugin, () -> announceShareCode(p, id,
+                    id != null && cacheCode(id, uuid, contents, CODE_EXPIRY_SECONDS), codeMessageKey, hintMessageKey));
+        });
+    }
 
+    private void announceShareCode(Player p, String id, boolean created, String codeMessageKey, String hintMessageKey) {
+        if (!p.isOnline()) {
+            return;
+        }
+        if (created) {
+            Lang.get().send(p, codeMessageKey, "code", id);
+            Lang.get().send(p, "info.share-code-expiry");
+            Lang.get().send(p, hintMessageKey);
+            SoundManager.playSuccess(p);
         } else {
-            Lang.get().send(p, "error.ec-not-found");
+            Lang.get().send(p, "error.unexpected");
             SoundManager.playFailure(p);
         }
     }
 
+    /**
+     * Adds a code to the local cache until it expires.
+     *
+     * @param owner the player who created the code, or null if it was created on another server
+     * @return false if the code is already cached
+     */
+    private boolean cacheCode(String id, @Nullable UUID owner, ItemStack[] contents, long expirySeconds) {
+        if (shareCodes.putIfAbsent(id, new SharedCode(owner, contents)) != null) {
+            return false;
+        }
+        if (owner != null) {
+            addToIndex(codesByOwner, owner, id);
+        }
+        expiries.schedule(new Expiring(Expiring.Kind.CODE, id), expirySeconds);
+        return true;
+    }
+
 
     public void copyKit(Player p, String str) {
 
         String id = str.toUpperCase();
-        if (!kitShareMap.containsKey(id)) {
+        SharedCode shared = shareCodes.get(id);
+        if (shared != null) {
+            applySharedContents(p, shared.contents());
+            return;
+        }
+
+        ShareCodeStore store = codeStore;
+        if (store == null) {
             Lang.get().send(p, "error.kit-expired");
             SoundManager.playFailure(p);
             return;
         }
 
-        ItemStack[] data = kitShareMap.get(id);
+        // Created on another server or before a restart; a single lookup, cached for the next redemption
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            ShareCodeStore.Entry entry = store.get(id);
+            ItemStack[] contents = null;
+            long expirySeconds = 0;
+            if (entry != null) {
+                expirySeconds = TimeUnit.MILLISECONDS.toSeconds(entry.expiresAt() - System.currentTimeMillis());
+                try {
+                    contents = Serializer.itemStackArrayFromBase64(entry.data());
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Could not decode the contents of share code " + id);
+                }
+            }
+
+            ItemStack[] loaded = contents;
+            long remainingSeconds = expirySeconds;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (!p.isOnline()) {
+                    return;
+                }
+                if (loaded == null || remainingSeconds <= 0) {
+                    Lang.get().send(p, "error.kit-expired");
+                    SoundManager.playFailure(p);
+                    return;
+                }
+                cacheCode(id, null, loaded, remainingSeconds);
+                applySharedContents(p, loaded);
+            });
+        });
+    }
 
+    private void applySharedContents(Player p, ItemStack[] data) {
         if (data.length == 27) {
-            p.getEnderChest().setContents(kitShareMap.get(id));
+            p.getEnderChest().setContents(data);
             BroadcastManager.get().broadcastPlayerCopiedEC(p);
             SoundManager.playSuccess(p);
 
         } else if (data.length == 41) {
-            p.getInventory().setContents(kitShareMap.get(id));
+            p.getInventory().setContents(data);
             // Resync the client (including the offhand slot) so it doesn't render stale items.
             p.updateInventory();
             BroadcastManager.get().broadcastPlayerCopiedKit(p);
@@ -240,8 +323,7 @@ public class KitShareManager {
             return;
         }
 
-        request.cancelExpiryTask();
-        shareRequestsById.remove(request.getId());
+        removeRequest(request.getId());
 
         Player sender = Bukkit.getPlayer(request.getSenderId());
         switch (request.getType()) {
@@ -283,8 +365,7 @@ public class KitShareManager {
             return;
         }
 
-        request.cancelExpiryTask();
-        shareRequestsById.remove(request.getId());
+        removeRequest(request.getId());
 
         Lang.get().send(target, "info.share-request-declined-target", "player", request.getSenderName());
         Player sender = Bukkit.getPlayer(request.getSenderId());
@@ -296,10 +377,8 @@ public class KitShareManager {
 
     public List<String> getPendingRequestIds(Player target) {
         List<String> ids = new ArrayList<>();
-        for (ShareRequest request : shareRequestsById.values()) {
-            if (request.getTargetId().equals(target.getUniqueId())) {
-                ids.add(request.getId());
-            }
+        for (ShareRequest request : shareRequests.findForTarget(target.getUniqueId())) {
+            ids.add(request.getId());
         }
         return ids;
     }
@@ -315,32 +394,25 @@ public class KitShareManager {
 
     private void registerAndAnnounce(ShareRequest request, Player sender, Player target, String receivedMessageKey) {
         // A newer request from the same sender to the same target replaces the old one.
-        Iterator<ShareRequest> iterator = shareRequestsById.values().iterator();
-        while (iterator.hasNext()) {
-            ShareRequest existing = iterator.next();
-            if (existing.getSenderId().equals(request.getSenderId())
-                    && existing.getTargetId().equals(request.getTargetId())
-                    && existing.getType() == request.getType()) {
-                existing.cancelExpiryTask();
-                iterator.remove();
+        ShareRequestRegistry.AddResult result = shareRequests.add(request);
+        switch (result.outcome()) {
+            case SENDER_LIMIT -> {
+                Lang.get().send(sender, "error.share-request-limit", "max", String.valueOf(shareRequests.maxPerSender()));
+                SoundManager.playFailure(sender);
+                return;
             }
-        }
-
-        shareRequestsById.put(request.getId(), request);
-
-        BukkitTask expiryTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (shareRequestsById.remove(request.getId()) == null) {
-                    return;
-                }
-                Player sender = Bukkit.getPlayer(request.getSenderId());
-                if (sender != null) {
-                    Lang.get().send(sender, "info.share-request-expired", "player", PlayerUtil.getPlayerName(request.getTargetId()));
+            case TARGET_LIMIT -> {
+                Lang.get().send(sender, "error.share-target-request-limit", "player", target.getName());
+                SoundManager.playFailure(sender);
+                return;
+            }
+            case ADDED -> {
+                if (result.replaced() != null) {
+                    expiries.cancel(new Expiring(Expiring.Kind.REQUEST, result.replaced().getId()));
                 }
             }
-        }.runTaskLater(plugin, REQUEST_EXPIRY_SECONDS * 20L);
-        request.setExpiryTask(expiryTask);
+        }
+        expiries.schedule(new Expiring(Expiring.Kind.REQUEST, request.getId()), REQUEST_EXPIRY_SECONDS);
 
         Lang.get().send(sender, "info.share-request-sent",
                 "player", target.getName(),
@@ -352,9 +424,57 @@ public class KitShareManager {
         SoundManager.playSuccess(target);
     }
 
+    private void expire() {
+        for (Expiring expired : expiries.advance()) {
+            if (expired.kind() == Expiring.Kind.CODE) {
+                removeCode(expired.id());
+                continue;
+            }
+
+            ShareRequest request = removeRequest(expired.id());
+            if (request == null) {
+                continue;
+            }
+            Player sender = Bukkit.getPlayer(request.getSenderId());
+            if (sender != null) {
+                Lang.get().send(sender, "info.share-request-expired", "player", PlayerUtil.getPlayerName(request.getTargetId()));
+            }
+        }
+    }
+
+    private void removeCode(String id) {
+        SharedCode shared = shareCodes.remove(id);
+        if (shared != null) {
+            removeFromIndex(codesByOwner, shared.owner(), id);
+        }
+    }
+
+    private @Nullable ShareRequest removeRequest(String id) {
+        ShareRequest request = shareRequests.remove(id);
+        if (request != null) {
+            expiries.cancel(new Expiring(Expiring.Kind.REQUEST, id));
+        }
+        return request;
+    }
+
+    private static void addToIndex(Map<UUID, Set<String>> index, UUID key, String id) {
+        index.compute(key, (ignored, ids) -> {
+            Set<String> updated = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            updated.add(id);
+            return updated;
+        });
+    }
+
+    private static void removeFromIndex(Map<UUID, Set<String>> index, UUID key, String id) {
+        index.computeIfPresent(key, (ignored, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
     private @Nullable ShareRequest resolveRequest(Player target, @Nullable String idArg) {
         if (idArg == null || idArg.isBlank()) {
-            List<ShareRequest> pending = findRequestsForTarget(shareRequestsById, target.getUniqueId());
+            List<ShareRequest> pending = shareRequests.findForTarget(target.getUniqueId());
             if (pending.isEmpty()) {
                 Lang.get().send(target, "error.share-no-pending-requests");
                 SoundManager.playFailure(target);
@@ -368,7 +488,7 @@ public class KitShareManager {
             return pending.get(0);
         }
 
-        ShareRequest request = findRequestById(shareRequestsById, target.getUniqueId(), idArg);
+        ShareRequest request = shareRequests.findForTarget(target.getUniqueId(), idArg);
         if (request == null) {
             Lang.get().send(target, "error.share-request-not-found");
             SoundManager.playFailure(target);
@@ -377,29 +497,34 @@ public class KitShareManager {
         return request;
     }
 
-    static List<ShareRequest> findRequestsForTarget(Map<String, ShareRequest> requests, UUID targetId) {
-        List<ShareRequest> pending = new ArrayList<>();
-        for (ShareRequest request : requests.values()) {
-            if (request.getTargetId().equals(targetId)) {
-                pending.add(request);
-            }
-        }
-        return pending;
-    }
-
-    static @Nullable ShareRequest findRequestById(Map<String, ShareRequest> requests, UUID targetId, String id) {
-        ShareRequest request = requests.get(id.toUpperCase());
-        if (request == null || !request.getTargetId().equals(targetId)) {
-            return null;
-        }
-        return request;
+    private String nextShareCode() {
+        String id;
+        do {
+            id = RandomStringUtils.randomAlphanumeric(6).toUpperCase();
+        } while (shareCodes.containsKey(id));
+        return id;
     }
 
     private String nextRequestId() {
         String id;
         do {
             id = RandomStringUtils.randomAlphanumeric(6).toUpperCase();
-        } while (shareRequestsById.containsKey(id));
+        } while (shareRequests.contains(id));
         return id;
     }
+
+    private record SharedCode(@Nullable UUID owner, ItemStack[] contents) {
+    }
+
+    /**
+     * A share code or share request waiting to expire. Both kinds of ID are
+     * drawn from the same alphabet, so the kind keeps them apart.
+     */
+    private record Expiring(Kind kind, String id) {
+
+        private enum Kind {
+            CODE,
+            REQUEST
+        }
+    }
 }
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.util.IDUtil;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Counters describing a set of stored kits: how many there are, how full
+ * they are, and which items and enchantments they hold. Each worker of a
+ * report fills its own instance, which are then merged.
+ */
+public final class KitStats {
+
+    // Entries with at most this many stacks count as near empty
+    static final int NEAR_EMPTY_STACKS = 3;
+    private static final String PUBLIC_KIT_PREFIX = IDUtil.getPublicKitId("");
+
+    private long kits;
+    private long enderchests;
+    private long publicKits;
+    private long failed;
+    private long slots;
+    private long emptySlots;
+    private long nearEmptyEntries;
+    private long stacks;
+    private long nestedStacks;
+    private final Map<Material, Counter> items = new EnumMap<>(Material.class);
+    private final Map<String, Counter> enchantments = new HashMap<>();
+
+    /**
+     * Counts one decoded entry.
+     */
+    public void add(String id, ItemStack[] contents) {
+        IDUtil.PlayerDataId playerDataId = IDUtil.parsePlayerDataId(id);
+        if (playerDataId != null && playerDataId.enderchest()) {
+            enderchests++;
+        } else if (playerDataId != null) {
+            kits++;
+        } else if (id.startsWith(PUBLIC_KIT_PREFIX)) {
+            publicKits++;
+        }
+
+        int topLevel = 0;
+        for (ItemStack item : contents) {
+            slots++;
+            if (item == null || item.getType().isAir()) {
+                emptySlots++;
+            } else {
+                topLevel++;
+            }
+        }
+        stacks += topLevel;
+        if (topLevel <= NEAR_EMPTY_STACKS) {
+            nearEmptyEntries++;
+        }
+
+        Set<Material> materials = EnumSet.noneOf(Material.class);
+        Set<String> enchants = new HashSet<>();
+        ItemPurger.forEachItem(contents, (item, depth) -> {
+            if (depth > 0) {
+                nestedStacks++;
+            }
+            items.computeIfAbsent(item.getType(), type -> new Counter()).count += item.getAmount();
+            materials.add(item.getType());
+            if (item.hasItemMeta()) {
+                collectEnchantments(item.getItemMeta(), enchants);
+            }
+        });
+        materials.forEach(material -> items.get(material).entries++);
+        enchants.forEach(name -> enchantments.get(name).entries++);
+    }
+
+    private void collectEnchantments(ItemMeta meta, Set<String> seen) {
+        Map<Enchantment, Integer> enchants = meta instanceof EnchantmentStorageMeta storage
+                ? storage.getStoredEnchants()
+                : meta.getEnchants();
+        enchants.forEach((enchantment, level) -> {
+            String name = enchantment.getKey().getKey() + ":" + level;
+            enchantments.computeIfAbsent(name, key -> new Counter()).count++;
+            seen.add(name);
+        });
+    }
+
+    /**
+     * Counts an entry that could not be decoded.
+     */
+    public void addFailure() {
+        failed++;
+    }
+
+    public void merge(KitStats other) {
+        kits += other.kits;
+        enderchests += other.enderchests;
+        publicKits += other.publicKits;
+        failed += other.failed;
+        slots += other.slots;
+        emptySlots += other.emptySlots;
+        nearEmptyEntries += other.nearEmptyEntries;
+        stacks += other.stacks;
+        nestedStacks += other.nestedStacks;
+        other.items.forEach((material, counter) -> items.computeIfAbsent(material, type -> new Counter()).add(counter));
+        other.enchantments.forEach((name, counter) -> enchantments.computeIfAbsent(name, key -> new Counter()).add(counter));
+    }
+
+    public long entries() {
+        return kits + enderchests + publicKits;
+    }
+
+    public long failed() {
+        return failed;
+    }
+
+    long kits() {
+        return kits;
+    }
+
+    long enderchests() {
+        return enderchests;
+    }
+
+    long emptySlots() {
+        return emptySlots;
+    }
+
+    long nearEmptyEntries() {
+        return nearEmptyEntries;
+    }
+
+    long nestedStacks() {
+        return nestedStacks;
+    }
+
+    /**
+     * @return the total amount of the material, nested items included
+     */
+    long itemCount(Material material) {
+        Counter counter = items.get(material);
+        return counter == null ? 0 : counter.count;
+    }
+
+    /**
+     * @return how many entries contain the material
+     */
+    long itemEntries(Material material) {
+        Counter counter = items.get(material);
+        return counter == null ? 0 : counter.entries;
+    }
+
+    long enchantmentCount(String name) {
+        Counter counter = enchantments.get(name);
+        return counter == null ? 0 : counter.count;
+    }
+
+    /**
+     * Writes the report as CSV with the columns category, key, count and
+     * entries. Items are listed most common first.
+     */
+    public void writeCsv(Writer out) throws IOException {
+        out.write("category,key,count,entries\n");
+        long entries = entries();
+        writeRow(out, "summary", "entries", entries, entries);
+        writeRow(out, "summary", "kits", kits, kits);
+        writeRow(out, "summary", "enderchests", enderchests, enderchests);
+        writeRow(out, "summary", "public_kits", publicKits, publicKits);
+        writeRow(out, "summary", "unreadable", failed, failed);
+        writeRow(out, "summary", "slots", slots, entries);
+        writeRow(out, "summary", "empty_slots", emptySlots, entries);
+        writeRow(out, "summary", "near_empty_entries", nearEmptyEntries, nearEmptyEntries);
+        writeRow(out, "summary", "stacks", stacks, entries);
+        writeRow(out, "summary", "nested_stacks", nestedStacks, entries);
+        out.write("summary,average_stacks_per_entry,"
+                + String.format(Locale.ROOT, "%.2f", entries == 0 ? 0.0 : (double) stacks / entries) + "," + entries + "\n");
+
+        List<Map.Entry<Material, Counter>> byCount = new ArrayList<>(items.entrySet());
+        byCount.sort((x, y) -> Long.compare(y.getValue().count, x.getValue().count));
+        for (Map.Entry<Material, Counter> entry : byCount) {
+            writeRow(out, "item", entry.getKey().name(), entry.getValue().count, entry.getValue().entries);
+        }
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(enchantments).entrySet()) {
+            writeRow(out, "enchantment", entry.getKey(), entry.getValue().count, entry.getValue().entries);
+        }
+    }
+
+    private static void writeRow(Writer out, String category, String key, long count, long entries) throws IOException {
+        out.write(category + "," + key + "," + count + "," + entries + "\n");
+    }
+
+    /**
+     * The counters as a single string, for the checkpoint of a report that
+     * is still running. Read back with {@link #decode(String)}.
+     */
+    public String encode() {
+        StringBuilder out = new StringBuilder();
+        out.append(kits).append(',').append(enderchests).append(',').append(publicKits).append(',')
+                .append(failed).append(',').append(slots).append(',').append(emptySlots).append(',')
+                .append(nearEmptyEntries).append(',').append(stacks).append(',').append(nestedStacks);
+        items.forEach((material, counter) -> out.append(";i:").append(material.name())
+                .append('=').append(counter.count).append(',').append(counter.entries));
+        enchantments.forEach((name, counter) -> out.append(";e:").append(name)
+                .append('=').append(counter.count).append(',').append(counter.entries));
+        return out.toString();
+    }
+
+    /**
+     * Items no longer known to the server are dropped.
+     *
+     * @throws IllegalArgumentException if the string isn't from {@link #encode()}
+     */
+    public static KitStats decode(String encoded) {
+        String[] parts = encoded.split(";");
+        String[] totals = parts[0].split(",");
+        if (totals.length != 9) {
+            throw new IllegalArgumentException("Unreadable kit stats: " + parts[0]);
+        }
+        KitStats stats = new KitStats();
+        stats.kits = Long.parseLong(totals[0]);
+        stats.enderchests = Long.parseLong(totals[1]);
+        stats.publicKits = Long.parseLong(totals[2]);
+        stats.failed = Long.parseLong(totals[3]);
+        stats.slots = Long.parseLong(totals[4]);
+        stats.emptySlots = Long.parseLong(totals[5]);
+        stats.nearEmptyEntries = Long.parseLong(totals[6]);
+        stats.stacks = Long.parseLong(totals[7]);
+        stats.nestedStacks = Long.parseLong(totals[8]);
+        for (int i = 1; i < parts.length; i++) {
+            int separator = parts[i].lastIndexOf('=');
+            String[] values = parts[i].substring(separator + 1).split(",");
+            if (separator < 2 || values.length != 2) {
+                throw new IllegalArgumentException("Unreadable kit stats: " + parts[i]);
+            }
+            Counter counter = new Counter();
+            counter.count = Long.parseLong(values[0]);
+            counter.entries = Long.parseLong(values[1]);
+            String name = parts[i].substring(2, separator);
+            if (parts[i].startsWith("i:")) {
+                Material material = Material.getMaterial(name);
+                if (material != null) {
+                    stats.items.put(material, counter);
+                }
+            } else if (parts[i].startsWith("e:")) {
+                stats.enchantments.put(name, counter);
+            } else {
+                throw new IllegalArgumentException("Unreadable kit stats: " + parts[i]);
+            }
+        }
+        return stats;
+    }
+
+    private static final class Counter {
+        private long count;
+        private long entries;
+
+        private void add(Counter other) {
+            count += other.count;
+            entries += other.entries;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.storage.MaterialIndex;
+import dev.noah.perplayerkit.storage.StorageManager;
+import dev.noah.perplayerkit.util.IDUtil;
+import dev.noah.perplayerkit.util.Serializer;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Applies a {@link KitTransformer} to stored kits, ender chests and public
+ * kits.
+ * <p>
+ * Kits are stored as serialized blobs in every backend, so this works the
+ * same way everywhere: the entries of a batch are read in one storage round
+ * trip, decoded and transformed by parallel workers, and the changes are
+ * written back and deleted in one batch each. Entries that end up empty are
+ * deleted, and cached copies are refreshed through
+ * {@link KitManager#updateCachedKit}. A dry run does all of that except
+ * writing, so admins can see what a rule set would change first.
+ * <p>
+ * Given a complete material index and rules that only touch known item
+ * types, only the entries the index lists for those types are read.
+ */
+public class KitTransformService {
+
+    private static final int WORKERS = 4;
+    // Batches with fewer entries than this are transformed on the calling thread
+    private static final int MIN_PARALLEL_ENTRIES = 16;
+
+    private final StorageManager storage;
+    private final KitManager kitManager;
+    private final KitTransformer transformer;
+    private final MaterialIndex index;
+    private final boolean dryRun;
+
+    /**
+     * @param index  a complete material index to find the affected entries
+     *               with, or null to check every entry
+     * @param dryRun true to only count what would change
+     */
+    public KitTransformService(StorageManager storage, KitManager kitManager, KitTransformer transformer,
+                               MaterialIndex index, boolean dryRun) {
+        this.storage = storage;
+        this.kitManager = kitManager;
+        this.transformer = transformer;
+        this.index = index;
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Entries a transform of every stored kit covers: player kits, ender
+     * chests and public kits, but not the kit room.
+     */
+    public static boolean isKitId(String id) {
+        return KitRevalidationService.isKitId(id);
+    }
+
+    /**
+     * Lists the entries the rules might change, sorted by ID.
+     *
+     * @param scope which entries to consider at all
+     */
+    public List<String> findEntries(Predicate<String> scope) {
+        Set<Material> materials = index == null ? null : transformer.materials();
+        Set<String> candidates;
+        if (materials == null) {
+            candidates = storage.getAllKitIDs();
+        } else {
+            candidates = new HashSet<>();
+            for (Material material : materials) {
+                candidates.addAll(index.find(material.name()));
+            }
+        }
+        return candidates.stream()
+                .filter(scope)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Pool to pass to {@link #transformBatch}; the caller shuts it down.
+     */
+    public static ExecutorService newWorkerPool() {
+        return Executors.newFixedThreadPool(WORKERS);
+    }
+
+    /**
+     * Transforms a batch of entries as listed by {@link #findEntries}. The
+     * batch is read in one round trip and written back in one batch, so
+     * callers that pace themselves should pass a page of entries at a time.
+     *
+     * @param progress receives a message for each entry that fails (can be null)
+     */
+    public TransformResult transformBatch(List<String> ids, ExecutorService workers, Consumer<String> progress) {
+        int modified = 0;
+        int failed = 0;
+        KitTransformer.Tally tally = new KitTransformer.Tally(transformer.rules().size());
+        Set<UUID> changedPlayers = new HashSet<>();
+
+        Map<String, String> stored = storage.getKitDataBatch(ids);
+        Map<String, String> rewritten = new HashMap<>();
+        Map<String, ItemStack[]> rewrittenContents = new HashMap<>();
+        List<String> emptied = new ArrayList<>();
+        for (EntryResult result : transformStored(stored, workers)) {
+            if (result.error() != null) {
+                failed++;
+                if (progress != null) {
+                    progress.accept("Failed to process entry " + result.id() + ": " + result.error().getMessage());
+                }
+                continue;
+            }
+            if (!result.changed()) {
+                continue;
+            }
+
+            tally.merge(result.tally());
+            modified++;
+            IDUtil.PlayerDataId playerDataId = IDUtil.parsePlayerDataId(result.id());
+            if (playerDataId != null) {
+                changedPlayers.add(playerDataId.uuid());
+            }
+            if (ItemPurger.isEmpty(result.contents())) {
+                // The plugin never stores fully empty kits, so drop the entry
+                // instead of keeping a blob that would load as an empty inventory.
+                emptied.add(result.id());
+            } else {
+                rewritten.put(result.id(), result.serialized());
+                rewrittenContents.put(result.id(), result.contents());
+            }
+        }
+
+        if (!dryRun) {
+            storage.saveKitDataBatch(rewritten);
+            storage.deleteKitDataBatch(emptied);
+            rewrittenContents.forEach(kitManager::updateCachedKit);
+            emptied.forEach(id -> kitManager.updateCachedKit(id, null));
+
+            // Servers keeping these players' kits cached across a reconnect must reload them
+            changedPlayers.forEach(kitManager::markStoredDataChanged);
+        }
+        return new TransformResult(stored.size(), modified, emptied.size(), failed, tally);
+    }
+
+    /**
+     * Decodes and transforms the entries of one batch, in parallel unless the
+     * batch is small.
+     */
+    private List<EntryResult> transformStored(Map<String, String> stored, ExecutorService workers) {
+        List<EntryResult> results = new ArrayList<>(stored.size());
+        if (stored.size() < MIN_PARALLEL_ENTRIES) {
+            stored.forEach((id, data) -> results.add(transformEntry(id, data)));
+            return results;
+        }
+
+        List<Future<EntryResult>> futures = new ArrayList<>(stored.size());
+        stored.forEach((id, data) -> futures.add(workers.submit(() -> transformEntry(id, data))));
+        for (Future<EntryResult> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while transforming kits", e);
+            } catch (ExecutionException e) {
+                // transformEntry reports its own failures
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private EntryResult transformEntry(String id, String data) {
+        try {
+            ItemStack[] contents = Serializer.itemStackArrayFromBase64(data);
+            KitTransformer.Tally tally = new KitTransformer.Tally(transformer.rules().size());
+            boolean changed = transformer.transform(contents, tally);
+            String serialized = !changed || dryRun || ItemPurger.isEmpty(contents)
+                    ? null
+                    : Serializer.itemStackArrayToBase64(contents);
+            return new EntryResult(id, contents, serialized, changed, tally, null);
+        } catch (Exception e) {
+            return new EntryResult(id, null, null, false, null, e);
+        }
+    }
+
+    /**
+     * Outcome of a transform run. {@code modified} counts every entry that
+     * was changed, including the {@code deleted} entries that became empty
+     * and were removed entirely. In a dry run, nothing was actually written.
+     */
+    public record TransformResult(int scanned, int modified, int deleted, int failed, KitTransformer.Tally tally) {
+
+        public static TransformResult none(int rules) {
+            return new TransformResult(0, 0, 0, 0, new KitTransformer.Tally(rules));
+        }
+
+        public TransformResult plus(TransformResult other) {
+            KitTransformer.Tally combined = new KitTransformer.Tally(tally.rules());
+            combined.merge(tally);
+            combined.merge(other.tally);
+            return new TransformResult(scanned + other.scanned, modified + other.modified,
+                    deleted + other.deleted, failed + other.failed, combined);
+        }
+    }
+
+    /**
+     * Outcome for a single entry. {@code serialized} is null if the entry is
+     * unchanged, became empty or this is a dry run; {@code error} is set if
+     * it couldn't be processed.
+     */
+    private record EntryResult(String id, ItemStack[] contents, String serialized, boolean changed,
+                               KitTransformer.Tally tally, Exception error) {
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import org.bukkit.Material;
+import org.bukkit.block.Container;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BlockStateMeta;
+import org.bukkit.inventory.meta.BundleMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applies a list of {@link TransformRule}s to item stack arrays, including
+ * items nested inside shulker boxes, other container items and bundles, the
+ * same way {@link ItemPurger} walks them.
+ * <p>
+ * Each item is offered to the rules in order, so a later rule sees what the
+ * earlier ones left of it. Items inside a container are transformed after
+ * the container itself. The transformer holds no state besides its rules and
+ * can be shared between threads.
+ */
+public final class KitTransformer {
+
+    private final List<TransformRule> rules;
+
+    public KitTransformer(List<TransformRule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    public List<TransformRule> rules() {
+        return rules;
+    }
+
+    /**
+     * The item types the rules can change, or null if some rule may change
+     * any item.
+     */
+    public Set<Material> materials() {
+        Set<Material> materials = EnumSet.noneOf(Material.class);
+        for (TransformRule rule : rules) {
+            if (rule.materials() == null) {
+                return null;
+            }
+            materials.addAll(rule.materials());
+        }
+        return materials;
+    }
+
+    /**
+     * Applies the rules to the array in place.
+     *
+     * @param tally receives what each rule changed
+     * @return true if anything changed
+     */
+    public boolean transform(ItemStack[] contents, Tally tally) {
+        if (contents == null) {
+            return false;
+        }
+
+        // Every change, nested ones included, is recorded in the tally
+        long before = tally.total();
+        for (int i = 0; i < contents.length; i++) {
+            ItemStack item = contents[i];
+            if (item != null && !item.getType().isAir()) {
+                contents[i] = transformItem(item, tally);
+            }
+        }
+        return tally.total() > before;
+    }
+
+    private ItemStack transformItem(ItemStack item, Tally tally) {
+        for (int rule = 0; rule < rules.size(); rule++) {
+            if (!rules.get(rule).matches(item)) {
+                continue;
+            }
+            tally.record(rule, item.getAmount());
+            item = rules.get(rule).apply(item);
+            if (item == null) {
+                return null;
+            }
+        }
+
+        transformNested(item, tally);
+        return item;
+    }
+
+    private void transformNested(ItemStack item, Tally tally) {
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) {
+            return;
+        }
+
+        // Shulker boxes of all types and any other container block held as an item.
+        if (meta instanceof BlockStateMeta blockStateMeta
+                && blockStateMeta.getBlockState() instanceof Container container) {
+            ItemStack[] inner = container.getInventory().getContents();
+            if (transform(inner, tally)) {
+                container.getInventory().setContents(inner);
+                blockStateMeta.setBlockState(container);
+                item.setItemMeta(blockStateMeta);
+            }
+        }
+
+        if (meta instanceof BundleMeta bundleMeta && !bundleMeta.getItems().isEmpty()) {
+            ItemStack[] inner = bundleMeta.getItems().toArray(new ItemStack[0]);
+            if (transform(inner, tally)) {
+                List<ItemStack> kept = new ArrayList<>();
+                for (ItemStack bundleItem : inner) {
+                    if (bundleItem != null) {
+                        kept.add(bundleItem);
+                    }
+                }
+                bundleMeta.setItems(kept);
+                item.setItemMeta(bundleMeta);
+            }
+        }
+    }
+
+    /**
+     * How many stacks, and items in them, each rule changed. Not thread safe;
+     * use one per thread and {@link #merge} them.
+     */
+    public static final class Tally {
+        private final long[] stacks;
+        private final long[] items;
+
+        public Tally(int rules) {
+            stacks = new long[rules];
+            items = new long[rules];
+        }
+
+        void record(int rule, int amount) {
+            stacks[rule]++;
+            items[rule] += amount;
+        }
+
+        /**
+         * Adds counts from an earlier run, e.g. one resumed from a checkpoint.
+         */
+        public void add(int rule, long stacks, long items) {
+            this.stacks[rule] += stacks;
+            this.items[rule] += items;
+        }
+
+        public void merge(Tally other) {
+            for (int i = 0; i < stacks.length; i++) {
+                stacks[i] += other.stacks[i];
+                items[i] += other.items[i];
+            }
+        }
+
+        public int rules() {
+            return stacks.length;
+        }
+
+        /**
+         * @return the number of stacks the rule changed
+         */
+        public long stacks(int rule) {
+            return stacks[rule];
+        }
+
+        /**
+         * @return the number of items in the stacks the rule changed, counted
+         * before the change
+         */
+        public long items(int rule) {
+            return items[rule];
+        }
+
+        long total() {
+            long total = 0;
+            for (long count : stacks) {
+                total += count;
+            }
+            return total;
+        }
+    }
+}
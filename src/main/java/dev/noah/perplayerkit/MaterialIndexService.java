@@ -0,0 +1,244 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.jobs.JobRunner;
+import dev.noah.perplayerkit.jobs.MaterialIndexJob;
+import dev.noah.perplayerkit.storage.MaterialIndex;
+import dev.noah.perplayerkit.storage.StorageManager;
+import dev.noah.perplayerkit.util.Serializer;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the storage backend's material index in step with the kits the
+ * plugin writes, so item lookups and purges can go straight to the kits
+ * containing an item instead of decoding every stored kit.
+ * <p>
+ * Kits are opaque blobs to the backends, so the index is updated from the
+ * plugin's own write paths. When it is switched on, or was left incomplete
+ * (e.g. by a migration or by running with it switched off), it is rebuilt
+ * from the stored kits by a background job and only used once that has
+ * finished.
+ */
+public class MaterialIndexService {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final long RETRY_DELAY_TICKS = 60 * 20;
+
+    private static MaterialIndexService instance;
+    private final Plugin plugin;
+    private final boolean enabled;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // Kits written while a rebuild is running; the rebuild must not overwrite them with what it read
+    private final Set<String> writtenDuringRebuild = ConcurrentHashMap.newKeySet();
+    // Per kit ID, held across marking/checking writtenDuringRebuild and the index update
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private volatile MaterialIndex index;
+
+    public MaterialIndexService(Plugin plugin) {
+        this.plugin = plugin;
+        this.enabled = plugin.getConfig().getBoolean("storage.material-index", false);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        instance = this;
+    }
+
+    public static MaterialIndexService get() {
+        if (instance == null) {
+            throw new IllegalStateException("MaterialIndexService has not been initialized yet!");
+        }
+        return instance;
+    }
+
+    /**
+     * Sets up the index once storage is connected. With the index switched
+     * off, an index left over from earlier is marked incomplete, since kits
+     * saved from now on won't be recorded in it.
+     */
+    public void start(StorageManager storage) {
+        MaterialIndex backendIndex = storage.getMaterialIndex();
+        if (backendIndex == null) {
+            if (enabled) {
+                plugin.getLogger().warning("The material index is not supported by this storage type");
+            }
+            return;
+        }
+        if (!enabled) {
+            backendIndex.invalidate();
+            return;
+        }
+
+        backendIndex.init();
+        index = backendIndex;
+        if (!backendIndex.isComplete()) {
+            // Once the job runner has resumed a rebuild left unfinished by the last shutdown
+            Bukkit.getScheduler().runTask(plugin, this::rebuild);
+        }
+    }
+
+    public boolean isEnabled() {
+        return index != null;
+    }
+
+    /**
+     * @return the index if it can be trusted for lookups right now, otherwise null
+     */
+    public MaterialIndex completeIndex() {
+        MaterialIndex current = index;
+        if (current == null || rebuilding.get() || !current.isComplete()) {
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * Records the contents a kit was just saved with.
+     */
+    public void recordSave(String kitID, ItemStack[] contents) {
+        MaterialIndex current = index;
+        if (current == null) {
+            return;
+        }
+        Set<String> materials = materialNames(contents);
+        synchronized (lockFor(kitID)) {
+            writtenDuringRebuild.add(kitID);
+            current.update(kitID, materials);
+        }
+    }
+
+    public void recordDelete(String kitID) {
+        MaterialIndex current = index;
+        if (current == null) {
+            return;
+        }
+        synchronized (lockFor(kitID)) {
+            writtenDuringRebuild.add(kitID);
+            current.remove(kitID);
+        }
+    }
+
+    /**
+     * Rebuilds the index from the stored kits in the background, as a
+     * {@link MaterialIndexJob}. If another job is working on the storage the
+     * rebuild starts once it is done.
+     *
+     * @return false if the index is switched off or already being rebuilt
+     */
+    public boolean rebuild() {
+        if (index == null || !rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        submitRebuild();
+        return true;
+    }
+
+    private void submitRebuild() {
+        if (JobRunner.get().conflictingJob(Set.of(MaterialIndexJob.LOCK)) != null) {
+            // Resumed from the last shutdown
+            return;
+        }
+        if (JobRunner.get().submit(new MaterialIndexJob(plugin), Bukkit.getConsoleSender()) == -1) {
+            Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, this::submitRebuild, RETRY_DELAY_TICKS);
+        }
+    }
+
+    /**
+     * Empties the index at the start of a rebuild. Kits saved from now on
+     * are kept as saved, see {@link #rebuildEntries}.
+     */
+    public void beginRebuild() {
+        rebuilding.set(true);
+        writtenDuringRebuild.clear();
+        index.clear();
+    }
+
+    /**
+     * Indexes a page of stored kits read by a rebuild.
+     *
+     * @return the number of kits that could not be read
+     */
+    public int rebuildEntries(Map<String, String> stored) {
+        MaterialIndex current = index;
+        int failed = 0;
+        for (Map.Entry<String, String> entry : stored.entrySet()) {
+            if (writtenDuringRebuild.contains(entry.getKey())) {
+                continue;
+            }
+            try {
+                Set<String> materials = materialNames(Serializer.itemStackArrayFromBase64(entry.getValue()));
+                synchronized (lockFor(entry.getKey())) {
+                    // A save landing after the page was read has the newer contents
+                    if (!writtenDuringRebuild.contains(entry.getKey())) {
+                        current.update(entry.getKey(), materials);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    public void completeRebuild() {
+        index.markComplete();
+    }
+
+    /**
+     * Called once a rebuild finished or stopped. A rebuild stopped before
+     * {@link #completeRebuild()} leaves the index incomplete.
+     */
+    public void endRebuild() {
+        writtenDuringRebuild.clear();
+        rebuilding.set(false);
+    }
+
+    private Object lockFor(String kitID) {
+        return locks[Math.floorMod(kitID.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static Set<String> materialNames(ItemStack[] contents) {
+        Set<String> names = new HashSet<>();
+        for (Material material : materialsOf(contents)) {
+            names.add(material.name());
+        }
+        return names;
+    }
+
+    /**
+     * Every material in the array, including items nested inside container
+     * items (shulker boxes, chests, ...) and bundles. Air is left out.
+     */
+    static Set<Material> materialsOf(ItemStack[] contents) {
+        Set<Material> materials = EnumSet.noneOf(Material.class);
+        ItemPurger.forEachItem(contents, (item, depth) -> materials.add(item.getType()));
+        return materials;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Eviction bookkeeping for cached data of players who are not online, e.g.
+ * kits pulled in by /inspectkit or edited by staff. Online players are never
+ * tracked here, so their data stays pinned.
+ * <p>
+ * Tracked players are kept in least recently used order. A player is evicted
+ * once idle for longer than the TTL, or, oldest first, while the combined
+ * weight of all tracked players exceeds the budget. The most recently used
+ * player is only evicted once expired, so a lookup that just pulled a large
+ * record into the cache can still use it.
+ */
+final class OfflineKitCache {
+
+    /**
+     * Returned by a weigher for players that must not be evicted right now,
+     * e.g. because they have changes that are not in storage yet.
+     */
+    static final long PINNED = -1L;
+
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    // Access ordered, eldest first; values are the last access times
+    private final LinkedHashMap<UUID, Long> lastAccess = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long weight;
+
+    OfflineKitCache(long maxWeight, long ttlMillis, LongSupplier clock) {
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Records an access, starting to track the player if needed.
+     */
+    synchronized void touch(UUID uuid) {
+        lastAccess.put(uuid, clock.getAsLong());
+    }
+
+    /**
+     * Stops tracking a player, e.g. because they came online.
+     */
+    synchronized void forget(UUID uuid) {
+        lastAccess.remove(uuid);
+    }
+
+    synchronized boolean isTracked(UUID uuid) {
+        return lastAccess.containsKey(uuid);
+    }
+
+    synchronized void recordHit() {
+        hits++;
+    }
+
+    synchronized void recordMiss() {
+        misses++;
+    }
+
+    /**
+     * Stops tracking every player that should be evicted and returns them.
+     * The caller is responsible for actually dropping their data.
+     *
+     * @param weigher approximate weight of a player's cached data, or
+     *                {@link #PINNED} if it can't be dropped at the moment
+     */
+    synchronized List<UUID> evict(ToLongFunction<UUID> weigher) {
+        long now = clock.getAsLong();
+        Map<UUID, Long> weights = new HashMap<>();
+        long total = 0;
+        for (UUID uuid : lastAccess.keySet()) {
+            long weight = weigher.applyAsLong(uuid);
+            weights.put(uuid, weight);
+            if (weight > 0) {
+                total += weight;
+            }
+        }
+
+        List<UUID> evicted = new ArrayList<>();
+        Iterator<Map.Entry<UUID, Long>> iterator = lastAccess.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, Long> entry = iterator.next();
+            long weight = weights.get(entry.getKey());
+            if (weight == PINNED) {
+                continue;
+            }
+
+            boolean expired = now - entry.getValue() >= ttlMillis;
+            boolean newest = !iterator.hasNext();
+            if (expired || (total > maxWeight && !newest)) {
+                iterator.remove();
+                evicted.add(entry.getKey());
+                total -= weight;
+                evictions++;
+            }
+        }
+        weight = total;
+        return evicted;
+    }
+
+    long maxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Combined weight of the evictable players as of the last eviction pass.
+     */
+    synchronized long weight() {
+        return weight;
+    }
+
+    synchronized int trackedCount() {
+        return lastAccess.size();
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized long evictions() {
+        return evictions;
+    }
+}
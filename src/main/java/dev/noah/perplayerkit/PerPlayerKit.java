@@ -42,6 +42,15 @@ import dev.noah.perplayerkit.commands.share.ShareECKitCommand;
 import dev.noah.perplayerkit.commands.share.ShareKitCommand;
 import dev.noah.perplayerkit.commands.share.TransferKitsCommand;
 import dev.noah.perplayerkit.commands.shortcuts.ShortcutCommandRegistrar;
+import dev.noah.perplayerkit.jobs.ArchiveJob;
+import dev.noah.perplayerkit.jobs.GarbageCollectionJob;
+import dev.noah.perplayerkit.jobs.JobRunner;
+import dev.noah.perplayerkit.jobs.MaterialIndexJob;
+import dev.noah.perplayerkit.jobs.MigrationJob;
+import dev.noah.perplayerkit.jobs.PurgeJob;
+import dev.noah.perplayerkit.jobs.ReportJob;
+import dev.noah.perplayerkit.jobs.RevalidationJob;
+import dev.noah.perplayerkit.jobs.TransformJob;
 import dev.noah.perplayerkit.listeners.*;
 import dev.noah.perplayerkit.listeners.antiexploit.CommandListener;
 import dev.noah.perplayerkit.listeners.antiexploit.ShulkerDropItemsListener;
@@ -54,6 +63,7 @@ import dev.noah.perplayerkit.util.BackupManager;
 import dev.noah.perplayerkit.util.BroadcastManager;
 import dev.noah.perplayerkit.util.KitSlots;
 import dev.noah.perplayerkit.util.Lang;
+import dev.noah.perplayerkit.util.Settings;
 import dev.noah.perplayerkit.util.StyleManager;
 import org.bstats.bukkit.Metrics;
 import org.bukkit.Bukkit;
@@ -64,14 +74,13 @@ import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.ipvp.canvas.MenuFunctionListener;
 
-import java.util.List;
-import java.util.UUID;
-
 public final class PerPlayerKit extends JavaPlugin {
 
     public static Plugin plugin;
     public static StorageManager storageManager;
     private BackupManager backupManager;
+    private KitManager kitManager;
+    private JobRunner jobRunner;
 
     public static Plugin getPlugin() {
         return plugin;
@@ -91,6 +100,7 @@ public final class PerPlayerKit extends JavaPlugin {
         reloadConfig();
 
         KitSlots.init(this);
+        Settings.init(this);
 
         new Lang(this);
         new StyleManager(this);
@@ -98,9 +108,21 @@ public final class PerPlayerKit extends JavaPlugin {
         new ItemFilter(this);
         new BroadcastManager(this);
 
-        new KitManager(this);
+        new MaterialIndexService(this);
+        new KitArchiveService(this);
+        kitManager = new KitManager(this);
         new KitShareManager(this);
         new KitRoomDataManager(this);
+        new KitRevalidationService(this);
+        jobRunner = new JobRunner(this);
+        jobRunner.registerType(PurgeJob.TYPE, checkpoint -> PurgeJob.fromCheckpoint(this, checkpoint));
+        jobRunner.registerType(MigrationJob.TYPE, checkpoint -> MigrationJob.fromCheckpoint(this, checkpoint));
+        jobRunner.registerType(TransformJob.TYPE, checkpoint -> TransformJob.fromCheckpoint(this, checkpoint));
+        jobRunner.registerType(GarbageCollectionJob.TYPE, checkpoint -> GarbageCollectionJob.fromCheckpoint(this, checkpoint));
+        jobRunner.registerType(ArchiveJob.TYPE, checkpoint -> ArchiveJob.fromCheckpoint(this, checkpoint));
+        jobRunner.registerType(RevalidationJob.TYPE, checkpoint -> RevalidationJob.fromCheckpoint(this, checkpoint));
+        jobRunner.registerType(ReportJob.TYPE, checkpoint -> ReportJob.fromCheckpoint(this, checkpoint));
+        jobRunner.registerType(MaterialIndexJob.TYPE, checkpoint -> MaterialIndexJob.fromCheckpoint(this, checkpoint));
 
         loadPublicKitsIdsFromConfig();
         getLogger().info("Public Kit Configuration Loaded");
@@ -131,6 +153,7 @@ public final class PerPlayerKit extends JavaPlugin {
             Bukkit.getPluginManager().disablePlugin(this);
             return;
         }
+        MaterialIndexService.get().start(storageManager);
 
         // Initialize backup system for file-based storage methods
         if (isFileBasedStorage(dbType)) {
@@ -161,6 +184,7 @@ public final class PerPlayerKit extends JavaPlugin {
 
         loadDatabaseData();
         getLogger().info("Database data loaded");
+        jobRunner.start();
 
         UpdateChecker updateChecker = new UpdateChecker(this);
 
@@ -229,6 +253,7 @@ public final class PerPlayerKit extends JavaPlugin {
         this.getCommand("purgeitem").setTabCompleter(purgeItemCommand);
 
         Bukkit.getPluginManager().registerEvents(regearCommand, this);
+        Bukkit.getPluginManager().registerEvents(new LoginListener(), this);
         Bukkit.getPluginManager().registerEvents(new JoinListener(this, updateChecker), this);
         Bukkit.getPluginManager().registerEvents(new QuitListener(this), this);
         Bukkit.getPluginManager().registerEvents(new MenuFunctionListener(), this);
@@ -253,12 +278,21 @@ public final class PerPlayerKit extends JavaPlugin {
         // REGISTER THINGS END
 
         BroadcastManager.get().startScheduledBroadcast();
+        kitManager.startCacheMaintenance();
+        KitShareManager.get().start(storageManager);
         updateChecker.printStartupStatus();
 
     }
 
     @Override
     public void onDisable() {
+        if (jobRunner != null) {
+            jobRunner.shutdown();
+        }
+        if (kitManager != null) {
+            kitManager.shutdown();
+        }
+
         closeDatabaseConnection();
 
         // Shutdown backup manager if it exists
@@ -302,10 +336,9 @@ public final class PerPlayerKit extends JavaPlugin {
         // Only relevant when the plugin is (re-)enabled with players online.
         // Load off the main thread like JoinListener does — with a large
         // max-kits this is many storage queries per player.
-        List<UUID> onlineUuids = Bukkit.getOnlinePlayers().stream().map(Player::getUniqueId).toList();
-        if (!onlineUuids.isEmpty()) {
-            Bukkit.getScheduler().runTaskAsynchronously(this,
-                    () -> onlineUuids.forEach(uuid -> KitManager.get().loadPlayerDataFromDB(uuid)));
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            KitManager.get().markOnline(player.getUniqueId());
+            KitManager.get().loadPlayerDataAsync(player.getUniqueId());
         }
     }
 
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cached kits and ender chests of a single player, indexed by slot.
+ * Occupancy is tracked in bitsets so existence checks and slot listings
+ * don't need to touch the entries themselves.
+ * <p>
+ * The record also remembers which slots have been read from storage, so
+ * repeated lookups of slots that are known to be empty don't hit storage
+ * again. A record filled by a full load counts every slot as read.
+ * <p>
+ * Slots the player cleared are remembered until the delete reached storage,
+ * so a load that read storage before that doesn't bring them back.
+ */
+final class PlayerKitData {
+
+    private CachedKit[] kits;
+    private CachedKit[] enderchests;
+    private final BitSet kitSlots = new BitSet();
+    private final BitSet ecSlots = new BitSet();
+    private final BitSet fetchedKitSlots = new BitSet();
+    private final BitSet fetchedEcSlots = new BitSet();
+    private final BitSet removedKitSlots = new BitSet();
+    private final BitSet removedEcSlots = new BitSet();
+    private boolean fullyLoaded;
+    private String sessionToken;
+
+    PlayerKitData(int maxKits) {
+        kits = new CachedKit[maxKits + 1];
+        enderchests = new CachedKit[maxKits + 1];
+    }
+
+    synchronized CachedKit get(boolean enderchest, int slot) {
+        CachedKit[] entries = entries(enderchest);
+        return slot > 0 && slot < entries.length ? entries[slot] : null;
+    }
+
+    synchronized boolean has(boolean enderchest, int slot) {
+        return slot > 0 && occupancy(enderchest).get(slot);
+    }
+
+    /**
+     * Replaces the entry in a slot with the result of the function, which
+     * receives the current entry (or null). Returning null clears the slot.
+     */
+    synchronized CachedKit update(boolean enderchest, int slot, UnaryOperator<CachedKit> function) {
+        CachedKit updated = function.apply(get(enderchest, slot));
+        set(enderchest, slot, updated);
+        return updated;
+    }
+
+    synchronized void put(boolean enderchest, int slot, CachedKit entry) {
+        set(enderchest, slot, entry);
+    }
+
+    /**
+     * Clears a slot the player deleted. Until {@link #forgetRemoval} is
+     * called, {@link #absorb} won't refill it.
+     */
+    synchronized void remove(boolean enderchest, int slot) {
+        set(enderchest, slot, null);
+        if (slot > 0) {
+            (enderchest ? removedEcSlots : removedKitSlots).set(slot);
+        }
+    }
+
+    /**
+     * Called once the delete of a removed slot was written to storage.
+     */
+    synchronized void forgetRemoval(boolean enderchest, int slot) {
+        if (slot > 0) {
+            (enderchest ? removedEcSlots : removedKitSlots).clear(slot);
+        }
+    }
+
+    /**
+     * Clears the slot only if it still holds the given entry.
+     */
+    synchronized void remove(boolean enderchest, int slot, CachedKit expected) {
+        if (get(enderchest, slot) == expected) {
+            set(enderchest, slot, null);
+        }
+    }
+
+    /**
+     * The next occupied slot at or after {@code from}, or -1 if there is none.
+     */
+    synchronized int nextSlot(boolean enderchest, int from) {
+        return occupancy(enderchest).nextSetBit(Math.max(from, 1));
+    }
+
+    synchronized boolean isEmpty() {
+        return kitSlots.isEmpty() && ecSlots.isEmpty();
+    }
+
+    /**
+     * Whether the slot's stored state is known, either because it was read
+     * from storage or because it was written from this record.
+     */
+    synchronized boolean isFetched(boolean enderchest, int slot) {
+        return fullyLoaded || (slot > 0 && (enderchest ? fetchedEcSlots : fetchedKitSlots).get(slot));
+    }
+
+    synchronized void markFetched(boolean enderchest, int slot) {
+        if (slot > 0) {
+            (enderchest ? fetchedEcSlots : fetchedKitSlots).set(slot);
+        }
+    }
+
+    synchronized void markFullyLoaded() {
+        fullyLoaded = true;
+    }
+
+    synchronized boolean isFullyLoaded() {
+        return fullyLoaded;
+    }
+
+    /**
+     * The session stamp in storage as of the last load or write of this
+     * record, or null if it isn't known.
+     */
+    synchronized String sessionToken() {
+        return sessionToken;
+    }
+
+    synchronized void setSessionToken(String sessionToken) {
+        this.sessionToken = sessionToken;
+    }
+
+    /**
+     * Whether any entry holds changes that haven't been written to storage yet.
+     */
+    synchronized boolean hasUnsavedChanges() {
+        return hasDirtyEntry(true) || hasDirtyEntry(false);
+    }
+
+    /**
+     * Combined {@link CachedKit#weight()} of all entries.
+     */
+    synchronized long weight() {
+        long weight = 0;
+        for (boolean enderchest : new boolean[]{false, true}) {
+            CachedKit[] entries = entries(enderchest);
+            BitSet occupancy = occupancy(enderchest);
+            for (int slot = occupancy.nextSetBit(1); slot != -1; slot = occupancy.nextSetBit(slot + 1)) {
+                weight += entries[slot].weight();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Copies every entry of {@code loaded} into this record, except where this
+     * record holds changes that haven't been written to storage yet, including
+     * slots the player cleared.
+     */
+    synchronized void absorb(PlayerKitData loaded) {
+        if (loaded.fullyLoaded) {
+            fullyLoaded = true;
+            sessionToken = loaded.sessionToken;
+        }
+        for (boolean enderchest : new boolean[]{false, true}) {
+            for (int slot = loaded.nextSlot(enderchest, 1); slot != -1; slot = loaded.nextSlot(enderchest, slot + 1)) {
+                CachedKit current = get(enderchest, slot);
+                boolean unsaved = current == null
+                        ? (enderchest ? removedEcSlots : removedKitSlots).get(slot)
+                        : current.isDirty();
+                if (!unsaved) {
+                    set(enderchest, slot, loaded.get(enderchest, slot));
+                }
+            }
+        }
+    }
+
+    private void set(boolean enderchest, int slot, CachedKit entry) {
+        if (slot <= 0) {
+            return;
+        }
+
+        CachedKit[] entries = entries(enderchest);
+        if (slot >= entries.length) {
+            if (entry == null) {
+                return;
+            }
+            // Slots above max-kits, e.g. touched by an admin tool after the limit was lowered
+            entries = Arrays.copyOf(entries, slot + 1);
+            if (enderchest) {
+                enderchests = entries;
+            } else {
+                kits = entries;
+            }
+        }
+
+        entries[slot] = entry;
+        occupancy(enderchest).set(slot, entry != null);
+        if (entry != null) {
+            (enderchest ? removedEcSlots : removedKitSlots).clear(slot);
+        }
+    }
+
+    private boolean hasDirtyEntry(boolean enderchest) {
+        CachedKit[] entries = entries(enderchest);
+        BitSet occupancy = occupancy(enderchest);
+        for (int slot = occupancy.nextSetBit(1); slot != -1; slot = occupancy.nextSetBit(slot + 1)) {
+            if (entries[slot].isDirty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CachedKit[] entries(boolean enderchest) {
+        return enderchest ? enderchests : kits;
+    }
+
+    private BitSet occupancy(boolean enderchest) {
+        return enderchest ? ecSlots : kitSlots;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.util.Settings;
+import org.bukkit.block.Container;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BlockStateMeta;
+
+/**
+ * Builds the stacks regear restores from a kit: only the items allowed by
+ * the regear whitelist, with shulker boxes (and other containers) stripped
+ * of disallowed contents so the whitelist can't be bypassed by hiding items
+ * inside them.
+ * <p>
+ * Rewriting a container's contents is a full block state round trip, so
+ * templates are built once per kit and settings snapshot and then reused,
+ * see {@link CachedKit#regearTemplate(Settings)}. Templates share stacks
+ * with the kit and must be treated as read-only.
+ */
+final class RegearTemplate {
+
+    private RegearTemplate() {
+    }
+
+    static ItemStack[] build(ItemStack[] kit, Settings settings) {
+        ItemStack[] template = new ItemStack[kit.length];
+        for (int i = 0; i < kit.length; i++) {
+            if (kit[i] != null && settings.isRegearable(kit[i].getType())) {
+                template[i] = filterContainer(kit[i], settings);
+            }
+        }
+        return template;
+    }
+
+    private static ItemStack filterContainer(ItemStack item, Settings settings) {
+        if (!item.hasItemMeta()
+                || !(item.getItemMeta() instanceof BlockStateMeta blockStateMeta)
+                || !(blockStateMeta.getBlockState() instanceof Container container)) {
+            return item;
+        }
+
+        ItemStack[] contents = container.getInventory().getContents();
+        boolean changed = false;
+        for (int j = 0; j < contents.length; j++) {
+            if (contents[j] != null && !settings.isRegearable(contents[j].getType())) {
+                contents[j] = null;
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return item;
+        }
+
+        ItemStack filtered = item.clone();
+        container.getInventory().setContents(contents);
+        blockStateMeta.setBlockState(container);
+        filtered.setItemMeta(blockStateMeta);
+        return filtered;
+    }
+}
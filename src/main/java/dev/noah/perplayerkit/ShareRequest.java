@@ -19,8 +19,6 @@
 package dev.noah.perplayerkit;
 
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitTask;
-import org.jetbrains.annotations.Nullable;
 
 import java.util.Map;
 import java.util.UUID;
@@ -46,7 +44,6 @@ public final class ShareRequest {
     private final ItemStack[] contents;
     private final Map<Integer, ItemStack[]> kits;
     private final Map<Integer, ItemStack[]> enderchests;
-    private BukkitTask expiryTask;
 
     private ShareRequest(String id, Type type, UUID senderId, String senderName, UUID targetId,
                          ItemStack[] contents, Map<Integer, ItemStack[]> kits, Map<Integer, ItemStack[]> enderchests) {
@@ -104,15 +101,4 @@ public final class ShareRequest {
     public Map<Integer, ItemStack[]> getEnderchests() {
         return enderchests;
     }
-
-    public void setExpiryTask(@Nullable BukkitTask expiryTask) {
-        this.expiryTask = expiryTask;
-    }
-
-    public void cancelExpiryTask() {
-        if (expiryTask != null) {
-            expiryTask.cancel();
-            expiryTask = null;
-        }
-    }
 }
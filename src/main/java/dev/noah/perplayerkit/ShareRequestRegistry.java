@@ -0,0 +1,152 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The pending share requests, indexed by ID, by target and by sender, target
+ * and type, so looking up a player's requests or the one a new request
+ * replaces doesn't go through every outstanding request. All indexes are
+ * updated together on every change.
+ * <p>
+ * Each player may have a limited number of requests pending, both as sender
+ * and as target, which keeps the per-player lookups bounded as well.
+ */
+final class ShareRequestRegistry {
+
+    private final int maxPerSender;
+    private final int maxPerTarget;
+    private final Map<String, ShareRequest> byId = new HashMap<>();
+    // Insertion ordered, oldest request first
+    private final Map<UUID, Map<String, ShareRequest>> byTarget = new HashMap<>();
+    private final Map<UUID, Integer> countBySender = new HashMap<>();
+    private final Map<ReplaceKey, ShareRequest> byReplaceKey = new HashMap<>();
+
+    ShareRequestRegistry(int maxPerSender, int maxPerTarget) {
+        this.maxPerSender = maxPerSender;
+        this.maxPerTarget = maxPerTarget;
+    }
+
+    /**
+     * Adds a request, replacing the pending one from the same sender to the
+     * same target of the same type. Nothing changes if a limit is hit.
+     */
+    synchronized AddResult add(ShareRequest request) {
+        ShareRequest replaced = byReplaceKey.get(ReplaceKey.of(request));
+        int freed = replaced == null ? 0 : 1;
+        if (countBySender.getOrDefault(request.getSenderId(), 0) - freed >= maxPerSender) {
+            return new AddResult(Outcome.SENDER_LIMIT, null);
+        }
+        Map<String, ShareRequest> targetRequests = byTarget.get(request.getTargetId());
+        if (targetRequests != null && targetRequests.size() - freed >= maxPerTarget) {
+            return new AddResult(Outcome.TARGET_LIMIT, null);
+        }
+
+        if (replaced != null) {
+            remove(replaced.getId());
+        }
+        byId.put(request.getId(), request);
+        byTarget.computeIfAbsent(request.getTargetId(), key -> new LinkedHashMap<>()).put(request.getId(), request);
+        countBySender.merge(request.getSenderId(), 1, Integer::sum);
+        byReplaceKey.put(ReplaceKey.of(request), request);
+        return new AddResult(Outcome.ADDED, replaced);
+    }
+
+    /**
+     * @return the removed request, or null if there was none with the ID
+     */
+    synchronized @Nullable ShareRequest remove(String id) {
+        ShareRequest request = byId.remove(id);
+        if (request == null) {
+            return null;
+        }
+
+        Map<String, ShareRequest> targetRequests = byTarget.get(request.getTargetId());
+        targetRequests.remove(id);
+        if (targetRequests.isEmpty()) {
+            byTarget.remove(request.getTargetId());
+        }
+        countBySender.computeIfPresent(request.getSenderId(), (key, count) -> count > 1 ? count - 1 : null);
+        byReplaceKey.remove(ReplaceKey.of(request), request);
+        return request;
+    }
+
+    synchronized boolean contains(String id) {
+        return byId.containsKey(id);
+    }
+
+    /**
+     * @return the target's pending requests, oldest first
+     */
+    synchronized List<ShareRequest> findForTarget(UUID targetId) {
+        Map<String, ShareRequest> targetRequests = byTarget.get(targetId);
+        return targetRequests == null ? List.of() : new ArrayList<>(targetRequests.values());
+    }
+
+    /**
+     * Looks up a request by its ID, ignoring case, as long as it is meant
+     * for the given target.
+     */
+    synchronized @Nullable ShareRequest findForTarget(UUID targetId, String id) {
+        ShareRequest request = byId.get(id.toUpperCase());
+        if (request == null || !request.getTargetId().equals(targetId)) {
+            return null;
+        }
+        return request;
+    }
+
+    synchronized int size() {
+        return byId.size();
+    }
+
+    int maxPerSender() {
+        return maxPerSender;
+    }
+
+    int maxPerTarget() {
+        return maxPerTarget;
+    }
+
+    enum Outcome {
+        ADDED,
+        SENDER_LIMIT,
+        TARGET_LIMIT
+    }
+
+    /**
+     * @param replaced the request the new one replaced, if any
+     */
+    record AddResult(Outcome outcome, @Nullable ShareRequest replaced) {
+    }
+
+    private record ReplaceKey(UUID senderId, UUID targetId, ShareRequest.Type type) {
+
+        static ReplaceKey of(ShareRequest request) {
+            return new ReplaceKey(request.getSenderId(), request.getTargetId(), request.getType());
+        }
+    }
+}
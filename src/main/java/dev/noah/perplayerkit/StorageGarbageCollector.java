@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.util.IDUtil;
+import dev.noah.perplayerkit.util.KitSlots;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.plugin.Plugin;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Sorts stored entry IDs into the ones the plugin still reads and the ones
+ * it never will again, for the storage garbage collection job.
+ * <p>
+ * Nothing removes entries on its own when the config changes: lowering
+ * {@code max-kits} leaves the kits and ender chests above the new limit in
+ * storage, public kits removed from {@code publickits} keep their entries,
+ * and keys written by old versions or by hand are never read at all.
+ */
+public final class StorageGarbageCollector {
+
+    private static final String PUBLIC_KIT_PREFIX = IDUtil.getPublicKitId("");
+    // See IDUtil.getKitRoomId, getSessionStampId, getLastSeenId and getArchiveId
+    private static final String KIT_ROOM_PREFIX = "kitroom";
+    private static final List<String> PLAYER_RECORD_SUFFIXES = List.of("session", "lastseen", "archive");
+    private static final int KIT_ROOM_PAGES = 5;
+
+    private final int maxKits;
+    private final Set<String> publicKitIds;
+
+    /**
+     * @param maxKits      the configured kit limit; slots above it are out of range
+     * @param publicKitIds the public kits in the config, or null if that
+     *                     section is missing, in which case no public kit is
+     *                     treated as orphaned
+     */
+    public StorageGarbageCollector(int maxKits, Set<String> publicKitIds) {
+        this.maxKits = maxKits;
+        this.publicKitIds = publicKitIds;
+    }
+
+    public static StorageGarbageCollector fromConfig(Plugin plugin) {
+        ConfigurationSection publicKits = plugin.getConfig().getConfigurationSection("publickits");
+        Set<String> publicKitIds = publicKits == null ? null : publicKits.getKeys(false);
+        return new StorageGarbageCollector(KitSlots.maxKits(), publicKitIds);
+    }
+
+    public Category classify(String id) {
+        IDUtil.PlayerDataId playerDataId = IDUtil.parsePlayerDataId(id);
+        if (playerDataId != null) {
+            return playerDataId.slot() > maxKits ? Category.OUT_OF_RANGE_SLOT : Category.LIVE;
+        }
+        if (id.startsWith(PUBLIC_KIT_PREFIX)) {
+            String name = id.substring(PUBLIC_KIT_PREFIX.length());
+            if (name.isEmpty()) {
+                return Category.UNPARSABLE;
+            }
+            return publicKitIds == null || publicKitIds.contains(name) ? Category.LIVE : Category.ORPHANED_PUBLIC_KIT;
+        }
+        if (id.startsWith(KIT_ROOM_PREFIX)) {
+            String page = id.substring(KIT_ROOM_PREFIX.length());
+            return page.length() == 1 && page.charAt(0) >= '0' && page.charAt(0) < '0' + KIT_ROOM_PAGES
+                    ? Category.LIVE : Category.UNPARSABLE;
+        }
+        if (isPlayerRecordId(id)) {
+            return Category.LIVE;
+        }
+        return Category.UNPARSABLE;
+    }
+
+    private static boolean isPlayerRecordId(String id) {
+        for (String suffix : PLAYER_RECORD_SUFFIXES) {
+            if (!id.endsWith(suffix)) {
+                continue;
+            }
+            String uuid = id.substring(0, id.length() - suffix.length());
+            try {
+                return UUID.fromString(uuid).toString().equals(uuid.toLowerCase());
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public enum Category {
+        /**
+         * Read by the plugin; never collected.
+         */
+        LIVE,
+        /**
+         * A kit or ender chest above the configured {@code max-kits}.
+         */
+        OUT_OF_RANGE_SLOT,
+        /**
+         * A public kit that is no longer in the {@code publickits} section.
+         */
+        ORPHANED_PUBLIC_KIT,
+        /**
+         * A key the plugin doesn't recognize at all.
+         */
+        UNPARSABLE
+    }
+}
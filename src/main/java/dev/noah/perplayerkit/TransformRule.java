@@ -0,0 +1,59 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Set;
+
+/**
+ * One change applied to stored kits by a {@link KitTransformer}, e.g.
+ * replacing an item or capping an enchantment. See {@link TransformRules}
+ * for the available rules.
+ */
+public interface TransformRule {
+
+    /**
+     * Short description for admins, e.g. {@code replace TNT with SAND}.
+     */
+    String description();
+
+    /**
+     * The item types the rule can change, or null if it may change any item.
+     * Lets a complete material index narrow down the entries to read.
+     */
+    default Set<Material> materials() {
+        return null;
+    }
+
+    /**
+     * @return true if {@link #apply} would change the item. Must turn false
+     * once the rule was applied, so running a rule twice changes nothing.
+     */
+    boolean matches(ItemStack item);
+
+    /**
+     * Changes an item the rule matches.
+     *
+     * @return the item itself (changed in place), a replacement, or null to
+     * remove it
+     */
+    ItemStack apply(ItemStack item);
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit;
+
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The rules available to {@link KitTransformer}, and how they are read from
+ * a rule set in the {@code transforms} section of the config:
+ * <pre>
+ * transforms:
+ *   balance-patch:
+ *     - remove: [END_CRYSTAL, RESPAWN_ANCHOR]
+ *     - replace: ENCHANTED_GOLDEN_APPLE
+ *       with: GOLDEN_APPLE
+ *     - cap-enchantment: sharpness   # or "*" for every enchantment
+ *       level: 4
+ *     - strip-attributes: "*"        # or one or more item types
+ *     - max-stack: TOTEM_OF_UNDYING  # or "*" for every item
+ *       amount: 1
+ * </pre>
+ */
+public final class TransformRules {
+
+    private static final String ANY = "*";
+
+    private TransformRules() {
+    }
+
+    /**
+     * Removes items of any of the given types.
+     */
+    public static TransformRule remove(Set<Material> targets) {
+        Set<Material> copy = EnumSet.copyOf(targets);
+        return new TransformRule() {
+            @Override
+            public String description() {
+                return "remove " + names(copy);
+            }
+
+            @Override
+            public Set<Material> materials() {
+                return copy;
+            }
+
+            @Override
+            public boolean matches(ItemStack item) {
+                return copy.contains(item.getType());
+            }
+
+            @Override
+            public ItemStack apply(ItemStack item) {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Changes the type of items, keeping their meta where it still applies.
+     * Stacks larger than the new type allows are reduced.
+     *
+     * @param to must be an item type, not e.g. a block like water that has no item form
+     */
+    public static TransformRule replace(Material from, Material to) {
+        if (from == to) {
+            throw new IllegalArgumentException("cannot replace " + from.name() + " with itself");
+        }
+        if (!to.isItem()) {
+            throw new IllegalArgumentException(to.name() + " is not an item");
+        }
+        return new TransformRule() {
+            @Override
+            public String description() {
+                return "replace " + from.name() + " with " + to.name();
+            }
+
+            @Override
+            public Set<Material> materials() {
+                return EnumSet.of(from);
+            }
+
+            @Override
+            public boolean matches(ItemStack item) {
+                return item.getType() == from;
+            }
+
+            @Override
+            public ItemStack apply(ItemStack item) {
+                item.setType(to);
+                if (item.getAmount() > to.getMaxStackSize()) {
+                    item.setAmount(to.getMaxStackSize());
+                }
+                return item;
+            }
+        };
+    }
+
+    /**
+     * Lowers enchantments above the level, including those stored in
+     * enchanted books. A level of 0 removes the enchantment.
+     *
+     * @param enchantment the enchantment to cap, or null for all of them
+     */
+    public static TransformRule capEnchantment(Enchantment enchantment, int level) {
+        if (level < 0) {
+            throw new IllegalArgumentException("enchantment level cannot be negative");
+        }
+        return new TransformRule() {
+            @Override
+            public String description() {
+                return "cap " + (enchantment == null ? "enchantments" : enchantment.getKey().getKey()) + " at level " + level;
+            }
+
+            @Override
+            public boolean matches(ItemStack item) {
+                if (exceeds(item.getEnchantments())) {
+                    return true;
+                }
+                return item.hasItemMeta() && item.getItemMeta() instanceof EnchantmentStorageMeta storage
+                        && exceeds(storage.getStoredEnchants());
+            }
+
+            private boolean exceeds(Map<Enchantment, Integer> enchantments) {
+                for (Map.Entry<Enchantment, Integer> entry : enchantments.entrySet()) {
+                    if ((enchantment == null || enchantment.equals(entry.getKey())) && entry.getValue() > level) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public ItemStack apply(ItemStack item) {
+                for (Map.Entry<Enchantment, Integer> entry : item.getEnchantments().entrySet()) {
+                    if ((enchantment == null || enchantment.equals(entry.getKey())) && entry.getValue() > level) {
+                        item.removeEnchantment(entry.getKey());
+                        if (level > 0) {
+                            item.addUnsafeEnchantment(entry.getKey(), level);
+                        }
+                    }
+                }
+                if (item.hasItemMeta() && item.getItemMeta() instanceof EnchantmentStorageMeta storage) {
+                    for (Map.Entry<Enchantment, Integer> entry : storage.getStoredEnchants().entrySet()) {
+                        if ((enchantment == null || enchantment.equals(entry.getKey())) && entry.getValue() > level) {
+                            storage.removeStoredEnchant(entry.getKey());
+                            if (level > 0) {
+                                storage.addStoredEnchant(entry.getKey(), level, true);
+                            }
+                        }
+                    }
+                    item.setItemMeta(storage);
+                }
+                return item;
+            }
+        };
+    }
+
+    /**
+     * Removes all attribute modifiers.
+     *
+     * @param targets the item types to strip, or null for every item
+     */
+    public static TransformRule stripAttributes(Set<Material> targets) {
+        Set<Material> copy = targets == null ? null : EnumSet.copyOf(targets);
+        return new TransformRule() {
+            @Override
+            public String description() {
+                return "strip attribute modifiers from " + (copy == null ? "all items" : names(copy));
+            }
+
+            @Override
+            public Set<Material> materials() {
+                return copy;
+            }
+
+            @Override
+            public boolean matches(ItemStack item) {
+                if ((copy != null && !copy.contains(item.getType())) || !item.hasItemMeta()) {
+                    return false;
+                }
+                ItemMeta meta = item.getItemMeta();
+                return meta != null && meta.hasAttributeModifiers();
+            }
+
+            @Override
+            public ItemStack apply(ItemStack item) {
+                ItemMeta meta = item.getItemMeta();
+                meta.setAttributeModifiers(null);
+                item.setItemMeta(meta);
+                return item;
+            }
+        };
+    }
+
+    /**
+     * Reduces stacks larger than the amount.
+     *
+     * @param targets the item types to limit, or null for every item
+     */
+    public static TransformRule maxStack(Set<Material> targets, int amount) {
+        if (amount < 1) {
+            throw new IllegalArgumentException("stack size must be at least 1");
+        }
+        Set<Material> copy = targets == null ? null : EnumSet.copyOf(targets);
+        return new TransformRule() {
+            @Override
+            public String description() {
+                return "limit " + (copy == null ? "all items" : names(copy)) + " to stacks of " + amount;
+            }
+
+            @Override
+            public Set<Material> materials() {
+                return copy;
+            }
+
+            @Override
+            public boolean matches(ItemStack item) {
+                return (copy == null || copy.contains(item.getType())) && item.getAmount() > amount;
+            }
+
+            @Override
+            public ItemStack apply(ItemStack item) {
+                item.setAmount(amount);
+                return item;
+            }
+        };
+    }
+
+    /**
+     * Reads the rules of a rule set, in order.
+     *
+     * @throws IllegalArgumentException naming the first rule that is invalid
+     */
+    public static List<TransformRule> parse(List<Map<?, ?>> entries) {
+        List<TransformRule> rules = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            try {
+                rules.add(parseRule(entries.get(i)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("rule " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        if (rules.isEmpty()) {
+            throw new IllegalArgumentException("no rules");
+        }
+        return rules;
+    }
+
+    private static TransformRule parseRule(Map<?, ?> entry) {
+        if (entry.containsKey("remove")) {
+            return remove(materials(entry.get("remove")));
+        }
+        if (entry.containsKey("replace")) {
+            return replace(material(entry.get("replace")), material(required(entry, "with")));
+        }
+        if (entry.containsKey("cap-enchantment")) {
+            Object value = entry.get("cap-enchantment");
+            return capEnchantment(ANY.equals(String.valueOf(value)) ? null : enchantment(value),
+                    number(required(entry, "level")));
+        }
+        if (entry.containsKey("strip-attributes")) {
+            return stripAttributes(materialsOrAny(entry.get("strip-attributes")));
+        }
+        if (entry.containsKey("max-stack")) {
+            return maxStack(materialsOrAny(entry.get("max-stack")), number(required(entry, "amount")));
+        }
+        throw new IllegalArgumentException("unknown rule " + entry.keySet());
+    }
+
+    private static Object required(Map<?, ?> entry, String key) {
+        Object value = entry.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("missing '" + key + "'");
+        }
+        return value;
+    }
+
+    private static int number(Object value) {
+        try {
+            return Integer.parseInt(String.valueOf(value).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number: " + value);
+        }
+    }
+
+    private static Material material(Object value) {
+        Material material = Material.matchMaterial(String.valueOf(value));
+        if (material == null || material.isAir()) {
+            throw new IllegalArgumentException("unknown item " + value);
+        }
+        return material;
+    }
+
+    private static Set<Material> materials(Object value) {
+        Set<Material> materials = EnumSet.noneOf(Material.class);
+        if (value instanceof List<?> list) {
+            list.forEach(element -> materials.add(material(element)));
+        } else {
+            materials.add(material(value));
+        }
+        if (materials.isEmpty()) {
+            throw new IllegalArgumentException("no items given");
+        }
+        return materials;
+    }
+
+    private static Set<Material> materialsOrAny(Object value) {
+        return ANY.equals(String.valueOf(value)) ? null : materials(value);
+    }
+
+    private static Enchantment enchantment(Object value) {
+        String name = String.valueOf(value).toLowerCase(Locale.ROOT);
+        NamespacedKey key = name.contains(":") ? NamespacedKey.fromString(name) : NamespacedKey.minecraft(name);
+        Enchantment enchantment = key == null ? null : Enchantment.getByKey(key);
+        if (enchantment == null) {
+            throw new IllegalArgumentException("unknown enchantment " + value);
+        }
+        return enchantment;
+    }
+
+    private static String names(Set<Material> materials) {
+        return materials.stream().map(Material::name).collect(Collectors.joining(", "));
+    }
+}
@@ -18,25 +18,53 @@
  */
 package dev.noah.perplayerkit.commands.admin;
 
-import dev.noah.perplayerkit.storage.StorageMigrator;
+import dev.noah.perplayerkit.KitArchiveService;
+import dev.noah.perplayerkit.KitManager;
+import dev.noah.perplayerkit.MaterialIndexService;
+import dev.noah.perplayerkit.PerPlayerKit;
+import dev.noah.perplayerkit.jobs.ArchiveJob;
+import dev.noah.perplayerkit.jobs.GarbageCollectionJob;
+import dev.noah.perplayerkit.jobs.Job;
+import dev.noah.perplayerkit.jobs.JobRunner;
+import dev.noah.perplayerkit.jobs.MigrationJob;
+import dev.noah.perplayerkit.jobs.ReportJob;
+import dev.noah.perplayerkit.jobs.TransformJob;
+import dev.noah.perplayerkit.storage.MaterialIndex;
+import dev.noah.perplayerkit.util.IDUtil;
+import dev.noah.perplayerkit.util.ItemStackInterner;
+import dev.noah.perplayerkit.util.KitSlots;
 import dev.noah.perplayerkit.util.Lang;
 import dev.noah.perplayerkit.util.importutil.KitsXImporter;
 import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class PerPlayerKitCommand implements CommandExecutor, TabCompleter {
 
     private static final List<String> STORAGE_TYPES = Arrays.asList("sqlite", "mysql", "postgresql", "redis", "yml");
+    private static final String PUBLIC_KIT_PREFIX = IDUtil.getPublicKitId("");
+    private static final int MAX_LISTED_PLAYERS = 10;
+    private static final List<String> JOB_ACTIONS = List.of("pause", "resume", "cancel");
 
     private final Plugin plugin;
 
@@ -59,6 +87,23 @@ public class PerPlayerKitCommand implements CommandExecutor, TabCompleter {
                 return handleImport(sender, args);
             case "migrate":
                 return handleMigrate(sender, args);
+            case "cache":
+                sendCacheStats(sender);
+                return true;
+            case "find":
+                return handleFind(sender, args);
+            case "report":
+                handleReport(sender);
+                return true;
+            case "jobs":
+                return handleJobs(sender, args);
+            case "transform":
+                return handleTransform(sender, args);
+            case "gc":
+                return handleGarbageCollection(sender, args);
+            case "archive":
+                handleArchive(sender);
+                return true;
             default:
                 Lang.get().send(sender, "error.invalid-subcommand");
                 return true;
@@ -66,6 +111,104 @@ public class PerPlayerKitCommand implements CommandExecutor, TabCompleter {
         }
     }
 
+    private void sendCacheStats(CommandSender sender) {
+        KitManager.CacheStats stats = KitManager.get().getCacheStats();
+        Lang.get().send(sender, "info.cache-stats-offline",
+                "players", String.valueOf(stats.offlinePlayers()),
+                "size", String.valueOf(stats.weight() / 1024),
+                "max", String.valueOf(stats.maxWeight() / 1024));
+        Lang.get().send(sender, "info.cache-stats-lookups",
+                "hits", String.valueOf(stats.hits()),
+                "misses", String.valueOf(stats.misses()),
+                "evictions", String.valueOf(stats.evictions()));
+        Lang.get().send(sender, "info.cache-stats-items",
+                "pooled", String.valueOf(ItemStackInterner.pooledCount()),
+                "shared", String.valueOf(ItemStackInterner.sharedCount()),
+                "lookups", String.valueOf(ItemStackInterner.lookupCount()));
+    }
+
+    private boolean handleFind(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            Lang.get().send(sender, "command.perplayerkit-find-usage");
+            return true;
+        }
+
+        Material item = Material.matchMaterial(args[1]);
+        if (item == null || item.isAir()) {
+            Lang.get().send(sender, "error.purge-invalid-item", "item", args[1]);
+            return true;
+        }
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            MaterialIndexService service = MaterialIndexService.get();
+            MaterialIndex index = service.completeIndex();
+            if (index == null) {
+                if (!service.isEnabled()) {
+                    Bukkit.getScheduler().runTask(plugin, () -> Lang.get().send(sender, "error.material-index-disabled"));
+                    return;
+                }
+                service.rebuild();
+                Bukkit.getScheduler().runTask(plugin, () -> Lang.get().send(sender, "info.material-index-building"));
+                return;
+            }
+
+            Set<String> ids = index.find(item.name());
+            Bukkit.getScheduler().runTask(plugin, () -> sendFindResults(sender, item, ids));
+        });
+        return true;
+    }
+
+    private void sendFindResults(CommandSender sender, Material item, Set<String> ids) {
+        Map<UUID, Set<Integer>> kits = new TreeMap<>();
+        Map<UUID, Set<Integer>> enderchests = new TreeMap<>();
+        Set<String> publicKits = new TreeSet<>();
+        for (String id : ids) {
+            IDUtil.PlayerDataId playerDataId = IDUtil.parsePlayerDataId(id);
+            if (playerDataId != null) {
+                (playerDataId.enderchest() ? enderchests : kits)
+                        .computeIfAbsent(playerDataId.uuid(), uuid -> new TreeSet<>())
+                        .add(playerDataId.slot());
+            } else if (id.startsWith(PUBLIC_KIT_PREFIX)) {
+                publicKits.add(id.substring(PUBLIC_KIT_PREFIX.length()));
+            }
+        }
+
+        Set<UUID> players = new TreeSet<>(kits.keySet());
+        players.addAll(enderchests.keySet());
+        Lang.get().send(sender, "info.find-results",
+                "item", item.name(),
+                "kits", String.valueOf(kits.values().stream().mapToInt(Set::size).sum()),
+                "enderchests", String.valueOf(enderchests.values().stream().mapToInt(Set::size).sum()),
+                "players", String.valueOf(players.size()),
+                "public", String.valueOf(publicKits.size()));
+
+        List<UUID> listed = new ArrayList<>(players).subList(0, Math.min(players.size(), MAX_LISTED_PLAYERS));
+        for (UUID uuid : listed) {
+            String name = Bukkit.getOfflinePlayer(uuid).getName();
+            Lang.get().send(sender, "info.find-player",
+                    "player", name == null ? uuid.toString() : name,
+                    "kits", formatSlots(kits.get(uuid)),
+                    "enderchests", formatSlots(enderchests.get(uuid)));
+        }
+        if (players.size() > listed.size()) {
+            Lang.get().send(sender, "info.find-more", "count", String.valueOf(players.size() - listed.size()));
+        }
+        if (!publicKits.isEmpty()) {
+            Lang.get().send(sender, "info.find-public-kits", "kits", String.join(", ", publicKits));
+        }
+    }
+
+    private static String formatSlots(Set<Integer> slots) {
+        if (slots == null) {
+            return "-";
+        }
+        return slots.stream().map(String::valueOf).collect(Collectors.joining(", "));
+    }
+
+    private void handleReport(CommandSender sender) {
+        submitJob(sender, new ReportJob(plugin));
+    }
+
     private boolean handleImport(CommandSender sender, String[] args) {
         if (args.length < 2) {
             Lang.get().send(sender, "error.missing-import-type");
@@ -77,6 +220,13 @@ public class PerPlayerKitCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
+        // The import writes to the active storage from the main thread, so it can't be run as a job
+        List<String> storageLock = List.of(JobRunner.storageLock(currentStorageType()));
+        if (JobRunner.get().conflictingJob(storageLock) != null) {
+            sendJobLocked(sender, storageLock);
+            return true;
+        }
+
         Lang.get().send(sender, "success.import-starting");
         KitsXImporter importer = new KitsXImporter(plugin, sender);
         if (!importer.checkForFiles()) {
@@ -90,6 +240,10 @@ public class PerPlayerKitCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    private String currentStorageType() {
+        return plugin.getConfig().getString("storage.type", "sqlite");
+    }
+
     private boolean handleMigrate(CommandSender sender, String[] args) {
         if (args.length < 3) {
             sendMigrateUsage(sender);
@@ -110,10 +264,138 @@ public class PerPlayerKitCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
+        if (!submitJob(sender, new MigrationJob(plugin, sourceType, destinationType))) {
+            return true;
+        }
         Lang.get().send(sender, "info.migration-starting", "source", sourceType, "destination", destinationType);
         Lang.get().send(sender, "info.migration-large-dataset");
+        return true;
+    }
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> runMigration(sender, sourceType, destinationType));
+    private boolean handleTransform(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            Lang.get().send(sender, "command.perplayerkit-transform-usage");
+            return true;
+        }
+
+        String ruleSet = args[1];
+        boolean apply = args.length > 2 && args[2].equalsIgnoreCase("apply");
+        if (!plugin.getConfig().isList("transforms." + ruleSet)) {
+            Lang.get().send(sender, "error.transform-unknown-set", "set", ruleSet);
+            return true;
+        }
+
+        TransformJob job;
+        try {
+            job = new TransformJob(plugin, ruleSet, !apply);
+        } catch (IllegalArgumentException e) {
+            Lang.get().send(sender, "error.transform-invalid", "set", ruleSet, "error", e.getMessage());
+            return true;
+        }
+
+        if (!submitJob(sender, job)) {
+            return true;
+        }
+        Lang.get().send(sender, apply ? "info.transform-starting" : "info.transform-dry-run-starting",
+                "set", ruleSet, "rules", String.valueOf(job.rules().size()));
+        return true;
+    }
+
+    private boolean handleGarbageCollection(CommandSender sender, String[] args) {
+        GarbageCollectionJob.Mode mode = GarbageCollectionJob.Mode.REPORT;
+        if (args.length > 1) {
+            try {
+                mode = GarbageCollectionJob.Mode.valueOf(args[1].toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                Lang.get().send(sender, "command.perplayerkit-gc-usage");
+                return true;
+            }
+        }
+        if (mode != GarbageCollectionJob.Mode.REPORT && (args.length < 3 || !args[2].equalsIgnoreCase("confirm"))) {
+            Lang.get().send(sender, "info.gc-confirm-required", "mode", args[1].toLowerCase(Locale.ROOT),
+                    "max", String.valueOf(KitSlots.maxKits()));
+            return true;
+        }
+
+        submitJob(sender, new GarbageCollectionJob(plugin, mode));
+        return true;
+    }
+
+    private void handleArchive(CommandSender sender) {
+        if (!KitArchiveService.get().isEnabled()) {
+            Lang.get().send(sender, "error.archive-disabled");
+            return;
+        }
+        if (submitJob(sender, new ArchiveJob(plugin))) {
+            Lang.get().send(sender, "info.archive-starting",
+                    "days", String.valueOf(TimeUnit.MILLISECONDS.toDays(KitArchiveService.get().inactiveMillis())));
+        }
+    }
+
+    /**
+     * @return false if the job conflicts with a running job, which the sender is told about
+     */
+    private boolean submitJob(CommandSender sender, Job job) {
+        int id = JobRunner.get().submit(job, sender);
+        if (id < 0) {
+            sendJobLocked(sender, job.locks());
+            return false;
+        }
+        Lang.get().send(sender, "info.job-started", "id", String.valueOf(id));
+        return true;
+    }
+
+    private void sendJobLocked(CommandSender sender, Collection<String> locks) {
+        JobRunner.JobInfo conflict = JobRunner.get().conflictingJob(locks);
+        Lang.get().send(sender, "error.job-locked",
+                "id", conflict == null ? "?" : String.valueOf(conflict.id()),
+                "job", conflict == null ? "" : conflict.description());
+    }
+
+    private boolean handleJobs(CommandSender sender, String[] args) {
+        if (args.length == 1) {
+            List<JobRunner.JobInfo> jobs = JobRunner.get().list();
+            if (jobs.isEmpty()) {
+                Lang.get().send(sender, "info.jobs-none");
+            }
+            for (JobRunner.JobInfo job : jobs) {
+                Lang.get().send(sender, "info.jobs-entry",
+                        "id", String.valueOf(job.id()),
+                        "job", job.description(),
+                        "state", job.state().name().toLowerCase(Locale.ROOT),
+                        "completed", String.valueOf(job.completed()),
+                        "total", String.valueOf(job.total()),
+                        "rate", String.valueOf(job.operationsPerSecond()));
+            }
+            return true;
+        }
+
+        if (args.length < 3 || !JOB_ACTIONS.contains(args[1].toLowerCase(Locale.ROOT))) {
+            Lang.get().send(sender, "command.perplayerkit-jobs-usage");
+            return true;
+        }
+
+        int id;
+        try {
+            id = Integer.parseInt(args[2].replace("#", ""));
+        } catch (NumberFormatException e) {
+            Lang.get().send(sender, "error.job-not-found", "id", args[2]);
+            return true;
+        }
+
+        String action = args[1].toLowerCase(Locale.ROOT);
+        boolean changed = switch (action) {
+            case "pause" -> JobRunner.get().pause(id);
+            case "resume" -> JobRunner.get().resume(id);
+            default -> JobRunner.get().cancel(id);
+        };
+        if (!changed) {
+            Lang.get().send(sender, "error.job-not-found", "id", String.valueOf(id));
+        } else if (!action.equals("cancel")) {
+            // Cancelling reports back once the job has actually stopped
+            Lang.get().send(sender, action.equals("pause") ? "info.job-paused" : "info.job-resumed",
+                    "id", String.valueOf(id));
+        }
         return true;
     }
 
@@ -132,39 +414,50 @@ public class PerPlayerKitCommand implements CommandExecutor, TabCompleter {
         return false;
     }
 
-    private void runMigration(CommandSender sender, String sourceType, String destinationType) {
-        StorageMigrator migrator = new StorageMigrator(plugin);
-        StorageMigrator.MigrationResult result = migrator.migrate(
-                sourceType,
-                destinationType,
-                message -> Bukkit.getScheduler().runTask(plugin,
-                        () -> Lang.get().send(sender, "info.migration-progress", "message", message))
-        );
+    @Nullable
+    @Override
+    public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
 
-        Bukkit.getScheduler().runTask(plugin, () -> sendMigrationResult(sender, destinationType, result));
-    }
+        if (args.length == 1) {
+            return List.of("about", "archive", "cache", "find", "gc", "import", "jobs", "migrate", "report", "transform");
+        }
 
-    private void sendMigrationResult(CommandSender sender, String destinationType, StorageMigrator.MigrationResult result) {
-        if (result.isSuccess()) {
-            Lang.get().send(sender, "success.migration-completed");
-            Lang.get().send(sender, "success.migration-count", "count", String.valueOf(result.getMigratedCount()));
-            if (result.getFailedCount() > 0) {
-                Lang.get().send(sender, "info.migration-failed-count", "count", String.valueOf(result.getFailedCount()));
-            }
-            Lang.get().send(sender, "info.update-config-storage", "type", destinationType);
-            return;
+        if (args.length == 2 && args[0].equalsIgnoreCase("gc")) {
+            return List.of("report", "archive", "delete");
         }
 
-        Lang.get().send(sender, "error.migration-failed", "error", result.getErrorMessage());
-    }
+        if (args.length == 3 && args[0].equalsIgnoreCase("gc") && !args[1].equalsIgnoreCase("report")) {
+            return List.of("confirm");
+        }
 
+        if (args.length == 2 && args[0].equalsIgnoreCase("transform")) {
+            ConfigurationSection transforms = plugin.getConfig().getConfigurationSection("transforms");
+            return transforms == null ? List.of() : new ArrayList<>(transforms.getKeys(false));
+        }
 
-    @Nullable
-    @Override
-    public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        if (args.length == 3 && args[0].equalsIgnoreCase("transform")) {
+            return List.of("apply");
+        }
 
-        if (args.length == 1) {
-            return List.of("about", "import", "migrate");
+        if (args.length == 2 && args[0].equalsIgnoreCase("jobs")) {
+            return JOB_ACTIONS;
+        }
+
+        if (args.length == 3 && args[0].equalsIgnoreCase("jobs")) {
+            return JobRunner.get().list().stream()
+                    .map(job -> String.valueOf(job.id()))
+                    .collect(Collectors.toList());
+        }
+
+        if (args.length == 2 && args[0].equalsIgnoreCase("find")) {
+            String input = args[1].toUpperCase(Locale.ROOT);
+            return Arrays.stream(Material.values())
+                    .filter(Material::isItem)
+                    .map(Enum::name)
+                    .filter(name -> !name.startsWith("LEGACY_"))
+                    .filter(name -> name.startsWith(input))
+                    .sorted()
+                    .collect(Collectors.toList());
         }
 
         if (args.length == 2 && args[0].equalsIgnoreCase("import")) {
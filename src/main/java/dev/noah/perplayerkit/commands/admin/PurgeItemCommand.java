@@ -18,10 +18,9 @@
  */
 package dev.noah.perplayerkit.commands.admin;
 
-import dev.noah.perplayerkit.ItemPurgeService;
-import dev.noah.perplayerkit.KitManager;
-import dev.noah.perplayerkit.PerPlayerKit;
 import dev.noah.perplayerkit.commands.inspect.InspectCommandUtil;
+import dev.noah.perplayerkit.jobs.JobRunner;
+import dev.noah.perplayerkit.jobs.PurgeJob;
 import dev.noah.perplayerkit.util.Lang;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -40,7 +39,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -55,7 +53,6 @@ import java.util.stream.Collectors;
 public class PurgeItemCommand implements CommandExecutor, TabCompleter {
 
     private final Plugin plugin;
-    private final AtomicBoolean purgeInProgress = new AtomicBoolean(false);
 
     public PurgeItemCommand(Plugin plugin) {
         this.plugin = plugin;
@@ -90,24 +87,12 @@ public class PurgeItemCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
-        if (!purgeInProgress.compareAndSet(false, true)) {
-            Lang.get().send(sender, "error.purge-in-progress");
-            return;
-        }
-
-        Lang.get().send(sender, "info.purge-starting-all", "item", item.name());
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> runPurge(sender, item, null));
+        startPurge(sender, item, null);
     }
 
     private void handlePlayers(CommandSender sender, Material item, List<String> identifiers) {
-        if (!purgeInProgress.compareAndSet(false, true)) {
-            Lang.get().send(sender, "error.purge-in-progress");
-            return;
-        }
-
         resolveTargets(identifiers).whenComplete((resolution, throwable) -> {
             if (throwable != null) {
-                purgeInProgress.set(false);
                 plugin.getLogger().severe("Failed to resolve purge targets: " + throwable.getMessage());
                 runOnMain(sender, current -> Lang.get().send(current, "error.unexpected"));
                 return;
@@ -116,7 +101,6 @@ public class PurgeItemCommand implements CommandExecutor, TabCompleter {
             if (!resolution.missing().isEmpty()) {
                 // Abort entirely so the admin never assumes a player was purged
                 // when their name simply failed to resolve.
-                purgeInProgress.set(false);
                 runOnMain(sender, current -> {
                     for (String name : resolution.missing()) {
                         Lang.get().send(current, "error.purge-player-not-found", "player", name);
@@ -125,46 +109,31 @@ public class PurgeItemCommand implements CommandExecutor, TabCompleter {
                 return;
             }
 
-            runOnMain(sender, current -> Lang.get().send(current, "info.purge-starting-players",
-                    "item", item.name(), "count", String.valueOf(resolution.uuids().size())));
-            Bukkit.getScheduler().runTaskAsynchronously(plugin,
-                    () -> runPurge(sender, item, resolution.uuids()));
+            runOnMain(sender, current -> startPurge(current, item, resolution.uuids()));
         });
     }
 
-    private void runPurge(CommandSender sender, Material item, @Nullable List<UUID> targets) {
-        try {
-            ItemPurgeService service = new ItemPurgeService(PerPlayerKit.storageManager, KitManager.get());
-            Consumer<String> progress = message -> plugin.getLogger().info("[ItemPurge] " + message);
-
-            ItemPurgeService.PurgeResult result = targets == null
-                    ? service.purgeAllPlayers(item, progress)
-                    : service.purgePlayers(item, targets, progress);
-
-            plugin.getLogger().info("[ItemPurge] Finished purging " + item.name()
-                    + ": removed " + result.itemsRemoved() + " items from " + result.modified()
-                    + " of " + result.scanned() + " entries (" + result.deleted() + " emptied entries deleted, "
-                    + result.failed() + " failures)");
-            runOnMain(sender, current -> sendResult(current, item, result));
-        } catch (Exception e) {
-            plugin.getLogger().severe("[ItemPurge] Purge of " + item.name() + " failed: " + e.getMessage());
-            runOnMain(sender, current -> Lang.get().send(current, "error.unexpected"));
-        } finally {
-            purgeInProgress.set(false);
+    /**
+     * Runs the purge as a background job, paced and resumable after a restart.
+     */
+    private void startPurge(CommandSender sender, Material item, @Nullable List<UUID> targets) {
+        PurgeJob job = new PurgeJob(plugin, item, targets);
+        int id = JobRunner.get().submit(job, sender);
+        if (id < 0) {
+            JobRunner.JobInfo conflict = JobRunner.get().conflictingJob(job.locks());
+            Lang.get().send(sender, "error.job-locked",
+                    "id", conflict == null ? "?" : String.valueOf(conflict.id()),
+                    "job", conflict == null ? "" : conflict.description());
+            return;
         }
-    }
 
-    private void sendResult(CommandSender sender, Material item, ItemPurgeService.PurgeResult result) {
-        Lang.get().send(sender, "success.purge-completed",
-                "items", String.valueOf(result.itemsRemoved()),
-                "item", item.name(),
-                "modified", String.valueOf(result.modified()));
-        Lang.get().send(sender, "info.purge-summary",
-                "scanned", String.valueOf(result.scanned()),
-                "deleted", String.valueOf(result.deleted()));
-        if (result.failed() > 0) {
-            Lang.get().send(sender, "info.purge-failed-entries", "count", String.valueOf(result.failed()));
+        if (targets == null) {
+            Lang.get().send(sender, "info.purge-starting-all", "item", item.name());
+        } else {
+            Lang.get().send(sender, "info.purge-starting-players",
+                    "item", item.name(), "count", String.valueOf(targets.size()));
         }
+        Lang.get().send(sender, "info.job-started", "id", String.valueOf(id));
     }
 
     private CompletableFuture<TargetResolution> resolveTargets(List<String> identifiers) {
@@ -6,6 +6,7 @@ import dev.noah.perplayerkit.gui.ItemUtil;
 import dev.noah.perplayerkit.util.BroadcastManager;
 import dev.noah.perplayerkit.util.CooldownManager;
 import dev.noah.perplayerkit.util.Lang;
+import dev.noah.perplayerkit.util.Settings;
 import dev.noah.perplayerkit.util.StyleManager;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -146,20 +147,19 @@ public class RegearCommand implements CommandExecutor, Listener {
 
         player.closeInventory();
 
-        KitManager.get().regearKit(player, slot);
-        player.updateInventory();
+        KitManager.get().whenLoaded(player, () -> {
+            KitManager.get().regearKit(player, slot);
+            player.updateInventory();
 
-        announceRegearSuccess(player);
+            announceRegearSuccess(player);
+        });
     }
 
     private String getEffectiveMode(String label) {
-        if (label.equalsIgnoreCase("rg")) {
-            return plugin.getConfig().getString("regear.rg-mode", "command");
-        }
         if (label.equalsIgnoreCase("regear")) {
-            return plugin.getConfig().getString("regear.regear-mode", "command");
+            return Settings.get().regearMode();
         }
-        return plugin.getConfig().getString("regear.rg-mode", "command");
+        return Settings.get().rgMode();
     }
 
     private void handleShulkerMode(Player player) {
@@ -188,9 +188,11 @@ public class RegearCommand implements CommandExecutor, Listener {
             return;
         }
 
-        KitManager.get().regearKit(player, slot);
-        announceRegearSuccess(player);
         commandCooldownManager.setCooldown(player);
+        KitManager.get().whenLoaded(player, () -> {
+            KitManager.get().regearKit(player, slot);
+            announceRegearSuccess(player);
+        });
     }
 
     private Integer getLastLoadedKitSlot(Player player) {
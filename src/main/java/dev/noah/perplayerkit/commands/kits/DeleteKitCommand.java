@@ -56,10 +56,16 @@ public class DeleteKitCommand implements CommandExecutor {
             return true;
         }
 
+        kitManager.whenLoaded(player, () -> deleteKit(player, uuid, slot));
+        return true;
+    }
+
+    private static void deleteKit(Player player, UUID uuid, int slot) {
+        KitManager kitManager = KitManager.get();
         if (!kitManager.hasKit(uuid, slot)) {
             Lang.get().send(player, "error.kit-slot-not-found", "slot", String.valueOf(slot));
             SoundManager.playFailure(player);
-            return true;
+            return;
         }
 
         if (kitManager.deleteKit(uuid, slot)) {
@@ -69,7 +75,5 @@ public class DeleteKitCommand implements CommandExecutor {
             Lang.get().send(player, "error.kit-deletion-failed");
             SoundManager.playFailure(player);
         }
-
-        return true;
     }
 }
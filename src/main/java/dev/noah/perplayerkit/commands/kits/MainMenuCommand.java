@@ -18,6 +18,7 @@
  */
 package dev.noah.perplayerkit.commands.kits;
 
+import dev.noah.perplayerkit.KitManager;
 import dev.noah.perplayerkit.commands.core.CommandGuards;
 import dev.noah.perplayerkit.gui.GUI;
 import org.bukkit.command.Command;
@@ -43,7 +44,7 @@ public class MainMenuCommand implements CommandExecutor {
         }
 
         GUI main = new GUI(plugin);
-        main.OpenMainMenu(player);
+        KitManager.get().whenLoaded(player, () -> main.OpenMainMenu(player));
         return true;
     }
 }
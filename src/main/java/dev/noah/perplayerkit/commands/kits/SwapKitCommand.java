@@ -57,19 +57,24 @@ public class SwapKitCommand implements CommandExecutor {
             return true;
         }
 
+        KitManager.get().whenLoaded(player, () -> swapKits(player, slot1, slot2));
+        return true;
+    }
+
+    private static void swapKits(Player player, int slot1, int slot2) {
         KitManager kitManager = KitManager.get();
         UUID uuid = player.getUniqueId();
 
         if (!kitManager.hasKit(uuid, slot1)) {
             Lang.get().send(player, "error.kit-slot-not-found", "slot", String.valueOf(slot1));
             SoundManager.playFailure(player);
-            return true;
+            return;
         }
 
         if (!kitManager.hasKit(uuid, slot2)) {
             Lang.get().send(player, "error.kit-slot-not-found", "slot", String.valueOf(slot2));
             SoundManager.playFailure(player);
-            return true;
+            return;
         }
 
         ItemStack[] tempkit = kitManager.getPlayerKit(uuid, slot1).clone();
@@ -80,6 +85,5 @@ public class SwapKitCommand implements CommandExecutor {
 
         Lang.get().send(player, "success.kits-swapped", "slot1", String.valueOf(slot1), "slot2", String.valueOf(slot2));
         SoundManager.playSuccess(player);
-        return true;
     }
 }
@@ -18,6 +18,7 @@
  */
 package dev.noah.perplayerkit.commands.share;
 
+import dev.noah.perplayerkit.KitManager;
 import dev.noah.perplayerkit.commands.core.CommandGuards;
 import dev.noah.perplayerkit.commands.core.SlotArgumentParser;
 import dev.noah.perplayerkit.util.CooldownManager;
@@ -86,9 +87,9 @@ public abstract class AbstractShareSlotCommand implements CommandExecutor {
                 SoundManager.playFailure(player);
                 return true;
             }
-            requestShareAction.share(player, slot, target);
+            KitManager.get().whenLoaded(player, () -> requestShareAction.share(player, slot, target));
         } else {
-            codeShareAction.accept(player, slot);
+            KitManager.get().whenLoaded(player, () -> codeShareAction.accept(player, slot));
         }
         cooldownManager.setCooldown(player);
         return true;
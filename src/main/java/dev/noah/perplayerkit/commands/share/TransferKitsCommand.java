@@ -18,6 +18,7 @@
  */
 package dev.noah.perplayerkit.commands.share;
 
+import dev.noah.perplayerkit.KitManager;
 import dev.noah.perplayerkit.KitShareManager;
 import dev.noah.perplayerkit.commands.core.CommandGuards;
 import dev.noah.perplayerkit.util.CooldownManager;
@@ -66,7 +67,7 @@ public class TransferKitsCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        KitShareManager.get().sendTransferRequest(player, target);
+        KitManager.get().whenLoaded(player, () -> KitShareManager.get().sendTransferRequest(player, target));
         cooldownManager.setCooldown(player);
         return true;
     }
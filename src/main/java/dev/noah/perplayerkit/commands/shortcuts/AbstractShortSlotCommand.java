@@ -18,6 +18,7 @@
  */
 package dev.noah.perplayerkit.commands.shortcuts;
 
+import dev.noah.perplayerkit.KitManager;
 import dev.noah.perplayerkit.util.DisabledCommand;
 import dev.noah.perplayerkit.util.KitSlots;
 import dev.noah.perplayerkit.util.Lang;
@@ -64,7 +65,7 @@ public abstract class AbstractShortSlotCommand implements CommandExecutor {
             return true;
         }
 
-        executeForSlot(player, slot);
+        KitManager.get().whenLoaded(player, () -> executeForSlot(player, slot));
         return true;
     }
 
@@ -106,10 +106,10 @@ public class GUI {
     public void OpenKitMenu(Player p, int slot) {
         Menu menu = GuiMenuFactory.createKitMenu(slot);
 
-        if (KitManager.get().getItemStackArrayById(p.getUniqueId().toString() + slot) != null) {
-            ItemStack[] kit = KitManager.get().getItemStackArrayById(p.getUniqueId().toString() + slot);
+        ItemStack[] kit = KitManager.get().getPlayerKit(p.getUniqueId(), slot);
+        if (kit != null) {
             for (int i = 0; i < KIT_CONTENT_END; i++) {
-                menu.getSlot(i).setItem(kit[i]);
+                menu.getSlot(i).setItem(ItemStackInterner.copy(kit[i]));
             }
         }
         allowModificationRange(menu, 0, KIT_CONTENT_END);
@@ -131,10 +131,10 @@ public class GUI {
     public void OpenPublicKitEditor(Player p, String kitId) {
         Menu menu = GuiMenuFactory.createPublicKitMenu(kitId);
 
-        if (KitManager.get().getItemStackArrayById(IDUtil.getPublicKitId(kitId)) != null) {
-            ItemStack[] kit = KitManager.get().getItemStackArrayById(IDUtil.getPublicKitId(kitId));
+        ItemStack[] kit = KitManager.get().getPublicKit(kitId);
+        if (kit != null) {
             for (int i = 0; i < KIT_CONTENT_END; i++) {
-                menu.getSlot(i).setItem(kit[i]);
+                menu.getSlot(i).setItem(ItemStackInterner.copy(kit[i]));
             }
         }
         allowModificationRange(menu, 0, KIT_CONTENT_END);
@@ -158,11 +158,10 @@ public class GUI {
 
         setGlassPaneRange(menu, 0, EC_CONTENT_START);
         setGlassPaneRange(menu, EC_CONTENT_END, MENU_SIZE);
-        if (KitManager.get().getItemStackArrayById(p.getUniqueId() + "ec" + slot) != null) {
-
-            ItemStack[] kit = KitManager.get().getItemStackArrayById(p.getUniqueId() + "ec" + slot);
+        ItemStack[] kit = KitManager.get().getPlayerEC(p.getUniqueId(), slot);
+        if (kit != null) {
             for (int i = EC_CONTENT_START; i < EC_CONTENT_END; i++) {
-                menu.getSlot(i).setItem(kit[i - EC_CONTENT_START]);
+                menu.getSlot(i).setItem(ItemStackInterner.copy(kit[i - EC_CONTENT_START]));
             }
         }
         allowModificationRange(menu, EC_CONTENT_START, EC_CONTENT_END);
@@ -184,10 +183,10 @@ public class GUI {
         }
         Menu menu = GuiMenuFactory.createInspectMenu(slot, playerName);
 
-        if (KitManager.get().hasKit(target, slot)) {
-            ItemStack[] kit = KitManager.get().getItemStackArrayById(target.toString() + slot);
+        ItemStack[] kit = KitManager.get().getPlayerKit(target, slot);
+        if (kit != null) {
             for (int i = 0; i < KIT_CONTENT_END; i++) {
-                menu.getSlot(i).setItem(kit[i]);
+                menu.getSlot(i).setItem(ItemStackInterner.copy(kit[i]));
             }
         }
         setGlassPaneRange(menu, KIT_CONTENT_END, MENU_SIZE);
@@ -221,11 +220,10 @@ public class GUI {
 
         setGlassPaneRange(menu, 0, EC_CONTENT_START);
         setGlassPaneRange(menu, EC_CONTENT_END, MENU_SIZE);
-        if (KitManager.get().getItemStackArrayById(target + "ec" + slot) != null) {
-
-            ItemStack[] kit = KitManager.get().getItemStackArrayById(target + "ec" + slot);
+        ItemStack[] kit = KitManager.get().getPlayerEC(target, slot);
+        if (kit != null) {
             for (int i = EC_CONTENT_START; i < EC_CONTENT_END; i++) {
-                menu.getSlot(i).setItem(kit[i - EC_CONTENT_START]);
+                menu.getSlot(i).setItem(ItemStackInterner.copy(kit[i - EC_CONTENT_START]));
             }
         }
 
@@ -278,7 +276,7 @@ public class GUI {
                     lang("gui.lore-left-load"), lang("gui.lore-right-edit")));
             addEditLoad(menu.getSlot(9 + col), slotNum);
 
-            if (KitManager.get().getItemStackArrayById(p.getUniqueId() + "ec" + slotNum) != null) {
+            if (KitManager.get().hasEC(p.getUniqueId(), slotNum)) {
                 menu.getSlot(18 + col).setItem(createItem(Material.ENDER_CHEST, 1,
                         lang("gui.enderchest-slot-name", "slot", String.valueOf(slotNum)),
                         lang("gui.lore-left-load"), lang("gui.lore-right-edit")));
@@ -290,7 +288,7 @@ public class GUI {
                 addEditEC(menu.getSlot(18 + col), slotNum);
             }
 
-            if (KitManager.get().getItemStackArrayById(p.getUniqueId().toString() + slotNum) != null) {
+            if (KitManager.get().hasKit(p.getUniqueId(), slotNum)) {
                 menu.getSlot(27 + col).setItem(createItem(Material.KNOWLEDGE_BOOK, 1, lang("gui.kit-exists"), lang("gui.lore-click-edit")));
             } else {
                 menu.getSlot(27 + col).setItem(createItem(Material.BOOK, 1, lang("gui.kit-not-found"), lang("gui.lore-click-create")));
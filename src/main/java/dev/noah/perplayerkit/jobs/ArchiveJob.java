@@ -0,0 +1,228 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.jobs;
+
+import dev.noah.perplayerkit.KitArchiveService;
+import dev.noah.perplayerkit.KitManager;
+import dev.noah.perplayerkit.PerPlayerKit;
+import dev.noah.perplayerkit.util.IDUtil;
+import dev.noah.perplayerkit.util.Lang;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Archives the kits and ender chests of players who haven't been seen for
+ * {@code archive.inactive-days}, see {@link KitArchiveService}. Operations
+ * are players; the checkpoint is the last player checked.
+ * <p>
+ * Players stored before last-seen tracking was switched on have no last
+ * seen time yet. They get the current time, so they are archived once
+ * they've stayed away for the configured number of days from now on.
+ */
+public class ArchiveJob implements Job {
+
+    public static final String TYPE = "archive";
+    private static final int MAX_BATCH = 100;
+
+    private final Plugin plugin;
+    private final String storageType;
+    private String after;
+    private long completed;
+    private KitArchiveService.ArchiveResult result;
+    private List<Map.Entry<UUID, List<String>>> remaining;
+    private int position;
+
+    public ArchiveJob(Plugin plugin) {
+        this(plugin, plugin.getConfig().getString("storage.type", "sqlite"), null, 0, KitArchiveService.ArchiveResult.none());
+    }
+
+    private ArchiveJob(Plugin plugin, String storageType, String after, long completed,
+                       KitArchiveService.ArchiveResult result) {
+        this.plugin = plugin;
+        this.storageType = storageType;
+        this.after = after;
+        this.completed = completed;
+        this.result = result;
+    }
+
+    public static ArchiveJob fromCheckpoint(Plugin plugin, Map<String, String> checkpoint) {
+        return new ArchiveJob(plugin, checkpoint.get("storage"), checkpoint.get("after"),
+                Long.parseLong(checkpoint.get("completed")),
+                new KitArchiveService.ArchiveResult(
+                        Long.parseLong(checkpoint.get("players")),
+                        Long.parseLong(checkpoint.get("entries")),
+                        Long.parseLong(checkpoint.get("stored-size")),
+                        Long.parseLong(checkpoint.get("archived-size")),
+                        Long.parseLong(checkpoint.get("failed"))));
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public String description() {
+        return "archive players inactive for " + TimeUnit.MILLISECONDS.toDays(KitArchiveService.get().inactiveMillis()) + " days";
+    }
+
+    @Override
+    public Set<String> locks() {
+        return Set.of(JobRunner.storageLock(storageType));
+    }
+
+    @Override
+    public boolean step(int operations) {
+        if (remaining == null) {
+            remaining = new ArrayList<>(playersAfter(after).entrySet());
+        }
+        if (position >= remaining.size()) {
+            return true;
+        }
+
+        List<Map.Entry<UUID, List<String>>> batch = remaining.subList(position,
+                Math.min(position + Math.min(operations, MAX_BATCH), remaining.size()));
+        List<String> lastSeenIds = batch.stream().map(player -> IDUtil.getLastSeenId(player.getKey())).toList();
+        Map<String, String> lastSeen = PerPlayerKit.storageManager.getKitDataBatch(lastSeenIds);
+
+        long now = System.currentTimeMillis();
+        Map<String, String> firstSeen = new HashMap<>();
+        Map<UUID, List<String>> inactive = new LinkedHashMap<>();
+        for (Map.Entry<UUID, List<String>> player : batch) {
+            UUID uuid = player.getKey();
+            if (KitManager.get().isInUse(uuid)) {
+                continue;
+            }
+            long seen = parseTime(lastSeen.get(IDUtil.getLastSeenId(uuid)));
+            if (seen < 0) {
+                firstSeen.put(IDUtil.getLastSeenId(uuid), String.valueOf(now));
+            } else if (now - seen >= KitArchiveService.get().inactiveMillis()) {
+                inactive.put(uuid, player.getValue());
+            }
+        }
+        if (!firstSeen.isEmpty()) {
+            PerPlayerKit.storageManager.saveKitDataBatch(firstSeen);
+        }
+        KitArchiveService.ArchiveResult archived = inactive.isEmpty()
+                ? KitArchiveService.ArchiveResult.none()
+                : KitArchiveService.get().archive(inactive);
+
+        synchronized (this) {
+            result = result.plus(archived);
+            position += batch.size();
+            completed += batch.size();
+            after = batch.get(batch.size() - 1).getKey().toString();
+        }
+        return position >= remaining.size();
+    }
+
+    /**
+     * The stored kits and ender chests of every player after the given one,
+     * grouped by player in the same order as their UUID strings.
+     */
+    private static Map<UUID, List<String>> playersAfter(String after) {
+        Map<String, List<String>> byPlayer = new TreeMap<>();
+        for (String id : PerPlayerKit.storageManager.getAllKitIDs()) {
+            IDUtil.PlayerDataId playerDataId = IDUtil.parsePlayerDataId(id);
+            if (playerDataId == null) {
+                continue;
+            }
+            String uuid = playerDataId.uuid().toString();
+            if (after != null && uuid.compareTo(after) <= 0) {
+                continue;
+            }
+            byPlayer.computeIfAbsent(uuid, key -> new ArrayList<>()).add(id);
+        }
+
+        Map<UUID, List<String>> players = new LinkedHashMap<>();
+        byPlayer.forEach((uuid, ids) -> players.put(UUID.fromString(uuid), ids));
+        return players;
+    }
+
+    private static long parseTime(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized long completed() {
+        return completed;
+    }
+
+    @Override
+    public synchronized long total() {
+        return remaining == null ? 0 : completed + remaining.size() - position;
+    }
+
+    @Override
+    public synchronized Map<String, String> checkpoint() {
+        Map<String, String> checkpoint = new HashMap<>();
+        checkpoint.put("storage", storageType);
+        if (after != null) {
+            checkpoint.put("after", after);
+        }
+        checkpoint.put("completed", String.valueOf(completed));
+        checkpoint.put("players", String.valueOf(result.players()));
+        checkpoint.put("entries", String.valueOf(result.entries()));
+        checkpoint.put("stored-size", String.valueOf(result.storedSize()));
+        checkpoint.put("archived-size", String.valueOf(result.archivedSize()));
+        checkpoint.put("failed", String.valueOf(result.failed()));
+        return checkpoint;
+    }
+
+    @Override
+    public void reportResult(CommandSender owner) {
+        KitArchiveService.ArchiveResult summary;
+        long checked;
+        synchronized (this) {
+            summary = result;
+            checked = completed;
+        }
+        plugin.getLogger().info("[Archive] Archived " + summary.entries() + " kits and ender chests of "
+                + summary.players() + " of " + checked + " players, " + summary.storedSize() / 1024 + " KB packed into "
+                + summary.archivedSize() / 1024 + " KB");
+
+        Lang.get().send(owner, "success.archive-completed",
+                "players", String.valueOf(summary.players()),
+                "checked", String.valueOf(checked),
+                "entries", String.valueOf(summary.entries()));
+        Lang.get().send(owner, "info.archive-size",
+                "before", String.valueOf(summary.storedSize() / 1024),
+                "after", String.valueOf(summary.archivedSize() / 1024));
+        if (summary.failed() > 0) {
+            Lang.get().send(owner, "info.archive-failed-players", "count", String.valueOf(summary.failed()));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.jobs;
+
+import dev.noah.perplayerkit.KitManager;
+import dev.noah.perplayerkit.PerPlayerKit;
+import dev.noah.perplayerkit.StorageGarbageCollector;
+import dev.noah.perplayerkit.util.KitSlots;
+import dev.noah.perplayerkit.util.Lang;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds stored entries the plugin will never read again, see
+ * {@link StorageGarbageCollector}, and lists, archives or deletes them.
+ * <p>
+ * Every run lists what it found in {@code reports/storage-gc-<time>.csv}.
+ * Archiving also copies the entries to {@code archive/storage-gc-<time>.yml}
+ * before deleting them, keyed by entry ID, so they can be put back by hand.
+ */
+public class GarbageCollectionJob implements Job {
+
+    public static final String TYPE = "gc";
+    private static final int MAX_BATCH = 500;
+
+    private final Plugin plugin;
+    private final Mode mode;
+    private final String storageType;
+    private final String timestamp;
+    private final StorageGarbageCollector collector;
+    private final Map<StorageGarbageCollector.Category, Long> counts = new EnumMap<>(StorageGarbageCollector.Category.class);
+    private String after;
+    private long completed;
+    private List<String> remaining;
+    private int position;
+
+    public GarbageCollectionJob(Plugin plugin, Mode mode) {
+        this(plugin, mode, plugin.getConfig().getString("storage.type", "sqlite"),
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss")), null, 0);
+    }
+
+    private GarbageCollectionJob(Plugin plugin, Mode mode, String storageType, String timestamp, String after,
+                                 long completed) {
+        this.plugin = plugin;
+        this.mode = mode;
+        this.storageType = storageType;
+        this.timestamp = timestamp;
+        this.collector = StorageGarbageCollector.fromConfig(plugin);
+        this.after = after;
+        this.completed = completed;
+    }
+
+    public static GarbageCollectionJob fromCheckpoint(Plugin plugin, Map<String, String> checkpoint) {
+        GarbageCollectionJob job = new GarbageCollectionJob(plugin,
+                Mode.valueOf(checkpoint.get("mode")),
+                checkpoint.get("storage"),
+                checkpoint.get("timestamp"),
+                checkpoint.get("after"),
+                Long.parseLong(checkpoint.get("completed")));
+        for (StorageGarbageCollector.Category category : StorageGarbageCollector.Category.values()) {
+            String count = checkpoint.get(key(category));
+            if (count != null) {
+                job.counts.put(category, Long.parseLong(count));
+            }
+        }
+        return job;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public String description() {
+        return "storage gc (" + mode.name().toLowerCase(Locale.ROOT) + ")";
+    }
+
+    @Override
+    public Set<String> locks() {
+        // Listing only reads the IDs, so it doesn't get in the way of other jobs
+        return mode == Mode.REPORT ? Set.of() : Set.of(JobRunner.storageLock(storageType));
+    }
+
+    @Override
+    public boolean step(int operations) throws IOException {
+        if (remaining == null) {
+            remaining = PerPlayerKit.storageManager.getAllKitIDs().stream()
+                    .filter(id -> after == null || id.compareTo(after) > 0)
+                    .sorted()
+                    .toList();
+        }
+        if (position >= remaining.size()) {
+            return true;
+        }
+
+        List<String> batch = remaining.subList(position, Math.min(position + Math.min(operations, MAX_BATCH), remaining.size()));
+        Map<StorageGarbageCollector.Category, Long> batchCounts = new EnumMap<>(StorageGarbageCollector.Category.class);
+        List<String> garbage = new ArrayList<>();
+        StringBuilder report = new StringBuilder();
+        for (String id : batch) {
+            StorageGarbageCollector.Category category = collector.classify(id);
+            batchCounts.merge(category, 1L, Long::sum);
+            if (category != StorageGarbageCollector.Category.LIVE) {
+                garbage.add(id);
+                report.append(key(category)).append(',').append(csvField(id)).append('\n');
+            }
+        }
+
+        if (!garbage.isEmpty()) {
+            append(reportFile(), "category,id\n", report.toString());
+            if (mode != Mode.REPORT) {
+                if (mode == Mode.ARCHIVE) {
+                    archive(PerPlayerKit.storageManager.getKitDataBatch(garbage));
+                }
+                PerPlayerKit.storageManager.deleteKitDataBatch(garbage);
+                garbage.forEach(id -> KitManager.get().updateCachedKit(id, null));
+            }
+        }
+
+        synchronized (this) {
+            batchCounts.forEach((category, count) -> counts.merge(category, count, Long::sum));
+            position += batch.size();
+            completed += batch.size();
+            after = batch.get(batch.size() - 1);
+        }
+        return position >= remaining.size();
+    }
+
+    private File reportFile() {
+        return new File(new File(plugin.getDataFolder(), "reports"), "storage-gc-" + timestamp + ".csv");
+    }
+
+    private File archiveFile() {
+        return new File(new File(plugin.getDataFolder(), "archive"), "storage-gc-" + timestamp + ".yml");
+    }
+
+    private void archive(Map<String, String> entries) throws IOException {
+        YamlConfiguration yaml = new YamlConfiguration();
+        // Entry IDs are arbitrary strings and may contain dots
+        yaml.options().pathSeparator('\0');
+        entries.forEach(yaml::set);
+        // Top-level keys are unique, so appending keeps the file a single valid mapping
+        append(archiveFile(), "", yaml.saveToString());
+    }
+
+    private static void append(File file, String header, String text) throws IOException {
+        boolean created = !file.exists();
+        if (created) {
+            Files.createDirectories(file.getParentFile().toPath());
+        }
+        Files.writeString(file.toPath(), created ? header + text : text, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String key(StorageGarbageCollector.Category category) {
+        return category.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    @Override
+    public synchronized long completed() {
+        return completed;
+    }
+
+    @Override
+    public synchronized long total() {
+        return remaining == null ? 0 : completed + remaining.size() - position;
+    }
+
+    @Override
+    public synchronized Map<String, String> checkpoint() {
+        Map<String, String> checkpoint = new HashMap<>();
+        checkpoint.put("mode", mode.name());
+        checkpoint.put("storage", storageType);
+        checkpoint.put("timestamp", timestamp);
+        if (after != null) {
+            checkpoint.put("after", after);
+        }
+        checkpoint.put("completed", String.valueOf(completed));
+        counts.forEach((category, count) -> checkpoint.put(key(category), String.valueOf(count)));
+        return checkpoint;
+    }
+
+    @Override
+    public void reportResult(CommandSender owner) {
+        Map<StorageGarbageCollector.Category, Long> summary;
+        long scanned;
+        synchronized (this) {
+            summary = new EnumMap<>(counts);
+            scanned = completed;
+        }
+        long outOfRange = summary.getOrDefault(StorageGarbageCollector.Category.OUT_OF_RANGE_SLOT, 0L);
+        long orphaned = summary.getOrDefault(StorageGarbageCollector.Category.ORPHANED_PUBLIC_KIT, 0L);
+        long unparsable = summary.getOrDefault(StorageGarbageCollector.Category.UNPARSABLE, 0L);
+        long garbage = outOfRange + orphaned + unparsable;
+        plugin.getLogger().info("[StorageGC] Finished " + description() + ": " + garbage + " of " + scanned
+                + " entries are unused (" + outOfRange + " above max-kits, " + orphaned + " orphaned public kits, "
+                + unparsable + " unrecognized)");
+
+        Lang.get().send(owner, "info.gc-summary", "scanned", String.valueOf(scanned), "garbage", String.valueOf(garbage));
+        Lang.get().send(owner, "info.gc-out-of-range", "count", String.valueOf(outOfRange),
+                "max", String.valueOf(KitSlots.maxKits()));
+        Lang.get().send(owner, "info.gc-orphaned-public-kits", "count", String.valueOf(orphaned));
+        Lang.get().send(owner, "info.gc-unparsable", "count", String.valueOf(unparsable));
+        if (garbage == 0) {
+            return;
+        }
+        Lang.get().send(owner, "info.gc-listed", "file", reportFile().getName());
+        switch (mode) {
+            case REPORT -> Lang.get().send(owner, "info.gc-report-only");
+            case ARCHIVE -> Lang.get().send(owner, "success.gc-archived", "count", String.valueOf(garbage),
+                    "file", archiveFile().getName());
+            case DELETE -> Lang.get().send(owner, "success.gc-deleted", "count", String.valueOf(garbage));
+        }
+    }
+
+    public enum Mode {
+        /**
+         * Only lists the unused entries.
+         */
+        REPORT,
+        /**
+         * Copies the unused entries to a file, then deletes them.
+         */
+        ARCHIVE,
+        /**
+         * Deletes the unused entries.
+         */
+        DELETE
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.jobs;
+
+import org.bukkit.command.CommandSender;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A bulk operation run in small steps by the {@link JobRunner}, which
+ * paces it, lets admins pause or cancel it, and stores its checkpoint so
+ * it can pick up where it left off after a restart.
+ * <p>
+ * Steps are called from asynchronous threads, one at a time.
+ */
+public interface Job {
+
+    /**
+     * The type the job is registered under with {@link JobRunner#registerType}.
+     */
+    String type();
+
+    /**
+     * Short description for admins, e.g. {@code purge TNT}.
+     */
+    String description();
+
+    /**
+     * Resources the job needs to itself, e.g. a storage backend. Jobs with
+     * overlapping locks don't run at the same time.
+     */
+    Set<String> locks();
+
+    /**
+     * Runs at most the given number of operations, e.g. entries processed.
+     *
+     * @return true once the job is done
+     */
+    boolean step(int operations) throws Exception;
+
+    long completed();
+
+    /**
+     * @return the total number of operations, or 0 while not known yet
+     */
+    long total();
+
+    /**
+     * Everything needed to recreate the job where it is now, passed to the
+     * factory registered for its type.
+     */
+    Map<String, String> checkpoint();
+
+    /**
+     * Releases whatever the job holds. Called once it finished, failed or
+     * was cancelled, and on shutdown.
+     */
+    default void close() {
+    }
+
+    /**
+     * Tells whoever started the job how it went. Called on the main thread
+     * once it finished.
+     */
+    default void reportResult(CommandSender owner) {
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.jobs;
+
+import dev.noah.perplayerkit.util.Lang;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs admin bulk operations (item purges, migrations, ...) in the
+ * background at a predictable pace.
+ * <p>
+ * Every few ticks each running job gets a step with a budget derived from
+ * its rate limit, {@code jobs.operations-per-second.<type>}. Jobs declare
+ * the resources they need and only one job can hold a resource at a time.
+ * After every step the job's checkpoint is written to {@code jobs.yml};
+ * unfinished jobs are resumed from there when the plugin starts again.
+ */
+public class JobRunner {
+
+    private static final long TICK_INTERVAL = 10;
+    private static final int DEFAULT_OPERATIONS_PER_SECOND = 200;
+    private static final long PROGRESS_INTERVAL_MILLIS = 15_000;
+    private static final long SHUTDOWN_WAIT_MILLIS = 10_000;
+
+    private static JobRunner instance;
+    private final Plugin plugin;
+    private final JobStore store;
+    private final Map<String, Function<Map<String, String>, Job>> factories = new HashMap<>();
+    private final Map<Integer, RunningJob> jobs = new TreeMap<>();
+    private int nextId = 1;
+    private BukkitTask ticker;
+
+    public JobRunner(Plugin plugin) {
+        this.plugin = plugin;
+        this.store = new JobStore(new File(plugin.getDataFolder(), "jobs.yml"), plugin.getLogger());
+        instance = this;
+    }
+
+    public static JobRunner get() {
+        if (instance == null) {
+            throw new IllegalStateException("JobRunner has not been initialized yet!");
+        }
+        return instance;
+    }
+
+    /**
+     * Lock name for jobs reading or writing a storage backend.
+     */
+    public static String storageLock(String storageType) {
+        String type = storageType.toLowerCase(Locale.ROOT);
+        return "storage:" + (type.equals("yaml") ? "yml" : type);
+    }
+
+    /**
+     * Registers how to recreate jobs of a type from their checkpoint.
+     */
+    public synchronized void registerType(String type, Function<Map<String, String>, Job> factory) {
+        factories.put(type, factory);
+    }
+
+    /**
+     * Resumes the jobs left unfinished by the last shutdown and starts
+     * running jobs. Call once storage is connected and all types are
+     * registered.
+     */
+    public synchronized void start() {
+        for (JobStore.SavedJob saved : store.load()) {
+            Function<Map<String, String>, Job> factory = factories.get(saved.type());
+            Job job = null;
+            try {
+                job = factory == null ? null : factory.apply(saved.checkpoint());
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("Could not resume job #" + saved.id() + ": " + e.getMessage());
+            }
+            if (job == null || conflictingJob(job.locks()) != null) {
+                plugin.getLogger().warning("Dropping unfinished " + saved.type() + " job #" + saved.id());
+                store.remove(saved.id());
+                continue;
+            }
+
+            RunningJob running = new RunningJob(saved.id(), job, saved.owner(), rateLimit(job.type()));
+            running.state = saved.paused() ? State.PAUSED : State.RUNNING;
+            jobs.put(saved.id(), running);
+            nextId = Math.max(nextId, saved.id() + 1);
+            plugin.getLogger().info("Resuming job #" + saved.id() + " (" + job.description() + ")"
+                    + (saved.paused() ? ", paused" : ""));
+        }
+        ticker = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::tick, TICK_INTERVAL, TICK_INTERVAL);
+    }
+
+    /**
+     * Stops running jobs, keeping their checkpoints for the next start.
+     * Steps already in progress are waited for, up to a time limit, so
+     * storage isn't closed while they are still writing.
+     */
+    public synchronized void shutdown() {
+        if (ticker != null) {
+            ticker.cancel();
+        }
+        for (RunningJob running : jobs.values()) {
+            synchronized (running) {
+                running.state = State.STOPPED;
+                if (!running.stepping) {
+                    running.job.close();
+                }
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + SHUTDOWN_WAIT_MILLIS;
+        for (RunningJob running : jobs.values()) {
+            synchronized (running) {
+                try {
+                    long remaining;
+                    while (running.stepping && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                        running.wait(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (running.stepping) {
+                    plugin.getLogger().warning("Job #" + running.id + " (" + running.job.description()
+                            + ") did not stop in time, it will redo its last step when resumed");
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a job unless another job holds one of its locks.
+     *
+     * @param owner who to report progress and the result to
+     * @return the job's ID, or -1 if it conflicts with a running job
+     */
+    public synchronized int submit(Job job, CommandSender owner) {
+        if (conflictingJob(job.locks()) != null) {
+            return -1;
+        }
+
+        int id = nextId++;
+        RunningJob running = new RunningJob(id, job, owner instanceof Player player ? player.getUniqueId() : null,
+                rateLimit(job.type()));
+        jobs.put(id, running);
+        saveCheckpoint(running);
+        plugin.getLogger().info("Started job #" + id + " (" + job.description() + ")");
+        return id;
+    }
+
+    /**
+     * @return the job holding any of the resources, or null if they are all free
+     */
+    public synchronized JobInfo conflictingJob(Collection<String> resources) {
+        for (RunningJob running : jobs.values()) {
+            for (String resource : resources) {
+                if (running.job.locks().contains(resource)) {
+                    return running.info();
+                }
+            }
+        }
+        return null;
+    }
+
+    public synchronized boolean pause(int id) {
+        return transition(id, State.RUNNING, State.PAUSED);
+    }
+
+    public synchronized boolean resume(int id) {
+        return transition(id, State.PAUSED, State.RUNNING);
+    }
+
+    private boolean transition(int id, State from, State to) {
+        RunningJob running = jobs.get(id);
+        if (running == null) {
+            return false;
+        }
+        synchronized (running) {
+            if (running.state != from) {
+                return false;
+            }
+            running.state = to;
+        }
+        saveCheckpoint(running);
+        return true;
+    }
+
+    /**
+     * Cancels a job. Work already done is kept; a step in progress is
+     * allowed to finish first.
+     */
+    public synchronized boolean cancel(int id) {
+        RunningJob running = jobs.get(id);
+        if (running == null) {
+            return false;
+        }
+        synchronized (running) {
+            running.state = State.CANCELLED;
+            if (running.stepping) {
+                return true;
+            }
+        }
+        end(running);
+        notifyOwner(running, "info.job-cancelled");
+        return true;
+    }
+
+    public synchronized List<JobInfo> list() {
+        List<JobInfo> infos = new ArrayList<>();
+        jobs.values().forEach(running -> infos.add(running.info()));
+        return infos;
+    }
+
+    private int rateLimit(String type) {
+        return Math.max(1, plugin.getConfig().getInt("jobs.operations-per-second." + type, DEFAULT_OPERATIONS_PER_SECOND));
+    }
+
+    /**
+     * Operations a job may run per step to stay within its rate limit.
+     */
+    static int budget(int operationsPerSecond) {
+        return (int) Math.max(1, operationsPerSecond * TICK_INTERVAL / 20);
+    }
+
+    private void tick() {
+        List<RunningJob> due = new ArrayList<>();
+        synchronized (this) {
+            for (RunningJob running : jobs.values()) {
+                synchronized (running) {
+                    if (running.state == State.RUNNING && !running.stepping) {
+                        running.stepping = true;
+                        due.add(running);
+                    }
+                }
+            }
+        }
+        due.forEach(running -> Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> runStep(running)));
+    }
+
+    private void runStep(RunningJob running) {
+        synchronized (running) {
+            if (running.state == State.STOPPED) {
+                // Scheduled just before shutdown
+                finishStopped(running);
+                return;
+            }
+        }
+
+        boolean done;
+        try {
+            done = running.job.step(budget(running.operationsPerSecond));
+        } catch (Exception e) {
+            synchronized (running) {
+                if (running.state == State.STOPPED) {
+                    // Most likely storage closing under it; resume from the last checkpoint
+                    finishStopped(running);
+                    return;
+                }
+                running.stepping = false;
+            }
+            plugin.getLogger().warning("Job #" + running.id + " (" + running.job.description() + ") failed: " + e.getMessage());
+            synchronized (this) {
+                end(running);
+            }
+            notifyOwner(running, "error.job-failed", "error", String.valueOf(e.getMessage()));
+            return;
+        }
+
+        State state;
+        synchronized (running) {
+            if (running.state == State.STOPPED) {
+                // Keep what the step did, so resuming doesn't repeat it
+                if (done) {
+                    store.remove(running.id);
+                } else {
+                    saveCheckpoint(running);
+                }
+                finishStopped(running);
+                return;
+            }
+            running.stepping = false;
+            state = running.state;
+        }
+        switch (state) {
+            case CANCELLED -> {
+                synchronized (this) {
+                    end(running);
+                }
+                notifyOwner(running, "info.job-cancelled");
+            }
+            default -> {
+                if (done) {
+                    synchronized (this) {
+                        end(running);
+                    }
+                    plugin.getLogger().info("Job #" + running.id + " (" + running.job.description() + ") finished");
+                    notifyOwner(running, "success.job-finished");
+                    runForOwner(running, running.job::reportResult);
+                    return;
+                }
+                saveCheckpoint(running);
+                long now = System.currentTimeMillis();
+                if (now - running.lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+                    running.lastProgress = now;
+                    notifyOwner(running, "info.job-progress",
+                            "completed", String.valueOf(running.job.completed()),
+                            "total", String.valueOf(running.job.total()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Ends a step of a job stopped by {@link #shutdown}, which may be waiting
+     * for it. Call while holding the job's monitor.
+     */
+    private void finishStopped(RunningJob running) {
+        running.job.close();
+        running.stepping = false;
+        running.notifyAll();
+    }
+
+    private void end(RunningJob running) {
+        jobs.remove(running.id);
+        store.remove(running.id);
+        running.job.close();
+    }
+
+    private void saveCheckpoint(RunningJob running) {
+        store.save(new JobStore.SavedJob(running.id, running.job.type(), running.state == State.PAUSED,
+                running.owner, running.job.checkpoint()));
+    }
+
+    private void notifyOwner(RunningJob running, String key, String... pairs) {
+        String[] all = new String[pairs.length + 4];
+        all[0] = "id";
+        all[1] = String.valueOf(running.id);
+        all[2] = "job";
+        all[3] = running.job.description();
+        System.arraycopy(pairs, 0, all, 4, pairs.length);
+        runForOwner(running, owner -> Lang.get().send(owner, key, all));
+    }
+
+    /**
+     * Runs the action on the main thread for the player who started the job
+     * if they are online, or the console otherwise.
+     */
+    private void runForOwner(RunningJob running, Consumer<CommandSender> action) {
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            Player player = running.owner == null ? null : Bukkit.getPlayer(running.owner);
+            action.accept(player != null ? player : Bukkit.getConsoleSender());
+        });
+    }
+
+    public enum State {
+        RUNNING, PAUSED, CANCELLED, STOPPED
+    }
+
+    public record JobInfo(int id, String description, State state, long completed, long total, int operationsPerSecond) {
+    }
+
+    private static final class RunningJob {
+        private final int id;
+        private final Job job;
+        private final UUID owner;
+        private final int operationsPerSecond;
+        private State state = State.RUNNING;
+        private boolean stepping;
+        private long lastProgress = System.currentTimeMillis();
+
+        private RunningJob(int id, Job job, UUID owner, int operationsPerSecond) {
+            this.id = id;
+            this.job = job;
+            this.owner = owner;
+            this.operationsPerSecond = operationsPerSecond;
+        }
+
+        private synchronized JobInfo info() {
+            return new JobInfo(id, job.description(), state, job.completed(), job.total(), operationsPerSecond);
+        }
+    }
+}
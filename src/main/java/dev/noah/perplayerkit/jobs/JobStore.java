@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.jobs;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the checkpoints of unfinished jobs in a YAML file, so they can be
+ * resumed after a restart.
+ */
+final class JobStore {
+
+    private final File file;
+    private final Logger logger;
+    private final YamlConfiguration data;
+
+    JobStore(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+        this.data = file.exists() ? YamlConfiguration.loadConfiguration(file) : new YamlConfiguration();
+    }
+
+    synchronized void save(SavedJob job) {
+        String path = "jobs." + job.id();
+        data.set(path, null);
+        data.set(path + ".type", job.type());
+        data.set(path + ".paused", job.paused());
+        data.set(path + ".owner", job.owner() == null ? null : job.owner().toString());
+        job.checkpoint().forEach((key, value) -> data.set(path + ".checkpoint." + key, value));
+        write();
+    }
+
+    synchronized void remove(int id) {
+        data.set("jobs." + id, null);
+        write();
+    }
+
+    synchronized List<SavedJob> load() {
+        List<SavedJob> jobs = new ArrayList<>();
+        ConfigurationSection section = data.getConfigurationSection("jobs");
+        if (section == null) {
+            return jobs;
+        }
+
+        for (String key : section.getKeys(false)) {
+            try {
+                int id = Integer.parseInt(key);
+                String owner = section.getString(key + ".owner");
+                Map<String, String> checkpoint = new HashMap<>();
+                ConfigurationSection checkpointSection = section.getConfigurationSection(key + ".checkpoint");
+                if (checkpointSection != null) {
+                    for (String field : checkpointSection.getKeys(false)) {
+                        checkpoint.put(field, checkpointSection.getString(field));
+                    }
+                }
+                jobs.add(new SavedJob(id, section.getString(key + ".type"), section.getBoolean(key + ".paused"),
+                        owner == null ? null : UUID.fromString(owner), checkpoint));
+            } catch (IllegalArgumentException e) {
+                logger.warning("Skipping unreadable job checkpoint " + key + ": " + e.getMessage());
+            }
+        }
+        return jobs;
+    }
+
+    private void write() {
+        try {
+            data.save(file);
+        } catch (IOException e) {
+            logger.warning("Failed to save job checkpoints: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param owner the player who started the job, or null for the console
+     */
+    record SavedJob(int id, String type, boolean paused, UUID owner, Map<String, String> checkpoint) {
+    }
+}
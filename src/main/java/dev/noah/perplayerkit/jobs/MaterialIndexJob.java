@@ -0,0 +1,159 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.jobs;
+
+import dev.noah.perplayerkit.KitTransformService;
+import dev.noah.perplayerkit.MaterialIndexService;
+import dev.noah.perplayerkit.PerPlayerKit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rebuilds the material index from the stored kits, see
+ * {@link MaterialIndexService}. Started by the service itself whenever the
+ * index is incomplete; kits saved while it runs are indexed as saved.
+ */
+public class MaterialIndexJob implements Job {
+
+    public static final String TYPE = "index";
+    /**
+     * Held by the rebuild, so only one runs at a time.
+     */
+    public static final String LOCK = "material-index";
+    private static final int MAX_BATCH = 100;
+
+    private final Plugin plugin;
+    private final String storageType;
+    private String after;
+    private long completed;
+    private long failed;
+    private List<String> remaining;
+    private int position;
+
+    public MaterialIndexJob(Plugin plugin) {
+        this(plugin, plugin.getConfig().getString("storage.type", "sqlite"), null, 0, 0);
+    }
+
+    private MaterialIndexJob(Plugin plugin, String storageType, String after, long completed, long failed) {
+        this.plugin = plugin;
+        this.storageType = storageType;
+        this.after = after;
+        this.completed = completed;
+        this.failed = failed;
+    }
+
+    public static MaterialIndexJob fromCheckpoint(Plugin plugin, Map<String, String> checkpoint) {
+        return new MaterialIndexJob(plugin,
+                checkpoint.get("storage"),
+                checkpoint.get("after"),
+                Long.parseLong(checkpoint.get("completed")),
+                Long.parseLong(checkpoint.get("failed")));
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public String description() {
+        return "material index rebuild";
+    }
+
+    @Override
+    public Set<String> locks() {
+        return Set.of(JobRunner.storageLock(storageType), LOCK);
+    }
+
+    @Override
+    public boolean step(int operations) {
+        if (remaining == null) {
+            if (after == null) {
+                MaterialIndexService.get().beginRebuild();
+            }
+            remaining = PerPlayerKit.storageManager.getAllKitIDs().stream()
+                    .filter(id -> KitTransformService.isKitId(id) && (after == null || id.compareTo(after) > 0))
+                    .sorted()
+                    .toList();
+            if (after == null) {
+                plugin.getLogger().info("Building the material index for " + remaining.size() + " stored kits");
+            }
+        }
+        if (position < remaining.size()) {
+            List<String> batch = remaining.subList(position, Math.min(position + Math.min(operations, MAX_BATCH), remaining.size()));
+            int batchFailed = MaterialIndexService.get().rebuildEntries(PerPlayerKit.storageManager.getKitDataBatch(batch));
+            synchronized (this) {
+                failed += batchFailed;
+                position += batch.size();
+                completed += batch.size();
+                after = batch.get(batch.size() - 1);
+            }
+        }
+        if (position < remaining.size()) {
+            return false;
+        }
+
+        MaterialIndexService.get().completeRebuild();
+        return true;
+    }
+
+    @Override
+    public synchronized long completed() {
+        return completed;
+    }
+
+    @Override
+    public synchronized long total() {
+        return remaining == null ? 0 : completed + remaining.size() - position;
+    }
+
+    @Override
+    public synchronized Map<String, String> checkpoint() {
+        Map<String, String> checkpoint = new HashMap<>();
+        checkpoint.put("storage", storageType);
+        if (after != null) {
+            checkpoint.put("after", after);
+        }
+        checkpoint.put("completed", String.valueOf(completed));
+        checkpoint.put("failed", String.valueOf(failed));
+        return checkpoint;
+    }
+
+    @Override
+    public void close() {
+        MaterialIndexService.get().endRebuild();
+    }
+
+    @Override
+    public void reportResult(CommandSender owner) {
+        plugin.getLogger().info("Material index built");
+        long skipped;
+        synchronized (this) {
+            skipped = failed;
+        }
+        if (skipped > 0) {
+            plugin.getLogger().warning("The material index skipped " + skipped + " kits that could not be read");
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.jobs;
+
+import dev.noah.perplayerkit.storage.StorageMigrator;
+import dev.noah.perplayerkit.util.Lang;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copies every entry from one storage backend to another, see
+ * {@link StorageMigrator}. The checkpoint is the last entry ID copied, so a
+ * resumed migration continues with the entries after it.
+ */
+public class MigrationJob implements Job {
+
+    public static final String TYPE = "migrate";
+
+    private final Plugin plugin;
+    private final String sourceType;
+    private final String destinationType;
+    private String after;
+    private long migrated;
+    private long failed;
+    private StorageMigrator.Transfer transfer;
+    private List<String> remaining;
+    private int position;
+
+    public MigrationJob(Plugin plugin, String sourceType, String destinationType) {
+        this(plugin, sourceType, destinationType, null, 0, 0);
+    }
+
+    private MigrationJob(Plugin plugin, String sourceType, String destinationType, String after, long migrated, long failed) {
+        this.plugin = plugin;
+        this.sourceType = sourceType;
+        this.destinationType = destinationType;
+        this.after = after;
+        this.migrated = migrated;
+        this.failed = failed;
+    }
+
+    public static MigrationJob fromCheckpoint(Plugin plugin, Map<String, String> checkpoint) {
+        return new MigrationJob(plugin, checkpoint.get("source"), checkpoint.get("destination"), checkpoint.get("after"),
+                Long.parseLong(checkpoint.get("migrated")), Long.parseLong(checkpoint.get("failed")));
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public String description() {
+        return "migrate " + sourceType + " to " + destinationType;
+    }
+
+    @Override
+    public Set<String> locks() {
+        return Set.of(JobRunner.storageLock(sourceType), JobRunner.storageLock(destinationType));
+    }
+
+    @Override
+    public boolean step(int operations) throws Exception {
+        if (transfer == null) {
+            transfer = new StorageMigrator(plugin).open(sourceType, destinationType, null);
+            remaining = transfer.kitIDsAfter(after);
+        }
+
+        int end = Math.min(position + operations, remaining.size());
+        for (; position < end; position++) {
+            String kitID = remaining.get(position);
+            boolean copied;
+            try {
+                copied = transfer.copy(kitID);
+                if (!copied) {
+                    plugin.getLogger().warning("[Migration] Could not read data for kit ID: " + kitID);
+                }
+            } catch (Exception e) {
+                copied = false;
+                plugin.getLogger().warning("[Migration] Error migrating kit ID " + kitID + ": " + e.getMessage());
+            }
+            synchronized (this) {
+                if (copied) {
+                    migrated++;
+                } else {
+                    failed++;
+                }
+                after = kitID;
+            }
+        }
+        return position >= remaining.size();
+    }
+
+    @Override
+    public synchronized long completed() {
+        return migrated + failed;
+    }
+
+    @Override
+    public synchronized long total() {
+        return remaining == null ? 0 : migrated + failed + remaining.size() - position;
+    }
+
+    @Override
+    public synchronized Map<String, String> checkpoint() {
+        Map<String, String> checkpoint = new HashMap<>();
+        checkpoint.put("source", sourceType);
+        checkpoint.put("destination", destinationType);
+        if (after != null) {
+            checkpoint.put("after", after);
+        }
+        checkpoint.put("migrated", String.valueOf(migrated));
+        checkpoint.put("failed", String.valueOf(failed));
+        return checkpoint;
+    }
+
+    @Override
+    public void close() {
+        if (transfer != null) {
+            transfer.close();
+        }
+    }
+
+    @Override
+    public void reportResult(CommandSender owner) {
+        long copied;
+        long unreadable;
+        synchronized (this) {
+            copied = migrated;
+            unreadable = failed;
+        }
+        plugin.getLogger().info("[Migration] Migration complete! Migrated: " + copied + ", Failed: " + unreadable);
+        Lang.get().send(owner, "success.migration-completed");
+        Lang.get().send(owner, "success.migration-count", "count", String.valueOf(copied));
+        if (unreadable > 0) {
+            Lang.get().send(owner, "info.migration-failed-count", "count", String.valueOf(unreadable));
+        }
+        Lang.get().send(owner, "info.update-config-storage", "type", destinationType);
+    }
+}
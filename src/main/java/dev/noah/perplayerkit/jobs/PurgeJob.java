@@ -0,0 +1,195 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.jobs;
+
+import dev.noah.perplayerkit.ItemPurgeService;
+import dev.noah.perplayerkit.KitManager;
+import dev.noah.perplayerkit.MaterialIndexService;
+import dev.noah.perplayerkit.PerPlayerKit;
+import dev.noah.perplayerkit.util.Lang;
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Removes an item type from stored player kits and ender chests, see
+ * {@link ItemPurgeService}. The checkpoint is the last entry ID processed,
+ * so a resumed purge continues with the entries after it.
+ */
+public class PurgeJob implements Job {
+
+    public static final String TYPE = "purge";
+    private static final int MAX_BATCH = 100;
+
+    private final Plugin plugin;
+    private final Material item;
+    private final List<UUID> players;
+    private final String storageType;
+    private String after;
+    private long completed;
+    private ItemPurgeService.PurgeResult result;
+    private ItemPurgeService service;
+    private ExecutorService workers;
+    private List<String> remaining;
+    private int position;
+
+    /**
+     * @param players the players to purge, or null for all players
+     */
+    public PurgeJob(Plugin plugin, Material item, List<UUID> players) {
+        this(plugin, item, players, plugin.getConfig().getString("storage.type", "sqlite"), null, 0,
+                ItemPurgeService.PurgeResult.NONE);
+    }
+
+    private PurgeJob(Plugin plugin, Material item, List<UUID> players, String storageType, String after,
+                     long completed, ItemPurgeService.PurgeResult result) {
+        this.plugin = plugin;
+        this.item = item;
+        this.players = players;
+        this.storageType = storageType;
+        this.after = after;
+        this.completed = completed;
+        this.result = result;
+    }
+
+    public static PurgeJob fromCheckpoint(Plugin plugin, Map<String, String> checkpoint) {
+        String players = checkpoint.get("players");
+        return new PurgeJob(plugin,
+                Material.valueOf(checkpoint.get("item")),
+                players == null ? null : Arrays.stream(players.split(",")).map(UUID::fromString).toList(),
+                checkpoint.get("storage"),
+                checkpoint.get("after"),
+                Long.parseLong(checkpoint.get("completed")),
+                new ItemPurgeService.PurgeResult(
+                        Integer.parseInt(checkpoint.get("scanned")),
+                        Integer.parseInt(checkpoint.get("modified")),
+                        Integer.parseInt(checkpoint.get("deleted")),
+                        Integer.parseInt(checkpoint.get("items-removed")),
+                        Integer.parseInt(checkpoint.get("failed"))));
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public String description() {
+        return "purge " + item.name() + (players == null ? "" : " from " + players.size() + " players");
+    }
+
+    @Override
+    public Set<String> locks() {
+        return Set.of(JobRunner.storageLock(storageType));
+    }
+
+    @Override
+    public boolean step(int operations) {
+        if (remaining == null) {
+            service = new ItemPurgeService(PerPlayerKit.storageManager, KitManager.get(),
+                    MaterialIndexService.get().completeIndex());
+            workers = ItemPurgeService.newWorkerPool();
+            remaining = service.findEntries(item, players).stream()
+                    .filter(id -> after == null || id.compareTo(after) > 0)
+                    .toList();
+        }
+        if (position >= remaining.size()) {
+            return true;
+        }
+
+        List<String> batch = remaining.subList(position, Math.min(position + Math.min(operations, MAX_BATCH), remaining.size()));
+        ItemPurgeService.PurgeResult batchResult = service.purgeBatch(batch, item, workers,
+                message -> plugin.getLogger().info("[ItemPurge] " + message));
+        synchronized (this) {
+            result = result.plus(batchResult);
+            position += batch.size();
+            completed += batch.size();
+            after = batch.get(batch.size() - 1);
+        }
+        return position >= remaining.size();
+    }
+
+    @Override
+    public synchronized long completed() {
+        return completed;
+    }
+
+    @Override
+    public synchronized long total() {
+        return remaining == null ? 0 : completed + remaining.size() - position;
+    }
+
+    @Override
+    public synchronized Map<String, String> checkpoint() {
+        Map<String, String> checkpoint = new HashMap<>();
+        checkpoint.put("item", item.name());
+        if (players != null) {
+            checkpoint.put("players", players.stream().map(UUID::toString).collect(Collectors.joining(",")));
+        }
+        checkpoint.put("storage", storageType);
+        if (after != null) {
+            checkpoint.put("after", after);
+        }
+        checkpoint.put("completed", String.valueOf(completed));
+        checkpoint.put("scanned", String.valueOf(result.scanned()));
+        checkpoint.put("modified", String.valueOf(result.modified()));
+        checkpoint.put("deleted", String.valueOf(result.deleted()));
+        checkpoint.put("items-removed", String.valueOf(result.itemsRemoved()));
+        checkpoint.put("failed", String.valueOf(result.failed()));
+        return checkpoint;
+    }
+
+    @Override
+    public void close() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    @Override
+    public void reportResult(CommandSender owner) {
+        ItemPurgeService.PurgeResult summary;
+        synchronized (this) {
+            summary = result;
+        }
+        plugin.getLogger().info("[ItemPurge] Finished purging " + item.name()
+                + ": removed " + summary.itemsRemoved() + " items from " + summary.modified()
+                + " of " + summary.scanned() + " entries (" + summary.deleted() + " emptied entries deleted, "
+                + summary.failed() + " failures)");
+        Lang.get().send(owner, "success.purge-completed",
+                "items", String.valueOf(summary.itemsRemoved()),
+                "item", item.name(),
+                "modified", String.valueOf(summary.modified()));
+        Lang.get().send(owner, "info.purge-summary",
+                "scanned", String.valueOf(summary.scanned()),
+                "deleted", String.valueOf(summary.deleted()));
+        if (summary.failed() > 0) {
+            Lang.get().send(owner, "info.purge-failed-entries", "count", String.valueOf(summary.failed()));
+        }
+    }
+}
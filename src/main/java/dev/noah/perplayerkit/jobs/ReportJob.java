@@ -0,0 +1,245 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.jobs;
+
+import dev.noah.perplayerkit.KitStats;
+import dev.noah.perplayerkit.KitTransformService;
+import dev.noah.perplayerkit.PerPlayerKit;
+import dev.noah.perplayerkit.util.Lang;
+import dev.noah.perplayerkit.util.Serializer;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds a {@link KitStats} report over every stored kit, ender chest and
+ * public kit and writes it as CSV to {@code reports/kit-report-<time>.csv}.
+ * <p>
+ * Each step reads a page of entries and decodes it on a small worker pool,
+ * each worker counting into its own {@link KitStats}; the per-worker counts
+ * are merged afterwards. The counts so far are part of the checkpoint, so
+ * a report resumed after a restart doesn't start over.
+ */
+public class ReportJob implements Job {
+
+    public static final String TYPE = "report";
+    private static final int MAX_BATCH = 100;
+    private static final int WORKERS = 2;
+    // Pages with fewer entries than this are counted on the calling thread
+    private static final int MIN_PARALLEL_ENTRIES = 16;
+
+    private final Plugin plugin;
+    private final String storageType;
+    private final String timestamp;
+    private final KitStats stats;
+    private String after;
+    private long completed;
+    private ExecutorService workers;
+    private List<String> remaining;
+    private int position;
+
+    public ReportJob(Plugin plugin) {
+        this(plugin, plugin.getConfig().getString("storage.type", "sqlite"),
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss")), new KitStats(), null, 0);
+    }
+
+    private ReportJob(Plugin plugin, String storageType, String timestamp, KitStats stats, String after, long completed) {
+        this.plugin = plugin;
+        this.storageType = storageType;
+        this.timestamp = timestamp;
+        this.stats = stats;
+        this.after = after;
+        this.completed = completed;
+    }
+
+    public static ReportJob fromCheckpoint(Plugin plugin, Map<String, String> checkpoint) {
+        return new ReportJob(plugin,
+                checkpoint.get("storage"),
+                checkpoint.get("timestamp"),
+                KitStats.decode(checkpoint.get("stats")),
+                checkpoint.get("after"),
+                Long.parseLong(checkpoint.get("completed")));
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public String description() {
+        return "kit report";
+    }
+
+    @Override
+    public Set<String> locks() {
+        return Set.of(JobRunner.storageLock(storageType));
+    }
+
+    @Override
+    public boolean step(int operations) throws IOException {
+        if (remaining == null) {
+            remaining = PerPlayerKit.storageManager.getAllKitIDs().stream()
+                    .filter(id -> KitTransformService.isKitId(id) && (after == null || id.compareTo(after) > 0))
+                    .sorted()
+                    .toList();
+            AtomicInteger threads = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(WORKERS, runnable -> {
+                Thread thread = new Thread(runnable, "PerPlayerKit-Report-" + threads.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (position < remaining.size()) {
+            List<String> batch = remaining.subList(position, Math.min(position + Math.min(operations, MAX_BATCH), remaining.size()));
+            KitStats batchStats = countPage(PerPlayerKit.storageManager.getKitDataBatch(batch), workers);
+            synchronized (this) {
+                stats.merge(batchStats);
+                position += batch.size();
+                completed += batch.size();
+                after = batch.get(batch.size() - 1);
+            }
+        }
+        if (position < remaining.size()) {
+            return false;
+        }
+
+        writeReport();
+        return true;
+    }
+
+    private File reportFile() {
+        return new File(new File(plugin.getDataFolder(), "reports"), "kit-report-" + timestamp + ".csv");
+    }
+
+    private void writeReport() throws IOException {
+        File file = reportFile();
+        Files.createDirectories(file.getParentFile().toPath());
+        try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            synchronized (this) {
+                stats.writeCsv(out);
+            }
+        }
+    }
+
+    /**
+     * Decodes and counts the entries of one page, split across the workers
+     * unless the page is small.
+     */
+    static KitStats countPage(Map<String, String> stored, ExecutorService workers) {
+        List<Map.Entry<String, String>> entries = new ArrayList<>(stored.entrySet());
+        if (entries.size() < MIN_PARALLEL_ENTRIES) {
+            return countEntries(entries);
+        }
+
+        int chunkSize = (entries.size() + WORKERS - 1) / WORKERS;
+        List<Future<KitStats>> futures = new ArrayList<>(WORKERS);
+        for (int start = 0; start < entries.size(); start += chunkSize) {
+            List<Map.Entry<String, String>> chunk = entries.subList(start, Math.min(start + chunkSize, entries.size()));
+            futures.add(workers.submit(() -> countEntries(chunk)));
+        }
+
+        KitStats stats = new KitStats();
+        for (Future<KitStats> future : futures) {
+            try {
+                stats.merge(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while building the kit report", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return stats;
+    }
+
+    private static KitStats countEntries(List<Map.Entry<String, String>> entries) {
+        KitStats stats = new KitStats();
+        for (Map.Entry<String, String> entry : entries) {
+            try {
+                stats.add(entry.getKey(), Serializer.itemStackArrayFromBase64(entry.getValue()));
+            } catch (IOException | RuntimeException e) {
+                stats.addFailure();
+            }
+        }
+        return stats;
+    }
+
+    @Override
+    public synchronized long completed() {
+        return completed;
+    }
+
+    @Override
+    public synchronized long total() {
+        return remaining == null ? 0 : completed + remaining.size() - position;
+    }
+
+    @Override
+    public synchronized Map<String, String> checkpoint() {
+        Map<String, String> checkpoint = new HashMap<>();
+        checkpoint.put("storage", storageType);
+        checkpoint.put("timestamp", timestamp);
+        if (after != null) {
+            checkpoint.put("after", after);
+        }
+        checkpoint.put("completed", String.valueOf(completed));
+        checkpoint.put("stats", stats.encode());
+        return checkpoint;
+    }
+
+    @Override
+    public void close() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    @Override
+    public void reportResult(CommandSender owner) {
+        long entries;
+        long failed;
+        synchronized (this) {
+            entries = stats.entries();
+            failed = stats.failed();
+        }
+        plugin.getLogger().info("Kit report written to " + reportFile().getPath());
+        Lang.get().send(owner, "success.report-written", "entries", String.valueOf(entries), "file", reportFile().getName());
+        if (failed > 0) {
+            Lang.get().send(owner, "info.report-unreadable", "count", String.valueOf(failed));
+        }
+    }
+}
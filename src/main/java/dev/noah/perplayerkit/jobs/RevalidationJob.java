@@ -0,0 +1,191 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.jobs;
+
+import dev.noah.perplayerkit.KitManager;
+import dev.noah.perplayerkit.KitRevalidationService;
+import dev.noah.perplayerkit.KitTransformService;
+import dev.noah.perplayerkit.KitTransformer;
+import dev.noah.perplayerkit.MaterialIndexService;
+import dev.noah.perplayerkit.PerPlayerKit;
+import dev.noah.perplayerkit.TransformRules;
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Removes items taken out of the kit room from every stored kit, ender
+ * chest and public kit, see {@link KitRevalidationService}. This is a
+ * transform with a single remove rule, run through
+ * {@link KitTransformService} like any other.
+ */
+public class RevalidationJob implements Job {
+
+    public static final String TYPE = "revalidate";
+    private static final int MAX_BATCH = 100;
+
+    private final Plugin plugin;
+    private final Set<Material> removed;
+    private final KitTransformer transformer;
+    private final String storageType;
+    private String after;
+    private long completed;
+    private KitTransformService.TransformResult result;
+    private KitTransformService service;
+    private ExecutorService workers;
+    private List<String> remaining;
+    private int position;
+
+    public RevalidationJob(Plugin plugin, Set<Material> removed) {
+        this(plugin, removed, plugin.getConfig().getString("storage.type", "sqlite"), null, 0, null);
+    }
+
+    private RevalidationJob(Plugin plugin, Set<Material> removed, String storageType, String after, long completed,
+                            Map<String, String> checkpoint) {
+        this.plugin = plugin;
+        this.removed = EnumSet.copyOf(removed);
+        this.transformer = new KitTransformer(List.of(TransformRules.remove(removed)));
+        this.storageType = storageType;
+        this.after = after;
+        this.completed = completed;
+        this.result = KitTransformService.TransformResult.none(1);
+        if (checkpoint != null) {
+            result = new KitTransformService.TransformResult(
+                    Integer.parseInt(checkpoint.get("scanned")),
+                    Integer.parseInt(checkpoint.get("modified")),
+                    Integer.parseInt(checkpoint.get("deleted")),
+                    Integer.parseInt(checkpoint.get("failed")),
+                    result.tally());
+            result.tally().add(0,
+                    Long.parseLong(checkpoint.get("stacks-removed")),
+                    Long.parseLong(checkpoint.get("items-removed")));
+        }
+    }
+
+    public static RevalidationJob fromCheckpoint(Plugin plugin, Map<String, String> checkpoint) {
+        return new RevalidationJob(plugin,
+                Arrays.stream(checkpoint.get("items").split(",")).map(Material::valueOf)
+                        .collect(Collectors.toCollection(() -> EnumSet.noneOf(Material.class))),
+                checkpoint.get("storage"),
+                checkpoint.get("after"),
+                Long.parseLong(checkpoint.get("completed")),
+                checkpoint);
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public String description() {
+        return "kit room check for " + removed.size() + " removed item types";
+    }
+
+    @Override
+    public Set<String> locks() {
+        return Set.of(JobRunner.storageLock(storageType));
+    }
+
+    @Override
+    public boolean step(int operations) {
+        if (remaining == null) {
+            service = new KitTransformService(PerPlayerKit.storageManager, KitManager.get(), transformer,
+                    MaterialIndexService.get().completeIndex(), false);
+            workers = KitTransformService.newWorkerPool();
+            remaining = service.findEntries(id -> KitTransformService.isKitId(id)
+                    && (after == null || id.compareTo(after) > 0));
+            if (after == null) {
+                plugin.getLogger().info("Kit room changed, checking " + remaining.size() + " stored kits for "
+                        + removed.size() + " removed item types");
+            }
+        }
+        if (position >= remaining.size()) {
+            return true;
+        }
+
+        List<String> batch = remaining.subList(position, Math.min(position + Math.min(operations, MAX_BATCH), remaining.size()));
+        KitTransformService.TransformResult batchResult = service.transformBatch(batch, workers, null);
+        synchronized (this) {
+            result = result.plus(batchResult);
+            position += batch.size();
+            completed += batch.size();
+            after = batch.get(batch.size() - 1);
+        }
+        return position >= remaining.size();
+    }
+
+    @Override
+    public synchronized long completed() {
+        return completed;
+    }
+
+    @Override
+    public synchronized long total() {
+        return remaining == null ? 0 : completed + remaining.size() - position;
+    }
+
+    @Override
+    public synchronized Map<String, String> checkpoint() {
+        Map<String, String> checkpoint = new HashMap<>();
+        checkpoint.put("items", removed.stream().map(Material::name).collect(Collectors.joining(",")));
+        checkpoint.put("storage", storageType);
+        if (after != null) {
+            checkpoint.put("after", after);
+        }
+        checkpoint.put("completed", String.valueOf(completed));
+        checkpoint.put("scanned", String.valueOf(result.scanned()));
+        checkpoint.put("modified", String.valueOf(result.modified()));
+        checkpoint.put("deleted", String.valueOf(result.deleted()));
+        checkpoint.put("failed", String.valueOf(result.failed()));
+        checkpoint.put("stacks-removed", String.valueOf(result.tally().stacks(0)));
+        checkpoint.put("items-removed", String.valueOf(result.tally().items(0)));
+        return checkpoint;
+    }
+
+    @Override
+    public void close() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    @Override
+    public void reportResult(CommandSender owner) {
+        KitTransformService.TransformResult summary;
+        synchronized (this) {
+            summary = result;
+        }
+        plugin.getLogger().info("Kit room check finished: removed " + summary.tally().items(0) + " items from "
+                + summary.modified() + " of " + summary.scanned() + " kits (" + summary.deleted()
+                + " kits left empty were deleted)");
+        if (summary.failed() > 0) {
+            plugin.getLogger().warning("Kit room check could not process " + summary.failed() + " kits");
+        }
+    }
+}
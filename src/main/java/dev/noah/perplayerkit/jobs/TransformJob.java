@@ -0,0 +1,246 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.jobs;
+
+import dev.noah.perplayerkit.KitManager;
+import dev.noah.perplayerkit.KitTransformService;
+import dev.noah.perplayerkit.KitTransformer;
+import dev.noah.perplayerkit.MaterialIndexService;
+import dev.noah.perplayerkit.PerPlayerKit;
+import dev.noah.perplayerkit.TransformRule;
+import dev.noah.perplayerkit.TransformRules;
+import dev.noah.perplayerkit.util.Lang;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Applies a rule set from the {@code transforms} section of the config to
+ * every stored kit, ender chest and public kit in one pass, see
+ * {@link KitTransformService}. A dry run only counts what would change and
+ * takes no locks, since it writes nothing.
+ * <p>
+ * The rules are read from the config again when the job is resumed after a
+ * restart. The checkpoint holds a fingerprint of the rules, and a job whose
+ * rule set was edited in the meantime is not resumed, since part of the
+ * entries would have been changed by other rules and the per-rule counts
+ * would no longer match.
+ */
+public class TransformJob implements Job {
+
+    public static final String TYPE = "transform";
+    private static final int MAX_BATCH = 100;
+
+    private final Plugin plugin;
+    private final String ruleSet;
+    private final boolean dryRun;
+    private final KitTransformer transformer;
+    private final String storageType;
+    private String after;
+    private long completed;
+    private KitTransformService.TransformResult result;
+    private KitTransformService service;
+    private ExecutorService workers;
+    private List<String> remaining;
+    private int position;
+
+    /**
+     * @throws IllegalArgumentException if the rule set is missing or invalid
+     */
+    public TransformJob(Plugin plugin, String ruleSet, boolean dryRun) {
+        this(plugin, ruleSet, dryRun, plugin.getConfig().getString("storage.type", "sqlite"), null, 0, null);
+    }
+
+    private TransformJob(Plugin plugin, String ruleSet, boolean dryRun, String storageType, String after,
+                         long completed, Map<String, String> checkpoint) {
+        this.plugin = plugin;
+        this.ruleSet = ruleSet;
+        this.dryRun = dryRun;
+        this.transformer = new KitTransformer(loadRules(plugin, ruleSet));
+        this.storageType = storageType;
+        this.after = after;
+        this.completed = completed;
+        this.result = KitTransformService.TransformResult.none(transformer.rules().size());
+        if (checkpoint != null) {
+            if (!rulesFingerprint(transformer.rules()).equals(checkpoint.get("rules"))) {
+                throw new IllegalArgumentException("rule set " + ruleSet + " was changed since the job started");
+            }
+            result = new KitTransformService.TransformResult(
+                    Integer.parseInt(checkpoint.get("scanned")),
+                    Integer.parseInt(checkpoint.get("modified")),
+                    Integer.parseInt(checkpoint.get("deleted")),
+                    Integer.parseInt(checkpoint.get("failed")),
+                    result.tally());
+            for (int rule = 0; rule < transformer.rules().size(); rule++) {
+                result.tally().add(rule,
+                        Long.parseLong(checkpoint.getOrDefault("stacks-" + rule, "0")),
+                        Long.parseLong(checkpoint.getOrDefault("items-" + rule, "0")));
+            }
+        }
+    }
+
+    public static TransformJob fromCheckpoint(Plugin plugin, Map<String, String> checkpoint) {
+        return new TransformJob(plugin,
+                checkpoint.get("rule-set"),
+                Boolean.parseBoolean(checkpoint.get("dry-run")),
+                checkpoint.get("storage"),
+                checkpoint.get("after"),
+                Long.parseLong(checkpoint.get("completed")),
+                checkpoint);
+    }
+
+    /**
+     * Reads a rule set from the {@code transforms} section of the config.
+     *
+     * @throws IllegalArgumentException if the rule set is missing or invalid
+     */
+    public static List<TransformRule> loadRules(Plugin plugin, String ruleSet) {
+        if (!plugin.getConfig().isList("transforms." + ruleSet)) {
+            throw new IllegalArgumentException("no rule set named " + ruleSet);
+        }
+        return TransformRules.parse(plugin.getConfig().getMapList("transforms." + ruleSet));
+    }
+
+    public List<TransformRule> rules() {
+        return transformer.rules();
+    }
+
+    /**
+     * Identifies a rule set by what its rules do; descriptions include every
+     * parameter of a rule.
+     */
+    static String rulesFingerprint(List<TransformRule> rules) {
+        StringBuilder joined = new StringBuilder();
+        for (TransformRule rule : rules) {
+            joined.append(rule.description()).append('\n');
+        }
+        return Integer.toHexString(joined.toString().hashCode());
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public String description() {
+        return (dryRun ? "dry run of " : "transform ") + ruleSet;
+    }
+
+    @Override
+    public Set<String> locks() {
+        return dryRun ? Set.of() : Set.of(JobRunner.storageLock(storageType));
+    }
+
+    @Override
+    public boolean step(int operations) {
+        if (remaining == null) {
+            service = new KitTransformService(PerPlayerKit.storageManager, KitManager.get(), transformer,
+                    MaterialIndexService.get().completeIndex(), dryRun);
+            workers = KitTransformService.newWorkerPool();
+            remaining = service.findEntries(id -> KitTransformService.isKitId(id)
+                    && (after == null || id.compareTo(after) > 0));
+        }
+        if (position >= remaining.size()) {
+            return true;
+        }
+
+        List<String> batch = remaining.subList(position, Math.min(position + Math.min(operations, MAX_BATCH), remaining.size()));
+        KitTransformService.TransformResult batchResult = service.transformBatch(batch, workers,
+                message -> plugin.getLogger().info("[Transform] " + message));
+        synchronized (this) {
+            result = result.plus(batchResult);
+            position += batch.size();
+            completed += batch.size();
+            after = batch.get(batch.size() - 1);
+        }
+        return position >= remaining.size();
+    }
+
+    @Override
+    public synchronized long completed() {
+        return completed;
+    }
+
+    @Override
+    public synchronized long total() {
+        return remaining == null ? 0 : completed + remaining.size() - position;
+    }
+
+    @Override
+    public synchronized Map<String, String> checkpoint() {
+        Map<String, String> checkpoint = new HashMap<>();
+        checkpoint.put("rule-set", ruleSet);
+        checkpoint.put("rules", rulesFingerprint(transformer.rules()));
+        checkpoint.put("dry-run", String.valueOf(dryRun));
+        checkpoint.put("storage", storageType);
+        if (after != null) {
+            checkpoint.put("after", after);
+        }
+        checkpoint.put("completed", String.valueOf(completed));
+        checkpoint.put("scanned", String.valueOf(result.scanned()));
+        checkpoint.put("modified", String.valueOf(result.modified()));
+        checkpoint.put("deleted", String.valueOf(result.deleted()));
+        checkpoint.put("failed", String.valueOf(result.failed()));
+        for (int rule = 0; rule < result.tally().rules(); rule++) {
+            checkpoint.put("stacks-" + rule, String.valueOf(result.tally().stacks(rule)));
+            checkpoint.put("items-" + rule, String.valueOf(result.tally().items(rule)));
+        }
+        return checkpoint;
+    }
+
+    @Override
+    public void close() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    @Override
+    public void reportResult(CommandSender owner) {
+        KitTransformService.TransformResult summary;
+        synchronized (this) {
+            summary = result;
+        }
+        plugin.getLogger().info("[Transform] Finished " + description() + ": "
+                + summary.modified() + " of " + summary.scanned() + " entries "
+                + (dryRun ? "would change" : "changed") + " (" + summary.deleted() + " emptied, "
+                + summary.failed() + " failures)");
+        Lang.get().send(owner, dryRun ? "info.transform-dry-run-completed" : "success.transform-completed",
+                "set", ruleSet,
+                "modified", String.valueOf(summary.modified()),
+                "scanned", String.valueOf(summary.scanned()),
+                "deleted", String.valueOf(summary.deleted()));
+        List<TransformRule> rules = transformer.rules();
+        for (int rule = 0; rule < rules.size(); rule++) {
+            Lang.get().send(owner, "info.transform-rule",
+                    "rule", rules.get(rule).description(),
+                    "stacks", String.valueOf(summary.tally().stacks(rule)),
+                    "items", String.valueOf(summary.tally().items(rule)));
+        }
+        if (summary.failed() > 0) {
+            Lang.get().send(owner, "info.purge-failed-entries", "count", String.valueOf(summary.failed()));
+        }
+    }
+}
@@ -19,7 +19,7 @@
 package dev.noah.perplayerkit.listeners;
 
 import dev.noah.perplayerkit.KitManager;
-import org.bukkit.configuration.ConfigurationSection;
+import dev.noah.perplayerkit.util.Settings;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -28,8 +28,6 @@ import org.bukkit.event.player.PlayerRespawnEvent;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
 
-import java.util.List;
-
 public class AutoRekitListener implements Listener {
 
     private final Plugin plugin;
@@ -41,7 +39,8 @@ public class AutoRekitListener implements Listener {
     @EventHandler
     public void onRespawn(PlayerRespawnEvent e) {
 
-        if (!plugin.getConfig().getBoolean("feature.rekit-on-respawn", true)) {
+        Settings settings = Settings.get();
+        if (!settings.rekitOnRespawn()) {
             return;
         }
 
@@ -49,7 +48,7 @@ public class AutoRekitListener implements Listener {
             return;
         }
 
-        long delay = plugin.getConfig().getLong("feature.rekit-on-respawn-delay", 0);
+        long delay = settings.rekitOnRespawnDelay();
         Player player = e.getPlayer();
 
         if (delay <= 0) {
@@ -69,7 +68,7 @@ public class AutoRekitListener implements Listener {
     @EventHandler
     public void onPlayerKill(PlayerDeathEvent e) {
 
-        if (!isRekitOnKillEnabled()) {
+        if (!Settings.get().rekitOnKill()) {
             return;
         }
 
@@ -82,50 +81,9 @@ public class AutoRekitListener implements Listener {
             return;
         }
 
-        String killerWorld = killer.getWorld().getName();
-        if (isWorldAllowedForRekitOnKill(killerWorld)) {
+        if (Settings.get().isRekitOnKillAllowedIn(killer.getWorld().getName())) {
             KitManager.get().loadLastKit(killer);
         }
     }
 
-    /**
-     * Checks if rekit-on-kill is enabled, supporting both old boolean format and new section format.
-     */
-    private boolean isRekitOnKillEnabled() {
-        // Check if it's a section (new format)
-        ConfigurationSection section = plugin.getConfig().getConfigurationSection("feature.rekit-on-kill");
-        if (section != null) {
-            return section.getBoolean("enabled", false);
-        }
-        // Fall back to old boolean format for backwards compatibility
-        return plugin.getConfig().getBoolean("feature.rekit-on-kill", false);
-    }
-
-    /**
-     * Checks if a world is allowed for rekit-on-kill based on whitelist/blacklist settings.
-     */
-    private boolean isWorldAllowedForRekitOnKill(String worldName) {
-        ConfigurationSection section = plugin.getConfig().getConfigurationSection("feature.rekit-on-kill");
-        if (section == null) {
-            // Old format - no world filtering, allow all
-            return true;
-        }
-
-        List<String> whitelist = section.getStringList("world-whitelist");
-        List<String> blacklist = section.getStringList("world-blacklist");
-
-        // If whitelist is not empty, only allow worlds in the whitelist
-        if (whitelist != null && !whitelist.isEmpty()) {
-            return whitelist.contains(worldName);
-        }
-
-        // If blacklist is not empty, allow all worlds except those in the blacklist
-        if (blacklist != null && !blacklist.isEmpty()) {
-            return !blacklist.contains(worldName);
-        }
-
-        // Both empty - allow all worlds
-        return true;
-    }
-
 }
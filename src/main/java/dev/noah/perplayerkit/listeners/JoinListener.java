@@ -30,7 +30,6 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -58,15 +57,12 @@ public class JoinListener implements Listener {
         UUID uuid = player.getUniqueId();
 
         //  KitManager.loadFromSQL(uuid);
+        KitManager.get().markOnline(uuid);
 
-        new BukkitRunnable() {
-
-            @Override
-            public void run() {
-                KitManager.get().loadPlayerDataFromDB(uuid);
-            }
-
-        }.runTaskAsynchronously(plugin);
+        // Normally loaded during login already, see LoginListener
+        if (!KitManager.get().adoptPrefetchedData(uuid)) {
+            KitManager.get().loadPlayerDataAsync(uuid);
+        }
 
 
         // Check if MOTD is enabled and send MOTD messages
@@ -20,7 +20,6 @@ package dev.noah.perplayerkit.listeners;
 
 import dev.noah.perplayerkit.KitManager;
 import dev.noah.perplayerkit.gui.GUI;
-import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -44,10 +43,7 @@ public class QuitListener implements Listener {
         UUID uuid = player.getUniqueId();
 
         GUI.forgetMainMenuPage(uuid);
-
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            KitManager.get().savePlayerKitsToDB(uuid);
-        });
+        KitManager.get().unloadPlayer(uuid);
     }
 
 
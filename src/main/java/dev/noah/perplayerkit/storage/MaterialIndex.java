@@ -0,0 +1,63 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.storage;
+
+import java.util.Set;
+
+/**
+ * Secondary index from material names to the IDs of the stored kits that
+ * contain them, items nested in shulker boxes and bundles included. The
+ * plugin keeps it up to date as it writes kits; it is only trusted for
+ * lookups once {@link #isComplete()}, i.e. after a full rebuild with no
+ * unindexed writes since.
+ */
+public interface MaterialIndex {
+
+    /**
+     * Creates whatever the index needs in the backend, if missing.
+     */
+    void init();
+
+    /**
+     * Replaces the materials recorded for a kit.
+     */
+    void update(String kitID, Set<String> materials);
+
+    void remove(String kitID);
+
+    /**
+     * @return the IDs of all indexed kits containing the material
+     */
+    Set<String> find(String material);
+
+    boolean isComplete();
+
+    void markComplete();
+
+    /**
+     * Marks the index as incomplete, e.g. because kits are being written
+     * without updating it. Does nothing if the index was never created.
+     */
+    void invalidate();
+
+    /**
+     * Drops all entries and marks the index as incomplete.
+     */
+    void clear();
+}
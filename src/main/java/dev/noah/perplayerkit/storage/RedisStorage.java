@@ -22,18 +22,35 @@ import org.bukkit.plugin.Plugin;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.params.SetParams;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class RedisStorage implements StorageManager {
 
+    // Keys of the material index and share codes; never reported as kit IDs
+    private static final String INDEX_PREFIX = "ppk:";
+    private static final String MATERIAL_KEY_PREFIX = INDEX_PREFIX + "material:";
+    private static final String KIT_MATERIALS_KEY_PREFIX = INDEX_PREFIX + "kitmaterials:";
+    private static final String INDEX_COMPLETE_KEY = INDEX_PREFIX + "material-index-complete";
+    private static final String SHARE_CODE_KEY_PREFIX = INDEX_PREFIX + "share:";
+
     private final String host;
     private final int port;
     private final String password;
     private JedisPool pool;
 
     private Plugin plugin;
+    private final MaterialIndex materialIndex = new RedisMaterialIndex();
+    private final ShareCodeStore shareCodeStore = new RedisShareCodeStore();
+
     public RedisStorage(Plugin plugin) {
         this.plugin = plugin;
         this.host = plugin.getConfig().getString("redis.host");
@@ -88,11 +105,29 @@ public class RedisStorage implements StorageManager {
     }
 
     @Override
-    public void saveKitDataByID(String kitID, String data) {
+    public boolean saveKitDataByID(String kitID, String data) {
         try (Jedis jedis = getConnection()) {
             jedis.set(kitID, data);
+            return true;
         } catch (Exception e) {
             logRedisFailure("save operation for kit ID " + kitID, e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean saveKitDataBatch(Map<String, String> entries) {
+        if (entries.isEmpty()) {
+            return true;
+        }
+        try (Jedis jedis = getConnection()) {
+            Pipeline pipeline = jedis.pipelined();
+            entries.forEach(pipeline::set);
+            pipeline.sync();
+            return true;
+        } catch (Exception e) {
+            logRedisFailure("batch save of " + entries.size() + " kits", e);
+            return false;
         }
     }
 
@@ -107,6 +142,26 @@ public class RedisStorage implements StorageManager {
         }
     }
 
+    @Override
+    public Map<String, String> getKitDataBatch(Collection<String> kitIDs) {
+        Map<String, String> entries = new HashMap<>();
+        if (kitIDs.isEmpty()) {
+            return entries;
+        }
+        String[] keys = kitIDs.toArray(new String[0]);
+        try (Jedis jedis = getConnection()) {
+            List<String> values = jedis.mget(keys);
+            for (int i = 0; i < keys.length; i++) {
+                if (values.get(i) != null) {
+                    entries.put(keys[i], values.get(i));
+                }
+            }
+        } catch (Exception e) {
+            logRedisFailure("batch read of " + keys.length + " kits", e);
+        }
+        return entries;
+    }
+
     @Override
     public boolean doesKitExistByID(String kitID) {
         try (Jedis jedis = getConnection()) {
@@ -126,6 +181,18 @@ public class RedisStorage implements StorageManager {
         }
     }
 
+    @Override
+    public void deleteKitDataBatch(Collection<String> kitIDs) {
+        if (kitIDs.isEmpty()) {
+            return;
+        }
+        try (Jedis jedis = getConnection()) {
+            jedis.del(kitIDs.toArray(new String[0]));
+        } catch (Exception e) {
+            logRedisFailure("batch delete of " + kitIDs.size() + " kits", e);
+        }
+    }
+
     private Jedis getConnection() {
         if (pool == null) {
             throw new IllegalStateException("Redis pool is not initialized. Call connect() first.");
@@ -137,13 +204,158 @@ public class RedisStorage implements StorageManager {
     public Set<String> getAllKitIDs() {
         Set<String> kitIDs = new HashSet<>();
         try (Jedis jedis = getConnection()) {
-            kitIDs.addAll(jedis.keys("*"));
+            for (String key : jedis.keys("*")) {
+                if (!key.startsWith(INDEX_PREFIX)) {
+                    kitIDs.add(key);
+                }
+            }
         } catch (Exception e) {
             logRedisFailure("list operation", e);
         }
         return kitIDs;
     }
 
+    @Override
+    public MaterialIndex getMaterialIndex() {
+        return materialIndex;
+    }
+
+    /**
+     * Material index kept as one set of kit IDs per material, plus one set
+     * of materials per kit so a kit's old entries can be found again.
+     */
+    private class RedisMaterialIndex implements MaterialIndex {
+
+        @Override
+        public void init() {
+            // Sets are created on first use
+        }
+
+        @Override
+        public void update(String kitID, Set<String> materials) {
+            try (Jedis jedis = getConnection()) {
+                Set<String> previous = jedis.smembers(KIT_MATERIALS_KEY_PREFIX + kitID);
+                Pipeline pipeline = jedis.pipelined();
+                for (String material : previous) {
+                    if (!materials.contains(material)) {
+                        pipeline.srem(MATERIAL_KEY_PREFIX + material, kitID);
+                    }
+                }
+                pipeline.del(KIT_MATERIALS_KEY_PREFIX + kitID);
+                for (String material : materials) {
+                    pipeline.sadd(MATERIAL_KEY_PREFIX + material, kitID);
+                    pipeline.sadd(KIT_MATERIALS_KEY_PREFIX + kitID, material);
+                }
+                pipeline.sync();
+            } catch (Exception e) {
+                logRedisFailure("material index update for kit ID " + kitID, e);
+            }
+        }
+
+        @Override
+        public void remove(String kitID) {
+            update(kitID, Set.of());
+        }
+
+        @Override
+        public Set<String> find(String material) {
+            try (Jedis jedis = getConnection()) {
+                return new HashSet<>(jedis.smembers(MATERIAL_KEY_PREFIX + material));
+            } catch (Exception e) {
+                logRedisFailure("material index lookup for " + material, e);
+                return new HashSet<>();
+            }
+        }
+
+        @Override
+        public boolean isComplete() {
+            try (Jedis jedis = getConnection()) {
+                return jedis.exists(INDEX_COMPLETE_KEY);
+            } catch (Exception e) {
+                logRedisFailure("material index check", e);
+                return false;
+            }
+        }
+
+        @Override
+        public void markComplete() {
+            try (Jedis jedis = getConnection()) {
+                jedis.set(INDEX_COMPLETE_KEY, "true");
+            } catch (Exception e) {
+                logRedisFailure("material index completion", e);
+            }
+        }
+
+        @Override
+        public void invalidate() {
+            try (Jedis jedis = getConnection()) {
+                jedis.del(INDEX_COMPLETE_KEY);
+            } catch (Exception e) {
+                logRedisFailure("material index invalidation", e);
+            }
+        }
+
+        @Override
+        public void clear() {
+            try (Jedis jedis = getConnection()) {
+                Set<String> keys = new HashSet<>(jedis.keys(MATERIAL_KEY_PREFIX + "*"));
+                keys.addAll(jedis.keys(KIT_MATERIALS_KEY_PREFIX + "*"));
+                keys.add(INDEX_COMPLETE_KEY);
+                jedis.del(keys.toArray(new String[0]));
+            } catch (Exception e) {
+                logRedisFailure("material index clear", e);
+            }
+        }
+    }
+
+    @Override
+    public ShareCodeStore getShareCodeStore() {
+        return shareCodeStore;
+    }
+
+    /**
+     * Share codes kept as plain keys that Redis expires by itself.
+     */
+    private class RedisShareCodeStore implements ShareCodeStore {
+
+        @Override
+        public void init() {
+            // Keys are created on first use
+        }
+
+        @Override
+        public boolean put(String code, String data, long ttlMillis) {
+            try (Jedis jedis = getConnection()) {
+                return "OK".equals(jedis.set(SHARE_CODE_KEY_PREFIX + code, data, SetParams.setParams().nx().px(ttlMillis)));
+            } catch (Exception e) {
+                logRedisFailure("share code save for " + code, e);
+                return false;
+            }
+        }
+
+        @Override
+        public Entry get(String code) {
+            try (Jedis jedis = getConnection()) {
+                Pipeline pipeline = jedis.pipelined();
+                Response<String> data = pipeline.get(SHARE_CODE_KEY_PREFIX + code);
+                Response<Long> ttl = pipeline.pttl(SHARE_CODE_KEY_PREFIX + code);
+                pipeline.sync();
+                if (data.get() == null || ttl.get() <= 0) {
+                    return null;
+                }
+                return new Entry(data.get(), System.currentTimeMillis() + ttl.get());
+            } catch (Exception e) {
+                logRedisFailure("share code lookup for " + code, e);
+                return null;
+            }
+        }
+
+        @Override
+        public void sweep() {
+            // Redis expires the keys itself
+        }
+    }
+
     private void logRedisFailure(String operation, Exception exception) {
         if (plugin == null || plugin.getLogger() == null) {
             return;
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.storage;
+
+import dev.noah.perplayerkit.storage.sql.SQLDatabase;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Material index kept in a {@code kit_materials} table with one row per
+ * material and kit. The primary key serves lookups by material, a second
+ * index serves replacing the rows of one kit. A reserved row marks the
+ * index as complete.
+ */
+class SQLMaterialIndex implements MaterialIndex {
+
+    private static final String TABLE = "kit_materials";
+    private static final String KITID_INDEX = "kit_materials_kitid";
+    private static final String COMPLETE_MARKER = "#complete";
+
+    private final SQLDatabase db;
+
+    SQLMaterialIndex(SQLDatabase db) {
+        this.db = db;
+    }
+
+    @Override
+    public void init() {
+        try (Connection conn = db.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement("CREATE TABLE IF NOT EXISTS " + TABLE
+                    + " (MATERIAL VARCHAR(64), KITID VARCHAR(100), PRIMARY KEY (MATERIAL, KITID))")) {
+                ps.executeUpdate();
+            }
+            // CREATE INDEX IF NOT EXISTS isn't portable to MySQL, so look first
+            if (!hasKitIdIndex(conn.getMetaData())) {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "CREATE INDEX " + KITID_INDEX + " ON " + TABLE + " (KITID)")) {
+                    ps.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean hasKitIdIndex(DatabaseMetaData metaData) throws SQLException {
+        try (ResultSet rs = metaData.getIndexInfo(null, null, TABLE, false, false)) {
+            while (rs.next()) {
+                if (KITID_INDEX.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void update(String kitID, Set<String> materials) {
+        try (Connection conn = db.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                deleteRows(conn, kitID);
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO " + TABLE + " (MATERIAL, KITID) VALUES (?,?)")) {
+                    for (String material : materials) {
+                        ps.setString(1, material);
+                        ps.setString(2, kitID);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void remove(String kitID) {
+        try (Connection conn = db.getConnection()) {
+            deleteRows(conn, kitID);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void deleteRows(Connection conn, String kitID) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM " + TABLE + " WHERE KITID=?")) {
+            ps.setString(1, kitID);
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public Set<String> find(String material) {
+        Set<String> kitIDs = new HashSet<>();
+        try (Connection conn = db.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT KITID FROM " + TABLE + " WHERE MATERIAL=?")) {
+            ps.setString(1, material);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    kitIDs.add(rs.getString("KITID"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return kitIDs;
+    }
+
+    @Override
+    public boolean isComplete() {
+        return !find(COMPLETE_MARKER).isEmpty();
+    }
+
+    @Override
+    public void markComplete() {
+        update(COMPLETE_MARKER, Set.of(COMPLETE_MARKER));
+    }
+
+    @Override
+    public void invalidate() {
+        try (Connection conn = db.getConnection()) {
+            try (ResultSet rs = conn.getMetaData().getTables(null, null, TABLE, null)) {
+                if (!rs.next()) {
+                    return;
+                }
+            }
+            deleteRows(conn, COMPLETE_MARKER);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void clear() {
+        try (Connection conn = db.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM " + TABLE)) {
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.storage;
+
+import dev.noah.perplayerkit.storage.sql.SQLDatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Share codes kept in a {@code share_codes} table with their expiry time.
+ * Expired rows are ignored by lookups and removed by {@link #sweep()}.
+ */
+class SQLShareCodeStore implements ShareCodeStore {
+
+    private static final String TABLE = "share_codes";
+
+    private final SQLDatabase db;
+
+    SQLShareCodeStore(SQLDatabase db) {
+        this.db = db;
+    }
+
+    @Override
+    public void init() {
+        try (Connection conn = db.getConnection();
+             PreparedStatement ps = conn.prepareStatement("CREATE TABLE IF NOT EXISTS " + TABLE
+                     + " (CODE VARCHAR(16), DATA TEXT, EXPIRES BIGINT, PRIMARY KEY (CODE))")) {
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public boolean put(String code, String data, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        try (Connection conn = db.getConnection()) {
+            // An expired row with the same code may not have been swept yet. A live
+            // one is left alone, even if another server inserted it a moment ago.
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM " + TABLE + " WHERE CODE=? AND EXPIRES<=?")) {
+                ps.setString(1, code);
+                ps.setLong(2, now);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("INSERT INTO " + TABLE + " (CODE, DATA, EXPIRES) VALUES (?,?,?)")) {
+                ps.setString(1, code);
+                ps.setString(2, data);
+                ps.setLong(3, now + ttlMillis);
+                ps.executeUpdate();
+                return true;
+            } catch (SQLException e) {
+                // The primary key rejects a code that is still live
+                if (isLive(conn, code, now)) {
+                    return false;
+                }
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static boolean isLive(Connection conn, String code, long now) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM " + TABLE + " WHERE CODE=? AND EXPIRES>?")) {
+            ps.setString(1, code);
+            ps.setLong(2, now);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    @Override
+    public Entry get(String code) {
+        try (Connection conn = db.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT DATA, EXPIRES FROM " + TABLE + " WHERE CODE=? AND EXPIRES>?")) {
+            ps.setString(1, code);
+            ps.setLong(2, System.currentTimeMillis());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new Entry(rs.getString("DATA"), rs.getLong("EXPIRES")) : null;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public void sweep() {
+        try (Connection conn = db.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM " + TABLE + " WHERE EXPIRES<=?")) {
+            ps.setLong(1, System.currentTimeMillis());
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
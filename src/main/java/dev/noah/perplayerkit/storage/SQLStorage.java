@@ -26,15 +26,23 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 public class SQLStorage implements StorageManager {
 
     private final SQLDatabase db;
+    private final MaterialIndex materialIndex;
+    private final ShareCodeStore shareCodeStore;
 
     public SQLStorage(SQLDatabase db) {
         this.db = db;
+        this.materialIndex = new SQLMaterialIndex(db);
+        this.shareCodeStore = new SQLShareCodeStore(db);
     }
 
     private void createTable() throws SQLException {
@@ -87,14 +95,46 @@ public class SQLStorage implements StorageManager {
     }
 
     @Override
-    public void saveKitDataByID(String kitID, String data) {
+    public boolean saveKitDataByID(String kitID, String data) {
         try (Connection conn = db.getConnection();
              PreparedStatement ps = conn.prepareStatement(db.getUpsertStatement())) {
             ps.setString(1, kitID);
             ps.setString(2, data);
             ps.executeUpdate();
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean saveKitDataBatch(Map<String, String> entries) {
+        if (entries.isEmpty()) {
+            return true;
+        }
+        try (Connection conn = db.getConnection();
+             PreparedStatement ps = conn.prepareStatement(db.getUpsertStatement())) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (Map.Entry<String, String> entry : entries.entrySet()) {
+                    ps.setString(1, entry.getKey());
+                    ps.setString(2, entry.getValue());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
         }
     }
 
@@ -115,6 +155,32 @@ public class SQLStorage implements StorageManager {
         return "Error";
     }
 
+    @Override
+    public Map<String, String> getKitDataBatch(Collection<String> kitIDs) {
+        Map<String, String> entries = new HashMap<>();
+        if (kitIDs.isEmpty()) {
+            return entries;
+        }
+        // Callers read in pages, which keeps this well below parameter limits
+        String placeholders = String.join(",", Collections.nCopies(kitIDs.size(), "?"));
+        try (Connection conn = db.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                    "SELECT KITID, KITDATA FROM kits WHERE KITID IN (" + placeholders + ")")) {
+            int index = 1;
+            for (String kitID : kitIDs) {
+                ps.setString(index++, kitID);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    entries.put(rs.getString("KITID"), rs.getString("KITDATA"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return entries;
+    }
+
     @Override
     public boolean doesKitExistByID(String kitID) {
         try (Connection conn = db.getConnection();
@@ -142,6 +208,34 @@ public class SQLStorage implements StorageManager {
         }
     }
 
+    @Override
+    public void deleteKitDataBatch(Collection<String> kitIDs) {
+        if (kitIDs.isEmpty()) {
+            return;
+        }
+        try (Connection conn = db.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                "DELETE FROM kits WHERE KITID=?")) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (String kitID : kitIDs) {
+                    ps.setString(1, kitID);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
     @Override
     public Set<String> getAllKitIDs() {
         Set<String> kitIDs = new HashSet<>();
@@ -156,4 +250,14 @@ public class SQLStorage implements StorageManager {
         }
         return kitIDs;
     }
+
+    @Override
+    public MaterialIndex getMaterialIndex() {
+        return materialIndex;
+    }
+
+    @Override
+    public ShareCodeStore getShareCodeStore() {
+        return shareCodeStore;
+    }
 }
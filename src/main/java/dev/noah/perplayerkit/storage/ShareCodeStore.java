@@ -0,0 +1,56 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.storage;
+
+/**
+ * Share codes kept in the storage backend, so a code created on one server
+ * can be redeemed on every server using the same backend, and outlives
+ * restarts. Codes are only valid until they expire.
+ */
+public interface ShareCodeStore {
+
+    /**
+     * Creates whatever the store needs in the backend, if missing.
+     */
+    void init();
+
+    /**
+     * Stores a code unless it is already taken by a code that hasn't expired.
+     *
+     * @return false if the code is taken or couldn't be stored
+     */
+    boolean put(String code, String data, long ttlMillis);
+
+    /**
+     * @return the code's data, or null if it doesn't exist or has expired
+     */
+    Entry get(String code);
+
+    /**
+     * Deletes expired codes. Backends that expire entries on their own do
+     * nothing here.
+     */
+    void sweep();
+
+    /**
+     * @param expiresAt when the code expires, in epoch milliseconds
+     */
+    record Entry(String data, long expiresAt) {
+    }
+}
@@ -21,6 +21,9 @@ package dev.noah.perplayerkit.storage;
 import dev.noah.perplayerkit.storage.exceptions.StorageConnectionException;
 import dev.noah.perplayerkit.storage.exceptions.StorageOperationException;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 public interface StorageManager {
@@ -36,15 +39,71 @@ public interface StorageManager {
 
     void keepAlive() throws StorageConnectionException;
 
-    void saveKitDataByID(String kitID, String data);
+    /**
+     * @return false if the entry could not be written
+     */
+    boolean saveKitDataByID(String kitID, String data);
+
+    /**
+     * Saves several entries at once. Backends override this to write them in
+     * a single round trip; the default saves them one by one.
+     *
+     * @return false if any of the entries could not be written
+     */
+    default boolean saveKitDataBatch(Map<String, String> entries) {
+        boolean saved = true;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            saved &= saveKitDataByID(entry.getKey(), entry.getValue());
+        }
+        return saved;
+    }
 
     String getKitDataByID(String kitID);
 
+    /**
+     * Reads several entries at once; entries that don't exist are left out of
+     * the result. Backends override this to read them in a single round trip;
+     * the default reads them one by one.
+     */
+    default Map<String, String> getKitDataBatch(Collection<String> kitIDs) {
+        Map<String, String> entries = new HashMap<>();
+        for (String kitID : kitIDs) {
+            String data = getKitDataByID(kitID);
+            if (data != null && !data.equalsIgnoreCase("error")) {
+                entries.put(kitID, data);
+            }
+        }
+        return entries;
+    }
+
     boolean doesKitExistByID(String kitID);
 
     void deleteKitByID(String kitID);
 
+    /**
+     * Deletes several entries at once. Backends override this to delete them
+     * in a single round trip; the default deletes them one by one.
+     */
+    default void deleteKitDataBatch(Collection<String> kitIDs) {
+        kitIDs.forEach(this::deleteKitByID);
+    }
+
     Set<String> getAllKitIDs();
 
+    /**
+     * @return the backend's material index, or null if it doesn't support one
+     */
+    default MaterialIndex getMaterialIndex() {
+        return null;
+    }
+
+    /**
+     * @return the backend's share code store, or null if codes can't be kept
+     * in it, in which case they only exist on the server that created them
+     */
+    default ShareCodeStore getShareCodeStore() {
+        return null;
+    }
+
 }
 
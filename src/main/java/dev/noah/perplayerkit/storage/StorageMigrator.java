@@ -22,7 +22,7 @@ import dev.noah.perplayerkit.storage.exceptions.StorageConnectionException;
 import dev.noah.perplayerkit.storage.exceptions.StorageOperationException;
 import org.bukkit.plugin.Plugin;
 
-import java.util.Set;
+import java.util.List;
 import java.util.function.Consumer;
 
 public class StorageMigrator {
@@ -46,29 +46,10 @@ public class StorageMigrator {
             return new MigrationResult(false, 0, 0, "Source and destination storage types are the same.");
         }
 
-        StorageManager source = null;
-        StorageManager destination = null;
-
-        try {
-            // Create storage managers
-            log(progressCallback, "Creating source storage connection (" + sourceType + ")...");
-            source = createStorageManager(sourceType);
-
-            log(progressCallback, "Creating destination storage connection (" + destinationType + ")...");
-            destination = createStorageManager(destinationType);
-
-            // Connect to both
-            log(progressCallback, "Connecting to source storage...");
-            source.connect();
-            source.init();
-
-            log(progressCallback, "Connecting to destination storage...");
-            destination.connect();
-            destination.init();
-
+        try (Transfer transfer = open(sourceType, destinationType, progressCallback)) {
             // Get all kit IDs from source
             log(progressCallback, "Fetching all kit IDs from source...");
-            Set<String> kitIDs = source.getAllKitIDs();
+            List<String> kitIDs = transfer.kitIDsAfter(null);
             int total = kitIDs.size();
             log(progressCallback, "Found " + total + " entries to migrate.");
 
@@ -82,9 +63,7 @@ public class StorageMigrator {
 
             for (String kitID : kitIDs) {
                 try {
-                    String data = source.getKitDataByID(kitID);
-                    if (data != null && !data.equals("Error") && !data.equals("error")) {
-                        destination.saveKitDataByID(kitID, data);
+                    if (transfer.copy(kitID)) {
                         migrated++;
                     } else {
                         failed++;
@@ -106,8 +85,95 @@ public class StorageMigrator {
 
         } catch (StorageConnectionException | StorageOperationException e) {
             return new MigrationResult(false, 0, 0, "Connection error: " + e.getMessage());
-        } finally {
-            // Close connections
+        }
+    }
+
+    /**
+     * Connects to both storages for a migration that copies entries at its
+     * own pace, e.g. a background job. If connecting fails, whatever was
+     * opened is closed again.
+     */
+    public Transfer open(String sourceType, String destinationType, Consumer<String> progressCallback)
+            throws StorageConnectionException, StorageOperationException {
+        StorageManager source = null;
+        StorageManager destination = null;
+        try {
+            // Create storage managers
+            log(progressCallback, "Creating source storage connection (" + sourceType + ")...");
+            source = createStorageManager(sourceType);
+
+            log(progressCallback, "Creating destination storage connection (" + destinationType + ")...");
+            destination = createStorageManager(destinationType);
+
+            // Connect to both
+            log(progressCallback, "Connecting to source storage...");
+            source.connect();
+            source.init();
+
+            log(progressCallback, "Connecting to destination storage...");
+            destination.connect();
+            destination.init();
+            // Copied kits bypass the destination's material index
+            if (destination.getMaterialIndex() != null) {
+                destination.getMaterialIndex().invalidate();
+            }
+            return new Transfer(source, destination);
+        } catch (StorageConnectionException | StorageOperationException | RuntimeException e) {
+            new Transfer(source, destination).close();
+            throw e;
+        }
+    }
+
+    StorageManager createStorageManager(String storageType) {
+        return new StorageSelector(plugin, storageType).getDbManager();
+    }
+
+    private void log(Consumer<String> callback, String message) {
+        plugin.getLogger().info("[Migration] " + message);
+        if (callback != null) {
+            callback.accept(message);
+        }
+    }
+
+    /**
+     * Open connections to a migration's source and destination.
+     */
+    public class Transfer implements AutoCloseable {
+        private final StorageManager source;
+        private final StorageManager destination;
+
+        private Transfer(StorageManager source, StorageManager destination) {
+            this.source = source;
+            this.destination = destination;
+        }
+
+        /**
+         * @param after the last entry already copied, or null to list all entries
+         * @return the IDs of the entries left to copy, in a stable order
+         */
+        public List<String> kitIDsAfter(String after) {
+            return source.getAllKitIDs().stream()
+                    .filter(kitID -> after == null || kitID.compareTo(after) > 0)
+                    .sorted()
+                    .toList();
+        }
+
+        /**
+         * Copies one entry.
+         *
+         * @return false if the entry could not be read from the source
+         */
+        public boolean copy(String kitID) {
+            String data = source.getKitDataByID(kitID);
+            if (data == null || data.equals("Error") || data.equals("error")) {
+                return false;
+            }
+            destination.saveKitDataByID(kitID, data);
+            return true;
+        }
+
+        @Override
+        public void close() {
             if (source != null) {
                 try {
                     source.close();
@@ -125,17 +191,6 @@ public class StorageMigrator {
         }
     }
 
-    StorageManager createStorageManager(String storageType) {
-        return new StorageSelector(plugin, storageType).getDbManager();
-    }
-
-    private void log(Consumer<String> callback, String message) {
-        plugin.getLogger().info("[Migration] " + message);
-        if (callback != null) {
-            callback.accept(message);
-        }
-    }
-
     public static class MigrationResult {
         private final boolean success;
         private final int migratedCount;
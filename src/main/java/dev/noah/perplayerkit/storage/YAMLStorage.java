@@ -27,6 +27,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -35,6 +36,7 @@ import java.util.Set;
 public class YAMLStorage implements StorageManager {
 
     private final File storageFile;
+    // Guarded by this; loads, saves and jobs call in from several threads
     private Map<String, String> data;
     private Plugin plugin;
 
@@ -55,7 +57,7 @@ public class YAMLStorage implements StorageManager {
     }
 
     @Override
-    public void init() {
+    public synchronized void init() {
         try {
             if (storageFile.exists()) {
                 Yaml yaml = new Yaml();
@@ -76,7 +78,7 @@ public class YAMLStorage implements StorageManager {
     }
 
     @Override
-    public void close() {
+    public synchronized void close() {
         try {
             saveToFile();
             plugin.getLogger().info("YAML storage closed and saved.");
@@ -90,27 +92,54 @@ public class YAMLStorage implements StorageManager {
     }
 
     @Override
-    public void saveKitDataByID(String kitID, String data) {
+    public synchronized boolean saveKitDataByID(String kitID, String data) {
         this.data.put(kitID, data);
         try {
             saveToFile();
+            return true;
         } catch (IOException e) {
             e.printStackTrace();
+            return false;
         }
     }
 
     @Override
-    public String getKitDataByID(String kitID) {
+    public synchronized boolean saveKitDataBatch(Map<String, String> entries) {
+        // Rewrite the file once instead of once per entry
+        this.data.putAll(entries);
+        try {
+            saveToFile();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized String getKitDataByID(String kitID) {
         return data.getOrDefault(kitID, "error");
     }
 
     @Override
-    public boolean doesKitExistByID(String kitID) {
+    public synchronized Map<String, String> getKitDataBatch(Collection<String> kitIDs) {
+        Map<String, String> entries = new HashMap<>();
+        for (String kitID : kitIDs) {
+            String value = data.get(kitID);
+            if (value != null) {
+                entries.put(kitID, value);
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized boolean doesKitExistByID(String kitID) {
         return data.containsKey(kitID);
     }
 
     @Override
-    public void deleteKitByID(String kitID) {
+    public synchronized void deleteKitByID(String kitID) {
         data.remove(kitID);
         try {
             saveToFile();
@@ -119,6 +148,16 @@ public class YAMLStorage implements StorageManager {
         }
     }
 
+    @Override
+    public synchronized void deleteKitDataBatch(Collection<String> kitIDs) {
+        kitIDs.forEach(data::remove);
+        try {
+            saveToFile();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     private void saveToFile() throws IOException {
         DumperOptions options = new DumperOptions();
         options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
@@ -129,7 +168,7 @@ public class YAMLStorage implements StorageManager {
     }
 
     @Override
-    public Set<String> getAllKitIDs() {
+    public synchronized Set<String> getAllKitIDs() {
         return new HashSet<>(data.keySet());
     }
 }
\ No newline at end of file
@@ -96,16 +96,17 @@ public class BroadcastManager {
     }
 
     private void broadcastMessage(Player player, MessageKey key, CooldownManager cooldownManager, String kitName) {
+        Settings settings = Settings.get();
 
-        if (!plugin.getConfig().getBoolean("feature.broadcast-on-player-action", true)) {
+        if (!settings.broadcastOnPlayerAction()) {
             return;
         }
 
-        if (plugin.getConfig().getBoolean("messages.disable-kit-messages", false)) {
+        if (settings.kitMessagesDisabled()) {
             return;
         }
 
-        if (isKitLoadingMessage(key) && !plugin.getConfig().getBoolean("feature.broadcast-kit-messages", true)) {
+        if (isKitLoadingMessage(key) && !settings.broadcastKitMessages()) {
             return;
         }
 
@@ -113,18 +114,14 @@ public class BroadcastManager {
             return;
         }
 
-        String configBase = key.getConfigKey();
-        String enabledPath = configBase + ".enabled";
-        String permissionPath = configBase + ".permission";
-
-        if (!plugin.getConfig().getBoolean(enabledPath, true)) {
+        // null if this broadcast is disabled
+        String permission = settings.broadcastPermission(key);
+        if (permission == null) {
             return;
         }
 
-        String permission = plugin.getConfig().getString(permissionPath, "perplayerkit.kitnotify");
-
         String playerName;
-        if (plugin.getConfig().getBoolean("use-display-name", false)) {
+        if (settings.useDisplayName()) {
             playerName = player.getDisplayName();
         } else {
             playerName = player.getName();
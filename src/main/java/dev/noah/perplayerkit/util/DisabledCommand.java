@@ -18,14 +18,13 @@
  */
 package dev.noah.perplayerkit.util;
 
-import dev.noah.perplayerkit.PerPlayerKit;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 
 public class DisabledCommand {
 
     private static boolean isBlockedInWorld(World world) {
-        return PerPlayerKit.getPlugin().getConfig().getStringList("disabled-command-worlds").contains(world.getName());
+        return Settings.get().isCommandDisabledIn(world.getName());
     }
 
 
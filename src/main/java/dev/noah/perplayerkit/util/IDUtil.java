@@ -22,6 +22,7 @@ import java.util.UUID;
 
 public class IDUtil {
 
+    private static final int UUID_LENGTH = 36;
 
     public static String getPlayerKitId(UUID playerId, int slot) {
         return playerId.toString() + slot;
@@ -39,5 +40,111 @@ public class IDUtil {
         return "kitroom" + slot;
     }
 
+    /**
+     * ID of the token that changes whenever a player's stored kits or ender
+     * chests are written, used to validate data kept cached across reconnects.
+     */
+    public static String getSessionStampId(UUID playerId) {
+        return playerId.toString() + "session";
+    }
+
+    /**
+     * ID of the time a player was last seen, in epoch milliseconds.
+     */
+    public static String getLastSeenId(UUID playerId) {
+        return playerId.toString() + "lastseen";
+    }
+
+    /**
+     * ID of the compressed archive holding an inactive player's kits and
+     * ender chests.
+     */
+    public static String getArchiveId(UUID playerId) {
+        return playerId.toString() + "archive";
+    }
+
+    /**
+     * A parsed per-player entry ID: a kit ({@code <uuid><slot>}) or an ender
+     * chest ({@code <uuid>ec<slot>}).
+     */
+    public record PlayerDataId(UUID uuid, boolean enderchest, int slot) {
+    }
+
+    /**
+     * Parses a per-player kit or ender chest ID. Hand-rolled rather than regex
+     * based, as it runs for every stored ID during bulk jobs. Slots are bounded
+     * by the absolute {@link KitSlots#MAX_LIMIT}, deliberately not the
+     * configured max-kits: storage may hold slots above a lowered limit.
+     *
+     * @return the parsed ID, or null if the ID is not a per-player entry
+     */
+    public static PlayerDataId parsePlayerDataId(String id) {
+        if (id == null || id.length() < UUID_LENGTH + 1) {
+            return null;
+        }
+
+        long mostSigBits = 0;
+        long leastSigBits = 0;
+        int nibbles = 0;
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = id.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return null;
+                }
+                continue;
+            }
+
+            int nibble = hexValue(c);
+            if (nibble < 0) {
+                return null;
+            }
+            if (nibbles < 16) {
+                mostSigBits = (mostSigBits << 4) | nibble;
+            } else {
+                leastSigBits = (leastSigBits << 4) | nibble;
+            }
+            nibbles++;
+        }
+
+        int position = UUID_LENGTH;
+        boolean enderchest = id.startsWith("ec", position);
+        if (enderchest) {
+            position += 2;
+        }
+
+        // No leading zero, at most as many digits as MAX_LIMIT
+        int digits = id.length() - position;
+        if (digits < 1 || digits > 2 || id.charAt(position) == '0') {
+            return null;
+        }
+        int slot = 0;
+        for (int i = position; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            slot = slot * 10 + (c - '0');
+        }
+        if (slot < KitSlots.MIN_LIMIT || slot > KitSlots.MAX_LIMIT) {
+            return null;
+        }
+
+        return new PlayerDataId(new UUID(mostSigBits, leastSigBits), enderchest, slot);
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
 
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.util;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Deduplicates identical {@link ItemStack}s held by the kit cache, so that
+ * e.g. the same netherite sword in thousands of cached kits is a single
+ * instance on the heap.
+ * <p>
+ * Interned stacks are shared and must never be mutated. Code that needs to
+ * modify cached items (editors, filters, regear) works on a {@link #copy}.
+ * Entries are weakly held and disappear once no cached kit references them.
+ */
+public final class ItemStackInterner {
+
+    private static final Map<ItemStack, WeakReference<ItemStack>> pool = new WeakHashMap<>();
+    private static long lookups;
+    private static long shared;
+
+    private ItemStackInterner() {
+    }
+
+    /**
+     * Returns the canonical instance for the given stack, registering it if
+     * no equal stack is pooled yet.
+     */
+    public static synchronized ItemStack intern(ItemStack item) {
+        if (item == null) {
+            return null;
+        }
+
+        lookups++;
+        WeakReference<ItemStack> ref = pool.get(item);
+        ItemStack canonical = ref == null ? null : ref.get();
+        if (canonical != null) {
+            shared++;
+            return canonical;
+        }
+
+        pool.put(item, new WeakReference<>(item));
+        return item;
+    }
+
+    /**
+     * Replaces every element of the array with its canonical instance, in place.
+     *
+     * @return the same array, for chaining
+     */
+    public static ItemStack[] internAll(ItemStack[] items) {
+        for (int i = 0; i < items.length; i++) {
+            items[i] = intern(items[i]);
+        }
+        return items;
+    }
+
+    public static ItemStack copy(ItemStack item) {
+        return item == null ? null : item.clone();
+    }
+
+    /**
+     * Deep copy of a kit, for handing cached contents to code that mutates them.
+     */
+    public static ItemStack[] copyOf(ItemStack[] items) {
+        ItemStack[] copy = new ItemStack[items.length];
+        for (int i = 0; i < items.length; i++) {
+            copy[i] = copy(items[i]);
+        }
+        return copy;
+    }
+
+    /**
+     * Number of distinct stacks currently pooled.
+     */
+    public static synchronized int pooledCount() {
+        return pool.size();
+    }
+
+    /**
+     * Number of intern calls that were answered with an already pooled instance.
+     */
+    public static synchronized long sharedCount() {
+        return shared;
+    }
+
+    public static synchronized long lookupCount() {
+        return lookups;
+    }
+}
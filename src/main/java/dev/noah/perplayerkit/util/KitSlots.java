@@ -34,6 +34,14 @@ public final class KitSlots {
     public static final int SLOTS_PER_PAGE = 9;
     public static final int DEFAULT_LIMIT = 9;
 
+    private static final String[] LABELS = new String[MAX_LIMIT + 1];
+
+    static {
+        for (int slot = MIN_LIMIT; slot <= MAX_LIMIT; slot++) {
+            LABELS[slot] = String.valueOf(slot);
+        }
+    }
+
     private static int maxKits = DEFAULT_LIMIT;
 
     private KitSlots() {
@@ -57,6 +65,16 @@ public final class KitSlots {
         return (maxKits + SLOTS_PER_PAGE - 1) / SLOTS_PER_PAGE;
     }
 
+    /**
+     * The slot number as a string, without allocating for valid slots.
+     */
+    public static String label(int slot) {
+        if (slot < MIN_LIMIT || slot > MAX_LIMIT) {
+            return String.valueOf(slot);
+        }
+        return LABELS[slot];
+    }
+
     /**
      * The main-menu page (0-indexed) a kit slot appears on.
      */
@@ -18,7 +18,6 @@
  */
 package dev.noah.perplayerkit.util;
 
-import dev.noah.perplayerkit.PerPlayerKit;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
@@ -59,7 +58,7 @@ public class PlayerUtil {
         p.setSaturation(20);
 
         // Remove potion effects if configured to do so
-        if (PerPlayerKit.getPlugin().getConfig().getBoolean("feature.heal-remove-effects", false)) {
+        if (Settings.get().healRemovesEffects()) {
             p.getActivePotionEffects().forEach(potionEffect -> p.removePotionEffect(potionEffect.getType()));
         }
 
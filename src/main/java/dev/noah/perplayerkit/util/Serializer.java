@@ -22,25 +22,35 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.util.io.BukkitObjectInputStream;
 import org.bukkit.util.io.BukkitObjectOutputStream;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 
 public class Serializer {
 
+    // Serialized kits are usually a few KB; larger buffers are not kept around
+    private static final int MAX_POOLED_BUFFER_SIZE = 256 * 1024;
+
+    private static final ThreadLocal<PooledBuffer> buffers = ThreadLocal.withInitial(PooledBuffer::new);
+
     /**
      * A method to serialize an {@link ItemStack} array to Base64 String.
      * <p>
+     * The items are Base64-encoded while they are written, into a buffer that
+     * is reused per thread, so the only copy made of the payload is the
+     * returned String itself.
      * <p/>
      *
      * @param items to turn into a Base64 String.
      * @return Base64 string of the items.
      */
     public static String itemStackArrayToBase64(ItemStack[] items) throws IllegalStateException {
+        PooledBuffer buffer = buffers.get();
+        buffer.reset();
         try {
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream);
+            BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(Base64.getMimeEncoder().wrap(buffer));
 
             // Write the size of the inventory
             dataOutput.writeInt(items.length);
@@ -50,11 +60,15 @@ public class Serializer {
                 dataOutput.writeObject(item);
             }
 
-            // Serialize that array
+            // Flushes the remaining Base64 padding into the buffer
             dataOutput.close();
-            return Base64.getMimeEncoder().encodeToString(outputStream.toByteArray());
+            return buffer.toAsciiString();
         } catch (Exception e) {
             throw new IllegalStateException("Unable to save item stacks.", e);
+        } finally {
+            if (buffer.capacity() > MAX_POOLED_BUFFER_SIZE) {
+                buffers.remove();
+            }
         }
     }
 
@@ -62,15 +76,15 @@ public class Serializer {
     /**
      * Gets an array of ItemStacks from Base64 string.
      * <p>
+     * The string is decoded while it is read, without materializing the
+     * decoded bytes as a separate array first.
      * <p/>
      *
      * @param data Base64 string to convert to ItemStack array.
      * @return ItemStack array created from the Base64 string.
      */
     public static ItemStack[] itemStackArrayFromBase64(String data) throws IOException {
-        try {
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64.getMimeDecoder().decode(data));
-            BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream);
+        try (BukkitObjectInputStream dataInput = new BukkitObjectInputStream(Base64.getMimeDecoder().wrap(new AsciiInputStream(data)))) {
             ItemStack[] items = new ItemStack[dataInput.readInt()];
 
             // Read the serialized inventory
@@ -78,10 +92,70 @@ public class Serializer {
                 items[i] = (ItemStack) dataInput.readObject();
             }
 
-            dataInput.close();
             return items;
         } catch (ClassNotFoundException e) {
             throw new IOException("Unable to decode class type.", e);
+        } catch (IllegalArgumentException e) {
+            // Thrown by the Base64 decoder for malformed input
+            throw new IOException("Invalid Base64 data.", e);
+        }
+    }
+
+    /**
+     * Growable byte buffer that exposes its contents without copying them.
+     */
+    private static final class PooledBuffer extends ByteArrayOutputStream {
+
+        private PooledBuffer() {
+            super(8192);
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+
+        private String toAsciiString() {
+            return new String(buf, 0, count, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Reads the characters of an ASCII string as bytes, so Base64 text can be
+     * streamed into a decoder without encoding it into a byte array first.
+     */
+    private static final class AsciiInputStream extends InputStream {
+
+        private final String data;
+        private int position;
+
+        private AsciiInputStream(String data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return position < data.length() ? data.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int remaining = data.length() - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = Math.min(len, remaining);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) data.charAt(position++);
+            }
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return data.length() - position;
         }
     }
 }
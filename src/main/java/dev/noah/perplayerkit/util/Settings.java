@@ -0,0 +1,266 @@
+/*
+ * Copyright 2022-2025 Noah Ross
+ *
+ * This file is part of PerPlayerKit.
+ *
+ * PerPlayerKit is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * PerPlayerKit is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with PerPlayerKit. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.noah.perplayerkit.util;
+
+import org.bukkit.Material;
+import org.bukkit.Sound;
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.plugin.Plugin;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Immutable snapshot of the config values read on hot paths (kit loads,
+ * sounds, broadcasts, world checks, rekit), compiled once so those paths
+ * don't look up config entries by string path and parse enums on every call.
+ * Rebuilt by {@link #init(Plugin)} whenever the config is (re)loaded. Like
+ * {@link KitSlots}, falls back to the defaults when never initialized so
+ * code under unit test works without a Bukkit server.
+ */
+public final class Settings {
+
+    /**
+     * Player state reset when a kit or enderchest is loaded.
+     */
+    public enum LoadEffect {
+        HEAL, FEED, SATURATE, CLEAR_POTION_EFFECTS
+    }
+
+    private static volatile Settings current = compile(new MemoryConfiguration(), null);
+
+    private final Set<LoadEffect> kitLoadEffects;
+    private final Set<LoadEffect> enderchestLoadEffects;
+    private final boolean soundsEnabled;
+    private final Map<SoundManager.FeedbackSound, Sound> sounds;
+    private final boolean broadcastOnPlayerAction;
+    private final boolean kitMessagesDisabled;
+    private final boolean broadcastKitMessages;
+    private final boolean useDisplayName;
+    // Permission required to see each broadcast; absent if the broadcast is disabled
+    private final Map<BroadcastManager.MessageKey, String> broadcastPermissions;
+    private final Set<String> disabledCommandWorlds;
+    private final boolean rekitOnRespawn;
+    private final long rekitOnRespawnDelay;
+    private final boolean rekitOnKill;
+    private final Set<String> rekitOnKillWhitelist;
+    private final Set<String> rekitOnKillBlacklist;
+    private final boolean healRemovesEffects;
+    private final String rgMode;
+    private final String regearMode;
+    private final boolean regearInvertWhitelist;
+    private final Set<Material> regearWhitelist;
+
+    private Settings(Configuration config, Logger logger) {
+        kitLoadEffects = compileLoadEffects(config, "feature.set-health-on-kit-load", "feature.set-hunger-on-kit-load",
+                "feature.set-saturation-on-kit-load", "feature.remove-potion-effects-on-kit-load");
+        enderchestLoadEffects = compileLoadEffects(config, "feature.heal-on-enderchest-load", "feature.feed-on-enderchest-load",
+                "feature.set-saturation-on-enderchest-load", "feature.remove-potion-effects-on-enderchest-load");
+
+        soundsEnabled = config.getBoolean("sounds.enabled", true);
+        sounds = new EnumMap<>(SoundManager.FeedbackSound.class);
+        for (SoundManager.FeedbackSound key : SoundManager.FeedbackSound.values()) {
+            sounds.put(key, resolveSound(config, key, logger));
+        }
+
+        broadcastOnPlayerAction = config.getBoolean("feature.broadcast-on-player-action", true);
+        kitMessagesDisabled = config.getBoolean("messages.disable-kit-messages", false);
+        broadcastKitMessages = config.getBoolean("feature.broadcast-kit-messages", true);
+        useDisplayName = config.getBoolean("use-display-name", false);
+        broadcastPermissions = new EnumMap<>(BroadcastManager.MessageKey.class);
+        for (BroadcastManager.MessageKey key : BroadcastManager.MessageKey.values()) {
+            if (config.getBoolean(key.getConfigKey() + ".enabled", true)) {
+                broadcastPermissions.put(key, config.getString(key.getConfigKey() + ".permission", "perplayerkit.kitnotify"));
+            }
+        }
+
+        disabledCommandWorlds = Set.copyOf(config.getStringList("disabled-command-worlds"));
+
+        rekitOnRespawn = config.getBoolean("feature.rekit-on-respawn", true);
+        rekitOnRespawnDelay = config.getLong("feature.rekit-on-respawn-delay", 0);
+        ConfigurationSection rekitOnKillSection = config.getConfigurationSection("feature.rekit-on-kill");
+        if (rekitOnKillSection != null) {
+            rekitOnKill = rekitOnKillSection.getBoolean("enabled", false);
+            rekitOnKillWhitelist = Set.copyOf(rekitOnKillSection.getStringList("world-whitelist"));
+            rekitOnKillBlacklist = Set.copyOf(rekitOnKillSection.getStringList("world-blacklist"));
+        } else {
+            // Old boolean format, no world filtering
+            rekitOnKill = config.getBoolean("feature.rekit-on-kill", false);
+            rekitOnKillWhitelist = Set.of();
+            rekitOnKillBlacklist = Set.of();
+        }
+
+        healRemovesEffects = config.getBoolean("feature.heal-remove-effects", false);
+        rgMode = config.getString("regear.rg-mode", "command");
+        regearMode = config.getString("regear.regear-mode", "command");
+        regearInvertWhitelist = config.getBoolean("regear.invert-whitelist", false);
+        regearWhitelist = EnumSet.noneOf(Material.class);
+        for (String name : config.getStringList("regear.whitelist")) {
+            Material material = Material.getMaterial(name);
+            if (material != null) {
+                regearWhitelist.add(material);
+            } else if (logger != null) {
+                logger.warning("Unknown material '" + name + "' in regear.whitelist");
+            }
+        }
+    }
+
+    public static void init(Plugin plugin) {
+        current = compile(plugin.getConfig(), plugin.getLogger());
+    }
+
+    /**
+     * Compiles a snapshot of the given config. Invalid values are reported
+     * to the logger, if any, and replaced by their defaults.
+     */
+    public static Settings compile(Configuration config, Logger logger) {
+        return new Settings(config, logger);
+    }
+
+    public static Settings get() {
+        return current;
+    }
+
+    public static void setForTesting(Settings settings) {
+        current = settings;
+    }
+
+    public static void resetForTesting() {
+        current = compile(new MemoryConfiguration(), null);
+    }
+
+    private static Set<LoadEffect> compileLoadEffects(Configuration config, String heal, String feed, String saturate, String clearPotionEffects) {
+        EnumSet<LoadEffect> effects = EnumSet.noneOf(LoadEffect.class);
+        if (config.getBoolean(heal, false)) {
+            effects.add(LoadEffect.HEAL);
+        }
+        if (config.getBoolean(feed, false)) {
+            effects.add(LoadEffect.FEED);
+        }
+        if (config.getBoolean(saturate, false)) {
+            effects.add(LoadEffect.SATURATE);
+        }
+        if (config.getBoolean(clearPotionEffects, false)) {
+            effects.add(LoadEffect.CLEAR_POTION_EFFECTS);
+        }
+        return effects;
+    }
+
+    private static Sound resolveSound(Configuration config, SoundManager.FeedbackSound key, Logger logger) {
+        String path = "sounds." + key.getConfigKey();
+        String soundName = config.getString(path, key.getDefaultSound().name());
+        try {
+            return Sound.valueOf(soundName);
+        } catch (IllegalArgumentException ex) {
+            if (logger != null) {
+                logger.warning("Invalid sound '" + soundName + "' for config key '" + path + "'. Using default '"
+                        + key.getDefaultSound().name() + "'.");
+            }
+            return key.getDefaultSound();
+        }
+    }
+
+    public Set<LoadEffect> loadEffects(boolean enderchest) {
+        return enderchest ? enderchestLoadEffects : kitLoadEffects;
+    }
+
+    public boolean soundsEnabled() {
+        return soundsEnabled;
+    }
+
+    public Sound sound(SoundManager.FeedbackSound key) {
+        return sounds.get(key);
+    }
+
+    public boolean broadcastOnPlayerAction() {
+        return broadcastOnPlayerAction;
+    }
+
+    public boolean kitMessagesDisabled() {
+        return kitMessagesDisabled;
+    }
+
+    public boolean broadcastKitMessages() {
+        return broadcastKitMessages;
+    }
+
+    public boolean useDisplayName() {
+        return useDisplayName;
+    }
+
+    /**
+     * The permission needed to receive a broadcast, or null if that
+     * broadcast is disabled.
+     */
+    public String broadcastPermission(BroadcastManager.MessageKey key) {
+        return broadcastPermissions.get(key);
+    }
+
+    public boolean isCommandDisabledIn(String worldName) {
+        return disabledCommandWorlds.contains(worldName);
+    }
+
+    public boolean rekitOnRespawn() {
+        return rekitOnRespawn;
+    }
+
+    public long rekitOnRespawnDelay() {
+        return rekitOnRespawnDelay;
+    }
+
+    public boolean rekitOnKill() {
+        return rekitOnKill;
+    }
+
+    /**
+     * Whether rekit-on-kill applies in a world: only whitelisted worlds if
+     * the whitelist is set, otherwise all worlds except blacklisted ones.
+     */
+    public boolean isRekitOnKillAllowedIn(String worldName) {
+        if (!rekitOnKillWhitelist.isEmpty()) {
+            return rekitOnKillWhitelist.contains(worldName);
+        }
+        return !rekitOnKillBlacklist.contains(worldName);
+    }
+
+    public boolean healRemovesEffects() {
+        return healRemovesEffects;
+    }
+
+    public String rgMode() {
+        return rgMode;
+    }
+
+    public String regearMode() {
+        return regearMode;
+    }
+
+    /**
+     * Whether regear restores items of this type, honoring
+     * {@code regear.invert-whitelist}.
+     */
+    public boolean isRegearable(Material material) {
+        return regearWhitelist.contains(material) != regearInvertWhitelist;
+    }
+}
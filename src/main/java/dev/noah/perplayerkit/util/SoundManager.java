@@ -1,24 +1,38 @@
 package dev.noah.perplayerkit.util;
 
-import dev.noah.perplayerkit.PerPlayerKit;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 
 /**
  * Manages playing configurable sounds for plugin feedback (success, error, UI interactions).
+ * The sounds are resolved once per config load, see {@link Settings}.
  */
 public class SoundManager {
-    private static final String BASE_KEY = "sounds.";
 
-    private static Sound getSound(String key, String defaultName) {
-        String path = BASE_KEY + key;
-        String soundName = PerPlayerKit.getPlugin().getConfig().getString(path, defaultName);
-        try {
-            return Sound.valueOf(soundName);
-        } catch (IllegalArgumentException ex) {
-            PerPlayerKit.getPlugin().getLogger()
-                .warning("Invalid sound '" + soundName + "' for config key '" + path + "'. Using default '" + defaultName + "'.");
-            return Sound.valueOf(defaultName);
+    /**
+     * Configurable feedback sounds, with their key under {@code sounds.} and default.
+     */
+    public enum FeedbackSound {
+        SUCCESS("success", Sound.ENTITY_PLAYER_LEVELUP),
+        FAILURE("failure", Sound.ENTITY_ITEM_BREAK),
+        CLICK("click", Sound.UI_BUTTON_CLICK),
+        OPEN_GUI("open_gui", Sound.UI_BUTTON_CLICK),
+        CLOSE_GUI("close_gui", Sound.UI_BUTTON_CLICK);
+
+        private final String configKey;
+        private final Sound defaultSound;
+
+        FeedbackSound(String configKey, Sound defaultSound) {
+            this.configKey = configKey;
+            this.defaultSound = defaultSound;
+        }
+
+        public String getConfigKey() {
+            return configKey;
+        }
+
+        public Sound getDefaultSound() {
+            return defaultSound;
         }
     }
 
@@ -26,42 +40,43 @@ public class SoundManager {
      * Play a success sound (e.g. confirmation) to the player.
      */
     public static void playSuccess(Player player) {
-        play(player, getSound("success", "ENTITY_PLAYER_LEVELUP"));
+        play(player, FeedbackSound.SUCCESS);
     }
 
     /**
      * Play a failure sound (e.g. error) to the player.
      */
     public static void playFailure(Player player) {
-        play(player, getSound("failure", "ENTITY_ITEM_BREAK"));
+        play(player, FeedbackSound.FAILURE);
     }
 
     /**
      * Play a generic UI click sound to the player.
      */
     public static void playClick(Player player) {
-        play(player, getSound("click", "UI_BUTTON_CLICK"));
+        play(player, FeedbackSound.CLICK);
     }
 
     /**
      * Play a GUI open sound to the player.
      */
     public static void playOpenGui(Player player) {
-        play(player, getSound("open_gui", "UI_BUTTON_CLICK"));
+        play(player, FeedbackSound.OPEN_GUI);
     }
 
     /**
      * Play a GUI close sound to the player.
      */
     public static void playCloseGui(Player player) {
-        play(player, getSound("close_gui", "UI_BUTTON_CLICK"));
+        play(player, FeedbackSound.CLOSE_GUI);
     }
 
-    private static void play(Player player, Sound sound) {
+    private static void play(Player player, FeedbackSound key) {
+        Settings settings = Settings.get();
         // exit if sounds are disabled
-        if (!PerPlayerKit.getPlugin().getConfig().getBoolean("sounds.enabled", true)) {
+        if (!settings.soundsEnabled()) {
             return;
         }
-        player.playSound(player.getLocation(), sound, 1.0f, 1.0f);
+        player.playSound(player.getLocation(), settings.sound(key), 1.0f, 1.0f);
     }
 }
\ No newline at end of file
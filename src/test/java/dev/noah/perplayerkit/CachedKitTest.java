@@ -0,0 +1,213 @@
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.util.Serializer;
+import dev.noah.perplayerkit.util.Settings;
+import org.bukkit.Material;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+class CachedKitTest {
+
+    private ItemFilter passThroughFilter() {
+        ItemFilter filter = mock(ItemFilter.class);
+        when(filter.filterItemStack(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        return filter;
+    }
+
+    @Test
+    void serializedEntryIsDecodedOnceOnFirstAccess() {
+        ItemStack[] contents = {mock(ItemStack.class), null};
+        ItemFilter filter = passThroughFilter();
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class);
+             MockedStatic<ItemFilter> itemFilter = mockStatic(ItemFilter.class)) {
+            itemFilter.when(ItemFilter::get).thenReturn(filter);
+            serializer.when(() -> Serializer.itemStackArrayFromBase64("blob")).thenReturn(contents);
+
+            CachedKit entry = CachedKit.ofSerialized("blob");
+            assertFalse(entry.isDecoded());
+            serializer.verifyNoInteractions();
+
+            assertSame(contents, entry.contents());
+            assertSame(contents, entry.contents());
+            assertTrue(entry.isDecoded());
+            serializer.verify(() -> Serializer.itemStackArrayFromBase64("blob"));
+        }
+    }
+
+    @Test
+    void untouchedEntryIsWrittenBackWithoutReencoding() {
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class)) {
+            CachedKit entry = CachedKit.ofSerialized("blob");
+
+            assertEquals("blob", entry.serialize());
+            serializer.verifyNoInteractions();
+        }
+    }
+
+    @Test
+    void undecodableEntryYieldsNoContentsAndIsNotWrittenBack() {
+        ItemFilter filter = passThroughFilter();
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class);
+             MockedStatic<ItemFilter> itemFilter = mockStatic(ItemFilter.class)) {
+            itemFilter.when(ItemFilter::get).thenReturn(filter);
+            serializer.when(() -> Serializer.itemStackArrayFromBase64(anyString())).thenThrow(new IOException("corrupt"));
+
+            CachedKit entry = CachedKit.ofSerialized("garbage");
+
+            assertNull(entry.contents());
+            assertNull(entry.serialize());
+        }
+    }
+
+    @Test
+    void entryReadFromStorageIsCleanAndNotSerializedOnSave() {
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class)) {
+            CachedKit entry = CachedKit.ofSerialized("blob");
+
+            assertFalse(entry.isDirty());
+            assertNull(entry.pendingWrite());
+            serializer.verifyNoInteractions();
+        }
+    }
+
+    @Test
+    void savingUnchangedContentsSkipsTheWrite() {
+        ItemStack[] contents = {mock(ItemStack.class)};
+        ItemFilter filter = passThroughFilter();
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class);
+             MockedStatic<ItemFilter> itemFilter = mockStatic(ItemFilter.class)) {
+            itemFilter.when(ItemFilter::get).thenReturn(filter);
+            serializer.when(() -> Serializer.itemStackArrayToBase64(any())).thenReturn("blob");
+
+            CachedKit stored = CachedKit.ofSerialized("blob");
+            CachedKit edited = CachedKit.ofContents(contents, stored);
+
+            assertTrue(edited.isDirty());
+            assertNull(edited.pendingWrite());
+            assertFalse(edited.isDirty());
+        }
+    }
+
+    @Test
+    void revertingAnUnsavedChangeIsStillWritten() {
+        ItemStack[] original = {mock(ItemStack.class)};
+        ItemStack[] changed = {mock(ItemStack.class)};
+        ItemFilter filter = passThroughFilter();
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class);
+             MockedStatic<ItemFilter> itemFilter = mockStatic(ItemFilter.class)) {
+            itemFilter.when(ItemFilter::get).thenReturn(filter);
+            serializer.when(() -> Serializer.itemStackArrayToBase64(original)).thenReturn("blob");
+            serializer.when(() -> Serializer.itemStackArrayToBase64(changed)).thenReturn("newblob");
+
+            CachedKit stored = CachedKit.ofSerialized("blob");
+            CachedKit edited = CachedKit.ofContents(changed, stored);
+            assertEquals("newblob", edited.pendingWrite());
+
+            // The write of "newblob" may land after this, so going back has to be written too
+            CachedKit reverted = CachedKit.ofContents(original, edited);
+            assertEquals("blob", reverted.pendingWrite());
+        }
+    }
+
+    @Test
+    void unsavedEntryIsWrittenAfterStorageWasRewrittenUnderneath() {
+        ItemStack[] contents = {mock(ItemStack.class)};
+        ItemFilter filter = passThroughFilter();
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class);
+             MockedStatic<ItemFilter> itemFilter = mockStatic(ItemFilter.class)) {
+            itemFilter.when(ItemFilter::get).thenReturn(filter);
+            serializer.when(() -> Serializer.itemStackArrayToBase64(any())).thenReturn("blob");
+
+            CachedKit edited = CachedKit.ofContents(contents, CachedKit.ofSerialized("blob"));
+            edited.forgetPersisted();
+
+            assertEquals("blob", edited.pendingWrite());
+        }
+    }
+
+    @Test
+    void changedContentsAreWrittenUntilPersisted() {
+        ItemStack[] contents = {mock(ItemStack.class)};
+        ItemFilter filter = passThroughFilter();
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class);
+             MockedStatic<ItemFilter> itemFilter = mockStatic(ItemFilter.class)) {
+            itemFilter.when(ItemFilter::get).thenReturn(filter);
+            serializer.when(() -> Serializer.itemStackArrayToBase64(any())).thenReturn("newblob");
+
+            CachedKit edited = CachedKit.ofContents(contents, CachedKit.ofSerialized("blob"));
+
+            assertEquals("newblob", edited.pendingWrite());
+            edited.markPersisted("newblob");
+            assertFalse(edited.isDirty());
+            assertNull(edited.pendingWrite());
+        }
+    }
+
+    @Test
+    void newEntryWithoutStoredCopyIsAlwaysWritten() {
+        ItemStack[] contents = {mock(ItemStack.class)};
+        ItemFilter filter = passThroughFilter();
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class);
+             MockedStatic<ItemFilter> itemFilter = mockStatic(ItemFilter.class)) {
+            itemFilter.when(ItemFilter::get).thenReturn(filter);
+            serializer.when(() -> Serializer.itemStackArrayToBase64(any())).thenReturn("blob");
+
+            assertEquals("blob", CachedKit.ofContents(contents, null).pendingWrite());
+        }
+    }
+
+    @Test
+    void fingerprintDistinguishesData() {
+        assertEquals(CachedKit.fingerprint("blob"), CachedKit.fingerprint("blob"));
+        assertNotEquals(CachedKit.fingerprint("blob"), CachedKit.fingerprint("blob2"));
+        assertNotEquals(CachedKit.NO_FINGERPRINT, CachedKit.fingerprint(""));
+    }
+
+    @Test
+    void regearTemplateIsBuiltOncePerSettings() {
+        ItemStack totem = mock(ItemStack.class);
+        ItemStack dirt = mock(ItemStack.class);
+        when(totem.getType()).thenReturn(Material.TOTEM_OF_UNDYING);
+        when(dirt.getType()).thenReturn(Material.DIRT);
+        CachedKit entry = CachedKit.ofContents(new ItemStack[]{totem, dirt}, null);
+
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("regear.whitelist", List.of("TOTEM_OF_UNDYING"));
+        Settings whitelist = Settings.compile(config, null);
+        ItemStack[] template = entry.regearTemplate(whitelist);
+
+        assertSame(entry.contents()[0], template[0]);
+        assertNull(template[1]);
+        assertSame(template, entry.regearTemplate(whitelist));
+
+        config.set("regear.invert-whitelist", true);
+        ItemStack[] inverted = entry.regearTemplate(Settings.compile(config, null));
+
+        assertNull(inverted[0]);
+        assertSame(entry.contents()[1], inverted[1]);
+    }
+}
@@ -0,0 +1,67 @@
+package dev.noah.perplayerkit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiryWheelTest {
+
+    private static int ticksUntilExpired(ExpiryWheel<String> wheel, String key) {
+        for (int tick = 1; tick <= 1000; tick++) {
+            if (wheel.advance().contains(key)) {
+                return tick;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    void expiresAfterTheDelay() {
+        ExpiryWheel<String> wheel = new ExpiryWheel<>(8);
+        wheel.schedule("short", 3);
+
+        assertEquals(3, ticksUntilExpired(wheel, "short"));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void delaysLongerThanTheWheelWaitExtraRounds() {
+        for (long delay : new long[]{7, 8, 9, 16, 17, 30}) {
+            ExpiryWheel<String> wheel = new ExpiryWheel<>(8);
+            wheel.advance();
+            wheel.schedule("key", delay);
+
+            assertEquals(delay, ticksUntilExpired(wheel, "key"), "delay " + delay);
+        }
+    }
+
+    @Test
+    void expiresKeysDueOnTheSameTickTogether() {
+        ExpiryWheel<String> wheel = new ExpiryWheel<>(4);
+        wheel.schedule("a", 2);
+        wheel.schedule("b", 2);
+        wheel.schedule("c", 6);
+
+        assertTrue(wheel.advance().isEmpty());
+        assertEquals(List.of("a", "b"), wheel.advance());
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void cancelledAndRescheduledKeysDontExpireEarly() {
+        ExpiryWheel<String> wheel = new ExpiryWheel<>(8);
+        wheel.schedule("cancelled", 2);
+        wheel.schedule("moved", 2);
+
+        assertTrue(wheel.cancel("cancelled"));
+        assertFalse(wheel.cancel("cancelled"));
+        wheel.schedule("moved", 5);
+
+        assertEquals(5, ticksUntilExpired(wheel, "moved"));
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,91 @@
+package dev.noah.perplayerkit;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ItemFilterTest {
+
+    private ItemFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        Plugin plugin = mock(Plugin.class);
+        FileConfiguration config = mock(FileConfiguration.class);
+        when(plugin.getConfig()).thenReturn(config);
+        when(config.getBoolean("anti-exploit.only-allow-kitroom-items", false)).thenReturn(true);
+        filter = new ItemFilter(plugin);
+    }
+
+    private static ItemStack plainItem(Material type) {
+        ItemStack item = mock(ItemStack.class);
+        when(item.getType()).thenReturn(type);
+        when(item.getAmount()).thenReturn(1);
+        when(item.getMaxStackSize()).thenReturn(64);
+        return item;
+    }
+
+    private static ItemStack itemWithMeta(Material type) {
+        ItemStack item = plainItem(type);
+        ItemMeta meta = mock(ItemMeta.class);
+        when(meta.getItemFlags()).thenReturn(Set.of());
+        when(item.hasItemMeta()).thenReturn(true);
+        when(item.getItemMeta()).thenReturn(meta);
+        when(item.getEnchantments()).thenReturn(Map.of());
+        when(item.clone()).thenReturn(item);
+        return item;
+    }
+
+    @Test
+    void removesItemsNotInTheKitRoomWithoutReadingMeta() {
+        ItemStack dirt = plainItem(Material.DIRT);
+        ItemStack totem = plainItem(Material.TOTEM_OF_UNDYING);
+        filter.replaceWhitelist(List.<ItemStack[]>of(new ItemStack[]{plainItem(Material.DIRT)}));
+
+        ItemStack[] filtered = filter.filterItemStack(new ItemStack[]{dirt, totem, null});
+
+        assertSame(dirt, filtered[0]);
+        assertNull(filtered[1]);
+        verify(dirt, never()).getItemMeta();
+        verify(totem, never()).getItemMeta();
+    }
+
+    @Test
+    void memoizesVerdictsForItemsWithMeta() {
+        ItemStack sword = itemWithMeta(Material.NETHERITE_SWORD);
+        filter.replaceWhitelist(List.<ItemStack[]>of(new ItemStack[]{plainItem(Material.NETHERITE_SWORD)}));
+
+        assertSame(sword, filter.filterItemStack(new ItemStack[]{sword})[0]);
+        assertSame(sword, filter.filterItemStack(new ItemStack[]{sword})[0]);
+
+        // Once for the safety check and once for container contents, on the first pass only
+        verify(sword, times(2)).getItemMeta();
+    }
+
+    @Test
+    void whitelistChangeDropsMemoizedVerdicts() {
+        ItemStack sword = itemWithMeta(Material.NETHERITE_SWORD);
+        filter.replaceWhitelist(List.<ItemStack[]>of(new ItemStack[]{plainItem(Material.NETHERITE_SWORD)}));
+        assertSame(sword, filter.filterItemStack(new ItemStack[]{sword})[0]);
+
+        filter.replaceWhitelist(List.<ItemStack[]>of(new ItemStack[]{plainItem(Material.DIRT)}));
+
+        assertNull(filter.filterItemStack(new ItemStack[]{sword})[0]);
+    }
+}
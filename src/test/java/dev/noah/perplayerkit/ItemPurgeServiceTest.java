@@ -1,5 +1,6 @@
 package dev.noah.perplayerkit;
 
+import dev.noah.perplayerkit.storage.MaterialIndex;
 import dev.noah.perplayerkit.storage.StorageManager;
 import dev.noah.perplayerkit.util.IDUtil;
 import dev.noah.perplayerkit.util.Serializer;
@@ -17,16 +18,23 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 class ItemPurgeServiceTest {
 
     private static final UUID PLAYER = UUID.fromString("11111111-2222-3333-4444-555555555555");
 
+    // Batch operations fall back to the per-entry methods stubbed by the tests
+    private StorageManager mockStorage() {
+        return mock(StorageManager.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+    }
+
     private ItemStack mockItem(Material type, int amount) {
         ItemStack item = mock(ItemStack.class);
         when(item.getType()).thenReturn(type);
@@ -57,7 +65,7 @@ class ItemPurgeServiceTest {
 
     @Test
     void purgeAllPlayersSkipsPublicKitsAndKitRoom() {
-        StorageManager storage = mock(StorageManager.class);
+        StorageManager storage = mockStorage();
         KitManager kitManager = mock(KitManager.class);
         String kitId = IDUtil.getPlayerKitId(PLAYER, 1);
 
@@ -86,11 +94,42 @@ class ItemPurgeServiceTest {
         verify(storage, never()).getKitDataByID(IDUtil.getPublicKitId("warrior"));
         verify(storage, never()).getKitDataByID(IDUtil.getKitRoomId(1));
         verify(kitManager).updateCachedKit(kitId, contents);
+        verify(kitManager).markStoredDataChanged(PLAYER);
+    }
+
+    @Test
+    void purgeWithIndexOnlyReadsIndexedEntries() {
+        StorageManager storage = mockStorage();
+        KitManager kitManager = mock(KitManager.class);
+        MaterialIndex index = mock(MaterialIndex.class);
+        String kitId = IDUtil.getPlayerKitId(PLAYER, 1);
+        String otherKitId = IDUtil.getPlayerKitId(PLAYER, 2);
+
+        when(index.find("TNT")).thenReturn(Set.of(kitId, IDUtil.getPublicKitId("warrior")));
+        when(storage.getKitDataByID(kitId)).thenReturn("blob");
+
+        ItemStack[] contents = {mockItem(Material.TNT, 2), mockItem(Material.APPLE, 1)};
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class)) {
+            serializer.when(() -> Serializer.itemStackArrayFromBase64("blob")).thenReturn(contents);
+            serializer.when(() -> Serializer.itemStackArrayToBase64(contents)).thenReturn("newblob");
+
+            ItemPurgeService service = new ItemPurgeService(storage, kitManager, index);
+            ItemPurgeService.PurgeResult result = service.purgeAllPlayers(Material.TNT, null);
+
+            assertEquals(1, result.scanned());
+            assertEquals(2, result.itemsRemoved());
+        }
+
+        verify(storage, never()).getAllKitIDs();
+        verify(storage, never()).getKitDataByID(otherKitId);
+        verify(storage, never()).getKitDataByID(IDUtil.getPublicKitId("warrior"));
+        verify(storage).saveKitDataByID(kitId, "newblob");
     }
 
     @Test
     void deletesEntriesThatBecomeEmpty() {
-        StorageManager storage = mock(StorageManager.class);
+        StorageManager storage = mockStorage();
         KitManager kitManager = mock(KitManager.class);
         String kitId = IDUtil.getPlayerKitId(PLAYER, 3);
 
@@ -117,7 +156,7 @@ class ItemPurgeServiceTest {
 
     @Test
     void leavesEntriesWithoutMatchesUnchanged() {
-        StorageManager storage = mock(StorageManager.class);
+        StorageManager storage = mockStorage();
         KitManager kitManager = mock(KitManager.class);
         String kitId = IDUtil.getPlayerKitId(PLAYER, 2);
 
@@ -139,11 +178,12 @@ class ItemPurgeServiceTest {
 
         verify(storage, never()).saveKitDataByID(any(), any());
         verify(storage, never()).deleteKitByID(any());
+        verify(kitManager, never()).markStoredDataChanged(any());
     }
 
     @Test
     void purgePlayersOnlyTouchesEntriesOfTheGivenPlayers() {
-        StorageManager storage = mock(StorageManager.class);
+        StorageManager storage = mockStorage();
         KitManager kitManager = mock(KitManager.class);
         UUID otherPlayer = UUID.fromString("99999999-8888-7777-6666-555555555555");
         String presentId = IDUtil.getECId(PLAYER, 4);
@@ -184,7 +224,7 @@ class ItemPurgeServiceTest {
 
     @Test
     void countsFailuresWithoutAborting() {
-        StorageManager storage = mock(StorageManager.class);
+        StorageManager storage = mockStorage();
         KitManager kitManager = mock(KitManager.class);
         String badId = IDUtil.getPlayerKitId(PLAYER, 1);
         String goodId = IDUtil.getPlayerKitId(PLAYER, 2);
@@ -171,4 +171,24 @@ class ItemPurgerTest {
         assertTrue(ItemPurger.isEmpty(new ItemStack[]{mockItem(Material.AIR, 1)}));
         assertFalse(ItemPurger.isEmpty(new ItemStack[]{null, mockItem(Material.STONE, 1)}));
     }
+
+    @Test
+    void forEachItemVisitsNestedItemsWithTheirDepth() {
+        ItemStack[] inner = {mockItem(Material.TNT, 10), null};
+        Inventory innerInventory = mock(Inventory.class);
+        when(innerInventory.getContents()).thenReturn(inner);
+        Container container = mock(Container.class);
+        when(container.getInventory()).thenReturn(innerInventory);
+        BlockStateMeta meta = mock(BlockStateMeta.class);
+        when(meta.getBlockState()).thenReturn(container);
+        ItemStack shulker = mockItem(Material.RED_SHULKER_BOX, 1);
+        when(shulker.hasItemMeta()).thenReturn(true);
+        when(shulker.getItemMeta()).thenReturn(meta);
+
+        List<String> visited = new ArrayList<>();
+        ItemPurger.forEachItem(new ItemStack[]{shulker, mockItem(Material.AIR, 1), mockItem(Material.APPLE, 1)},
+                (item, depth) -> visited.add(item.getType() + "@" + depth));
+
+        assertEquals(List.of("RED_SHULKER_BOX@0", "TNT@1", "APPLE@0"), visited);
+    }
 }
@@ -0,0 +1,42 @@
+package dev.noah.perplayerkit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KitArchiveTest {
+
+    @Test
+    void roundTripsEntries() throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        entries.put("11111111-2222-3333-4444-5555555555551", "rO0ABXcEAAAAKXBwcA==\r\nrO0ABXcE");
+        entries.put("11111111-2222-3333-4444-555555555555ec2", "");
+        entries.put("11111111-2222-3333-4444-5555555555559", "x".repeat(200_000));
+
+        String packed = KitArchive.pack(entries);
+
+        assertEquals(entries, KitArchive.unpack(packed));
+        assertTrue(packed.length() < 200_000);
+    }
+
+    @Test
+    void roundTripsAnEmptyArchive() throws IOException {
+        assertTrue(KitArchive.unpack(KitArchive.pack(Map.of())).isEmpty());
+    }
+
+    @Test
+    void rejectsDataThatIsNotAnArchive() {
+        assertThrows(IOException.class, () -> KitArchive.unpack("not base64!"));
+        assertThrows(IOException.class, () -> KitArchive.unpack(Base64.getEncoder().encodeToString(new byte[]{1, 2, 3})));
+
+        String packed = KitArchive.pack(Map.of("id", "data"));
+        assertThrows(IOException.class, () -> KitArchive.unpack(packed.substring(0, packed.length() / 2)));
+    }
+}
@@ -0,0 +1,120 @@
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.storage.StorageManager;
+import dev.noah.perplayerkit.util.Serializer;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KitManagerWriteTest {
+
+    private ItemFilter passThroughFilter() {
+        ItemFilter filter = mock(ItemFilter.class);
+        when(filter.filterItemStack(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        return filter;
+    }
+
+    @Test
+    void failedWriteLeavesTheEntryDirty() {
+        StorageManager storage = mock(StorageManager.class);
+        when(storage.saveKitDataByID("kit", "blob")).thenReturn(false);
+        ItemFilter filter = passThroughFilter();
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class);
+             MockedStatic<ItemFilter> itemFilter = mockStatic(ItemFilter.class)) {
+            itemFilter.when(ItemFilter::get).thenReturn(filter);
+            serializer.when(() -> Serializer.itemStackArrayToBase64(any())).thenReturn("blob");
+            CachedKit entry = CachedKit.ofContents(new ItemStack[]{mock(ItemStack.class)}, null);
+
+            assertFalse(KitManager.writeEntry(storage, "kit", entry));
+            assertTrue(entry.isDirty());
+            // Retried on the next save
+            assertEquals("blob", entry.pendingWrite());
+        }
+    }
+
+    @Test
+    void successfulWriteMarksTheEntryPersisted() {
+        StorageManager storage = mock(StorageManager.class);
+        when(storage.saveKitDataByID("kit", "blob")).thenReturn(true);
+        ItemFilter filter = passThroughFilter();
+        MaterialIndexService index = mock(MaterialIndexService.class);
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class);
+             MockedStatic<ItemFilter> itemFilter = mockStatic(ItemFilter.class);
+             MockedStatic<MaterialIndexService> indexService = mockStatic(MaterialIndexService.class)) {
+            itemFilter.when(ItemFilter::get).thenReturn(filter);
+            indexService.when(MaterialIndexService::get).thenReturn(index);
+            serializer.when(() -> Serializer.itemStackArrayToBase64(any())).thenReturn("blob");
+            CachedKit entry = CachedKit.ofContents(new ItemStack[]{mock(ItemStack.class)}, null);
+
+            assertTrue(KitManager.writeEntry(storage, "kit", entry));
+            assertFalse(entry.isDirty());
+            verify(index).recordSave("kit", entry.contents());
+        }
+    }
+
+    @Test
+    void failedBatchLeavesEveryEntryDirty() {
+        StorageManager storage = mock(StorageManager.class);
+        when(storage.saveKitDataBatch(anyMap())).thenReturn(false);
+        ItemFilter filter = passThroughFilter();
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class);
+             MockedStatic<ItemFilter> itemFilter = mockStatic(ItemFilter.class)) {
+            itemFilter.when(ItemFilter::get).thenReturn(filter);
+            serializer.when(() -> Serializer.itemStackArrayToBase64(any())).thenReturn("blob");
+            CachedKit first = CachedKit.ofContents(new ItemStack[]{mock(ItemStack.class)}, null);
+            CachedKit second = CachedKit.ofContents(new ItemStack[]{mock(ItemStack.class)}, null);
+
+            assertThrows(IllegalStateException.class, () -> KitManager.writeEntries(storage,
+                    List.of(Map.entry("kit-1", first), Map.entry("kit-2", second))));
+            assertTrue(first.isDirty());
+            assertTrue(second.isDirty());
+        }
+    }
+
+    @Test
+    void extraEntriesAreWrittenInTheSameBatch() {
+        StorageManager storage = mock(StorageManager.class);
+        when(storage.saveKitDataBatch(anyMap())).thenReturn(true);
+        ItemFilter filter = passThroughFilter();
+        MaterialIndexService index = mock(MaterialIndexService.class);
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class);
+             MockedStatic<ItemFilter> itemFilter = mockStatic(ItemFilter.class);
+             MockedStatic<MaterialIndexService> indexService = mockStatic(MaterialIndexService.class)) {
+            itemFilter.when(ItemFilter::get).thenReturn(filter);
+            indexService.when(MaterialIndexService::get).thenReturn(index);
+            serializer.when(() -> Serializer.itemStackArrayToBase64(any())).thenReturn("blob");
+            CachedKit entry = CachedKit.ofContents(new ItemStack[]{mock(ItemStack.class)}, null);
+
+            assertEquals(1, KitManager.writeEntries(storage, List.of(Map.entry("kit", entry)), Map.of("stamp", "token")));
+            verify(storage).saveKitDataBatch(Map.of("kit", "blob", "stamp", "token"));
+        }
+    }
+
+    @Test
+    void extraEntriesAreNotWrittenWithoutChanges() {
+        StorageManager storage = mock(StorageManager.class);
+
+        assertEquals(0, KitManager.writeEntries(storage, List.of(Map.entry("kit", CachedKit.ofSerialized("stored"))),
+                Map.of("stamp", "token")));
+        verify(storage, never()).saveKitDataBatch(anyMap());
+    }
+}
@@ -0,0 +1,98 @@
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.storage.StorageManager;
+import dev.noah.perplayerkit.util.IDUtil;
+import dev.noah.perplayerkit.util.Serializer;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class KitRevalidationServiceTest {
+
+    private static final UUID PLAYER = UUID.fromString("11111111-2222-3333-4444-555555555555");
+
+    // Batch operations fall back to the per-entry methods stubbed by the tests
+    private StorageManager mockStorage() {
+        return mock(StorageManager.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+    }
+
+    private ItemStack mockItem(Material type, int amount) {
+        ItemStack item = mock(ItemStack.class);
+        when(item.getType()).thenReturn(type);
+        when(item.getAmount()).thenReturn(amount);
+        return item;
+    }
+
+    @Test
+    void checksPlayerAndPublicKitsButNotTheKitRoom() {
+        assertTrue(KitRevalidationService.isKitId(IDUtil.getPlayerKitId(PLAYER, 1)));
+        assertTrue(KitRevalidationService.isKitId(IDUtil.getECId(PLAYER, 3)));
+        assertTrue(KitRevalidationService.isKitId(IDUtil.getPublicKitId("warrior")));
+
+        assertFalse(KitRevalidationService.isKitId(IDUtil.getKitRoomId(1)));
+        assertFalse(KitRevalidationService.isKitId(IDUtil.getSessionStampId(PLAYER)));
+    }
+
+    @Test
+    void rewritesAffectedKitsInBatches() {
+        StorageManager storage = mockStorage();
+        KitManager kitManager = mock(KitManager.class);
+        String changedId = IDUtil.getPlayerKitId(PLAYER, 1);
+        String untouchedId = IDUtil.getPlayerKitId(PLAYER, 2);
+        String emptiedId = IDUtil.getECId(PLAYER, 1);
+        when(storage.getKitDataByID(changedId)).thenReturn("changed");
+        when(storage.getKitDataByID(untouchedId)).thenReturn("untouched");
+        when(storage.getKitDataByID(emptiedId)).thenReturn("emptied");
+
+        ItemStack[] changed = {mockItem(Material.TNT, 2), mockItem(Material.APPLE, 1)};
+        ItemStack[] untouched = {mockItem(Material.APPLE, 1)};
+        ItemStack[] emptied = {mockItem(Material.END_CRYSTAL, 64)};
+        // The rule set RevalidationJob runs
+        KitTransformer transformer = new KitTransformer(List.of(
+                TransformRules.remove(EnumSet.of(Material.TNT, Material.END_CRYSTAL))));
+        KitTransformService service = new KitTransformService(storage, kitManager, transformer, null, false);
+        KitTransformService.TransformResult result;
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class)) {
+            serializer.when(() -> Serializer.itemStackArrayFromBase64("changed")).thenReturn(changed);
+            serializer.when(() -> Serializer.itemStackArrayFromBase64("untouched")).thenReturn(untouched);
+            serializer.when(() -> Serializer.itemStackArrayFromBase64("emptied")).thenReturn(emptied);
+            serializer.when(() -> Serializer.itemStackArrayToBase64(changed)).thenReturn("newblob");
+
+            result = service.transformBatch(List.of(changedId, untouchedId), null, null);
+            verify(storage).saveKitDataByID(changedId, "newblob");
+            verify(storage, never()).getKitDataByID(emptiedId);
+
+            result = result.plus(service.transformBatch(List.of(emptiedId), null, null));
+        }
+
+        assertEquals(3, result.scanned());
+        assertEquals(2, result.modified());
+        assertEquals(1, result.deleted());
+        assertEquals(66, result.tally().items(0));
+        verify(storage).deleteKitByID(emptiedId);
+        verify(kitManager).updateCachedKit(changedId, changed);
+        verify(kitManager).updateCachedKit(emptiedId, null);
+        verify(kitManager, never()).updateCachedKit(eq(untouchedId), any());
+        verify(kitManager, atLeastOnce()).markStoredDataChanged(PLAYER);
+    }
+}
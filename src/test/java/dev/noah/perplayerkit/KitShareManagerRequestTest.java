@@ -3,12 +3,12 @@ package dev.noah.perplayerkit;
 import org.bukkit.inventory.ItemStack;
 import org.junit.jupiter.api.Test;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -23,13 +23,17 @@ class KitShareManagerRequestTest {
         return ShareRequest.kit(id, sender, "Sender", targetId, new ItemStack[0]);
     }
 
+    private ShareRequest enderchestRequest(String id, UUID targetId) {
+        return ShareRequest.enderchest(id, sender, "Sender", targetId, new ItemStack[0]);
+    }
+
     @Test
     void findRequestsForTargetOnlyReturnsMatchingTarget() {
-        Map<String, ShareRequest> requests = new HashMap<>();
-        requests.put("AAAAAA", kitRequest("AAAAAA", target));
-        requests.put("BBBBBB", kitRequest("BBBBBB", otherTarget));
+        ShareRequestRegistry requests = new ShareRequestRegistry(10, 10);
+        requests.add(kitRequest("AAAAAA", target));
+        requests.add(kitRequest("BBBBBB", otherTarget));
 
-        List<ShareRequest> pending = KitShareManager.findRequestsForTarget(requests, target);
+        List<ShareRequest> pending = requests.findForTarget(target);
 
         assertEquals(1, pending.size());
         assertEquals("AAAAAA", pending.get(0).getId());
@@ -37,35 +41,85 @@ class KitShareManagerRequestTest {
 
     @Test
     void findRequestsForTargetReturnsEmptyWhenNoneMatch() {
-        Map<String, ShareRequest> requests = new HashMap<>();
-        requests.put("AAAAAA", kitRequest("AAAAAA", otherTarget));
+        ShareRequestRegistry requests = new ShareRequestRegistry(10, 10);
+        requests.add(kitRequest("AAAAAA", otherTarget));
 
-        assertTrue(KitShareManager.findRequestsForTarget(requests, target).isEmpty());
+        assertTrue(requests.findForTarget(target).isEmpty());
     }
 
     @Test
     void findRequestByIdMatchesCaseInsensitively() {
-        Map<String, ShareRequest> requests = new HashMap<>();
+        ShareRequestRegistry requests = new ShareRequestRegistry(10, 10);
         ShareRequest request = kitRequest("ABC123", target);
-        requests.put("ABC123", request);
+        requests.add(request);
 
-        assertSame(request, KitShareManager.findRequestById(requests, target, "abc123"));
+        assertSame(request, requests.findForTarget(target, "abc123"));
     }
 
     @Test
     void findRequestByIdRejectsWrongTarget() {
-        Map<String, ShareRequest> requests = new HashMap<>();
-        requests.put("ABC123", kitRequest("ABC123", otherTarget));
+        ShareRequestRegistry requests = new ShareRequestRegistry(10, 10);
+        requests.add(kitRequest("ABC123", otherTarget));
 
-        assertNull(KitShareManager.findRequestById(requests, target, "ABC123"));
+        assertNull(requests.findForTarget(target, "ABC123"));
     }
 
     @Test
     void findRequestByIdReturnsNullForUnknownId() {
-        Map<String, ShareRequest> requests = new HashMap<>();
-        requests.put("ABC123", kitRequest("ABC123", target));
+        ShareRequestRegistry requests = new ShareRequestRegistry(10, 10);
+        requests.add(kitRequest("ABC123", target));
+
+        assertNull(requests.findForTarget(target, "ZZZZZZ"));
+    }
 
-        assertNull(KitShareManager.findRequestById(requests, target, "ZZZZZZ"));
+    @Test
+    void newerRequestOfTheSameTypeReplacesTheOldOne() {
+        ShareRequestRegistry requests = new ShareRequestRegistry(10, 10);
+        ShareRequest first = kitRequest("AAAAAA", target);
+        requests.add(first);
+        requests.add(enderchestRequest("BBBBBB", target));
+
+        ShareRequestRegistry.AddResult result = requests.add(kitRequest("CCCCCC", target));
+
+        assertEquals(ShareRequestRegistry.Outcome.ADDED, result.outcome());
+        assertSame(first, result.replaced());
+        assertFalse(requests.contains("AAAAAA"));
+        assertEquals(List.of("BBBBBB", "CCCCCC"), requests.findForTarget(target).stream().map(ShareRequest::getId).toList());
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    void removingARequestUpdatesEveryIndex() {
+        ShareRequestRegistry requests = new ShareRequestRegistry(1, 10);
+        requests.add(kitRequest("AAAAAA", target));
+
+        assertEquals("AAAAAA", requests.remove("AAAAAA").getId());
+        assertNull(requests.remove("AAAAAA"));
+        assertTrue(requests.findForTarget(target).isEmpty());
+        assertNull(requests.findForTarget(target, "AAAAAA"));
+
+        // The sender's slot and the replace entry are free again
+        ShareRequestRegistry.AddResult result = requests.add(kitRequest("BBBBBB", target));
+        assertEquals(ShareRequestRegistry.Outcome.ADDED, result.outcome());
+        assertNull(result.replaced());
+    }
+
+    @Test
+    void limitsPendingRequestsPerSenderAndTarget() {
+        ShareRequestRegistry requests = new ShareRequestRegistry(2, 1);
+        requests.add(kitRequest("AAAAAA", target));
+
+        ShareRequest fromSomeoneElse = ShareRequest.kit("BBBBBB", UUID.randomUUID(), "Other", target, new ItemStack[0]);
+        assertEquals(ShareRequestRegistry.Outcome.TARGET_LIMIT, requests.add(fromSomeoneElse).outcome());
+        // Replacing doesn't count against the limits
+        assertEquals(ShareRequestRegistry.Outcome.ADDED, requests.add(kitRequest("CCCCCC", target)).outcome());
+
+        requests.add(kitRequest("DDDDDD", otherTarget));
+        assertEquals(ShareRequestRegistry.Outcome.SENDER_LIMIT,
+                requests.add(kitRequest("EEEEEE", UUID.randomUUID())).outcome());
+        assertFalse(requests.contains("BBBBBB"));
+        assertFalse(requests.contains("EEEEEE"));
+        assertEquals(2, requests.size());
     }
 
     @Test
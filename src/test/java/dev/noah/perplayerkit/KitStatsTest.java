@@ -0,0 +1,134 @@
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.util.IDUtil;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.block.Container;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BlockStateMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KitStatsTest {
+
+    private static final UUID PLAYER = UUID.fromString("11111111-2222-3333-4444-555555555555");
+
+    private ItemStack mockItem(Material type, int amount) {
+        ItemStack item = mock(ItemStack.class);
+        when(item.getType()).thenReturn(type);
+        when(item.getAmount()).thenReturn(amount);
+        return item;
+    }
+
+    private ItemStack mockShulker(ItemStack... inner) {
+        Inventory innerInventory = mock(Inventory.class);
+        when(innerInventory.getContents()).thenReturn(inner);
+        Container container = mock(Container.class);
+        when(container.getInventory()).thenReturn(innerInventory);
+        BlockStateMeta meta = mock(BlockStateMeta.class);
+        when(meta.getBlockState()).thenReturn(container);
+
+        ItemStack shulker = mockItem(Material.RED_SHULKER_BOX, 1);
+        when(shulker.hasItemMeta()).thenReturn(true);
+        when(shulker.getItemMeta()).thenReturn(meta);
+        return shulker;
+    }
+
+    @Test
+    void countsEntriesSlotsAndNestedItems() {
+        KitStats stats = new KitStats();
+
+        stats.add(IDUtil.getPlayerKitId(PLAYER, 1), new ItemStack[]{
+                mockItem(Material.TNT, 64), mockShulker(mockItem(Material.TNT, 10)),
+                mockItem(Material.APPLE, 5), mockItem(Material.BREAD, 1), null});
+        stats.add(IDUtil.getECId(PLAYER, 1), new ItemStack[]{mockItem(Material.TNT, 1), null, null});
+        stats.addFailure();
+
+        assertEquals(2, stats.entries());
+        assertEquals(1, stats.kits());
+        assertEquals(1, stats.enderchests());
+        assertEquals(1, stats.failed());
+        assertEquals(3, stats.emptySlots());
+        assertEquals(1, stats.nearEmptyEntries());
+        assertEquals(1, stats.nestedStacks());
+        assertEquals(75, stats.itemCount(Material.TNT));
+        assertEquals(2, stats.itemEntries(Material.TNT));
+        assertEquals(1, stats.itemEntries(Material.RED_SHULKER_BOX));
+    }
+
+    @Test
+    void countsEnchantmentsByLevel() {
+        Enchantment sharpness = mock(Enchantment.class);
+        when(sharpness.getKey()).thenReturn(NamespacedKey.minecraft("sharpness"));
+        ItemMeta meta = mock(ItemMeta.class);
+        when(meta.getEnchants()).thenReturn(Map.of(sharpness, 5));
+        ItemStack sword = mockItem(Material.DIAMOND_SWORD, 1);
+        when(sword.hasItemMeta()).thenReturn(true);
+        when(sword.getItemMeta()).thenReturn(meta);
+
+        KitStats stats = new KitStats();
+        stats.add(IDUtil.getPlayerKitId(PLAYER, 1), new ItemStack[]{sword, sword});
+
+        assertEquals(2, stats.enchantmentCount("sharpness:5"));
+        assertEquals(0, stats.enchantmentCount("sharpness:4"));
+    }
+
+    @Test
+    void mergedCountsMatchCountingEverythingTogether() throws IOException {
+        KitStats first = new KitStats();
+        first.add(IDUtil.getPlayerKitId(PLAYER, 1), new ItemStack[]{mockItem(Material.TNT, 3)});
+        KitStats second = new KitStats();
+        second.add(IDUtil.getPublicKitId("warrior"), new ItemStack[]{mockItem(Material.TNT, 2), mockItem(Material.APPLE, 1)});
+        second.addFailure();
+
+        first.merge(second);
+
+        assertEquals(2, first.entries());
+        assertEquals(1, first.failed());
+        assertEquals(5, first.itemCount(Material.TNT));
+        assertEquals(2, first.itemEntries(Material.TNT));
+
+        StringWriter out = new StringWriter();
+        first.writeCsv(out);
+        String csv = out.toString();
+        assertTrue(csv.startsWith("category,key,count,entries\n"));
+        assertTrue(csv.contains("summary,public_kits,1,1\n"));
+        assertTrue(csv.contains("item,TNT,5,2\n"));
+        assertTrue(csv.indexOf("item,TNT") < csv.indexOf("item,APPLE"));
+    }
+
+    @Test
+    void decodedStatsMatchTheEncodedOnes() throws IOException {
+        Enchantment sharpness = mock(Enchantment.class);
+        when(sharpness.getKey()).thenReturn(NamespacedKey.minecraft("sharpness"));
+        ItemMeta meta = mock(ItemMeta.class);
+        when(meta.getEnchants()).thenReturn(Map.of(sharpness, 5));
+        ItemStack sword = mockItem(Material.DIAMOND_SWORD, 1);
+        when(sword.hasItemMeta()).thenReturn(true);
+        when(sword.getItemMeta()).thenReturn(meta);
+
+        KitStats stats = new KitStats();
+        stats.add(IDUtil.getPlayerKitId(PLAYER, 1), new ItemStack[]{sword, mockItem(Material.TNT, 3), null});
+        stats.add(IDUtil.getECId(PLAYER, 2), new ItemStack[]{mockShulker(mockItem(Material.APPLE, 4))});
+        stats.addFailure();
+
+        StringWriter expected = new StringWriter();
+        stats.writeCsv(expected);
+        StringWriter decoded = new StringWriter();
+        KitStats.decode(stats.encode()).writeCsv(decoded);
+
+        assertEquals(expected.toString(), decoded.toString());
+    }
+}
@@ -0,0 +1,181 @@
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.storage.StorageManager;
+import dev.noah.perplayerkit.util.IDUtil;
+import dev.noah.perplayerkit.util.Serializer;
+import org.bukkit.Material;
+import org.bukkit.block.Container;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BlockStateMeta;
+import org.bukkit.inventory.meta.BundleMeta;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class KitTransformerTest {
+
+    private static final UUID PLAYER = UUID.fromString("11111111-2222-3333-4444-555555555555");
+
+    private ItemStack mockItem(Material type, int amount) {
+        ItemStack item = mock(ItemStack.class);
+        when(item.getType()).thenReturn(type);
+        when(item.getAmount()).thenReturn(amount);
+        return item;
+    }
+
+    @Test
+    void appliesEveryRuleInOnePassAndCountsWhatEachChanged() {
+        ItemStack tnt = mockItem(Material.TNT, 3);
+        ItemStack apples = mockItem(Material.APPLE, 64);
+        ItemStack stone = mockItem(Material.STONE, 1);
+        ItemStack[] contents = {tnt, apples, null, stone};
+        KitTransformer transformer = new KitTransformer(List.of(
+                TransformRules.remove(EnumSet.of(Material.TNT)),
+                TransformRules.maxStack(EnumSet.of(Material.APPLE), 16),
+                TransformRules.replace(Material.STONE, Material.COBBLESTONE)));
+        KitTransformer.Tally tally = new KitTransformer.Tally(3);
+
+        assertTrue(transformer.transform(contents, tally));
+
+        assertNull(contents[0]);
+        assertSame(apples, contents[1]);
+        verify(apples).setAmount(16);
+        verify(stone).setType(Material.COBBLESTONE);
+        assertEquals(1, tally.stacks(0));
+        assertEquals(3, tally.items(0));
+        assertEquals(1, tally.stacks(1));
+        assertEquals(64, tally.items(1));
+        assertEquals(1, tally.stacks(2));
+    }
+
+    @Test
+    void leavesContentsWithoutMatchesUntouched() {
+        ItemStack apples = mockItem(Material.APPLE, 8);
+        ItemStack[] contents = {apples};
+        KitTransformer transformer = new KitTransformer(List.of(TransformRules.maxStack(null, 16)));
+
+        assertFalse(transformer.transform(contents, new KitTransformer.Tally(1)));
+        assertSame(apples, contents[0]);
+        verify(apples, never()).setAmount(anyInt());
+    }
+
+    @Test
+    void transformsItemsInsideContainersAndBundles() {
+        ItemStack[] inner = {mockItem(Material.TNT, 10)};
+        Inventory innerInventory = mock(Inventory.class);
+        when(innerInventory.getContents()).thenReturn(inner);
+        Container container = mock(Container.class);
+        when(container.getInventory()).thenReturn(innerInventory);
+        BlockStateMeta shulkerMeta = mock(BlockStateMeta.class);
+        when(shulkerMeta.getBlockState()).thenReturn(container);
+        ItemStack shulker = mockItem(Material.SHULKER_BOX, 1);
+        when(shulker.getItemMeta()).thenReturn(shulkerMeta);
+
+        ItemStack bundledTnt = mockItem(Material.TNT, 2);
+        ItemStack bundledApple = mockItem(Material.APPLE, 2);
+        BundleMeta bundleMeta = mock(BundleMeta.class);
+        when(bundleMeta.getItems()).thenReturn(new ArrayList<>(List.of(bundledTnt, bundledApple)));
+        ItemStack bundle = mockItem(Material.BUNDLE, 1);
+        when(bundle.getItemMeta()).thenReturn(bundleMeta);
+
+        ItemStack[] contents = {shulker, bundle};
+        KitTransformer.Tally tally = new KitTransformer.Tally(1);
+        KitTransformer transformer = new KitTransformer(List.of(TransformRules.remove(EnumSet.of(Material.TNT))));
+
+        assertTrue(transformer.transform(contents, tally));
+
+        assertNull(inner[0]);
+        verify(innerInventory).setContents(inner);
+        verify(shulker).setItemMeta(shulkerMeta);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ItemStack>> kept = ArgumentCaptor.forClass(List.class);
+        verify(bundleMeta).setItems(kept.capture());
+        assertEquals(List.of(bundledApple), kept.getValue());
+        assertEquals(2, tally.stacks(0));
+        assertEquals(12, tally.items(0));
+    }
+
+    @Test
+    void parsesRuleSetsAndNamesTheInvalidRule() {
+        List<TransformRule> rules = TransformRules.parse(List.of(
+                Map.of("remove", List.of("tnt", "END_CRYSTAL")),
+                Map.of("replace", "ENCHANTED_GOLDEN_APPLE", "with", "GOLDEN_APPLE"),
+                Map.of("max-stack", "*", "amount", 16)));
+
+        assertEquals(3, rules.size());
+        assertEquals(EnumSet.of(Material.TNT, Material.END_CRYSTAL), rules.get(0).materials());
+        assertEquals(Set.of(Material.ENCHANTED_GOLDEN_APPLE), rules.get(1).materials());
+        assertNull(rules.get(2).materials());
+        assertNull(new KitTransformer(rules).materials());
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> TransformRules.parse(List.of(
+                Map.of("remove", "TNT"),
+                Map.of("replace", "NOT_AN_ITEM", "with", "STONE"))));
+        assertEquals("rule 2: unknown item NOT_AN_ITEM", error.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> TransformRules.parse(List.of(Map.of("max-stack", "TNT"))));
+
+        error = assertThrows(IllegalArgumentException.class, () -> TransformRules.parse(List.of(
+                Map.of("replace", "TNT", "with", "WATER"))));
+        assertEquals("rule 1: WATER is not an item", error.getMessage());
+    }
+
+    @Test
+    void dryRunCountsChangesWithoutWriting() {
+        StorageManager storage = mock(StorageManager.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+        KitManager kitManager = mock(KitManager.class);
+        String kitId = IDUtil.getPlayerKitId(PLAYER, 1);
+        String publicKitId = IDUtil.getPublicKitId("warrior");
+        when(storage.getAllKitIDs()).thenReturn(Set.of(kitId, publicKitId, IDUtil.getKitRoomId(1)));
+        when(storage.getKitDataByID(kitId)).thenReturn("blob");
+        when(storage.getKitDataByID(publicKitId)).thenReturn("publicblob");
+
+        ItemStack[] contents = {mockItem(Material.TNT, 2), mockItem(Material.APPLE, 1)};
+        ItemStack[] publicContents = {mockItem(Material.TNT, 1)};
+        KitTransformer transformer = new KitTransformer(List.of(TransformRules.remove(EnumSet.of(Material.TNT))));
+
+        try (MockedStatic<Serializer> serializer = mockStatic(Serializer.class)) {
+            serializer.when(() -> Serializer.itemStackArrayFromBase64("blob")).thenReturn(contents);
+            serializer.when(() -> Serializer.itemStackArrayFromBase64("publicblob")).thenReturn(publicContents);
+
+            KitTransformService service = new KitTransformService(storage, kitManager, transformer, null, true);
+            List<String> ids = service.findEntries(KitTransformService::isKitId);
+            assertEquals(List.of(kitId, publicKitId).stream().sorted().toList(), ids);
+
+            KitTransformService.TransformResult result = service.transformBatch(ids, null, null);
+            assertEquals(2, result.scanned());
+            assertEquals(2, result.modified());
+            assertEquals(1, result.deleted());
+            assertEquals(3, result.tally().items(0));
+            serializer.verify(() -> Serializer.itemStackArrayToBase64(any()), never());
+        }
+
+        verify(storage, never()).saveKitDataByID(any(), any());
+        verify(storage, never()).deleteKitByID(any());
+        verify(kitManager, never()).updateCachedKit(any(), any());
+        verify(kitManager, never()).markStoredDataChanged(any());
+    }
+}
@@ -0,0 +1,62 @@
+package dev.noah.perplayerkit;
+
+import org.bukkit.Material;
+import org.bukkit.block.Container;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BlockStateMeta;
+import org.bukkit.inventory.meta.BundleMeta;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MaterialIndexServiceTest {
+
+    private ItemStack mockItem(Material type) {
+        ItemStack item = mock(ItemStack.class);
+        when(item.getType()).thenReturn(type);
+        when(item.getAmount()).thenReturn(1);
+        return item;
+    }
+
+    @Test
+    void collectsTopLevelMaterialsAndSkipsAir() {
+        ItemStack[] contents = {mockItem(Material.DIAMOND_SWORD), null, mockItem(Material.AIR), mockItem(Material.TNT)};
+
+        assertEquals(Set.of(Material.DIAMOND_SWORD, Material.TNT), MaterialIndexService.materialsOf(contents));
+    }
+
+    @Test
+    void collectsMaterialsNestedInShulkersAndBundles() {
+        ItemStack bundle = mockItem(Material.BUNDLE);
+        BundleMeta bundleMeta = mock(BundleMeta.class);
+        when(bundleMeta.getItems()).thenReturn(List.of(mockItem(Material.ENDER_PEARL)));
+        when(bundle.hasItemMeta()).thenReturn(true);
+        when(bundle.getItemMeta()).thenReturn(bundleMeta);
+
+        Inventory innerInventory = mock(Inventory.class);
+        when(innerInventory.getContents()).thenReturn(new ItemStack[]{mockItem(Material.TNT), bundle});
+        Container container = mock(Container.class);
+        when(container.getInventory()).thenReturn(innerInventory);
+        BlockStateMeta meta = mock(BlockStateMeta.class);
+        when(meta.getBlockState()).thenReturn(container);
+        ItemStack shulker = mockItem(Material.RED_SHULKER_BOX);
+        when(shulker.hasItemMeta()).thenReturn(true);
+        when(shulker.getItemMeta()).thenReturn(meta);
+
+        assertEquals(Set.of(Material.RED_SHULKER_BOX, Material.TNT, Material.BUNDLE, Material.ENDER_PEARL),
+                MaterialIndexService.materialsOf(new ItemStack[]{shulker}));
+    }
+
+    @Test
+    void emptyOrMissingContentsHaveNoMaterials() {
+        assertTrue(MaterialIndexService.materialsOf(null).isEmpty());
+        assertTrue(MaterialIndexService.materialsOf(new ItemStack[4]).isEmpty());
+    }
+}
@@ -0,0 +1,105 @@
+package dev.noah.perplayerkit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OfflineKitCacheTest {
+
+    private static final UUID FIRST = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final UUID THIRD = UUID.fromString("00000000-0000-0000-0000-000000000003");
+
+    @Test
+    void evictsPlayersIdleLongerThanTheTtl() {
+        AtomicLong clock = new AtomicLong();
+        OfflineKitCache cache = new OfflineKitCache(Long.MAX_VALUE, 1000, clock::get);
+
+        cache.touch(FIRST);
+        clock.set(600);
+        cache.touch(SECOND);
+        clock.set(1000);
+
+        assertEquals(List.of(FIRST), cache.evict(uuid -> 10));
+        assertFalse(cache.isTracked(FIRST));
+        assertTrue(cache.isTracked(SECOND));
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhileOverBudget() {
+        AtomicLong clock = new AtomicLong();
+        OfflineKitCache cache = new OfflineKitCache(250, Long.MAX_VALUE, clock::get);
+        Map<UUID, Long> weights = Map.of(FIRST, 100L, SECOND, 100L, THIRD, 100L);
+
+        cache.touch(FIRST);
+        cache.touch(SECOND);
+        cache.touch(THIRD);
+        // Using the first player again makes the second the eldest
+        cache.touch(FIRST);
+
+        assertEquals(List.of(SECOND), cache.evict(weights::get));
+        assertEquals(200, cache.weight());
+        assertTrue(cache.isTracked(FIRST));
+        assertTrue(cache.isTracked(THIRD));
+    }
+
+    @Test
+    void keepsPinnedPlayers() {
+        AtomicLong clock = new AtomicLong();
+        OfflineKitCache cache = new OfflineKitCache(0, 1000, clock::get);
+
+        cache.touch(FIRST);
+        cache.touch(SECOND);
+        clock.set(5000);
+
+        assertEquals(List.of(SECOND), cache.evict(uuid -> uuid.equals(FIRST) ? OfflineKitCache.PINNED : 10));
+        assertTrue(cache.isTracked(FIRST));
+    }
+
+    @Test
+    void keepsMostRecentPlayerUntilExpiredEvenIfOverBudget() {
+        AtomicLong clock = new AtomicLong();
+        OfflineKitCache cache = new OfflineKitCache(50, 1000, clock::get);
+
+        cache.touch(FIRST);
+        cache.touch(SECOND);
+
+        assertEquals(List.of(FIRST), cache.evict(uuid -> 100));
+        assertTrue(cache.isTracked(SECOND));
+
+        clock.set(1000);
+        assertEquals(List.of(SECOND), cache.evict(uuid -> 100));
+    }
+
+    @Test
+    void forgetStopsTracking() {
+        OfflineKitCache cache = new OfflineKitCache(0, 0, () -> 0);
+
+        cache.touch(FIRST);
+        cache.forget(FIRST);
+
+        assertFalse(cache.isTracked(FIRST));
+        assertTrue(cache.evict(uuid -> 10).isEmpty());
+        assertEquals(0, cache.trackedCount());
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        OfflineKitCache cache = new OfflineKitCache(0, 0, () -> 0);
+
+        cache.recordHit();
+        cache.recordHit();
+        cache.recordMiss();
+
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+}
@@ -0,0 +1,156 @@
+package dev.noah.perplayerkit;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class PlayerKitDataTest {
+
+    @Test
+    void tracksOccupancyPerSlotAndType() {
+        PlayerKitData data = new PlayerKitData(9);
+        CachedKit kit = CachedKit.ofSerialized("kit");
+
+        data.put(false, 3, kit);
+
+        assertTrue(data.has(false, 3));
+        assertFalse(data.has(true, 3));
+        assertFalse(data.has(false, 4));
+        assertSame(kit, data.get(false, 3));
+        assertNull(data.get(true, 3));
+
+        data.remove(false, 3);
+        assertFalse(data.has(false, 3));
+        assertTrue(data.isEmpty());
+    }
+
+    @Test
+    void nextSlotIteratesOccupiedSlotsInOrder() {
+        PlayerKitData data = new PlayerKitData(9);
+        data.put(true, 2, CachedKit.ofSerialized("a"));
+        data.put(true, 7, CachedKit.ofSerialized("b"));
+
+        assertEquals(2, data.nextSlot(true, 1));
+        assertEquals(7, data.nextSlot(true, 3));
+        assertEquals(-1, data.nextSlot(true, 8));
+        assertEquals(-1, data.nextSlot(false, 1));
+    }
+
+    @Test
+    void growsForSlotsAboveTheInitialLimit() {
+        PlayerKitData data = new PlayerKitData(9);
+        CachedKit kit = CachedKit.ofSerialized("kit");
+
+        data.put(false, 42, kit);
+
+        assertTrue(data.has(false, 42));
+        assertSame(kit, data.get(false, 42));
+    }
+
+    @Test
+    void conditionalRemoveOnlyClearsExpectedEntry() {
+        PlayerKitData data = new PlayerKitData(9);
+        CachedKit current = CachedKit.ofSerialized("current");
+        data.put(false, 1, current);
+
+        data.remove(false, 1, CachedKit.ofSerialized("stale"));
+        assertSame(current, data.get(false, 1));
+
+        data.remove(false, 1, current);
+        assertFalse(data.has(false, 1));
+    }
+
+    @Test
+    void absorbReplacesCleanEntries() {
+        PlayerKitData data = new PlayerKitData(9);
+        CachedKit stale = CachedKit.ofSerialized("stale");
+        data.put(false, 1, stale);
+
+        PlayerKitData loaded = new PlayerKitData(9);
+        CachedKit fresh = CachedKit.ofSerialized("fresh");
+        CachedKit other = CachedKit.ofSerialized("other");
+        loaded.put(false, 1, fresh);
+        loaded.put(true, 4, other);
+
+        data.absorb(loaded);
+
+        assertSame(fresh, data.get(false, 1));
+        assertSame(other, data.get(true, 4));
+    }
+
+    @Test
+    void absorbKeepsEntriesThatAreNotYetStored() {
+        PlayerKitData data = new PlayerKitData(9);
+        CachedKit edited = CachedKit.ofContents(new ItemStack[]{mock(ItemStack.class)}, null);
+        data.put(false, 1, edited);
+
+        PlayerKitData loaded = new PlayerKitData(9);
+        loaded.put(false, 1, CachedKit.ofSerialized("stored"));
+
+        data.absorb(loaded);
+
+        assertSame(edited, data.get(false, 1));
+    }
+
+    @Test
+    void absorbDoesNotRestoreSlotsRemovedDuringTheLoad() {
+        PlayerKitData data = new PlayerKitData(9);
+        data.put(true, 2, CachedKit.ofSerialized("stored"));
+        data.remove(true, 2);
+
+        PlayerKitData loaded = new PlayerKitData(9);
+        loaded.put(true, 2, CachedKit.ofSerialized("stored"));
+
+        data.absorb(loaded);
+        assertNull(data.get(true, 2));
+
+        data.forgetRemoval(true, 2);
+        data.absorb(loaded);
+        assertNotNull(data.get(true, 2));
+    }
+
+    @Test
+    void weightSumsEntryWeights() {
+        PlayerKitData data = new PlayerKitData(9);
+        data.put(false, 1, CachedKit.ofSerialized("abcd"));
+        data.put(true, 2, CachedKit.ofSerialized("ef"));
+
+        assertEquals(6, data.weight());
+    }
+
+    @Test
+    void reportsUnsavedChanges() {
+        PlayerKitData data = new PlayerKitData(9);
+        data.put(false, 1, CachedKit.ofSerialized("stored"));
+        assertFalse(data.hasUnsavedChanges());
+
+        CachedKit edited = CachedKit.ofContents(new ItemStack[]{mock(ItemStack.class)}, null);
+        data.put(true, 3, edited);
+        assertTrue(data.hasUnsavedChanges());
+
+        edited.markPersisted("written");
+        assertFalse(data.hasUnsavedChanges());
+    }
+
+    @Test
+    void remembersFetchedSlots() {
+        PlayerKitData data = new PlayerKitData(9);
+        data.markFetched(true, 2);
+
+        assertTrue(data.isFetched(true, 2));
+        assertFalse(data.isFetched(false, 2));
+
+        PlayerKitData loaded = new PlayerKitData(9);
+        loaded.markFullyLoaded();
+        data.absorb(loaded);
+
+        assertTrue(data.isFetched(false, 5));
+    }
+}
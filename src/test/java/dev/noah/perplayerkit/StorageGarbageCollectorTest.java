@@ -0,0 +1,51 @@
+package dev.noah.perplayerkit;
+
+import dev.noah.perplayerkit.util.IDUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StorageGarbageCollectorTest {
+
+    private static final UUID PLAYER = UUID.fromString("11111111-2222-3333-4444-555555555555");
+
+    @Test
+    void keepsEverythingThePluginStillReads() {
+        StorageGarbageCollector collector = new StorageGarbageCollector(9, Set.of("warrior"));
+
+        assertEquals(StorageGarbageCollector.Category.LIVE, collector.classify(IDUtil.getPlayerKitId(PLAYER, 9)));
+        assertEquals(StorageGarbageCollector.Category.LIVE, collector.classify(IDUtil.getECId(PLAYER, 1)));
+        assertEquals(StorageGarbageCollector.Category.LIVE, collector.classify(IDUtil.getPublicKitId("warrior")));
+        assertEquals(StorageGarbageCollector.Category.LIVE, collector.classify(IDUtil.getKitRoomId(0)));
+        assertEquals(StorageGarbageCollector.Category.LIVE, collector.classify(IDUtil.getKitRoomId(4)));
+        assertEquals(StorageGarbageCollector.Category.LIVE, collector.classify(IDUtil.getSessionStampId(PLAYER)));
+        assertEquals(StorageGarbageCollector.Category.LIVE, collector.classify(IDUtil.getLastSeenId(PLAYER)));
+        assertEquals(StorageGarbageCollector.Category.LIVE, collector.classify(IDUtil.getArchiveId(PLAYER)));
+    }
+
+    @Test
+    void classifiesUnusedEntries() {
+        StorageGarbageCollector collector = new StorageGarbageCollector(9, Set.of("warrior"));
+
+        assertEquals(StorageGarbageCollector.Category.OUT_OF_RANGE_SLOT, collector.classify(IDUtil.getPlayerKitId(PLAYER, 10)));
+        assertEquals(StorageGarbageCollector.Category.OUT_OF_RANGE_SLOT, collector.classify(IDUtil.getECId(PLAYER, 42)));
+        assertEquals(StorageGarbageCollector.Category.ORPHANED_PUBLIC_KIT, collector.classify(IDUtil.getPublicKitId("archer")));
+        assertEquals(StorageGarbageCollector.Category.UNPARSABLE, collector.classify(IDUtil.getKitRoomId(5)));
+        assertEquals(StorageGarbageCollector.Category.UNPARSABLE, collector.classify(PLAYER + "0"));
+        assertEquals(StorageGarbageCollector.Category.UNPARSABLE, collector.classify(PLAYER + "ec100"));
+        assertEquals(StorageGarbageCollector.Category.UNPARSABLE, collector.classify("not-a-uuidsession"));
+        assertEquals(StorageGarbageCollector.Category.UNPARSABLE, collector.classify("not-a-uuidarchive"));
+        assertEquals(StorageGarbageCollector.Category.UNPARSABLE, collector.classify("public"));
+        assertEquals(StorageGarbageCollector.Category.UNPARSABLE, collector.classify("something"));
+    }
+
+    @Test
+    void keepsPublicKitsWhenTheConfigSectionIsMissing() {
+        StorageGarbageCollector collector = new StorageGarbageCollector(9, null);
+
+        assertEquals(StorageGarbageCollector.Category.LIVE, collector.classify(IDUtil.getPublicKitId("archer")));
+    }
+}
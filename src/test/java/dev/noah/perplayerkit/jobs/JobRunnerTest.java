@@ -0,0 +1,115 @@
+package dev.noah.perplayerkit.jobs;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JobRunnerTest {
+
+    @TempDir
+    File dataFolder;
+
+    private Plugin mockPlugin(YamlConfiguration config) {
+        Plugin plugin = mock(Plugin.class);
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("JobRunnerTest"));
+        when(plugin.getConfig()).thenReturn(config);
+        return plugin;
+    }
+
+    private Job mockJob(String type, String... locks) {
+        Job job = mock(Job.class);
+        when(job.type()).thenReturn(type);
+        when(job.description()).thenReturn(type + " job");
+        when(job.locks()).thenReturn(Set.of(locks));
+        when(job.checkpoint()).thenReturn(Map.of("after", "abc"));
+        return job;
+    }
+
+    @Test
+    void budgetSpreadsTheRateLimitOverSteps() {
+        assertEquals(100, JobRunner.budget(200));
+        assertEquals(1, JobRunner.budget(1));
+    }
+
+    @Test
+    void storageLocksTreatYamlAndYmlAsTheSameStorage() {
+        assertEquals("storage:yml", JobRunner.storageLock("YAML"));
+        assertEquals("storage:yml", JobRunner.storageLock("yml"));
+        assertEquals("storage:mysql", JobRunner.storageLock("MySQL"));
+    }
+
+    @Test
+    void refusesJobsHoldingTheSameLock() {
+        JobRunner runner = new JobRunner(mockPlugin(new YamlConfiguration()));
+        CommandSender console = mock(CommandSender.class);
+
+        int first = runner.submit(mockJob("purge", "storage:mysql"), console);
+        assertTrue(first > 0);
+        assertEquals(-1, runner.submit(mockJob("migrate", "storage:sqlite", "storage:mysql"), console));
+        assertTrue(runner.submit(mockJob("migrate", "storage:sqlite", "storage:redis"), console) > first);
+
+        JobRunner.JobInfo conflict = runner.conflictingJob(List.of("storage:mysql"));
+        assertNotNull(conflict);
+        assertEquals(first, conflict.id());
+        assertNull(runner.conflictingJob(List.of("storage:postgresql")));
+    }
+
+    @Test
+    void pauseAndResumeAreSavedWithTheCheckpoint() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("jobs.operations-per-second.purge", 50);
+        JobRunner runner = new JobRunner(mockPlugin(config));
+        int id = runner.submit(mockJob("purge", "storage:mysql"), mock(CommandSender.class));
+
+        assertTrue(runner.pause(id));
+        assertFalse(runner.pause(id));
+        JobRunner.JobInfo info = runner.list().get(0);
+        assertEquals(JobRunner.State.PAUSED, info.state());
+        assertEquals(50, info.operationsPerSecond());
+
+        JobStore.SavedJob saved = new JobStore(new File(dataFolder, "jobs.yml"), Logger.getLogger("JobRunnerTest"))
+                .load().get(0);
+        assertEquals(id, saved.id());
+        assertEquals("purge", saved.type());
+        assertTrue(saved.paused());
+        assertEquals("abc", saved.checkpoint().get("after"));
+
+        assertTrue(runner.resume(id));
+        assertEquals(JobRunner.State.RUNNING, runner.list().get(0).state());
+        assertFalse(runner.pause(id + 1));
+    }
+
+    @Test
+    void storeRoundTripsCheckpoints() {
+        File file = new File(dataFolder, "jobs.yml");
+        UUID owner = UUID.randomUUID();
+        JobStore store = new JobStore(file, Logger.getLogger("JobRunnerTest"));
+        store.save(new JobStore.SavedJob(3, "migrate", false, owner, Map.of("source", "sqlite", "after", "x")));
+        store.save(new JobStore.SavedJob(4, "purge", true, null, Map.of()));
+        store.remove(4);
+
+        List<JobStore.SavedJob> loaded = new JobStore(file, Logger.getLogger("JobRunnerTest")).load();
+        assertEquals(1, loaded.size());
+        assertEquals(3, loaded.get(0).id());
+        assertEquals(owner, loaded.get(0).owner());
+        assertEquals(Map.of("source", "sqlite", "after", "x"), loaded.get(0).checkpoint());
+    }
+}
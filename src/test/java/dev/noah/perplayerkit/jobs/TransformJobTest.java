@@ -0,0 +1,31 @@
+package dev.noah.perplayerkit.jobs;
+
+import dev.noah.perplayerkit.TransformRules;
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class TransformJobTest {
+
+    @Test
+    void rulesFingerprintChangesWithAnyRuleParameter() {
+        String original = TransformJob.rulesFingerprint(List.of(
+                TransformRules.remove(EnumSet.of(Material.TNT)),
+                TransformRules.maxStack(null, 16)));
+
+        assertEquals(original, TransformJob.rulesFingerprint(List.of(
+                TransformRules.remove(EnumSet.of(Material.TNT)),
+                TransformRules.maxStack(null, 16))));
+        assertNotEquals(original, TransformJob.rulesFingerprint(List.of(
+                TransformRules.remove(EnumSet.of(Material.TNT)),
+                TransformRules.maxStack(null, 8))));
+        assertNotEquals(original, TransformJob.rulesFingerprint(List.of(
+                TransformRules.maxStack(null, 16),
+                TransformRules.remove(EnumSet.of(Material.TNT)))));
+    }
+}
@@ -8,11 +8,14 @@ import org.junit.jupiter.api.Test;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -53,6 +56,106 @@ class SQLStorageTest {
         storage.close();
     }
 
+    @Test
+    void saveKitDataBatchWritesAllEntries() throws Exception {
+        InMemorySQLiteDatabase db = new InMemorySQLiteDatabase();
+        SQLStorage storage = new SQLStorage(db);
+        storage.connect();
+        storage.init();
+        storage.saveKitDataByID("kit-1", "old");
+
+        storage.saveKitDataBatch(Map.of("kit-1", "payload-1", "kit-2", "payload-2"));
+
+        assertEquals("payload-1", storage.getKitDataByID("kit-1"));
+        assertEquals("payload-2", storage.getKitDataByID("kit-2"));
+
+        storage.close();
+    }
+
+    @Test
+    void batchReadSkipsMissingEntriesAndBatchDeleteRemovesAll() throws Exception {
+        InMemorySQLiteDatabase db = new InMemorySQLiteDatabase();
+        SQLStorage storage = new SQLStorage(db);
+        storage.connect();
+        storage.init();
+        storage.saveKitDataBatch(Map.of("kit-1", "payload-1", "kit-2", "payload-2", "kit-3", "payload-3"));
+
+        assertEquals(Map.of("kit-1", "payload-1", "kit-3", "payload-3"),
+                storage.getKitDataBatch(List.of("kit-1", "kit-3", "missing")));
+
+        storage.deleteKitDataBatch(List.of("kit-1", "kit-2"));
+        assertEquals(Set.of("kit-3"), storage.getAllKitIDs());
+
+        storage.close();
+    }
+
+    @Test
+    void materialIndexTracksKitsAndCompletion() throws Exception {
+        InMemorySQLiteDatabase db = new InMemorySQLiteDatabase();
+        SQLStorage storage = new SQLStorage(db);
+        storage.connect();
+        storage.init();
+        MaterialIndex index = storage.getMaterialIndex();
+
+        // Nothing to invalidate before the index exists
+        index.invalidate();
+        index.init();
+        index.init();
+        assertFalse(index.isComplete());
+
+        index.update("kit-1", Set.of("TNT", "DIAMOND_SWORD"));
+        index.update("kit-2", Set.of("TNT"));
+        index.markComplete();
+        assertTrue(index.isComplete());
+        assertEquals(Set.of("kit-1", "kit-2"), index.find("TNT"));
+
+        index.update("kit-1", Set.of("DIAMOND_SWORD"));
+        index.remove("kit-2");
+        assertEquals(Set.of(), index.find("TNT"));
+        assertEquals(Set.of("kit-1"), index.find("DIAMOND_SWORD"));
+
+        index.invalidate();
+        assertFalse(index.isComplete());
+        assertEquals(Set.of("kit-1"), index.find("DIAMOND_SWORD"));
+
+        index.clear();
+        assertEquals(Set.of(), index.find("DIAMOND_SWORD"));
+
+        storage.close();
+    }
+
+    @Test
+    void shareCodesExpireAndAreNotListedAsKits() throws Exception {
+        InMemorySQLiteDatabase db = new InMemorySQLiteDatabase();
+        SQLStorage storage = new SQLStorage(db);
+        storage.connect();
+        storage.init();
+        ShareCodeStore codes = storage.getShareCodeStore();
+        codes.init();
+        codes.init();
+
+        assertTrue(codes.put("ABC123", "payload", 60_000));
+        assertFalse(codes.put("ABC123", "other", 60_000));
+        ShareCodeStore.Entry entry = codes.get("ABC123");
+        assertEquals("payload", entry.data());
+        assertTrue(entry.expiresAt() > System.currentTimeMillis());
+        assertNull(codes.get("ZZZ999"));
+        assertEquals(Set.of(), storage.getAllKitIDs());
+
+        // Expired codes are gone for lookups and can be reused before the sweep
+        assertTrue(codes.put("OLD000", "expired", -1));
+        assertNull(codes.get("OLD000"));
+        assertTrue(codes.put("OLD000", "fresh", 60_000));
+        assertEquals("fresh", codes.get("OLD000").data());
+
+        assertTrue(codes.put("GONE00", "expired", -1));
+        codes.sweep();
+        assertNull(codes.get("GONE00"));
+        assertEquals("payload", codes.get("ABC123").data());
+
+        storage.close();
+    }
+
     @Test
     void keepAliveSucceedsWhenConnected() throws Exception {
         InMemorySQLiteDatabase db = new InMemorySQLiteDatabase();
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Path;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -62,6 +63,20 @@ class YAMLStorageTest {
         assertEquals("error", reloaded.getKitDataByID("kit-1"));
     }
 
+    @Test
+    void saveKitDataBatchPersistsAllEntries(@TempDir Path tempDir) {
+        Path filePath = tempDir.resolve("storage.yml");
+        YAMLStorage storage = new YAMLStorage(plugin, filePath.toString());
+        storage.init();
+
+        storage.saveKitDataBatch(Map.of("kit-1", "payload-1", "kit-2", "payload-2"));
+
+        YAMLStorage reloaded = new YAMLStorage(plugin, filePath.toString());
+        reloaded.init();
+        assertEquals("payload-1", reloaded.getKitDataByID("kit-1"));
+        assertEquals("payload-2", reloaded.getKitDataByID("kit-2"));
+    }
+
     @Test
     void closePersistsCurrentState(@TempDir Path tempDir) {
         Path filePath = tempDir.resolve("storage.yml");
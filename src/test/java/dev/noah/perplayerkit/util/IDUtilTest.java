@@ -5,6 +5,9 @@ import org.junit.jupiter.api.Test;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class IDUtilTest {
 
@@ -31,4 +34,45 @@ class IDUtilTest {
     void getKitRoomIdPrefixesKitRoom() {
         assertEquals("kitroom9", IDUtil.getKitRoomId(9));
     }
+
+    @Test
+    void parsePlayerDataIdRoundTripsKitAndEnderchestIds() {
+        UUID uuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+        IDUtil.PlayerDataId kit = IDUtil.parsePlayerDataId(IDUtil.getPlayerKitId(uuid, 42));
+        assertEquals(uuid, kit.uuid());
+        assertFalse(kit.enderchest());
+        assertEquals(42, kit.slot());
+
+        IDUtil.PlayerDataId ec = IDUtil.parsePlayerDataId(IDUtil.getECId(uuid, 7));
+        assertEquals(uuid, ec.uuid());
+        assertTrue(ec.enderchest());
+        assertEquals(7, ec.slot());
+    }
+
+    @Test
+    void parsePlayerDataIdAcceptsUppercaseHex() {
+        UUID uuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+        assertEquals(uuid, IDUtil.parsePlayerDataId("123E4567-E89B-12D3-A456-4266141740001").uuid());
+    }
+
+    @Test
+    void parsePlayerDataIdRejectsOtherIds() {
+        UUID uuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+        assertNull(IDUtil.parsePlayerDataId(null));
+        assertNull(IDUtil.parsePlayerDataId(uuid.toString()));
+        assertNull(IDUtil.parsePlayerDataId(uuid + "0"));
+        assertNull(IDUtil.parsePlayerDataId(uuid + "05"));
+        assertNull(IDUtil.parsePlayerDataId(uuid + "100"));
+        assertNull(IDUtil.parsePlayerDataId(uuid + "ec"));
+        assertNull(IDUtil.parsePlayerDataId(uuid + "ec0"));
+        assertNull(IDUtil.parsePlayerDataId(uuid + "1a"));
+        assertNull(IDUtil.parsePlayerDataId(IDUtil.getPublicKitId("duel")));
+        assertNull(IDUtil.parsePlayerDataId(IDUtil.getKitRoomId(1)));
+        assertNull(IDUtil.parsePlayerDataId(IDUtil.getSessionStampId(uuid)));
+        assertNull(IDUtil.parsePlayerDataId("123e4567xe89b-12d3-a456-4266141740001"));
+        assertNull(IDUtil.parsePlayerDataId("123g4567-e89b-12d3-a456-4266141740001"));
+    }
 }
@@ -0,0 +1,65 @@
+package dev.noah.perplayerkit.util;
+
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SerializerTest {
+
+    // Equivalent of the previous non-streaming encoder, to check the stored format is unchanged
+    private static String legacyEncode(ItemStack[] items) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream);
+        dataOutput.writeInt(items.length);
+        for (ItemStack item : items) {
+            dataOutput.writeObject(item);
+        }
+        dataOutput.close();
+        return Base64.getMimeEncoder().encodeToString(outputStream.toByteArray());
+    }
+
+    @Test
+    void encodingMatchesPreviousFormat() throws IOException {
+        // Large enough to span several MIME lines
+        ItemStack[] items = new ItemStack[2000];
+
+        assertEquals(legacyEncode(items), Serializer.itemStackArrayToBase64(items));
+        assertEquals(legacyEncode(new ItemStack[41]), Serializer.itemStackArrayToBase64(new ItemStack[41]));
+    }
+
+    @Test
+    void roundTripPreservesLength() throws IOException {
+        ItemStack[] items = new ItemStack[41];
+
+        assertArrayEquals(items, Serializer.itemStackArrayFromBase64(Serializer.itemStackArrayToBase64(items)));
+    }
+
+    @Test
+    void decodesDataWrittenByPreviousEncoder() throws IOException {
+        ItemStack[] items = new ItemStack[27];
+
+        assertEquals(27, Serializer.itemStackArrayFromBase64(legacyEncode(items)).length);
+    }
+
+    @Test
+    void repeatedEncodingReusesBufferWithoutLeakingData() throws IOException {
+        String large = Serializer.itemStackArrayToBase64(new ItemStack[5000]);
+        String small = Serializer.itemStackArrayToBase64(new ItemStack[1]);
+
+        assertEquals(legacyEncode(new ItemStack[1]), small);
+        assertEquals(legacyEncode(new ItemStack[5000]), large);
+    }
+
+    @Test
+    void malformedDataThrowsIOException() {
+        assertThrows(IOException.class, () -> Serializer.itemStackArrayFromBase64("not base64 at all!"));
+    }
+}
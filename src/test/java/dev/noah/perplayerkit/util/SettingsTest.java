@@ -0,0 +1,121 @@
+package dev.noah.perplayerkit.util;
+
+import org.bukkit.Sound;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SettingsTest {
+
+    private static Settings compile(String yaml) throws InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.loadFromString(yaml);
+        return Settings.compile(config, null);
+    }
+
+    @Test
+    void defaultsMatchConfigDefaults() throws Exception {
+        Settings settings = compile("");
+
+        assertTrue(settings.loadEffects(false).isEmpty());
+        assertTrue(settings.loadEffects(true).isEmpty());
+        assertTrue(settings.soundsEnabled());
+        assertEquals(Sound.ENTITY_PLAYER_LEVELUP, settings.sound(SoundManager.FeedbackSound.SUCCESS));
+        assertEquals("perplayerkit.kitnotify", settings.broadcastPermission(BroadcastManager.MessageKey.PLAYER_REPAIRED));
+        assertTrue(settings.rekitOnRespawn());
+        assertFalse(settings.rekitOnKill());
+        assertEquals("command", settings.rgMode());
+    }
+
+    @Test
+    void compilesKitAndEnderchestLoadEffectsSeparately() throws Exception {
+        Settings settings = compile("""
+                feature:
+                  set-health-on-kit-load: true
+                  remove-potion-effects-on-kit-load: true
+                  feed-on-enderchest-load: true
+                """);
+
+        assertEquals(EnumSet.of(Settings.LoadEffect.HEAL, Settings.LoadEffect.CLEAR_POTION_EFFECTS), settings.loadEffects(false));
+        assertEquals(Set.of(Settings.LoadEffect.FEED), settings.loadEffects(true));
+    }
+
+    @Test
+    void invalidSoundFallsBackToDefault() throws Exception {
+        Settings settings = compile("""
+                sounds:
+                  failure: NOT_A_SOUND
+                  click: BLOCK_NOTE_BLOCK_PLING
+                """);
+
+        assertEquals(Sound.ENTITY_ITEM_BREAK, settings.sound(SoundManager.FeedbackSound.FAILURE));
+        assertEquals(Sound.BLOCK_NOTE_BLOCK_PLING, settings.sound(SoundManager.FeedbackSound.CLICK));
+    }
+
+    @Test
+    void disabledBroadcastHasNoPermission() throws Exception {
+        Settings settings = compile("""
+                messages:
+                  player-healed:
+                    enabled: false
+                  player-repaired:
+                    permission: custom.permission
+                """);
+
+        assertNull(settings.broadcastPermission(BroadcastManager.MessageKey.PLAYER_HEALED));
+        assertEquals("custom.permission", settings.broadcastPermission(BroadcastManager.MessageKey.PLAYER_REPAIRED));
+    }
+
+    @Test
+    void rekitOnKillWorldFilter() throws Exception {
+        Settings whitelisted = compile("""
+                feature:
+                  rekit-on-kill:
+                    enabled: true
+                    world-whitelist: [arena]
+                    world-blacklist: [arena, lobby]
+                """);
+        assertTrue(whitelisted.rekitOnKill());
+        assertTrue(whitelisted.isRekitOnKillAllowedIn("arena"));
+        assertFalse(whitelisted.isRekitOnKillAllowedIn("world"));
+
+        Settings blacklisted = compile("""
+                feature:
+                  rekit-on-kill:
+                    enabled: true
+                    world-blacklist: [lobby]
+                """);
+        assertTrue(blacklisted.isRekitOnKillAllowedIn("arena"));
+        assertFalse(blacklisted.isRekitOnKillAllowedIn("lobby"));
+    }
+
+    @Test
+    void supportsOldBooleanRekitOnKill() throws Exception {
+        Settings settings = compile("""
+                feature:
+                  rekit-on-kill: true
+                """);
+
+        assertTrue(settings.rekitOnKill());
+        assertTrue(settings.isRekitOnKillAllowedIn("any"));
+    }
+
+    @Test
+    void matchesDisabledCommandWorlds() throws Exception {
+        Settings settings = compile("""
+                disabled-command-worlds:
+                  - spawn
+                """);
+
+        assertTrue(settings.isCommandDisabledIn("spawn"));
+        assertFalse(settings.isCommandDisabledIn("arena"));
+    }
+}